@@ -0,0 +1,150 @@
+
+/**
+ * Max-min heap with a fixed capacity, that keeps the largest (or the smallest) keys of a stream.
+ *
+ * Every key of the stream is offered to the heap. While the heap is not full the key is inserted.
+ * Once it is full, a key that would be evicted right away is rejected with a single comparison
+ * against the smallest (or largest) kept key, and any other key replaces that key in O(log N).
+ * Both ends of the kept keys can be read in O(1) at any time, so a heap that keeps the largest keys
+ * answers "what are the N largest samples, and what does it take to get in".
+ * Nothing is allocated per offer - the array is allocated once, in the constructor.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+public class BoundedMaxMinHeap{
+    
+    private final MaxMinHeap _heap;
+    private final int _capacity;
+    private final boolean _keepLargest; // true to evict the minimum when full, false to evict the maximum
+    private double _threshold; // the key that is evicted next, valid only when the heap is full
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that creates an empty heap for the given number of keys
+     * @param capacity the maximum number of keys the heap keeps
+     * @param keepLargest true to keep the largest keys (the minimum is evicted when full),
+     *                    false to keep the smallest keys (the maximum is evicted when full)
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public BoundedMaxMinHeap(int capacity, boolean keepLargest){
+        
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        _heap = new MaxMinHeap(capacity);
+        _capacity = capacity;
+        _keepLargest = keepLargest;
+        
+    } // end of constructor BoundedMaxMinHeap
+    
+    /**
+     * Offers a key to the heap.
+     * If the heap is full, the key is kept only if it is larger than the minimum (or smaller than the maximum),
+     * and then it replaces that key. Equal keys are rejected, so the keys that came first stay.
+     * 
+     * @param key the key to offer
+     * @return true if the key was kept, false if it was rejected
+     */
+    public boolean offer(double key){
+        
+        if (_heap.getSize() < _capacity){
+            MaxMinHeap.heapInsert(_heap, key);
+            if (_heap.getSize() == _capacity)
+                updateThreshold();
+            return true;
+        } // end of if statement
+        
+        // the fast path - most keys of a long stream do not get in
+        if (_keepLargest ? key <= _threshold : key >= _threshold)
+            return false;
+        
+        if (_keepLargest)
+            MaxMinHeap.heapReplaceMin(_heap, key);
+        else
+            MaxMinHeap.heapReplaceMax(_heap, key);
+        updateThreshold();
+        return true;
+        
+    } // end of method offer
+    
+    /**
+     * Returns the largest kept key
+     * @return the maximum, or Integer.MAX_VALUE if the heap is empty
+     */
+    public double getMaximum(){
+        
+        return MaxMinHeap.heapMaximum(_heap);
+        
+    } // end of method getMaximum
+    
+    /**
+     * Returns the smallest kept key
+     * @return the minimum, or Integer.MIN_VALUE if the heap is empty
+     */
+    public double getMinimum(){
+        
+        return MaxMinHeap.heapMinimum(_heap);
+        
+    } // end of method getMinimum
+    
+    /**
+     * Returns the kept keys in non-decreasing or non-increasing order. The heap is not changed.
+     * @param descending true for non-increasing order, false for non-decreasing order
+     * @return a new array with the kept keys
+     */
+    public double[] sortedCopy(boolean descending){
+        
+        return MaxMinHeap.sortedCopy(_heap, descending);
+        
+    } // end of method sortedCopy
+    
+    /**
+     * Returns the number of kept keys
+     * @return the size of the heap
+     */
+    public int getSize(){
+        
+        return _heap.getSize();
+        
+    } // end of method getSize
+    
+    /**
+     * Returns the maximum number of keys the heap keeps
+     * @return the capacity of the heap
+     */
+    public int getCapacity(){
+        
+        return _capacity;
+        
+    } // end of method getCapacity
+    
+    /**
+     * Checks which keys the heap keeps
+     * @return true if the heap keeps the largest keys, false if it keeps the smallest ones
+     */
+    public boolean keepsLargest(){
+        
+        return _keepLargest;
+        
+    } // end of method keepsLargest
+    
+    /**
+     * Removes all the keys, keeping the capacity and the array
+     */
+    public void clear(){
+        
+        _heap.resetSize();
+        
+    } // end of method clear
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // caches the key that is evicted next, so a rejected offer reads a single field
+    private void updateThreshold(){
+        
+        _threshold = _keepLargest ? MaxMinHeap.heapMinimum(_heap) : MaxMinHeap.heapMaximum(_heap);
+        
+    } // end of method updateThreshold
+
+} // end of class BoundedMaxMinHeap
@@ -0,0 +1,354 @@
+
+/**
+ * Thread-safe double-ended priority queue built on max-min heaps.
+ *
+ * The keys are spread over a set of stripes, each one a MaxMinHeap with its own lock,
+ * so producers and consumers rarely wait for each other.
+ * An insert goes to the first free stripe starting from a random one.
+ * An extraction looks at the cached maximum (or minimum) of two random stripes and takes
+ * from the better one ("power of two choices").
+ *
+ * Because of that, the queue is relaxed: pollMax returns one of the largest keys, not always
+ * the largest one. The expected rank error grows with the number of stripes, and with a single
+ * stripe the queue is exact.
+ * The number of keys is tracked separately from the stripes, and a key can only be extracted
+ * after a slot was reserved in that count. That is why the blocking methods never miss a key
+ * and never wait while keys are available.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+public class ConcurrentMaxMinHeap{
+    
+    private final Stripe[] _stripes; // the sub-heaps
+    private final AtomicInteger _count = new AtomicInteger(); // number of keys that are not reserved yet
+    private final ReentrantLock _waitLock = new ReentrantLock(); // guards the waiting of the blocking methods
+    private final Condition _notEmpty = _waitLock.newCondition();
+    private volatile int _waiting; // number of threads waiting in a blocking method
+    private static final int STRIPES_PER_CPU = 2;
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that creates a queue with two stripes per available processor
+     */
+    public ConcurrentMaxMinHeap(){
+        
+        this(STRIPES_PER_CPU * Runtime.getRuntime().availableProcessors());
+        
+    } // end of constructor ConcurrentMaxMinHeap
+    
+    /**
+     * Constructor that creates a queue with the given number of stripes.
+     * More stripes mean less contention but a larger rank error, one stripe makes the queue exact.
+     *
+     * @param stripes the number of sub-heaps
+     * @throws IllegalArgumentException if stripes is not positive
+     */
+    public ConcurrentMaxMinHeap(int stripes){
+        
+        if (stripes <= 0)
+            throw new IllegalArgumentException("Illegal number of stripes: " + stripes);
+        _stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++)
+            _stripes[i] = new Stripe();
+        
+    } // end of constructor ConcurrentMaxMinHeap
+    
+    /**
+     * Inserts a key into the queue. The queue is unbounded, so it never rejects a key.
+     * @param key the key to insert
+     * @return true
+     */
+    public boolean offer(double key){
+        
+        int n = _stripes.length;
+        int start = n == 1 ? 0 : ThreadLocalRandom.current().nextInt(n);
+        Stripe stripe = null;
+        // takes the first stripe that is not locked by another thread
+        for (int i = 0; i < n && stripe == null; i++){
+            Stripe s = _stripes[(start + i) % n];
+            if (s.tryLock())
+                stripe = s;
+        } // end of for
+        if (stripe == null){ // all the stripes are busy - waits for the random one
+            stripe = _stripes[start];
+            stripe.lock();
+        } // end of if statement
+        try{
+            MaxMinHeap.heapInsert(stripe._heap, key);
+            stripe.updateBounds();
+        } // end of try
+        finally{
+            stripe.unlock();
+        } // end of finally
+        
+        // publishes the key only after it is in a stripe, so a reservation always finds a key
+        _count.incrementAndGet();
+        if (_waiting > 0)
+            signalNotEmpty();
+        return true;
+        
+    } // end of method offer
+    
+    /**
+     * Extracts one of the largest keys of the queue without waiting
+     * @return the extracted key, or Integer.MAX_VALUE if the queue is empty
+     */
+    public double pollMax(){
+        
+        if (!tryReserve())
+            return Integer.MAX_VALUE;
+        return extract(true);
+        
+    } // end of method pollMax
+    
+    /**
+     * Extracts one of the smallest keys of the queue without waiting
+     * @return the extracted key, or Integer.MIN_VALUE if the queue is empty
+     */
+    public double pollMin(){
+        
+        if (!tryReserve())
+            return Integer.MIN_VALUE;
+        return extract(false);
+        
+    } // end of method pollMin
+    
+    /**
+     * Extracts one of the largest keys of the queue, waiting up to the given time for a key to arrive
+     * @param timeout how long to wait before giving up
+     * @param unit the time unit of timeout
+     * @return the extracted key, or Integer.MAX_VALUE if the time ran out
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public double pollMax(long timeout, TimeUnit unit) throws InterruptedException{
+        
+        if (!reserve(true, unit.toNanos(timeout)))
+            return Integer.MAX_VALUE;
+        return extract(true);
+        
+    } // end of method pollMax
+    
+    /**
+     * Extracts one of the smallest keys of the queue, waiting up to the given time for a key to arrive
+     * @param timeout how long to wait before giving up
+     * @param unit the time unit of timeout
+     * @return the extracted key, or Integer.MIN_VALUE if the time ran out
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public double pollMin(long timeout, TimeUnit unit) throws InterruptedException{
+        
+        if (!reserve(true, unit.toNanos(timeout)))
+            return Integer.MIN_VALUE;
+        return extract(false);
+        
+    } // end of method pollMin
+    
+    /**
+     * Extracts one of the largest keys of the queue, waiting until a key is available
+     * @return the extracted key
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public double takeMax() throws InterruptedException{
+        
+        reserve(false, 0);
+        return extract(true);
+        
+    } // end of method takeMax
+    
+    /**
+     * Extracts one of the smallest keys of the queue, waiting until a key is available
+     * @return the extracted key
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public double takeMin() throws InterruptedException{
+        
+        reserve(false, 0);
+        return extract(false);
+        
+    } // end of method takeMin
+    
+    /**
+     * Returns the number of keys in the queue that are not being extracted
+     * @return the size of the queue
+     */
+    public int size(){
+        
+        return _count.get();
+        
+    } // end of method size
+    
+    /**
+     * Checks if the queue is empty
+     * @return true if there are no keys to extract, otherwise false
+     */
+    public boolean isEmpty(){
+        
+        return _count.get() == 0;
+        
+    } // end of method isEmpty
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // reserves one key of the count if there is any, returns true on success
+    private boolean tryReserve(){
+        
+        int c;
+        do{
+            c = _count.get();
+            if (c == 0)
+                return false;
+        } while (!_count.compareAndSet(c, c - 1));
+        return true;
+        
+    } // end of method tryReserve
+    
+    /*
+     * Reserves one key of the count, waiting until a key arrives.
+     * If timed is true, gives up after nanos nanoseconds and returns false.
+     */
+    private boolean reserve(boolean timed, long nanos) throws InterruptedException{
+        
+        if (tryReserve())
+            return true;
+        _waitLock.lockInterruptibly();
+        try{
+            _waiting++; // offer reads it after publishing a key, so it either sees it or we see the key
+            try{
+                while (!tryReserve()){
+                    if (!timed)
+                        _notEmpty.await();
+                    else if (nanos <= 0)
+                        return false;
+                    else
+                        nanos = _notEmpty.awaitNanos(nanos);
+                } // end of while
+            } // end of try
+            finally{
+                _waiting--;
+            } // end of finally
+            if (_waiting > 0 && _count.get() > 0) // passes the signal on to the next waiting thread
+                _notEmpty.signal();
+            return true;
+        } // end of try
+        finally{
+            _waitLock.unlock();
+        } // end of finally
+        
+    } // end of method reserve
+    
+    // wakes up one thread that waits in a blocking method
+    private void signalNotEmpty(){
+        
+        _waitLock.lock();
+        try{
+            _notEmpty.signal();
+        } // end of try
+        finally{
+            _waitLock.unlock();
+        } // end of finally
+        
+    } // end of method signalNotEmpty
+    
+    /*
+     * Extracts the maximum (or minimum) of a stripe after a key was reserved.
+     * Picks the better of two random stripes by their cached bounds, and falls back to scanning
+     * all the stripes when both of them look empty.
+     */
+    private double extract(boolean max){
+        
+        int n = _stripes.length;
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        while (true){
+            Stripe stripe;
+            if (n == 1)
+                stripe = _stripes[0];
+            else{
+                Stripe a = _stripes[rand.nextInt(n)];
+                Stripe b = _stripes[rand.nextInt(n)];
+                stripe = a.better(b, max) ? a : b;
+                if (stripe.isEmpty())
+                    stripe = scan(max);
+            } // end of else
+            if (stripe == null){ // the reserved key is still being inserted
+                Thread.onSpinWait();
+                continue;
+            } // end of if statement
+            
+            if (n == 1)
+                stripe.lock();
+            else if (!stripe.tryLock()) // another thread works on it - picks again
+                continue;
+            try{
+                if (stripe._heap.getSize() > 0){
+                    double key = max ? MaxMinHeap.heapExtractMax(stripe._heap) : MaxMinHeap.heapExtractMin(stripe._heap);
+                    stripe.updateBounds();
+                    return key;
+                } // end of if statement
+            } // end of try
+            finally{
+                stripe.unlock();
+            } // end of finally
+        } // end of while
+        
+    } // end of method extract
+    
+    // returns the stripe with the best cached bound, or null if all the stripes look empty
+    private Stripe scan(boolean max){
+        
+        Stripe best = null;
+        for (Stripe s : _stripes)
+            if (!s.isEmpty() && (best == null || s.better(best, max)))
+                best = s;
+        return best;
+        
+    } // end of method scan
+    
+    /*
+     * A sub-heap with its lock.
+     * The maximum and minimum are cached in volatile fields so that other threads can choose
+     * a stripe without locking it.
+     */
+    private static class Stripe extends ReentrantLock{
+        
+        private static final long serialVersionUID = 1L;
+        private final MaxMinHeap _heap = new MaxMinHeap();
+        private volatile double _max = Double.NEGATIVE_INFINITY; // the maximum, -infinity when empty
+        private volatile double _min = Double.POSITIVE_INFINITY; // the minimum, +infinity when empty
+        private volatile boolean _empty = true;
+        
+        // refreshes the cached bounds, called while holding the lock
+        private void updateBounds(){
+            
+            _empty = _heap.getSize() == 0;
+            _max = _empty ? Double.NEGATIVE_INFINITY : MaxMinHeap.heapMaximum(_heap);
+            _min = _empty ? Double.POSITIVE_INFINITY : MaxMinHeap.heapMinimum(_heap);
+            
+        } // end of method updateBounds
+        
+        private boolean isEmpty(){
+            
+            return _empty;
+            
+        } // end of method isEmpty
+        
+        // checks if this stripe has a better key to extract than the other stripe
+        private boolean better(Stripe other, boolean max){
+            
+            if (_empty)
+                return false;
+            if (other._empty)
+                return true;
+            return max ? _max >= other._max : _min <= other._min;
+            
+        } // end of method better
+        
+    } // end of class Stripe
+
+} // end of class ConcurrentMaxMinHeap
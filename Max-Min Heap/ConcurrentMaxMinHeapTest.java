@@ -0,0 +1,342 @@
+/**
+ * Multi-threaded test of ConcurrentMaxMinHeap.
+ *
+ * Producers offer distinct keys while consumers take them with every extraction method, and the keys taken
+ * must be exactly the keys offered: none lost and none taken twice. A blocking take only happens after a key
+ * was reserved in the count, so the consumers take exactly as many keys as were offered and never get the
+ * empty-queue values, and a monitor thread checks that the count never leaves [0, offered keys].
+ * Threads waiting on an empty queue must be woken by the keys that arrive (through the Condition), a timed
+ * poll must give up on an empty queue, and an interrupted take must throw.
+ * The ordering is relaxed: with one stripe the queue must match a sorted model exactly, and with more
+ * stripes the extracted keys must be among the largest (or smallest) ones: their mean rank grows with the stripes.
+ *
+ * java ConcurrentMaxMinHeapTest [seed]
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+public class ConcurrentMaxMinHeapTest{
+    
+    final private static int ROUNDS = 20; // number of producer/consumer runs
+    final private static int PRODUCERS = 4, CONSUMERS = 4;
+    final private static int KEYS_PER_PRODUCER = 20000;
+    final private static int WAITERS = 8; // threads that wait on an empty queue
+    final private static long TIMEOUT_SECONDS = 30; // a thread that is not woken in this time fails the test
+    // the time the waiters get to wake up after the keys arrive, well before their timed polls would give up
+    // (a timed poll that wakes by its timeout finds the keys and wakes the others, so it would hide a lost signal)
+    final private static long WAKE_SECONDS = 5;
+    final private static int ORDER_KEYS = 10000; // keys of the ordering checks
+    final private static double MAX_MEAN_RANK_PER_STRIPE = 2; // the bound of the mean rank error of a stripe
+    
+    /**
+     * Runs the test
+     * @param args an optional random seed
+     */
+    public static void main(String[] args) throws InterruptedException{
+        
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        Random random = new Random(seed);
+        
+        for (int round = 0; round < ROUNDS; round++)
+            checkProducersConsumers(1 << random.nextInt(5), random.nextLong());
+        System.out.println("producers and consumers: ok");
+        checkWaiters(1);
+        checkWaiters(8);
+        System.out.println("waking waiters: ok");
+        checkExactOrder(random);
+        checkRelaxedOrder(random, 4);
+        checkRelaxedOrder(random, 16);
+        System.out.println("ordering: ok");
+        
+    } // end of method main
+    
+    /*
+     * Runs producers and consumers on a queue with the given number of stripes, and checks that the
+     * taken keys are the offered keys, and that the count stays between 0 and the number of offered keys.
+     */
+    private static void checkProducersConsumers(int stripes, long seed) throws InterruptedException{
+        
+        ConcurrentMaxMinHeap queue = new ConcurrentMaxMinHeap(stripes);
+        int total = PRODUCERS * KEYS_PER_PRODUCER;
+        AtomicInteger tickets = new AtomicInteger(total); // every consumer takes a key per ticket it gets
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        double[][] taken = new double[CONSUMERS][total];
+        int[] takenCount = new int[CONSUMERS];
+        
+        for (int p = 0; p < PRODUCERS; p++){
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                await(start);
+                double[] keys = shuffledKeys(producer * KEYS_PER_PRODUCER, KEYS_PER_PRODUCER, new Random(seed + producer));
+                for (double key : keys)
+                    check(queue.offer(key), "offer refused a key");
+            }));
+        } // end of for
+        for (int c = 0; c < CONSUMERS; c++){
+            final int consumer = c;
+            threads.add(new Thread(() -> {
+                await(start);
+                Random random = new Random(seed - consumer);
+                try{
+                    while (tickets.getAndDecrement() > 0)
+                        taken[consumer][takenCount[consumer]++] = take(queue, random);
+                } // end of try
+                catch (InterruptedException e){
+                    throw new IllegalStateException("Test failed: a consumer was interrupted");
+                } // end of catch
+            }));
+        } // end of for
+        Thread monitor = new Thread(() -> {
+            await(start);
+            while (!Thread.currentThread().isInterrupted()){
+                int size = queue.size();
+                check(size >= 0 && size <= total, "the count is " + size);
+            } // end of while
+        });
+        threads.add(monitor);
+        for (Thread thread : threads){
+            thread.setDaemon(true); // a stuck thread must not keep the failed test running
+            thread.setUncaughtExceptionHandler((t, e) -> failure.compareAndSet(null, e));
+            thread.start();
+        } // end of for
+        threads.remove(monitor);
+        start.countDown();
+        for (Thread thread : threads){
+            thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            check(!thread.isAlive(), "a thread is stuck (" + stripes + " stripes)");
+        } // end of for
+        monitor.interrupt();
+        monitor.join();
+        if (failure.get() != null)
+            throw new IllegalStateException("Test failed: " + failure.get().getMessage(), failure.get());
+        
+        // the taken keys must be 0 to total-1, each once
+        double[] all = new double[total];
+        int n = 0;
+        for (int c = 0; c < CONSUMERS; c++){
+            System.arraycopy(taken[c], 0, all, n, takenCount[c]);
+            n += takenCount[c];
+        } // end of for
+        check(n == total, n + " keys were taken instead of " + total);
+        Arrays.sort(all);
+        for (int i = 0; i < total; i++)
+            check(all[i] == i, "key " + i + " was lost or taken twice (" + stripes + " stripes)");
+        check(queue.isEmpty() && queue.size() == 0, "the queue is not empty at the end");
+        check(queue.pollMax() == Integer.MAX_VALUE && queue.pollMin() == Integer.MIN_VALUE,
+              "the empty queue returned a key");
+        
+    } // end of method checkProducersConsumers
+    
+    /*
+     * Takes one key with a random extraction method. The non-blocking polls are retried until they get a key,
+     * since the consumer holds a ticket for a key that is offered sooner or later.
+     */
+    private static double take(ConcurrentMaxMinHeap queue, Random random) throws InterruptedException{
+        
+        double key;
+        switch (random.nextInt(6)){
+            case 0: key = queue.takeMax(); break;
+            case 1: key = queue.takeMin(); break;
+            case 2:
+                key = queue.pollMax(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                check(key != Integer.MAX_VALUE, "a timed pollMax gave up while keys were coming");
+                break;
+            case 3:
+                key = queue.pollMin(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                check(key != Integer.MIN_VALUE, "a timed pollMin gave up while keys were coming");
+                break;
+            case 4:
+                while ((key = queue.pollMax()) == Integer.MAX_VALUE)
+                    Thread.onSpinWait();
+                break;
+            default:
+                while ((key = queue.pollMin()) == Integer.MIN_VALUE)
+                    Thread.onSpinWait();
+        } // end of switch
+        check(key >= 0 && key < PRODUCERS * KEYS_PER_PRODUCER, "took " + key + ", which was never offered");
+        return key;
+        
+    } // end of method take
+    
+    /*
+     * Starts threads that wait on an empty queue, offers a key at a time after all of them wait,
+     * and checks that every waiter is woken with a key. Also checks the timed poll and the interrupt of a take.
+     */
+    private static void checkWaiters(int stripes) throws InterruptedException{
+        
+        ConcurrentMaxMinHeap queue = new ConcurrentMaxMinHeap(stripes);
+        check(queue.pollMax(10, TimeUnit.MILLISECONDS) == Integer.MAX_VALUE, "a timed pollMax on an empty queue");
+        check(queue.pollMin(10, TimeUnit.MILLISECONDS) == Integer.MIN_VALUE, "a timed pollMin on an empty queue");
+        
+        double[] got = new double[WAITERS];
+        Thread[] waiters = new Thread[WAITERS];
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        for (int w = 0; w < WAITERS; w++){
+            final int waiter = w;
+            waiters[w] = new Thread(() -> {
+                try{
+                    got[waiter] = waiter % 2 == 0 ? queue.takeMax() : queue.pollMin(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } // end of try
+                catch (InterruptedException e){
+                    throw new IllegalStateException("Test failed: a waiter was interrupted");
+                } // end of catch
+            });
+            waiters[w].setDaemon(true);
+            waiters[w].setUncaughtExceptionHandler((t, e) -> failure.compareAndSet(null, e));
+            waiters[w].start();
+        } // end of for
+        for (Thread waiter : waiters) // all of them are blocked before the first key arrives
+            waitUntilBlocked(waiter);
+        for (int w = 0; w < WAITERS; w++)
+            queue.offer(w);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAKE_SECONDS);
+        for (Thread waiter : waiters){
+            waiter.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            check(!waiter.isAlive(), "a waiter was not woken by a key (" + stripes + " stripes)");
+        } // end of for
+        if (failure.get() != null)
+            throw new IllegalStateException("Test failed: " + failure.get().getMessage(), failure.get());
+        double[] sorted = got.clone();
+        Arrays.sort(sorted);
+        for (int w = 0; w < WAITERS; w++)
+            check(sorted[w] == w, "the waiters did not get the offered keys");
+        check(queue.isEmpty(), "the queue is not empty after the waiters");
+        
+        // a take that waits must throw when it is interrupted
+        AtomicReference<Boolean> interrupted = new AtomicReference<Boolean>(false);
+        Thread taker = new Thread(() -> {
+            try{
+                queue.takeMin();
+            } // end of try
+            catch (InterruptedException e){
+                interrupted.set(true);
+            } // end of catch
+        });
+        taker.setDaemon(true);
+        taker.start();
+        waitUntilBlocked(taker);
+        taker.interrupt();
+        taker.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        check(!taker.isAlive() && interrupted.get(), "an interrupted take did not throw");
+        
+    } // end of method checkWaiters
+    
+    // checks that a queue of one stripe extracts exactly like a sorted model
+    private static void checkExactOrder(Random random){
+        
+        ConcurrentMaxMinHeap queue = new ConcurrentMaxMinHeap(1);
+        TreeMap<Double, Integer> model = new TreeMap<Double, Integer>();
+        for (int op = 0; op < 10 * ORDER_KEYS; op++){
+            int choice = random.nextInt(3);
+            if (choice == 0 || model.isEmpty()){
+                double key = random.nextInt(ORDER_KEYS);
+                queue.offer(key);
+                model.merge(key, 1, Integer::sum);
+            } // end of if statement
+            else{
+                double expected = choice == 1 ? model.lastKey() : model.firstKey();
+                check((choice == 1 ? queue.pollMax() : queue.pollMin()) == expected, "one stripe is not exact");
+                if (model.merge(expected, -1, Integer::sum) == 0)
+                    model.remove(expected);
+            } // end of else
+            check(queue.size() == model.values().stream().mapToInt(Integer::intValue).sum(), "size of one stripe");
+        } // end of for
+        
+    } // end of method checkExactOrder
+    
+    /*
+     * Drains a queue of several stripes with pollMax and pollMin, and checks the relaxed ordering:
+     * every key is extracted once, and the mean rank of the extracted keys (0 for the largest or smallest key)
+     * is at most MAX_MEAN_RANK_PER_STRIPE per stripe.
+     */
+    private static void checkRelaxedOrder(Random random, int stripes){
+        
+        ConcurrentMaxMinHeap queue = new ConcurrentMaxMinHeap(stripes);
+        double[] keys = shuffledKeys(0, ORDER_KEYS, random);
+        for (double key : keys)
+            queue.offer(key);
+        TreeMap<Double, Integer> left = new TreeMap<Double, Integer>();
+        for (double key : keys)
+            left.put(key, 1);
+        long maxRanks = 0, minRanks = 0;
+        int maxCount = 0, minCount = 0;
+        for (int i = 0; i < ORDER_KEYS; i++){
+            boolean max = random.nextBoolean();
+            double key = max ? queue.pollMax() : queue.pollMin();
+            check(left.remove(key) != null, "extracted " + key + ", which is not in the queue");
+            if (max){
+                maxRanks += left.tailMap(key, false).size();
+                maxCount++;
+            } // end of if statement
+            else{
+                minRanks += left.headMap(key, false).size();
+                minCount++;
+            } // end of else
+        } // end of for
+        check(queue.isEmpty(), "the queue is not empty after the drain");
+        double maxRank = (double)maxRanks / maxCount, minRank = (double)minRanks / minCount;
+        check(maxRank <= MAX_MEAN_RANK_PER_STRIPE * stripes, "the mean rank of pollMax is " + maxRank);
+        check(minRank <= MAX_MEAN_RANK_PER_STRIPE * stripes, "the mean rank of pollMin is " + minRank);
+        
+    } // end of method checkRelaxedOrder
+    
+    // returns the keys from first to first+count-1 in a random order
+    private static double[] shuffledKeys(int first, int count, Random random){
+        
+        double[] keys = new double[count];
+        for (int i = 0; i < count; i++)
+            keys[i] = first + i;
+        for (int i = count - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            double swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        } // end of for
+        return keys;
+        
+    } // end of method shuffledKeys
+    
+    // waits until a thread waits (for the lock or the Condition) or ends
+    private static void waitUntilBlocked(Thread thread) throws InterruptedException{
+        
+        Thread.State state = thread.getState();
+        while (state != Thread.State.WAITING && state != Thread.State.TIMED_WAITING && state != Thread.State.TERMINATED){
+            Thread.sleep(1);
+            state = thread.getState();
+        } // end of while
+        
+    } // end of method waitUntilBlocked
+    
+    // waits for the start signal of the threads
+    private static void await(CountDownLatch start){
+        
+        try{
+            start.await();
+        } // end of try
+        catch (InterruptedException e){
+            throw new IllegalStateException("Test failed: interrupted before the start");
+        } // end of catch
+        
+    } // end of method await
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+        
+    } // end of method check
+    
+} // end of class ConcurrentMaxMinHeapTest
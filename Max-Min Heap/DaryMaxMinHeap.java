@@ -0,0 +1,458 @@
+
+/**
+ * Max-Min heap of double keys with d children per node instead of two.
+ *
+ * The arity d is chosen at construction time and must be a power of two (4 is a good default).
+ * The max-min semantics are the same as MaxMinHeap: the elements on even levels are not smaller
+ * than their descendants, and the elements on odd levels are not larger than their descendants.
+ *
+ * With a binary layout, a sift-down in a heap much larger than the cache touches a new cache line at
+ * almost every level. A 4-ary heap has half the levels, and the children of a node (and its 16 grandchildren)
+ * are consecutive in the array, so one step of two levels reads a few adjacent cache lines instead of
+ * jumping to a new one for every level. A sift-down makes more comparisons, but at large sizes the memory
+ * misses cost much more than the comparisons.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.util.Arrays;
+public class DaryMaxMinHeap{
+    
+    private double[] _arr; // internal array that stores the elements of the heap
+    private int _size; // current size of the heap
+    private final int _arity; // number of children of every node
+    private final int _shift; // log2 of the arity
+    final private static int ARRAY_LEN = 512; // default array length
+    // the largest array length the VM can reliably allocate
+    final private static int MAX_ARRAY_LEN = Integer.MAX_VALUE - 8;
+    final private static int MAX_ARITY = 64;
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that initializes a heap of the given arity with an empty array of size 512
+     * @param arity the number of children of every node, a power of two between 2 and 64
+     * @throws IllegalArgumentException if arity is not a power of two between 2 and 64
+     */
+    public DaryMaxMinHeap(int arity){
+        
+        this(arity, ARRAY_LEN);
+        
+    } // end of constructor DaryMaxMinHeap
+    
+    /**
+     * Constructor that initializes a heap of the given arity with an empty array of the given initial capacity
+     * @param arity the number of children of every node, a power of two between 2 and 64
+     * @param initialCapacity the initial array length of the heap
+     * @throws IllegalArgumentException if arity is not a power of two between 2 and 64,
+     *                                  or initialCapacity is negative
+     */
+    public DaryMaxMinHeap(int arity, int initialCapacity){
+        
+        if (arity < 2 || arity > MAX_ARITY || Integer.bitCount(arity) != 1)
+            throw new IllegalArgumentException("Illegal arity: " + arity);
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        _arity = arity;
+        _shift = Integer.numberOfTrailingZeros(arity);
+        _arr = new double[initialCapacity];
+        _size = 0;
+        
+    } // end of constructor DaryMaxMinHeap
+    
+    /**
+     * Adds a new element to the heap (without restoring the heap property)
+     * @param num the element to add
+     */
+    public void add(double num){
+        
+        if (_size == _arr.length) // the array is full - rarely taken
+            grow(_size + 1);
+        _arr[_size] = num;
+        _size++;
+        
+    } // end of method add
+    
+    /**
+     * Returns the size of the heap
+     * @return the size of the heap
+     */
+    public int getSize(){
+        
+        return _size;
+        
+    } // end of method getSize
+    
+    /**
+     * Returns the array length of the heap(capacity)
+     * @return the array length of the heap
+     */
+    public int getCapacity(){
+        
+        return _arr.length;
+        
+    } // end of method getCapacity
+    
+    /**
+     * Returns the number of children of every node
+     * @return the arity of the heap
+     */
+    public int getArity(){
+        
+        return _arity;
+        
+    } // end of method getArity
+    
+    /**
+     * Returns the key at index i of the heap array
+     * @param i the index of the key
+     * @return the key at index i
+     * @throws IndexOutOfBoundsException if i is not an index of the heap
+     */
+    public double getKey(int i){
+        
+        if (i < 0 || i >= _size)
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + _size);
+        return _arr[i];
+        
+    } // end of method getKey
+    
+    /**
+     * Resets the size of the heap
+     */
+    public void resetSize(){
+        
+        _size = 0;
+        
+    } // end of method resetSize
+
+/*---------------------------------Heap operations-------------------------------------------------------------------*/
+    
+    /**
+     * Performs either a max heapify or a min heapify operation at index i,
+     * based on the level of the index in the heap.
+     *
+     * @param heap the heap to perform the heapify operation on
+     * @param i the index to start the heapify operation at
+     */
+    public static void heapify(DaryMaxMinHeap heap, int i){
+        
+        if (isMaxLevel(heap, i))
+            maxHeapify(heap, i);
+        else // if the level is odd, perform a min heapify operation
+            minHeapify(heap, i);
+        
+    } // end of method heapify
+    
+    /**
+     * Builds a max-min heap from the added elements by a bottom-up heap construction.
+     *
+     * @param heap the heap to build
+     */
+    public static void buildHeap(DaryMaxMinHeap heap){
+        
+        for (int i = (heap._size - 2) >> heap._shift; i >= 0; i--)
+            heapify(heap, i);
+        
+    } // end of method buildHeap
+    
+    /**
+     * Extracts and returns the maximum element of the heap.
+     *
+     * @param heap the heap to extract the maximum element from
+     * @return the maximum element of the heap, or Integer.MAX_VALUE if the heap is empty
+     */
+    public static double heapExtractMax(DaryMaxMinHeap heap){
+        
+        if (heap._size == 0)
+            return Integer.MAX_VALUE;
+        return removeAt(heap, 0);
+        
+    } // end of method heapExtractMax
+    
+    /**
+     * Extracts and returns the minimum element of the heap.
+     *
+     * @param heap the heap to extract the minimum element from
+     * @return the minimum element of the heap, or Integer.MIN_VALUE if the heap is empty
+     */
+    public static double heapExtractMin(DaryMaxMinHeap heap){
+        
+        if (heap._size == 0)
+            return Integer.MIN_VALUE;
+        return removeAt(heap, minIndex(heap));
+        
+    } // end of method heapExtractMin
+    
+    /**
+     * Returns the maximum element of the heap without removing it.
+     *
+     * @param heap a max-min heap
+     * @return the maximum element of the heap, or Integer.MAX_VALUE if the heap is empty
+     */
+    public static double heapMaximum(DaryMaxMinHeap heap){
+        
+        if (heap._size == 0)
+            return Integer.MAX_VALUE;
+        return heap._arr[0];
+        
+    } // end of method heapMaximum
+    
+    /**
+     * Returns the minimum element of the heap without removing it.
+     *
+     * @param heap a max-min heap
+     * @return the minimum element of the heap, or Integer.MIN_VALUE if the heap is empty
+     */
+    public static double heapMinimum(DaryMaxMinHeap heap){
+        
+        if (heap._size == 0)
+            return Integer.MIN_VALUE;
+        return heap._arr[minIndex(heap)];
+        
+    } // end of method heapMinimum
+    
+    /**
+     * Inserts a new element into the heap, preserving the heap property.
+     *
+     * @param heap the heap to insert the key into
+     * @param key the value to be inserted into the heap
+     */
+    public static void heapInsert(DaryMaxMinHeap heap, double key){
+        
+        heap.add(key);
+        bubbleUp(heap, heap._size-1);
+        
+    } // end of method heapInsert
+    
+    /**
+     * Deletes the element at index i from the heap, preserving the heap property.
+     *
+     * @param heap the heap
+     * @param i the index of the element to be deleted
+     * @return 1 if the element is successfully deleted, 0 otherwise
+     */
+    public static int heapDelete(DaryMaxMinHeap heap, int i){
+        
+        if (i < 0 || i >= heap._size)
+            return 0;
+        removeAt(heap, i);
+        return 1;
+        
+    } // end of method heapDelete
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // grows the internal array geometrically so it can hold at least minCapacity elements
+    private void grow(int minCapacity){
+        
+        if (minCapacity < 0 || minCapacity > MAX_ARRAY_LEN) // overflow or too many elements
+            throw new OutOfMemoryError("Required heap capacity is too large: " + minCapacity);
+        int oldCapacity = _arr.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1); // 1.5 times the old capacity
+        if (newCapacity - minCapacity < 0)
+            newCapacity = Math.max(minCapacity, ARRAY_LEN);
+        if (newCapacity - MAX_ARRAY_LEN > 0)
+            newCapacity = MAX_ARRAY_LEN;
+        _arr = Arrays.copyOf(_arr, newCapacity);
+        
+    } // end of method grow
+    
+    // removes the element at index i, moving the last leaf into its place, and returns it
+    private static double removeAt(DaryMaxMinHeap heap, int i){
+        
+        double key = heap._arr[i];
+        int last = --heap._size;
+        if (i != last){
+            heap._arr[i] = heap._arr[last];
+            // only one of the methods below actually works
+            bubbleUp(heap, i);
+            heapify(heap, i);
+        } // end of if statement
+        return key;
+        
+    } // end of method removeAt
+    
+    // returns the index of the minimum element of a heap that is not empty - the root or one of its children
+    private static int minIndex(DaryMaxMinHeap heap){
+        
+        if (heap._size == 1)
+            return 0;
+        double[] arr = heap._arr;
+        int last = Math.min(heap._arity, heap._size - 1);
+        int smallest = 1;
+        for (int j = 2; j <= last; j++)
+            if (arr[j] < arr[smallest])
+                smallest = j;
+        return smallest;
+        
+    } // end of method minIndex
+    
+    // returns the index of the parent of the element at index i (-1 for the root)
+    private static int parent(DaryMaxMinHeap heap, int i){
+        
+        return (i-1) >> heap._shift;
+        
+    } // end of method parent
+    
+    // returns the index of the first child of the element at index i
+    private static long firstChild(DaryMaxMinHeap heap, long i){
+        
+        return (i << heap._shift) + 1;
+        
+    } // end of method firstChild
+    
+    /*
+     * Checks if the element at index i is on an even level of the heap (a max level).
+     * The first index of level L is (d^L - 1)/(d - 1), so the level of i is the floored base-d logarithm
+     * of (d-1)*i + 1, which is its highest set bit divided by log2(d).
+     */
+    private static boolean isMaxLevel(DaryMaxMinHeap heap, int i){
+        
+        long x = (long)(heap._arity - 1) * i + 1;
+        int level = (63 - Long.numberOfLeadingZeros(x)) / heap._shift;
+        return (level & 1) == 0;
+        
+    } // end of method isMaxLevel
+    
+    /*
+     * Fixes the subtree rooted at a max level index i, moving the element down through a single hole.
+     * Each step jumps two levels, to the largest of the children and grandchildren of the hole.
+     * When all the grandchildren exist, only they are checked: every child is on a min level and has
+     * children, so it is not larger than the largest of them.
+     */
+    private static void maxHeapify(DaryMaxMinHeap heap, int i){
+        
+        double[] arr = heap._arr;
+        int size = heap._size;
+        int fanOut = heap._arity * heap._arity; // number of grandchildren of a node
+        double key = arr[i]; // the element that moves down
+        
+        while (true){
+            long child = firstChild(heap, i);
+            if (child >= size) // a leaf
+                break;
+            int grandChild = (int)Math.min(firstChild(heap, child), size); // size if there are no grandchildren
+            int largest;
+            if (grandChild + fanOut <= size){ // the common case - all the grandchildren exist
+                largest = grandChild;
+                for (int j = grandChild + 1; j < grandChild + fanOut; j++)
+                    if (arr[j] > arr[largest])
+                        largest = j;
+            } // end of if statement
+            else{ // near the bottom of the heap - checks whichever children and grandchildren exist
+                largest = (int)child;
+                int lastChild = (int)Math.min(child + heap._arity, size);
+                for (int j = largest + 1; j < lastChild; j++)
+                    if (arr[j] > arr[largest])
+                        largest = j;
+                for (int j = grandChild; j < size; j++) // the grandchildren are the last elements
+                    if (arr[j] > arr[largest])
+                        largest = j;
+            } // end of else
+            
+            if (arr[largest] <= key) // the heap property is satisfied
+                break;
+            
+            arr[i] = arr[largest]; // moves the largest element up into the hole
+            i = largest;
+            if (largest < grandChild) // a child - the subtree below it is fine
+                break;
+            
+            // a grandchild - the element must also fit its new parent, which is on a min level
+            int p = parent(heap, i);
+            if (key < arr[p]){
+                double temp = arr[p];
+                arr[p] = key;
+                key = temp;
+            } // end of if statement
+        } // end of while
+        arr[i] = key;
+        
+    } // end of method maxHeapify
+    
+    // fixes the subtree rooted at a min level index i, like maxHeapify with the comparisons reversed
+    private static void minHeapify(DaryMaxMinHeap heap, int i){
+        
+        double[] arr = heap._arr;
+        int size = heap._size;
+        int fanOut = heap._arity * heap._arity; // number of grandchildren of a node
+        double key = arr[i]; // the element that moves down
+        
+        while (true){
+            long child = firstChild(heap, i);
+            if (child >= size) // a leaf
+                break;
+            int grandChild = (int)Math.min(firstChild(heap, child), size); // size if there are no grandchildren
+            int smallest;
+            if (grandChild + fanOut <= size){ // the common case - all the grandchildren exist
+                smallest = grandChild;
+                for (int j = grandChild + 1; j < grandChild + fanOut; j++)
+                    if (arr[j] < arr[smallest])
+                        smallest = j;
+            } // end of if statement
+            else{ // near the bottom of the heap - checks whichever children and grandchildren exist
+                smallest = (int)child;
+                int lastChild = (int)Math.min(child + heap._arity, size);
+                for (int j = smallest + 1; j < lastChild; j++)
+                    if (arr[j] < arr[smallest])
+                        smallest = j;
+                for (int j = grandChild; j < size; j++) // the grandchildren are the last elements
+                    if (arr[j] < arr[smallest])
+                        smallest = j;
+            } // end of else
+            
+            if (arr[smallest] >= key) // the heap property is satisfied
+                break;
+            
+            arr[i] = arr[smallest]; // moves the smallest element up into the hole
+            i = smallest;
+            if (smallest < grandChild) // a child - the subtree below it is fine
+                break;
+            
+            // a grandchild - the element must also fit its new parent, which is on a max level
+            int p = parent(heap, i);
+            if (key > arr[p]){
+                double temp = arr[p];
+                arr[p] = key;
+                key = temp;
+            } // end of if statement
+        } // end of while
+        arr[i] = key;
+        
+    } // end of method minHeapify
+    
+    // moves the element at index i up in the heap until the heap property is satisfied
+    private static void bubbleUp(DaryMaxMinHeap heap, int i){
+        
+        double[] arr = heap._arr;
+        double key = arr[i]; // the element that moves up
+        // flag to determine if the node is at an even or odd level
+        boolean isEvenDepth = isMaxLevel(heap, i);
+        int node = i;
+        
+        // checks if the node violates the max-min heap property with its parent
+        if (node > 0){
+            int parent = parent(heap, node);
+            if ( (isEvenDepth && arr[parent] > key) ||
+            (!isEvenDepth && arr[parent] < key) ){
+                    arr[node] = arr[parent]; // moves the parent down into the hole
+                    node = parent;
+                    isEvenDepth = !isEvenDepth; // the parent is on the other kind of level
+            } // end of if statement
+        } // end of if statement
+        
+        // moves the node up through its grandparents while it violates the max-min heap property with them
+        int grandParent = parent(heap, parent(heap, node));
+        while ( grandParent >= 0 &&
+        ( (isEvenDepth && arr[grandParent] < key) ||
+        (!isEvenDepth && arr[grandParent] > key) ) ){
+                arr[node] = arr[grandParent]; // moves the grandparent down into the hole
+                node = grandParent;
+                grandParent = parent(heap, parent(heap, node));
+        } // end of while
+        arr[node] = key;
+        
+    } // end of method bubbleUp
+
+} // end of class DaryMaxMinHeap
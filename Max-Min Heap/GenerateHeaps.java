@@ -0,0 +1,263 @@
+
+/**
+ * Generates IntMaxMinHeap, LongMaxMinHeap, DoubleMaxMinHeap and ObjectMaxMinHeap from MaxMinHeapVariant.template.
+ * The four heaps share one copy of the sift, build and insert algorithms: the template writes them once,
+ * with LT/LE/GT/GE for the comparisons, and every variant fills in its key type, its empty-heap values
+ * and its comparisons (the operators for the primitive keys, the comparator for the objects).
+ * The syntax of the template is described at its top.
+ *
+ * java GenerateHeaps [check] [directory]
+ * writes the four classes into the directory (the current one by default), or with "check" only
+ * reports the classes that differ from the template, and exits with status 1 if there are any.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+public class GenerateHeaps{
+    
+    /** The file name of the template */
+    public static final String TEMPLATE = "MaxMinHeapVariant.template";
+    /** The names of the variants, which are also the prefixes of their class names */
+    public static final String[] VARIANTS = {"Int", "Long", "Double", "Object"};
+    final private static String[] COMPARISONS = {"LT", "LE", "GT", "GE"};
+    final private static String[] OPERATORS = {"<", "<=", ">", ">="};
+    
+    /**
+     * Writes the generated classes, or checks that they are up to date
+     * @param args "check" to only check the classes, and the directory of the template and the classes
+     * @throws IOException if the template can not be read or a class can not be written
+     */
+    public static void main(String[] args) throws IOException{
+        
+        boolean check = args.length > 0 && args[0].equals("check");
+        int dirArg = check ? 1 : 0;
+        Path dir = Paths.get(args.length > dirArg ? args[dirArg] : ".");
+        if (check){
+            List<String> stale = staleClasses(dir);
+            for (String name : stale)
+                System.out.println(name + ".java differs from " + TEMPLATE + " - run java GenerateHeaps");
+            if (!stale.isEmpty())
+                System.exit(1);
+            System.out.println("The generated heaps are up to date");
+            return;
+        } // end of if statement
+        
+        List<String> template = Files.readAllLines(dir.resolve(TEMPLATE), StandardCharsets.UTF_8);
+        for (String variant : VARIANTS){
+            Path file = dir.resolve(variant + "MaxMinHeap.java");
+            Files.write(file, generate(template, variant).getBytes(StandardCharsets.UTF_8));
+            System.out.println("Wrote " + file);
+        } // end of for
+        
+    } // end of method main
+    
+    /**
+     * Returns the names of the generated classes whose files differ from what the template generates
+     * @param dir the directory of the template and the classes
+     * @return the names of the classes that are missing or out of date (empty if all are up to date)
+     * @throws IOException if the template can not be read
+     */
+    public static List<String> staleClasses(Path dir) throws IOException{
+        
+        List<String> template = Files.readAllLines(dir.resolve(TEMPLATE), StandardCharsets.UTF_8);
+        List<String> stale = new ArrayList<String>();
+        for (String variant : VARIANTS){
+            Path file = dir.resolve(variant + "MaxMinHeap.java");
+            String expected = generate(template, variant);
+            if (!Files.exists(file) || !new String(Files.readAllBytes(file), StandardCharsets.UTF_8).equals(expected))
+                stale.add(variant + "MaxMinHeap");
+        } // end of for
+        return stale;
+        
+    } // end of method staleClasses
+    
+    /**
+     * Generates the source of one variant
+     * @param template the lines of the template
+     * @param variant one of VARIANTS
+     * @return the source of the class of the variant
+     * @throws IllegalArgumentException if the variant is unknown or the template is malformed
+     */
+    public static String generate(List<String> template, String variant){
+        
+        Map<String, String> values = values(variant);
+        boolean object = variant.equals("Object");
+        List<String> lines = new ArrayList<String>();
+        boolean inIf = false, keep = true;
+        for (int n = 0; n < template.size(); n++){
+            String line = template.get(n), trimmed = line.trim();
+            if (trimmed.startsWith("//##")) // a comment of the template
+                continue;
+            if (trimmed.startsWith("//#if ")){
+                if (inIf)
+                    throw new IllegalArgumentException(TEMPLATE + ":" + (n + 1) + ": nested //#if");
+                inIf = true;
+                keep = false;
+                for (String name : trimmed.substring(6).split(","))
+                    if (name.trim().equals(values.get("type")) || name.trim().equals(object ? "object" : "primitive"))
+                        keep = true;
+                continue;
+            } // end of if statement
+            if (trimmed.equals("//#else") || trimmed.equals("//#end")){
+                if (!inIf)
+                    throw new IllegalArgumentException(TEMPLATE + ":" + (n + 1) + ": " + trimmed + " without //#if");
+                inIf = trimmed.equals("//#else");
+                keep = inIf ? !keep : true; // the other branch, or the lines after the //#if
+                continue;
+            } // end of if statement
+            if (!keep)
+                continue;
+            String generated = compare(substitute(line, values, n), object, n);
+            if (!line.trim().isEmpty() && generated.trim().isEmpty()) // a line of an empty value, like $unchecked$
+                continue;
+            lines.add(generated);
+        } // end of for
+        if (inIf)
+            throw new IllegalArgumentException(TEMPLATE + ": //#if without //#end");
+        return indentBlankLines(lines);
+        
+    } // end of method generate
+    
+    // returns the values of the $name$ placeholders of a variant
+    private static Map<String, String> values(String variant){
+        
+        Map<String, String> values = new HashMap<String, String>();
+        String heap = variant + "MaxMinHeap";
+        values.put("generated", "// Generated by GenerateHeaps from " + TEMPLATE + " - edit the template, not this file");
+        values.put("Heap", heap);
+        switch (variant){
+            case "Int":
+                values.put("MAX", "Integer.MAX_VALUE");
+                values.put("MIN", "Integer.MIN_VALUE");
+                break;
+            case "Long":
+                values.put("MAX", "Long.MAX_VALUE");
+                values.put("MIN", "Long.MIN_VALUE");
+                break;
+            case "Double": // the same empty-heap values as MaxMinHeap
+                values.put("MAX", "Integer.MAX_VALUE");
+                values.put("MIN", "Integer.MIN_VALUE");
+                break;
+            case "Object":
+                values.put("MAX", "null");
+                values.put("MIN", "null");
+                break;
+            default: throw new IllegalArgumentException("Unknown variant: " + variant);
+        } // end of switch
+        if (variant.equals("Object")){
+            values.put("type", "object");
+            values.put("key", "T");
+            values.put("slot", "Object");
+            values.put("HeapT", heap + "<T>");
+            values.put("HeapExtendsT", heap + "<? extends T>");
+            values.put("<T>", "<T> ");
+            values.put("cast", "(T)");
+            values.put("unchecked", "@SuppressWarnings(\"unchecked\")");
+            values.put("elem", "element");
+            values.put("elems", "elements");
+            values.put("a_elem", "an element");
+            values.put("releases", " and clears its slot");
+        } // end of if statement
+        else{
+            String type = variant.toLowerCase();
+            values.put("type", type);
+            values.put("key", type);
+            values.put("slot", type);
+            values.put("HeapT", heap);
+            values.put("HeapExtendsT", heap);
+            values.put("<T>", "");
+            values.put("cast", "");
+            values.put("unchecked", "");
+            values.put("elem", "key");
+            values.put("elems", "keys");
+            values.put("a_elem", "a key");
+            values.put("releases", "");
+        } // end of else
+        return values;
+        
+    } // end of method values
+    
+    // replaces the $name$ placeholders of a line of the template
+    private static String substitute(String line, Map<String, String> values, int n){
+        
+        StringBuilder out = new StringBuilder();
+        int from = 0;
+        for (int start = line.indexOf('$'); start >= 0; start = line.indexOf('$', from)){
+            int end = line.indexOf('$', start + 1);
+            if (end < 0)
+                throw new IllegalArgumentException(TEMPLATE + ":" + (n + 1) + ": unclosed placeholder");
+            String value = values.get(line.substring(start + 1, end));
+            if (value == null)
+                throw new IllegalArgumentException(TEMPLATE + ":" + (n + 1) + ": unknown placeholder " + line.substring(start, end + 1));
+            out.append(line, from, start).append(value);
+            from = end + 1;
+        } // end of for
+        return out.append(line.substring(from)).toString();
+        
+    } // end of method substitute
+    
+    // expands the LT/LE/GT/GE(a, b) comparisons of a line, with the operators or with the comparator
+    private static String compare(String line, boolean object, int n){
+        
+        for (int c = 0; c < COMPARISONS.length; c++){
+            String macro = COMPARISONS[c] + "(";
+            for (int start = line.indexOf(macro); start >= 0; start = line.indexOf(macro, start + 1)){
+                if (start > 0 && Character.isJavaIdentifierPart(line.charAt(start - 1))) // part of another name
+                    continue;
+                // finds the comma between the two arguments and the closing parenthesis
+                int depth = 0, comma = -1, end = -1;
+                for (int i = start + macro.length(); i < line.length() && end < 0; i++){
+                    char ch = line.charAt(i);
+                    if (ch == '(' || ch == '[')
+                        depth++;
+                    else if ((ch == ')' || ch == ']') && depth > 0)
+                        depth--;
+                    else if (ch == ',' && depth == 0)
+                        comma = i;
+                    else if (ch == ')')
+                        end = i;
+                } // end of for
+                if (comma < 0 || end < 0)
+                    throw new IllegalArgumentException(TEMPLATE + ":" + (n + 1) + ": malformed " + COMPARISONS[c]);
+                String a = line.substring(start + macro.length(), comma).trim(), b = line.substring(comma + 1, end).trim();
+                String expanded = object ? "compare(heap, " + a + ", " + b + ") " + OPERATORS[c] + " 0"
+                                         : a + " " + OPERATORS[c] + " " + b;
+                line = line.substring(0, start) + expanded + line.substring(end + 1);
+            } // end of for
+        } // end of for
+        return line;
+        
+    } // end of method compare
+    
+    // indents the blank lines like the rest of the project: a blank line inside the class has the indentation of
+    // the next line, plus a level before a closing brace, and the lines before a banner or the end of the class are empty
+    private static String indentBlankLines(List<String> lines){
+        
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++){
+            String line = lines.get(i);
+            if (line.trim().isEmpty() && i > 0){
+                String next = "";
+                for (int j = i + 1; j < lines.size() && next.isEmpty(); j++)
+                    if (!lines.get(j).trim().isEmpty())
+                        next = lines.get(j);
+                line = next.substring(0, next.length() - next.stripLeading().length());
+                if (next.trim().startsWith("}") && !line.isEmpty())
+                    line += "    ";
+            } // end of if statement
+            out.append(line).append('\n');
+        } // end of for
+        return out.toString();
+        
+    } // end of method indentBlankLines
+    
+} // end of class GenerateHeaps
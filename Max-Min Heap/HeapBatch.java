@@ -0,0 +1,395 @@
+/**
+ * Headless command mode for scripts: runs a stream of heap operations against one max-min heap.
+ *
+ * Every line holds one operation (words and numbers are separated by whitespace or commas):
+ *   insert k1 k2 ...    inserts the keys
+ *   extractMax [n]      extracts the maximum n times (once by default)
+ *   extractMin [n]      extracts the minimum n times (once by default)
+ *   delete i            deletes the key at index i of the heap array
+ *   sort                sorts the keys and empties the heap, like the sort of the menu
+ *   print               prints the heap array
+ *   max, min, size      prints the maximum, the minimum or the size
+ * Empty lines and lines that start with # are ignored.
+ *
+ * The operations run in batches: consecutive inserts (on one line or on many) are collected and inserted
+ * together with heapInsertAll, which builds the heap once when the batch is larger than the heap.
+ * Nothing is printed unless it is asked for: print, max, min and size always print, and the extracted and
+ * sorted keys are printed only in echo mode. The output goes through one buffered writer and is flushed at
+ * the end. A bad line is reported on the standard error with its number and skipped.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+public class HeapBatch{
+    
+    private final MaxMinHeap _heap;
+    private final PrintWriter _out;
+    private final boolean _echo; // true to print the extracted and sorted keys
+    private double[] _pending = new double[BATCH_KEYS]; // the keys of the inserts that were not run yet
+    private int _pendingSize;
+    private int _batchKeys = BATCH_KEYS; // the pending inserts are run when this many keys are collected
+    private double[] _sorted = new double[0]; // reused by sort
+    private byte[] _buf = new byte[BUFFER_BYTES];
+    private int _pos, _limit; // the unread bytes of the buffer
+    private int _lineStart, _lineEnd; // the current line in the buffer
+    private boolean _eof;
+    private long _lineNumber;
+    private long _operations; // every inserted key, extraction, deletion and query counts as one
+    private long _errors;
+    final private static int BUFFER_BYTES = 1 << 16;
+    final private static int BATCH_KEYS = 1 << 13; // the first batch size, it grows with the heap
+    final private static int MAX_PENDING = 1 << 20; // the largest batch of inserts
+    final private static byte[] INSERT = word("insert"), EXTRACT_MAX = word("extractMax"),
+                                EXTRACT_MIN = word("extractMin"), DELETE = word("delete"), SORT = word("sort"),
+                                PRINT = word("print"), MAX = word("max"), MIN = word("min"), SIZE = word("size");
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that creates a command runner for the given heap
+     * @param heap the heap the operations run against
+     * @param out the writer of the requested output - it should be buffered, it is flushed at the end of run
+     * @param echo true to print the extracted and sorted keys, false to only print what print, max, min and size ask for
+     */
+    public HeapBatch(MaxMinHeap heap, PrintWriter out, boolean echo){
+        
+        _heap = heap;
+        _out = out;
+        _echo = echo;
+        
+    } // end of constructor HeapBatch
+    
+    /**
+     * Runs all the operations of the given channel, and flushes the output
+     * @param in the channel to read the operations from
+     * @throws IOException if the operations cannot be read
+     */
+    public void run(ReadableByteChannel in) throws IOException{
+        
+        while (nextLine(in))
+            execute(_lineStart, _lineEnd);
+        flushInserts();
+        _out.flush();
+        
+    } // end of method run
+    
+    /**
+     * Returns the number of operations run so far. Every inserted key counts as one operation.
+     * @return the number of operations
+     */
+    public long getOperations(){
+        
+        return _operations;
+        
+    } // end of method getOperations
+    
+    /**
+     * Returns the number of lines that were skipped because they are not valid operations
+     * @return the number of bad lines
+     */
+    public long getErrors(){
+        
+        return _errors;
+        
+    } // end of method getErrors
+    
+    /**
+     * Runs the operations of a file (or of the standard input) against an empty heap,
+     * and reports the throughput on the standard error.
+     * @param args the file of operations or "-" for the standard input, and optionally "echo"
+     */
+    public static void main(String[] args){
+        
+        String source = args.length > 0 ? args[0] : "-";
+        boolean echo = args.length > 1 && args[1].equals("echo");
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                                                                                    StandardCharsets.US_ASCII), BUFFER_BYTES));
+        HeapBatch batch = new HeapBatch(new MaxMinHeap(), out, echo);
+        long start = System.nanoTime();
+        try (ReadableByteChannel in = source.equals("-") ? new FileInputStream(FileDescriptor.in).getChannel()
+                                                         : FileChannel.open(Paths.get(source))){
+            batch.run(in);
+        } // end of try
+        catch (IOException | InvalidPathException e){
+            out.flush();
+            System.err.println("Cannot read " + source + " (" + e + ")");
+            return;
+        } // end of catch
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Ran %d operations in %.3f seconds, %.0f operations per second, %d bad lines%n",
+                          batch._operations, seconds, batch._operations / seconds, batch._errors);
+        
+    } // end of method main
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // runs the operation of the line buf[start, end)
+    private void execute(int start, int end){
+        
+        byte[] buf = _buf;
+        int i = skipSeparators(start, end);
+        if (i == end || buf[i] == '#') // an empty line or a comment
+            return;
+        int wordEnd = tokenEnd(i, end);
+        if (is(INSERT, i, wordEnd)){
+            int mark = _pendingSize; // a line with a bad key inserts none of its keys
+            for (int k = skipSeparators(wordEnd, end); k < end; k = skipSeparators(wordEnd, end)){
+                wordEnd = tokenEnd(k, end);
+                double key = HeapLoader.parse(buf, k, wordEnd);
+                if (key != key){ // NaN - not a number
+                    _pendingSize = mark;
+                    error("invalid key " + text(k, wordEnd));
+                    return;
+                } // end of if statement
+                if (_pendingSize == _pending.length)
+                    _pending = Arrays.copyOf(_pending, _pending.length * 2);
+                _pending[_pendingSize++] = key;
+            } // end of for
+            if (_pendingSize == mark)
+                error("insert needs at least one key");
+            else if (_pendingSize >= _batchKeys)
+                flushInserts();
+            return;
+        } // end of if statement
+        
+        flushInserts(); // the other operations see all the keys inserted before them
+        int argStart = skipSeparators(wordEnd, end), argEnd = tokenEnd(argStart, end);
+        if (skipSeparators(argEnd, end) != end){
+            error("too many arguments");
+            return;
+        } // end of if statement
+        long arg = argStart == end ? -1 : parseCount(argStart, argEnd);
+        if (argStart != end && arg < 0){
+            error("invalid number " + text(argStart, argEnd));
+            return;
+        } // end of if statement
+        
+        if (is(EXTRACT_MAX, i, wordEnd) || is(EXTRACT_MIN, i, wordEnd)){
+            boolean max = is(EXTRACT_MAX, i, wordEnd);
+            long count = Math.min(arg < 0 ? 1 : arg, _heap.getSize());
+            for (long c = 0; c < count; c++){
+                double key = max ? MaxMinHeap.heapExtractMax(_heap) : MaxMinHeap.heapExtractMin(_heap);
+                if (_echo)
+                    printKey(key).println();
+            } // end of for
+            _operations += count;
+        } // end of if statement
+        else if (is(DELETE, i, wordEnd)){
+            if (arg < 0 || arg >= _heap.getSize())
+                error("index is out of range");
+            else{
+                MaxMinHeap.heapDelete(_heap, (int)arg);
+                _operations++;
+            } // end of else
+        } // end of else if
+        else if (!is(SORT, i, wordEnd) && !is(PRINT, i, wordEnd) && !is(MAX, i, wordEnd) &&
+                 !is(MIN, i, wordEnd) && !is(SIZE, i, wordEnd))
+            error("unknown operation " + text(i, wordEnd));
+        else if (arg >= 0)
+            error(text(i, wordEnd) + " takes no argument");
+        else if (is(SORT, i, wordEnd)){
+            int size = _heap.getSize();
+            if (_echo){
+                if (_sorted.length < size)
+                    _sorted = new double[size];
+                MaxMinHeap.toSortedArray(_heap, _sorted);
+                printKeys(_sorted, size);
+            } // end of if statement
+            _heap.resetSize(); // like heapSort, the sorted keys are no longer a heap
+            _operations++;
+        } // end of else if
+        else if (is(PRINT, i, wordEnd)){
+            int size = _heap.getSize();
+            if (_sorted.length < size)
+                _sorted = new double[size];
+            for (int k = 0; k < size; k++)
+                _sorted[k] = _heap.getKey(k);
+            printKeys(_sorted, size);
+            _operations++;
+        } // end of else if
+        else if (is(MAX, i, wordEnd) || is(MIN, i, wordEnd)){
+            if (_heap.getSize() == 0)
+                _out.println("empty");
+            else
+                printKey(is(MAX, i, wordEnd) ? MaxMinHeap.heapMaximum(_heap) : MaxMinHeap.heapMinimum(_heap)).println();
+            _operations++;
+        } // end of else if
+        else{ // size
+            _out.println(_heap.getSize());
+            _operations++;
+        } // end of else
+        
+    } // end of method execute
+    
+    // inserts the pending keys into the heap in one batch
+    private void flushInserts(){
+        
+        if (_pendingSize == 0)
+            return;
+        MaxMinHeap.heapInsertAll(_heap, _pending, 0, _pendingSize);
+        _operations += _pendingSize;
+        _pendingSize = 0;
+        if (_batchKeys < _heap.getSize() && _batchKeys < MAX_PENDING)
+            _batchKeys *= 2; // larger batches for a larger heap
+        
+    } // end of method flushInserts
+    
+    /*
+     * Finds the next line of the input and sets _lineStart and _lineEnd to it.
+     * Returns false if the input has ended.
+     */
+    private boolean nextLine(ReadableByteChannel in) throws IOException{
+        
+        int scanned = _pos; // the bytes before it were already scanned for a newline
+        while (true){
+            for (int i = scanned; i < _limit; i++)
+                if (_buf[i] == '\n'){
+                    _lineStart = _pos;
+                    _lineEnd = i;
+                    _pos = i + 1;
+                    _lineNumber++;
+                    return true;
+                } // end of if statement
+            if (_eof){ // the last line may have no newline
+                if (_pos == _limit)
+                    return false;
+                _lineStart = _pos;
+                _lineEnd = _limit;
+                _pos = _limit;
+                _lineNumber++;
+                return true;
+            } // end of if statement
+            scanned = _limit - _pos;
+            fill(in);
+        } // end of while
+        
+    } // end of method nextLine
+    
+    // moves the unread bytes to the start of the buffer and reads more after them, growing the buffer for long lines
+    private void fill(ReadableByteChannel in) throws IOException{
+        
+        int remaining = _limit - _pos;
+        if (remaining == _buf.length) // a line longer than the buffer
+            _buf = Arrays.copyOf(_buf, _buf.length * 2);
+        System.arraycopy(_buf, _pos, _buf, 0, remaining);
+        _pos = 0;
+        ByteBuffer buffer = ByteBuffer.wrap(_buf, remaining, _buf.length - remaining);
+        int n = 0;
+        while (n == 0)
+            n = in.read(buffer);
+        if (n < 0)
+            _eof = true;
+        _limit = buffer.position();
+        
+    } // end of method fill
+    
+    // returns the index of the first byte of buf[i, end) that is not a separator, or end
+    private int skipSeparators(int i, int end){
+        
+        while (i < end && isSeparator(_buf[i]))
+            i++;
+        return i;
+        
+    } // end of method skipSeparators
+    
+    // returns the index after the token that starts at i
+    private int tokenEnd(int i, int end){
+        
+        while (i < end && !isSeparator(_buf[i]))
+            i++;
+        return i;
+        
+    } // end of method tokenEnd
+    
+    // returns true if the byte separates words and numbers
+    private static boolean isSeparator(byte b){
+        
+        return b == ' ' || b == ',' || b == '\t' || b == '\r' || b == '\f';
+        
+    } // end of method isSeparator
+    
+    // returns true if buf[start, end) is the given word
+    private boolean is(byte[] word, int start, int end){
+        
+        return Arrays.equals(_buf, start, end, word, 0, word.length);
+        
+    } // end of method is
+    
+    // parses a non-negative count in buf[start, end), returns -1 if it is not one
+    private long parseCount(int start, int end){
+        
+        if (end - start > 18) // more than any heap can hold
+            return -1;
+        long count = 0;
+        for (int i = start; i < end; i++){
+            int d = _buf[i] - '0';
+            if (d < 0 || d > 9)
+                return -1;
+            count = count * 10 + d;
+        } // end of for
+        return count;
+        
+    } // end of method parseCount
+    
+    // prints a key as an integer if it is one, like the menus do
+    private PrintWriter printKey(double key){
+        
+        if (key == (int)key)
+            _out.print((int)key);
+        else
+            _out.print(key);
+        return _out;
+        
+    } // end of method printKey
+    
+    // prints the keys as one line in square brackets, like printHeap
+    private void printKeys(double[] keys, int length){
+        
+        _out.print('[');
+        for (int i = 0; i < length; i++){
+            if (i > 0)
+                _out.print(", ");
+            printKey(keys[i]);
+        } // end of for
+        _out.println(']');
+        
+    } // end of method printKeys
+    
+    // reports a bad line on the standard error
+    private void error(String message){
+        
+        _errors++;
+        _out.flush(); // keeps the order of the output and the errors on a terminal
+        System.err.println("line " + _lineNumber + ": " + message);
+        
+    } // end of method error
+    
+    // returns buf[start, end) as a string, for error messages
+    private String text(int start, int end){
+        
+        return new String(_buf, start, end - start, StandardCharsets.ISO_8859_1);
+        
+    } // end of method text
+    
+    // returns the ASCII bytes of a word
+    private static byte[] word(String word){
+        
+        return word.getBytes(StandardCharsets.US_ASCII);
+        
+    } // end of method word
+
+} // end of class HeapBatch
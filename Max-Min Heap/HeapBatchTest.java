@@ -0,0 +1,414 @@
+/**
+ * Tests of the command parsing of HeapBatch against a simple interpreter of the same commands.
+ *
+ * Random scripts mix valid operations with bad lines (unknown words, keys that are not numbers, missing, extra
+ * and invalid counts, indexes out of range, arguments of operations that take none), comments and empty lines,
+ * with random separators, and the output of HeapBatch is checked line by line against a list of the keys:
+ * the extracted keys in echo mode, max, min, size and sort, and print as a valid max-min heap of the keys.
+ * Every bad line must be reported with its number and skipped, and the operations must be counted.
+ * The scripts are read from a channel that returns a random number of bytes per read, so lines are split
+ * between reads, and long lines and long runs of inserts make the buffer and the insert batches grow.
+ *
+ * java HeapBatchTest [seed]
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+public class HeapBatchTest{
+    
+    final private static int ROUNDS = 300; // number of random scripts
+    final private static int LINES = 300; // the largest number of lines of a random script
+    final private static int LONG_LINE_KEYS = 30000; // the keys of an insert line longer than the buffer of HeapBatch
+    final private static int SHORT_INSERTS = 20000; // one-key insert lines in a row, more than a batch of inserts
+    final private static String[] KEYS = {"0", "-0", "7", "-12", "+4", "2.5", "-0.25", ".5", "3.", "1e1", "2E-1", "3e9"};
+    final private static String[] BAD_KEYS = {"x", "1x", "--2", "1e", ".", "NaN", "0x10", "1.2.3"};
+    final private static String[] WORDS = {"insert", "extractMax", "extractMin", "delete", "sort", "print", "max", "min", "size"};
+    final private static String[] BAD_WORDS = {"Insert", "extractmax", "pop", "maxx", "size2"};
+    final private static String[] BAD_COUNTS = {"-1", "+1", "x", "1.5", "1e2", "1234567890123456789"};
+    final private static String SEPARATORS = " ,\t\f";
+    // the keys HeapLoader.parse accepts
+    final private static Pattern NUMBER = Pattern.compile("[+-]?([0-9]+\\.?[0-9]*|\\.[0-9]+)([eE][+-]?[0-9]+)?");
+    final private static Pattern COUNT = Pattern.compile("[0-9]{1,18}");
+    
+    /**
+     * Runs the tests
+     * @param args an optional random seed
+     * @throws IOException if a script cannot be read
+     */
+    public static void main(String[] args) throws IOException{
+        
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        Random random = new Random(seed);
+        for (int round = 0; round < ROUNDS; round++)
+            runScript(randomScript(random), round % 2 == 0, random);
+        System.out.println("random scripts: ok");
+        runScript(longScript(random), true, random);
+        System.out.println("long lines and batches: ok");
+        
+    } // end of method main
+    
+    /*
+     * Returns a random script of valid and bad lines. The script tracks the size of the heap only roughly,
+     * to draw indexes that are usually in range: the interpreter of the test decides which lines are valid.
+     * A delete always follows a print, so the interpreter knows the key at its index.
+     */
+    private static List<String> randomScript(Random random){
+        
+        List<String> lines = new ArrayList<String>();
+        int size = 0, count = random.nextInt(LINES);
+        for (int n = 0; n < count; n++){
+            int choice = random.nextInt(20);
+            if (choice < 6){
+                int keys = random.nextInt(6);
+                List<String> tokens = new ArrayList<String>();
+                tokens.add("insert");
+                for (int k = 0; k < keys; k++)
+                    tokens.add(random.nextInt(30) == 0 ? pick(BAD_KEYS, random) : pick(KEYS, random));
+                lines.add(join(tokens, random));
+                size += keys;
+            } // end of if statement
+            else if (choice < 9){
+                String word = random.nextBoolean() ? "extractMax" : "extractMin";
+                int c = random.nextInt(4);
+                lines.add(join(c == 0 ? Arrays.asList(word) : Arrays.asList(word, Integer.toString(c * c)), random));
+                size = Math.max(0, size - (c == 0 ? 1 : c * c));
+            } // end of else if
+            else if (choice < 11){
+                lines.add(join(Arrays.asList("print"), random));
+                lines.add(join(Arrays.asList("delete", Integer.toString(random.nextInt(size + 2))), random));
+                size = Math.max(0, size - 1);
+            } // end of else if
+            else if (choice < 15)
+                lines.add(join(Arrays.asList(pick(new String[]{"print", "max", "min", "size", "sort"}, random)), random));
+            else if (choice < 18){ // a bad line
+                switch (random.nextInt(5)){
+                    case 0: lines.add(join(Arrays.asList(pick(BAD_WORDS, random)), random)); break;
+                    case 1: lines.add(join(Arrays.asList(random.nextBoolean() ? "extractMin" : "delete", pick(BAD_COUNTS, random)), random)); break;
+                    case 2: lines.add(join(Arrays.asList("extractMax", "1", "2"), random)); break;
+                    case 3: lines.add(join(Arrays.asList(pick(new String[]{"print", "max", "min", "size", "sort"}, random), "1"), random)); break;
+                    default: lines.add(join(Arrays.asList("delete"), random));
+                } // end of switch
+            } // end of else if
+            else if (choice == 18)
+                lines.add(random.nextBoolean() ? "" : separators(random, 1));
+            else
+                lines.add(separators(random, 0) + "# " + pick(WORDS, random) + " 1");
+            if (size > 0 && random.nextInt(100) == 0){
+                lines.add("sort");
+                size = 0;
+            } // end of if statement
+        } // end of for
+        return lines;
+        
+    } // end of method randomScript
+    
+    // returns a script with an insert line longer than the buffer and a long run of one-key inserts
+    private static List<String> longScript(Random random){
+        
+        List<String> lines = new ArrayList<String>();
+        StringBuilder line = new StringBuilder("insert");
+        for (int k = 0; k < LONG_LINE_KEYS; k++)
+            line.append(' ').append(random.nextInt(1000000));
+        lines.add(line.toString());
+        lines.add("size");
+        for (int k = 0; k < SHORT_INSERTS; k++)
+            lines.add("insert " + random.nextInt(1000000));
+        lines.add("max");
+        lines.add("min");
+        lines.add("extractMax 100");
+        lines.add("extractMin 100");
+        lines.add("size");
+        lines.add("sort");
+        lines.add("size");
+        return lines;
+        
+    } // end of method longScript
+    
+    /*
+     * Runs a script through HeapBatch and checks its output, its errors and its counters against the interpreter.
+     * The interpreter reads the printed heaps from the output, so it knows the key a delete removes.
+     */
+    private static void runScript(List<String> script, boolean echo, Random random) throws IOException{
+        
+        StringBuilder text = new StringBuilder();
+        for (int n = 0; n < script.size(); n++){
+            text.append(script.get(n));
+            if (n < script.size() - 1 || random.nextBoolean()) // the last line may have no newline
+                text.append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+        } // end of for
+        StringWriter output = new StringWriter();
+        HeapBatch batch = new HeapBatch(new MaxMinHeap(), new PrintWriter(output), echo);
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(errors, true));
+        try{
+            batch.run(new ChunkedChannel(text.toString().getBytes(StandardCharsets.US_ASCII), random));
+        } // end of try
+        finally{
+            System.setErr(err);
+        } // end of finally
+        
+        List<String> out = lines(output.toString()), expectedErrors = new ArrayList<String>();
+        int next = 0; // the next line of the output
+        List<Double> model = new ArrayList<Double>();
+        double[] printed = null; // the heap array of the last print, until the heap changes
+        long operations = 0;
+        for (int n = 0; n < script.size(); n++){
+            String where = "line " + (n + 1) + " \"" + script.get(n) + "\"";
+            List<String> tokens = tokens(script.get(n));
+            if (tokens.isEmpty() || tokens.get(0).startsWith("#"))
+                continue;
+            String word = tokens.get(0);
+            if (word.equals("insert")){
+                boolean valid = tokens.size() > 1;
+                for (int k = 1; k < tokens.size(); k++)
+                    valid &= NUMBER.matcher(tokens.get(k)).matches();
+                if (!valid){
+                    expectedErrors.add("line " + (n + 1));
+                    continue;
+                } // end of if statement
+                for (int k = 1; k < tokens.size(); k++) // -0 is kept as 0, like it is printed
+                    model.add(Double.parseDouble(tokens.get(k)) + 0.0);
+                operations += tokens.size() - 1;
+                printed = null;
+                continue;
+            } // end of if statement
+            
+            boolean known = Arrays.asList(WORDS).contains(word);
+            boolean takesCount = word.equals("extractMax") || word.equals("extractMin") || word.equals("delete");
+            long count = tokens.size() == 2 && COUNT.matcher(tokens.get(1)).matches() ? Long.parseLong(tokens.get(1)) : -1;
+            if (tokens.size() > 2 || (tokens.size() == 2 && count < 0) || !known || (tokens.size() == 2 && !takesCount)
+                || (word.equals("delete") && (count < 0 || count >= model.size()))){
+                expectedErrors.add("line " + (n + 1));
+                continue;
+            } // end of if statement
+            
+            switch (word){
+                case "extractMax": case "extractMin": {
+                    long extractions = Math.min(count < 0 ? 1 : count, model.size());
+                    for (long c = 0; c < extractions; c++){
+                        double key = word.equals("extractMax") ? Collections.max(model) : Collections.min(model);
+                        model.remove(key);
+                        if (echo)
+                            check(next < out.size() && out.get(next++).equals(format(key)), where + " extracted the wrong key");
+                    } // end of for
+                    operations += extractions;
+                    printed = null;
+                    break;
+                }
+                case "delete": {
+                    check(printed != null, where + " is not after a print");
+                    model.remove(printed[(int)count]);
+                    operations++;
+                    printed = null;
+                    break;
+                }
+                case "sort": {
+                    double[] keys = sorted(model);
+                    if (echo)
+                        check(next < out.size() && out.get(next++).equals(format(keys)), where + " printed the wrong keys");
+                    model.clear();
+                    operations++;
+                    printed = null;
+                    break;
+                }
+                case "print": {
+                    check(next < out.size(), where + " printed nothing");
+                    printed = parse(out.get(next++));
+                    double[] keys = printed.clone();
+                    Arrays.sort(keys);
+                    check(Arrays.equals(keys, sorted(model)), where + " printed other keys than the model");
+                    checkHeap(printed, where);
+                    operations++;
+                    break;
+                }
+                case "max": case "min": {
+                    String expected = model.isEmpty() ? "empty" : format(word.equals("max") ? Collections.max(model) : Collections.min(model));
+                    check(next < out.size() && out.get(next++).equals(expected), where + " printed the wrong key");
+                    operations++;
+                    break;
+                }
+                default: { // size
+                    check(next < out.size() && out.get(next++).equals(Integer.toString(model.size())), where + " printed the wrong size");
+                    operations++;
+                }
+            } // end of switch
+        } // end of for
+        
+        check(next == out.size(), "the output has " + (out.size() - next) + " extra lines");
+        List<String> reported = new ArrayList<String>();
+        for (String line : lines(errors.toString(StandardCharsets.US_ASCII)))
+            reported.add(line.substring(0, line.indexOf(':')));
+        check(reported.equals(expectedErrors), "reported errors " + reported + " instead of " + expectedErrors);
+        check(batch.getErrors() == expectedErrors.size(), "getErrors " + batch.getErrors());
+        check(batch.getOperations() == operations, "getOperations " + batch.getOperations() + " instead of " + operations);
+        
+    } // end of method runScript
+    
+    // checks the max-min heap property of a printed heap array
+    private static void checkHeap(double[] heap, String where){
+        
+        for (int i = 1; i < heap.length; i++)
+            for (int a = (i - 1) / 2; a >= 0; a = a == 0 ? -1 : (a - 1) / 2){ // every ancestor of i
+                boolean maxLevel = (31 - Integer.numberOfLeadingZeros(a + 1)) % 2 == 0;
+                check(maxLevel ? heap[a] >= heap[i] : heap[a] <= heap[i], where + " printed a heap that is broken at " + i);
+            } // end of for
+        
+    } // end of method checkHeap
+    
+    // returns the words and numbers of a line, like HeapBatch separates them
+    private static List<String> tokens(String line){
+        
+        List<String> tokens = new ArrayList<String>();
+        for (String token : line.split("[ ,\t\r\f]+"))
+            if (!token.isEmpty())
+                tokens.add(token);
+        return tokens;
+        
+    } // end of method tokens
+    
+    // returns the tokens joined by random runs of separators, sometimes with separators before and after them
+    private static String join(List<String> tokens, Random random){
+        
+        StringBuilder line = new StringBuilder(separators(random, 0));
+        for (int i = 0; i < tokens.size(); i++)
+            line.append(i == 0 ? "" : separators(random, 1)).append(tokens.get(i));
+        return line.append(separators(random, 0)).toString();
+        
+    } // end of method join
+    
+    // returns a run of at least min random separators, usually none or one more
+    private static String separators(Random random, int min){
+        
+        char[] run = new char[min + (random.nextInt(4) == 0 ? random.nextInt(3) : 0)];
+        for (int i = 0; i < run.length; i++)
+            run[i] = SEPARATORS.charAt(random.nextInt(SEPARATORS.length()));
+        return new String(run);
+        
+    } // end of method separators
+    
+    // returns a random element of an array
+    private static String pick(String[] words, Random random){
+        
+        return words[random.nextInt(words.length)];
+        
+    } // end of method pick
+    
+    // returns the lines of a text, without the empty string after its last newline
+    private static List<String> lines(String text){
+        
+        List<String> lines = new ArrayList<String>(Arrays.asList(text.split("\r?\n", -1)));
+        if (lines.get(lines.size() - 1).isEmpty())
+            lines.remove(lines.size() - 1);
+        return lines;
+        
+    } // end of method lines
+    
+    // returns the keys of the model in non-decreasing order
+    private static double[] sorted(List<Double> model){
+        
+        double[] keys = new double[model.size()];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = model.get(i);
+        Arrays.sort(keys);
+        return keys;
+        
+    } // end of method sorted
+    
+    // formats a key like HeapBatch: as an integer if it is one
+    private static String format(double key){
+        
+        return key == (int)key ? Integer.toString((int)key) : Double.toString(key);
+        
+    } // end of method format
+    
+    // formats keys like HeapBatch prints a heap: in square brackets, separated by commas
+    private static String format(double[] keys){
+        
+        StringBuilder line = new StringBuilder("[");
+        for (int i = 0; i < keys.length; i++)
+            line.append(i == 0 ? "" : ", ").append(format(keys[i]));
+        return line.append(']').toString();
+        
+    } // end of method format
+    
+    // parses a printed heap array
+    private static double[] parse(String line){
+        
+        check(line.startsWith("[") && line.endsWith("]"), "print wrote " + line);
+        String inside = line.substring(1, line.length() - 1);
+        if (inside.isEmpty())
+            return new double[0];
+        String[] keys = inside.split(", ");
+        double[] heap = new double[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            heap[i] = Double.parseDouble(keys[i]);
+        return heap;
+        
+    } // end of method parse
+    
+    // a channel of the given bytes that returns a random number of them per read, sometimes none
+    private static class ChunkedChannel implements ReadableByteChannel{
+        
+        private final byte[] _bytes;
+        private final Random _random;
+        private int _pos;
+        private boolean _open = true;
+        
+        ChunkedChannel(byte[] bytes, Random random){
+            
+            _bytes = bytes;
+            _random = random;
+            
+        } // end of constructor ChunkedChannel
+        
+        public int read(ByteBuffer dst){
+            
+            if (_pos == _bytes.length)
+                return -1;
+            int n = _random.nextInt(8) == 0 ? 0 : 1 + _random.nextInt(_random.nextBoolean() ? 16 : 1 << 17);
+            n = Math.min(n, Math.min(dst.remaining(), _bytes.length - _pos));
+            dst.put(_bytes, _pos, n);
+            _pos += n;
+            return n;
+            
+        } // end of method read
+        
+        public boolean isOpen(){
+            
+            return _open;
+            
+        } // end of method isOpen
+        
+        public void close(){
+            
+            _open = false;
+            
+        } // end of method close
+        
+    } // end of class ChunkedChannel
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+        
+    } // end of method check
+    
+} // end of class HeapBatchTest
@@ -0,0 +1,419 @@
+/**
+ * Bulk loader that reads the keys of a max-min heap from a file or from the standard input.
+ *
+ * The keys are ASCII decimal numbers (like 12, -3.5, 1e-9 or 6.02E23) separated by whitespace or commas,
+ * so both one key per line and CSV rows work. The bytes are read through a channel into one reusable buffer,
+ * and the numbers are parsed in place, without creating a String or an exception per key:
+ * the digits are collected into a long, and the Eisel-Lemire algorithm turns it into the correctly rounded
+ * double with one 64x128-bit multiplication. The few numbers it cannot round with certainty (more than
+ * 18 significant digits, subnormals, overflows) go to Double.parseDouble, so every key is exactly the double
+ * Double.parseDouble would return.
+ *
+ * Bad input does not throw: a token that is not a number is skipped and counted, and the byte offset of the
+ * first one is kept, so the caller can decide whether the input is good enough (see getInvalidTokens).
+ * The loader is not thread-safe.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+public class HeapLoader implements AutoCloseable{
+    
+    private final ReadableByteChannel _channel;
+    private final byte[] _buf = new byte[BUFFER_BYTES];
+    private final ByteBuffer _buffer = ByteBuffer.wrap(_buf);
+    private int _pos; // the next byte to read in the buffer
+    private int _limit; // the end of the valid bytes in the buffer
+    private long _bufferOffset; // the offset in the input of the first byte of the buffer
+    private boolean _eof; // true once the channel has no more bytes
+    private boolean _skipping; // true while the rest of a token too long for the buffer is skipped
+    private long _keysRead;
+    private long _invalidTokens;
+    private long _firstInvalidOffset = -1;
+    final private static int BUFFER_BYTES = 1 << 16;
+    final private static int BATCH_KEYS = 1 << 13; // number of keys parsed per read call when loading a heap
+    final private static int MAX_DIGITS = 18; // significant digits that always fit in a long
+    final private static int MAX_EXPONENT = 100000; // larger exponents are clamped, the result is 0 or infinity anyway
+    final private static boolean[] SEPARATOR = new boolean[256];
+    final private static long MAX_EXACT_MANTISSA = (1L << 53) - 1; // the largest long every double holds exactly
+    final private static int MAX_EXACT_POW10 = 22; // the largest power of ten that is an exact double
+    final private static double[] EXACT_POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                                                 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    // the normalized 128-bit mantissas of 10^q for q = MIN_POW10 to MAX_POW10, high and low 64 bits
+    final private static int MIN_POW10 = -342, MAX_POW10 = 308;
+    final private static long[] POW10_HIGH = new long[MAX_POW10 - MIN_POW10 + 1];
+    final private static long[] POW10_LOW = new long[MAX_POW10 - MIN_POW10 + 1];
+    
+    static{
+        for (char c : new char[]{' ', '\t', '\n', '\r', '\f', ','})
+            SEPARATOR[c] = true;
+        // 10^q = 5^q * 2^q, so the mantissa of 10^q is the mantissa of 5^q shifted to 128 significant bits:
+        // truncated for q >= 0, and the reciprocal rounded up and then truncated for q < 0
+        BigInteger twoTo128 = BigInteger.ONE.shiftLeft(128);
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = MIN_POW10; q <= MAX_POW10; q++){
+            BigInteger mantissa;
+            if (q >= 0){
+                BigInteger power = five.pow(q);
+                int bits = power.bitLength();
+                mantissa = bits <= 128 ? power.shiftLeft(128 - bits) : power.shiftRight(bits - 128);
+            } // end of if statement
+            else{
+                BigInteger power = five.pow(-q);
+                int z = power.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                mantissa = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+                while (mantissa.compareTo(twoTo128) >= 0)
+                    mantissa = mantissa.shiftRight(1);
+            } // end of else
+            POW10_HIGH[q - MIN_POW10] = mantissa.shiftRight(64).longValue();
+            POW10_LOW[q - MIN_POW10] = mantissa.longValue();
+        } // end of for
+    } // end of static initializer
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that creates a loader that reads the given channel
+     * @param channel the channel to read the keys from
+     */
+    public HeapLoader(ReadableByteChannel channel){
+        
+        if (channel == null)
+            throw new NullPointerException("channel");
+        _channel = channel;
+        
+    } // end of constructor HeapLoader
+    
+    /**
+     * Constructor that creates a loader that reads the given file
+     * @param file the file to read the keys from
+     * @throws IOException if the file cannot be opened
+     */
+    public HeapLoader(Path file) throws IOException{
+        
+        this(FileChannel.open(file));
+        
+    } // end of constructor HeapLoader
+    
+    /**
+     * Creates a loader that reads the standard input. Closing it closes the standard input.
+     * @return a loader of the standard input
+     */
+    public static HeapLoader stdin(){
+        
+        // the channel of the descriptor itself, without the buffering of System.in
+        return new HeapLoader(new FileInputStream(FileDescriptor.in).getChannel());
+        
+    } // end of method stdin
+    
+    /**
+     * Reads up to len keys into the given array. Tokens that are not numbers are skipped and counted.
+     * @param dest the array to read the keys into
+     * @param off the index of the first key to write
+     * @param len the largest number of keys to read
+     * @return the number of keys read, or -1 if the input has ended
+     * @throws IOException if the input cannot be read
+     * @throws IndexOutOfBoundsException if off and len are not a valid range of dest
+     */
+    public int read(double[] dest, int off, int len) throws IOException{
+        
+        if (off < 0 || len < 0 || off > dest.length - len)
+            throw new IndexOutOfBoundsException("Range [" + off + ", " + off + " + " + len + ") out of bounds for length " + dest.length);
+        byte[] buf = _buf;
+        int count = 0;
+        while (count < len){
+            int pos = _pos, limit = _limit;
+            if (_skipping){ // drops the rest of a token that did not fit in the buffer
+                while (pos < limit && !SEPARATOR[buf[pos] & 0xFF])
+                    pos++;
+                _skipping = pos == limit;
+            } // end of if statement
+            while (pos < limit && SEPARATOR[buf[pos] & 0xFF])
+                pos++;
+            int end = pos;
+            while (end < limit && !SEPARATOR[buf[end] & 0xFF])
+                end++;
+            if (end == limit && !_eof){ // the token may go on in the bytes that were not read yet
+                _pos = pos;
+                if (pos == 0 && limit == buf.length){ // a token as long as the whole buffer is not a number
+                    invalid(_bufferOffset);
+                    _pos = limit;
+                    _skipping = true;
+                } // end of if statement
+                fill();
+                continue;
+            } // end of if statement
+            if (pos == end){ // the input has ended
+                _pos = end;
+                break;
+            } // end of if statement
+            double key = parse(buf, pos, end);
+            if (key == key) // not NaN
+                dest[off + count++] = key;
+            else
+                invalid(_bufferOffset + pos);
+            _pos = end;
+        } // end of while
+        _keysRead += count;
+        return count == 0 && len > 0 ? -1 : count;
+        
+    } // end of method read
+    
+    /**
+     * Reads all the remaining keys into the heap, preserving the heap property.
+     * If the heap is empty, the keys are appended to its array and the heap is built once with buildHeap in O(n).
+     * Otherwise they are collected and inserted with heapInsertAll, which needs memory for a copy of them.
+     *
+     * @param heap the heap to load the keys into
+     * @return the number of keys loaded
+     * @throws IOException if the input cannot be read
+     */
+    public long load(MaxMinHeap heap) throws IOException{
+        
+        double[] batch = new double[BATCH_KEYS];
+        long loaded = 0;
+        int count;
+        if (heap.getSize() == 0){
+            while ((count = read(batch, 0, batch.length)) >= 0){
+                heap.ensureCapacity(heap.getSize() + count);
+                for (int i = 0; i < count; i++)
+                    heap.add(batch[i]);
+                loaded += count;
+            } // end of while
+            MaxMinHeap.buildHeap(heap);
+        } // end of if statement
+        else{
+            double[] keys = batch;
+            int size = 0;
+            while ((count = read(keys, size, keys.length - size)) >= 0){
+                size += count;
+                if (size == keys.length) // grows by half, like the heap array
+                    keys = Arrays.copyOf(keys, (int)Math.min(Integer.MAX_VALUE - 8, keys.length + (long)(keys.length >> 1)));
+            } // end of while
+            MaxMinHeap.heapInsertAll(heap, keys, 0, size);
+            loaded = size;
+        } // end of else
+        return loaded;
+        
+    } // end of method load
+    
+    /**
+     * Returns the number of keys read so far
+     * @return the number of keys read
+     */
+    public long getKeysRead(){
+        
+        return _keysRead;
+        
+    } // end of method getKeysRead
+    
+    /**
+     * Returns the number of tokens that were skipped because they are not numbers
+     * @return the number of invalid tokens
+     */
+    public long getInvalidTokens(){
+        
+        return _invalidTokens;
+        
+    } // end of method getInvalidTokens
+    
+    /**
+     * Returns the byte offset in the input of the first token that is not a number
+     * @return the offset of the first invalid token, or -1 if all the tokens so far were numbers
+     */
+    public long getFirstInvalidOffset(){
+        
+        return _firstInvalidOffset;
+        
+    } // end of method getFirstInvalidOffset
+    
+    /**
+     * Returns the number of bytes parsed so far
+     * @return the number of bytes read from the input and consumed
+     */
+    public long getBytesRead(){
+        
+        return _bufferOffset + _pos;
+        
+    } // end of method getBytesRead
+    
+    /**
+     * Closes the input
+     * @throws IOException if the input cannot be closed
+     */
+    @Override
+    public void close() throws IOException{
+        
+        _channel.close();
+        
+    } // end of method close
+    
+    /**
+     * Parses the ASCII number in buf[start, end): an optional sign, digits with an optional decimal point,
+     * and an optional exponent (e or E, an optional sign and digits).
+     * @param buf the bytes that hold the number
+     * @param start the index of the first byte of the number
+     * @param end the index after the last byte of the number
+     * @return the correctly rounded value of the number, or Double.NaN if the bytes are not a number
+     */
+    public static double parse(byte[] buf, int start, int end){
+        
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf[i] == '-' || buf[i] == '+'))
+            negative = buf[i++] == '-';
+        long mantissa = 0;
+        int digits = 0, exponent = 0, d;
+        boolean anyDigit = false, truncated = false;
+        for (; i < end && (d = buf[i] - '0') >= 0 && d <= 9; i++){ // the integer part
+            anyDigit = true;
+            if (digits < MAX_DIGITS){
+                mantissa = mantissa * 10 + d;
+                if (mantissa != 0) // leading zeros are not significant
+                    digits++;
+            } // end of if statement
+            else{
+                exponent++;
+                truncated |= d != 0;
+            } // end of else
+        } // end of for
+        if (i < end && buf[i] == '.'){ // the fraction
+            for (i++; i < end && (d = buf[i] - '0') >= 0 && d <= 9; i++){
+                anyDigit = true;
+                if (digits < MAX_DIGITS){
+                    mantissa = mantissa * 10 + d;
+                    if (mantissa != 0)
+                        digits++;
+                    exponent--;
+                } // end of if statement
+                else
+                    truncated |= d != 0;
+            } // end of for
+        } // end of if statement
+        if (!anyDigit)
+            return Double.NaN;
+        if (i < end && (buf[i] == 'e' || buf[i] == 'E')){
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buf[i] == '-' || buf[i] == '+'))
+                negativeExponent = buf[i++] == '-';
+            if (i == end)
+                return Double.NaN;
+            int e = 0;
+            for (; i < end && (d = buf[i] - '0') >= 0 && d <= 9; i++)
+                if (e < MAX_EXPONENT)
+                    e = e * 10 + d;
+            exponent += negativeExponent ? -e : e;
+        } // end of if statement
+        if (i != end)
+            return Double.NaN;
+        if (mantissa == 0 && !truncated)
+            return negative ? -0.0 : 0.0;
+        if (!truncated){
+            // Clinger's fast path: both the mantissa and the power of ten are exact doubles, so one rounding
+            if (mantissa <= MAX_EXACT_MANTISSA && exponent >= -MAX_EXACT_POW10 && exponent <= MAX_EXACT_POW10){
+                double value = exponent < 0 ? mantissa / EXACT_POW10[-exponent] : mantissa * EXACT_POW10[exponent];
+                return negative ? -value : value;
+            } // end of if statement
+            double value = eiselLemire(mantissa, exponent, negative);
+            if (value == value)
+                return value;
+        } // end of if statement
+        // the syntax was checked above, so this cannot throw
+        return Double.parseDouble(new String(buf, start, end - start, StandardCharsets.ISO_8859_1));
+        
+    } // end of method parse
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // moves the unread bytes to the start of the buffer and reads more bytes after them
+    private void fill() throws IOException{
+        
+        int remaining = _limit - _pos;
+        System.arraycopy(_buf, _pos, _buf, 0, remaining);
+        _bufferOffset += _pos;
+        _pos = 0;
+        _buffer.clear().position(remaining);
+        int n = 0;
+        while (n == 0) // a non-blocking channel may return 0 bytes
+            n = _channel.read(_buffer);
+        if (n < 0)
+            _eof = true;
+        _limit = _buffer.position();
+        
+    } // end of method fill
+    
+    // counts an invalid token at the given offset of the input
+    private void invalid(long offset){
+        
+        if (_invalidTokens++ == 0)
+            _firstInvalidOffset = offset;
+        
+    } // end of method invalid
+    
+    /*
+     * Returns mantissa * 10^exponent correctly rounded, or NaN if it cannot be rounded with certainty
+     * (Lemire, "Number Parsing at a Gigabyte per Second", 2021).
+     * The mantissa is normalized to 64 bits and multiplied by the 128-bit mantissa of 10^exponent.
+     * The top 54 bits of the product give the result and a rounding bit, unless the product is so close
+     * to a halfway point that the truncated power of ten may have decided the rounding.
+     */
+    private static double eiselLemire(long mantissa, int exponent, boolean negative){
+        
+        if (exponent < MIN_POW10 || exponent > MAX_POW10)
+            return Double.NaN;
+        int lz = Long.numberOfLeadingZeros(mantissa);
+        mantissa <<= lz;
+        long exponent2 = (((217706L * exponent) >> 16) + 64 + 1023) - lz; // 217706 / 2^16 is about log2(10)
+        int index = exponent - MIN_POW10;
+        long high = unsignedMultiplyHigh(mantissa, POW10_HIGH[index]);
+        long low = mantissa * POW10_HIGH[index];
+        if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + mantissa, mantissa) < 0){
+            // the lower 64 bits of the power may carry into the result
+            long lowHigh = unsignedMultiplyHigh(mantissa, POW10_LOW[index]);
+            long lowLow = mantissa * POW10_LOW[index];
+            long mergedHigh = high, mergedLow = low + lowHigh;
+            if (Long.compareUnsigned(mergedLow, low) < 0)
+                mergedHigh++;
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow + 1 == 0 &&
+                Long.compareUnsigned(lowLow + mantissa, mantissa) < 0)
+                return Double.NaN;
+            high = mergedHigh;
+            low = mergedLow;
+        } // end of if statement
+        int msb = (int)(high >>> 63);
+        long result = high >>> (msb + 9);
+        exponent2 -= 1 ^ msb;
+        if (low == 0 && (high & 0x1FF) == 0 && (result & 3) == 1) // exactly halfway - cannot tell how to round
+            return Double.NaN;
+        result += result & 1; // rounds from 54 to 53 bits
+        result >>>= 1;
+        if ((result >>> 53) > 0){
+            result >>>= 1;
+            exponent2++;
+        } // end of if statement
+        if (exponent2 <= 0 || exponent2 >= 0x7FF) // a subnormal or an overflow
+            return Double.NaN;
+        long bits = exponent2 << 52 | result & 0x000FFFFFFFFFFFFFL;
+        return Double.longBitsToDouble(negative ? bits | Long.MIN_VALUE : bits);
+        
+    } // end of method eiselLemire
+    
+    // returns the high 64 bits of the unsigned 128-bit product of a and b
+    private static long unsignedMultiplyHigh(long a, long b){
+        
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+        
+    } // end of method unsignedMultiplyHigh
+
+} // end of class HeapLoader
@@ -0,0 +1,336 @@
+/**
+ * Tests of HeapLoader: its number parser against Double.parseDouble, and its reading of a channel.
+ *
+ * The parser gets random tokens of its grammar (short and long mantissas, leading and trailing zeros, exponents
+ * beyond the range of double, subnormals, and decimal strings exactly halfway between two doubles or one digit
+ * off) and random strings of digits, signs, points and exponent letters. Every token of the grammar must give the
+ * same bits as Double.parseDouble (so -0.0 too), and every other token must give NaN.
+ * The reader gets the same tokens separated by runs of whitespace and commas, from a channel that returns a random
+ * number of bytes per read, so tokens are split between buffers everywhere. The keys, the counted invalid tokens,
+ * the offset of the first one and the bytes read must match the input, also with tokens longer than the buffer.
+ * load must build a heap of exactly the keys of the input, into an empty heap and into one that has keys.
+ *
+ * java HeapLoaderTest [seed]
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+public class HeapLoaderTest{
+    
+    final private static int FUZZ_TOKENS = 1000000; // number of random tokens given to the parser
+    final private static int INPUTS = 200; // number of random inputs given to the reader
+    final private static int INPUT_TOKENS = 2000; // the largest number of tokens of an input
+    final private static int BUFFER_BYTES = 1 << 16; // the buffer of the loader, a token this long is invalid
+    final private static String SEPARATORS = " \t\n\r\f,";
+    final private static String GARBAGE = "0123456789+-.eE"; // the characters of the random strings
+    // the grammar of the loader: a sign, digits with an optional point, and an exponent
+    final private static Pattern NUMBER = Pattern.compile("[+-]?([0-9]+\\.?[0-9]*|\\.[0-9]+)([eE][+-]?[0-9]+)?");
+    
+    /**
+     * Runs the tests
+     * @param args an optional random seed
+     * @throws IOException if the temporary file of the test cannot be written or read
+     */
+    public static void main(String[] args) throws IOException{
+        
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        Random random = new Random(seed);
+        
+        checkFixedTokens();
+        for (int i = 0; i < FUZZ_TOKENS; i++){
+            String token = random.nextInt(4) == 0 ? garbage(random) : number(random);
+            checkParse(token);
+        } // end of for
+        System.out.println("parse: ok");
+        
+        for (int i = 0; i < INPUTS; i++)
+            checkRead(random, false);
+        checkRead(random, true);
+        System.out.println("read: ok");
+        
+        checkLoad(random);
+        System.out.println("load: ok");
+        
+    } // end of method main
+    
+    // checks the tokens whose result is easy to get wrong
+    private static void checkFixedTokens(){
+        
+        String[] tokens = {"0", "-0", "+0", "-0.0e-5", "0e999999999", ".5", "5.", "-.5e-1", "5.e3", "00000000000000000000001",
+                           "9007199254740993", "9007199254740992.5", "1e22", "1e23", "123456789012345678", "1234567890123456789",
+                           "1.7976931348623157e308", "1.7976931348623159e308", "1e309", "-1e999999999", "4.9e-324", "2.4e-324",
+                           "2.4703282292062328e-324", "2.2250738585072011e-308", "2.2250738585072012e-308",
+                           "0.0000000000000000000000000000000000000000001", "1e-999999999",
+                           "", "+", "-", ".", "e5", ".e5", "1e", "1e+", "1e-", "1.2.3", "1e5.5", "--1", "1-", "0x10", "NaN",
+                           "Infinity", "1d", "1f", "1_000", "1 2"};
+        for (String token : tokens)
+            checkParse(token);
+        
+    } // end of method checkFixedTokens
+    
+    // checks that the loader parses a token to the same bits as Double.parseDouble, or to NaN if it is not a number
+    private static void checkParse(String token){
+        
+        byte[] bytes = ("x" + token + "x").getBytes(StandardCharsets.ISO_8859_1); // parsed in the middle of a buffer
+        double value = HeapLoader.parse(bytes, 1, bytes.length - 1);
+        if (NUMBER.matcher(token).matches()){
+            double expected = Double.parseDouble(token);
+            check(Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(expected),
+                  "parse(\"" + token + "\") is " + value + " instead of " + expected);
+        } // end of if statement
+        else
+            check(Double.isNaN(value), "parse(\"" + token + "\") is " + value + " instead of NaN");
+        
+    } // end of method checkParse
+    
+    /*
+     * Reads random tokens separated by runs of separators through a channel of random read sizes,
+     * into random ranges of an array, and checks the keys and the counters against the input.
+     * With long tokens, some numbers are longer than half the buffer and some tokens longer than the whole buffer.
+     */
+    private static void checkRead(Random random, boolean longTokens) throws IOException{
+        
+        StringBuilder input = new StringBuilder();
+        List<Double> expected = new ArrayList<Double>();
+        long invalid = 0, firstInvalid = -1;
+        input.append(separators(random, 0));
+        int tokens = random.nextInt(INPUT_TOKENS);
+        for (int t = 0; t < tokens; t++){
+            String token;
+            if (longTokens && t % 100 == 50)
+                token = digits(random, random.nextBoolean() ? BUFFER_BYTES / 2 + random.nextInt(BUFFER_BYTES / 4)
+                                                            : BUFFER_BYTES + random.nextInt(BUFFER_BYTES));
+            else
+                token = random.nextInt(10) == 0 ? garbage(random) : number(random);
+            if (token.length() < BUFFER_BYTES && NUMBER.matcher(token).matches())
+                expected.add(Double.parseDouble(token));
+            else if (invalid++ == 0)
+                firstInvalid = input.length();
+            input.append(token).append(separators(random, t == tokens - 1 ? 0 : 1));
+        } // end of for
+        byte[] bytes = input.toString().getBytes(StandardCharsets.ISO_8859_1);
+        
+        HeapLoader loader = new HeapLoader(new ChunkedChannel(bytes, random));
+        double[] keys = new double[16];
+        List<Double> read = new ArrayList<Double>();
+        int count;
+        do{
+            int off = random.nextInt(keys.length), len = random.nextInt(keys.length - off + 1);
+            count = loader.read(keys, off, len);
+            check(count <= len && (count >= 0 || count == -1), "read " + count + " of " + len + " keys");
+            for (int i = 0; i < count; i++)
+                read.add(keys[off + i]);
+        } while (count != -1);
+        check(read.size() == expected.size(), "read " + read.size() + " keys instead of " + expected.size());
+        for (int i = 0; i < read.size(); i++)
+            check(Double.doubleToRawLongBits(read.get(i)) == Double.doubleToRawLongBits(expected.get(i)),
+                  "key " + i + " is " + read.get(i) + " instead of " + expected.get(i));
+        check(loader.getKeysRead() == expected.size(), "getKeysRead " + loader.getKeysRead());
+        check(loader.getInvalidTokens() == invalid, "getInvalidTokens " + loader.getInvalidTokens() + " instead of " + invalid);
+        check(loader.getFirstInvalidOffset() == firstInvalid,
+              "getFirstInvalidOffset " + loader.getFirstInvalidOffset() + " instead of " + firstInvalid);
+        check(loader.getBytesRead() == bytes.length, "getBytesRead " + loader.getBytesRead() + " instead of " + bytes.length);
+        check(loader.read(keys, 0, 1) == -1 && loader.read(keys, 0, 0) == 0, "read after the end");
+        try{
+            loader.read(keys, 10, 7);
+            check(false, "read accepted a range out of the array");
+        } // end of try
+        catch (IndexOutOfBoundsException e){
+            // expected
+        } // end of catch
+        loader.close();
+        
+    } // end of method checkRead
+    
+    // loads random keys into an empty heap, into a heap that has keys, and from a file, and checks the heaps
+    private static void checkLoad(Random random) throws IOException{
+        
+        for (int round = 0; round < 20; round++){
+            int n = random.nextInt(100000);
+            double[] keys = new double[n];
+            StringBuilder input = new StringBuilder();
+            for (int i = 0; i < n; i++){
+                keys[i] = random.nextInt(1000) - 500 + random.nextInt(4) / 4.0;
+                input.append(keys[i]).append(separators(random, 1));
+            } // end of for
+            byte[] bytes = input.toString().getBytes(StandardCharsets.ISO_8859_1);
+            int initial = round % 2 == 0 ? 0 : 1 + random.nextInt(1000); // odd rounds load into a heap that has keys
+            
+            MaxMinHeap heap = new MaxMinHeap();
+            double[] all = Arrays.copyOf(keys, n + initial);
+            for (int i = 0; i < initial; i++){
+                all[n + i] = random.nextInt(1000);
+                MaxMinHeap.heapInsert(heap, all[n + i]);
+            } // end of for
+            Arrays.sort(all);
+            if (round == 1){ // through a file, which is deleted afterwards
+                Path file = Files.createTempFile("HeapLoaderTest", ".txt");
+                try{
+                    Files.write(file, bytes);
+                    try (HeapLoader loader = new HeapLoader(file)){
+                        check(loader.load(heap) == n, "load from a file");
+                    } // end of try
+                } // end of try
+                finally{
+                    Files.delete(file);
+                } // end of finally
+            } // end of if statement
+            else
+                try (HeapLoader loader = new HeapLoader(new ChunkedChannel(bytes, random))){
+                    check(loader.load(heap) == n, "load of " + n + " keys");
+                } // end of try
+            check(Arrays.equals(MaxMinHeap.sortedCopy(heap), all), "the loaded heap differs from the keys");
+            for (int i = 0; i < all.length; i++) // the heap property: the extractions come out sorted
+                check((i % 2 == 0 ? MaxMinHeap.heapExtractMax(heap) == all[all.length - 1 - i / 2]
+                                  : MaxMinHeap.heapExtractMin(heap) == all[i / 2]), "extraction " + i + " of the loaded heap");
+        } // end of for
+        
+    } // end of method checkLoad
+    
+    /*
+     * Returns a random token of the grammar: a double as Java prints it, random digits with a random point
+     * and exponent, a decimal halfway between two doubles (or a digit above it), a subnormal or a number
+     * with many zeros.
+     */
+    private static String number(Random random){
+        
+        switch (random.nextInt(6)){
+            case 0: {
+                double value = Double.longBitsToDouble(random.nextLong());
+                return Double.toString(Double.isNaN(value) || Double.isInfinite(value) ? random.nextDouble() : value);
+            }
+            case 1: return Double.toString((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20));
+            case 2: {
+                StringBuilder token = new StringBuilder();
+                if (random.nextInt(3) == 0)
+                    token.append(random.nextBoolean() ? '-' : '+');
+                int whole = random.nextInt(22), fraction = random.nextInt(22);
+                if (whole + fraction == 0)
+                    whole = 1;
+                token.append(digits(random, whole));
+                if (fraction > 0 || random.nextInt(4) == 0)
+                    token.append('.').append(digits(random, fraction));
+                if (random.nextBoolean()){
+                    token.append(random.nextBoolean() ? 'e' : 'E');
+                    int exponent = random.nextInt(700) - 350;
+                    token.append(exponent < 0 ? "-" : random.nextBoolean() ? "+" : "").append(Math.abs(exponent));
+                } // end of if statement
+                return token.toString();
+            }
+            case 3: { // the exact decimal halfway between two doubles, which must round to even
+                double value = Math.abs(Double.longBitsToDouble(random.nextLong()));
+                if (Double.isNaN(value) || Double.isInfinite(value))
+                    value = random.nextDouble();
+                BigDecimal halfway = new BigDecimal(value).add(new BigDecimal(Math.ulp(value)).divide(BigDecimal.valueOf(2)));
+                String token = halfway.toString();
+                if (random.nextBoolean()) // just above or below halfway
+                    token = (halfway.compareTo(BigDecimal.ZERO) > 0 && random.nextBoolean())
+                            ? halfway.subtract(halfway.ulp()).toString() : halfway.add(halfway.ulp()).toString();
+                return token;
+            }
+            case 4: return Double.toString(Double.longBitsToDouble(random.nextLong() & ((1L << 52) - 1))); // a subnormal
+            default: { // zeros before or after the digits
+                int count = random.nextInt(400);
+                StringBuilder many = new StringBuilder();
+                for (int i = 0; i < count; i++)
+                    many.append('0');
+                String digits = digits(random, 1 + random.nextInt(20));
+                return random.nextBoolean() ? "0." + many + digits : digits + many;
+            }
+        } // end of switch
+        
+    } // end of method number
+    
+    // returns a random string of digits, signs, points and exponent letters, which is rarely a number
+    private static String garbage(Random random){
+        
+        char[] token = new char[1 + random.nextInt(8)];
+        for (int i = 0; i < token.length; i++)
+            token[i] = GARBAGE.charAt(random.nextInt(GARBAGE.length()));
+        return new String(token);
+        
+    } // end of method garbage
+    
+    // returns n random decimal digits
+    private static String digits(Random random, int n){
+        
+        char[] digits = new char[n];
+        for (int i = 0; i < n; i++)
+            digits[i] = (char)('0' + random.nextInt(10));
+        return new String(digits);
+        
+    } // end of method digits
+    
+    // returns a run of at least min random separators
+    private static String separators(Random random, int min){
+        
+        char[] run = new char[min + random.nextInt(3)];
+        for (int i = 0; i < run.length; i++)
+            run[i] = SEPARATORS.charAt(random.nextInt(SEPARATORS.length()));
+        return new String(run);
+        
+    } // end of method separators
+    
+    // a channel of the given bytes that returns a random number of them per read, sometimes none
+    private static class ChunkedChannel implements ReadableByteChannel{
+        
+        private final byte[] _bytes;
+        private final Random _random;
+        private int _pos;
+        private boolean _open = true;
+        
+        ChunkedChannel(byte[] bytes, Random random){
+            
+            _bytes = bytes;
+            _random = random;
+            
+        } // end of constructor ChunkedChannel
+        
+        public int read(ByteBuffer dst){
+            
+            if (_pos == _bytes.length)
+                return -1;
+            int n = _random.nextInt(8) == 0 ? 0 : 1 + _random.nextInt(_random.nextBoolean() ? 16 : 1 << 17);
+            n = Math.min(n, Math.min(dst.remaining(), _bytes.length - _pos));
+            dst.put(_bytes, _pos, n);
+            _pos += n;
+            return n;
+            
+        } // end of method read
+        
+        public boolean isOpen(){
+            
+            return _open;
+            
+        } // end of method isOpen
+        
+        public void close(){
+            
+            _open = false;
+            
+        } // end of method close
+        
+    } // end of class ChunkedChannel
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+        
+    } // end of method check
+    
+} // end of class HeapLoaderTest
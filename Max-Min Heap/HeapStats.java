@@ -0,0 +1,260 @@
+/**
+ * Operation counters and latency histograms of one MaxMinHeap, for finding out where its time goes.
+ *
+ * The statistics are collected only when the JVM runs with -Dmaxminheap.stats=true. The flag is read once
+ * into a static final field, so when it is off the JIT removes the instrumentation and the heap runs exactly
+ * as fast as without it. When it is on, every heapInsert, heapExtractMax, heapExtractMin, heapDelete and
+ * buildHeap of the heap records:
+ * - its latency, in a LatencyHistogram of nanoseconds (System.nanoTime costs about 20 ns per call)
+ * - the comparisons of keys made by its sifts
+ * - the moves of keys made by its sifts (they move keys into a "hole" instead of swapping them)
+ *   and the swaps it made (one per extraction or deletion, to bring the last key in)
+ * - the levels its sifts moved keys by, and the most levels a single operation moved a key by.
+ *   A slow extraction that moved a key by many levels went down a long path, and one that did not was
+ *   probably slowed down by the machine (a cache miss, a page fault, a pause of the JVM).
+ * The sifts of other operations (heapInsertAll, heapReplaceMax, ...) are not counted, including the rebuild
+ * heapInsertAll does when its batch is as large as the heap. parallelBuildHeap is counted as a buildHeap:
+ * every task of it counts its sifts in its own HeapStats, so its threads never update the same counters,
+ * and the counts of the tasks are added up as they join.
+ *
+ * MaxMinHeap.getStats returns a snapshot, which does not change when the heap does.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+public class HeapStats{
+    
+    /** The operations that are counted */
+    public static final int INSERT = 0, EXTRACT_MAX = 1, EXTRACT_MIN = 2, DELETE = 3, BUILD = 4;
+    final private static String[] NAMES = {"heapInsert", "heapExtractMax", "heapExtractMin", "heapDelete", "buildHeap"};
+    final private static int OPERATIONS = NAMES.length;
+    
+    private final long[] _count = new long[OPERATIONS];
+    private final long[] _comparisons = new long[OPERATIONS];
+    private final long[] _moves = new long[OPERATIONS];
+    private final long[] _swaps = new long[OPERATIONS];
+    private final long[] _levels = new long[OPERATIONS];
+    private final long[] _maxLevels = new long[OPERATIONS];
+    private final LatencyHistogram[] _latency = new LatencyHistogram[OPERATIONS];
+    // the work of the operation that is running, added to its totals when it ends
+    private long _runComparisons, _runMoves, _runSwaps, _runLevels;
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that creates empty statistics
+     */
+    public HeapStats(){
+        
+        this(true);
+        
+    } // end of constructor HeapStats
+    
+    // creates empty statistics, with latency histograms or with only the counters of the running operation
+    private HeapStats(boolean latency){
+        
+        if (latency)
+            for (int op = 0; op < OPERATIONS; op++)
+                _latency[op] = new LatencyHistogram();
+        
+    } // end of constructor HeapStats
+    
+    /**
+     * Constructor that creates a snapshot of other statistics
+     * @param other the statistics to copy
+     */
+    public HeapStats(HeapStats other){
+        
+        for (int op = 0; op < OPERATIONS; op++){
+            _count[op] = other._count[op];
+            _comparisons[op] = other._comparisons[op];
+            _moves[op] = other._moves[op];
+            _swaps[op] = other._swaps[op];
+            _levels[op] = other._levels[op];
+            _maxLevels[op] = other._maxLevels[op];
+            _latency[op] = new LatencyHistogram(other._latency[op]);
+        } // end of for
+        
+    } // end of constructor HeapStats
+    
+    /**
+     * Returns the number of times an operation ran
+     * @param op the operation, for example HeapStats.EXTRACT_MAX
+     * @return the number of operations
+     */
+    public long getCount(int op){
+        
+        return _count[op];
+        
+    } // end of method getCount
+    
+    /**
+     * Returns the number of key comparisons the sifts of an operation made, in all its runs
+     * @param op the operation
+     * @return the number of comparisons
+     */
+    public long getComparisons(int op){
+        
+        return _comparisons[op];
+        
+    } // end of method getComparisons
+    
+    /**
+     * Returns the number of keys the sifts of an operation moved, in all its runs
+     * @param op the operation
+     * @return the number of moves
+     */
+    public long getMoves(int op){
+        
+        return _moves[op];
+        
+    } // end of method getMoves
+    
+    /**
+     * Returns the number of swaps of keys an operation made, in all its runs
+     * @param op the operation
+     * @return the number of swaps
+     */
+    public long getSwaps(int op){
+        
+        return _swaps[op];
+        
+    } // end of method getSwaps
+    
+    /**
+     * Returns the number of levels the sifts of an operation moved keys by, in all its runs
+     * @param op the operation
+     * @return the total sift depth
+     */
+    public long getSiftLevels(int op){
+        
+        return _levels[op];
+        
+    } // end of method getSiftLevels
+    
+    /**
+     * Returns the most levels a single run of an operation moved keys by
+     * @param op the operation
+     * @return the largest sift depth
+     */
+    public long getMaxSiftLevels(int op){
+        
+        return _maxLevels[op];
+        
+    } // end of method getMaxSiftLevels
+    
+    /**
+     * Returns the histogram of the latencies of an operation, in nanoseconds
+     * @param op the operation
+     * @return the latency histogram
+     */
+    public LatencyHistogram getLatency(int op){
+        
+        return _latency[op];
+        
+    } // end of method getLatency
+    
+    /**
+     * Returns the name of an operation
+     * @param op the operation
+     * @return the name of the heap method
+     */
+    public static String getName(int op){
+        
+        return NAMES[op];
+        
+    } // end of method getName
+    
+    /**
+     * Clears all the statistics
+     */
+    public void reset(){
+        
+        for (int op = 0; op < OPERATIONS; op++){
+            _count[op] = _comparisons[op] = _moves[op] = _swaps[op] = _levels[op] = _maxLevels[op] = 0;
+            _latency[op].reset();
+        } // end of for
+        
+    } // end of method reset
+    
+    /**
+     * Returns a report with a line for every operation that ran: its count, its average comparisons,
+     * moves, swaps and sift depth, its largest sift depth, and its latency in nanoseconds
+     * @return the report
+     */
+    @Override
+    public String toString(){
+        
+        StringBuilder report = new StringBuilder();
+        for (int op = 0; op < OPERATIONS; op++){
+            long count = _count[op];
+            if (count == 0)
+                continue;
+            report.append(String.format("%-15s count=%d comparisons/op=%.2f moves/op=%.2f swaps/op=%.2f levels/op=%.2f " +
+                                        "maxLevels=%d latency(ns): %s%n", NAMES[op], count,
+                                        (double)_comparisons[op] / count, (double)_moves[op] / count,
+                                        (double)_swaps[op] / count, (double)_levels[op] / count,
+                                        _maxLevels[op], _latency[op]));
+        } // end of for
+        return report.toString();
+        
+    } // end of method toString
+
+/*---------------------------------Recording methods of MaxMinHeap--------------------------------------------------*/
+    
+    // starts an operation - returns its start time
+    long begin(){
+        
+        _runComparisons = _runMoves = _runSwaps = _runLevels = 0; // drops the work of operations that are not counted
+        return System.nanoTime();
+        
+    } // end of method begin
+    
+    // ends an operation that started at the given time, and adds its work to its totals
+    void end(int op, long start){
+        
+        _latency[op].record(System.nanoTime() - start);
+        _count[op]++;
+        _comparisons[op] += _runComparisons;
+        _moves[op] += _runMoves;
+        _swaps[op] += _runSwaps;
+        _levels[op] += _runLevels;
+        if (_runLevels > _maxLevels[op])
+            _maxLevels[op] = _runLevels;
+        
+    } // end of method end
+    
+    // adds the work of one sift to the running operation
+    void sift(int comparisons, int moves, int levels){
+        
+        _runComparisons += comparisons;
+        _runMoves += moves;
+        _runLevels += levels;
+        
+    } // end of method sift
+    
+    // adds a swap to the running operation
+    void swap(){
+        
+        _runSwaps++;
+        
+    } // end of method swap
+    
+    // returns statistics for a task of parallelBuildHeap, which only count the work of its sifts
+    static HeapStats forTask(){
+        
+        return new HeapStats(false);
+        
+    } // end of method forTask
+    
+    // adds the work of the running operation of other statistics (a task that joined) to the running operation
+    void addRun(HeapStats other){
+        
+        _runComparisons += other._runComparisons;
+        _runMoves += other._runMoves;
+        _runSwaps += other._runSwaps;
+        _runLevels += other._runLevels;
+        
+    } // end of method addRun
+
+} // end of class HeapStats
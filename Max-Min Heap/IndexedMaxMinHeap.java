@@ -0,0 +1,472 @@
+
+/**
+ * Addressable Max-Min heap of double keys.
+ *
+ * heapInsert returns a handle that stays valid while its key moves around the heap array,
+ * so a caller can change the key (updateKey) or remove it (remove) later, both in O(log n),
+ * without searching the array for it.
+ * The position of every handle is tracked in a primitive int array that is updated on every move,
+ * and no object is allocated per key. The handles of removed keys are reused by later inserts.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.util.Arrays;
+public class IndexedMaxMinHeap{
+    
+    private double[] _keys; // the keys, in heap order
+    private int[] _handles; // the handle of the key at every position of the heap
+    private int[] _pos; // the position of every handle, or -1 if the handle is free
+    private int[] _free; // a stack of the free handles
+    private int _freeCount; // number of handles in the free stack
+    private int _handleCount; // number of handles ever given out
+    private int _size; // current size of the heap
+    final private static int ARRAY_LEN = 512; // default array length
+    // the largest array length the VM can reliably allocate
+    final private static int MAX_ARRAY_LEN = Integer.MAX_VALUE - 8;
+    final private static int NO_POSITION = -1;
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that initializes the heap with room for 512 keys and sets the size to zero
+     */
+    public IndexedMaxMinHeap(){
+        
+        this(ARRAY_LEN);
+        
+    } // end of constructor IndexedMaxMinHeap
+    
+    /**
+     * Constructor that initializes the heap with room for the given number of keys and sets the size to zero.
+     *
+     * @param initialCapacity the initial array length of the heap
+     * @throws IllegalArgumentException if initialCapacity is negative
+     */
+    public IndexedMaxMinHeap(int initialCapacity){
+        
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        _keys = new double[initialCapacity];
+        _handles = new int[initialCapacity];
+        _pos = new int[initialCapacity];
+        _free = new int[0];
+        
+    } // end of constructor IndexedMaxMinHeap
+    
+    /**
+     * Returns the size of the heap
+     * @return the size of the heap
+     */
+    public int getSize(){
+        
+        return _size;
+        
+    } // end of method getSize
+    
+    /**
+     * Checks if a handle belongs to a key that is in the heap
+     * @param handle the handle to check
+     * @return true if the key of the handle is in the heap, otherwise false
+     */
+    public boolean contains(int handle){
+        
+        return handle >= 0 && handle < _handleCount && _pos[handle] != NO_POSITION;
+        
+    } // end of method contains
+    
+    /**
+     * Returns the key of a handle
+     * @param handle the handle of the key
+     * @return the key of the handle
+     * @throws IllegalArgumentException if the key of the handle is not in the heap
+     */
+    public double getKey(int handle){
+        
+        return _keys[position(handle)];
+        
+    } // end of method getKey
+    
+    /**
+     * Removes all the keys. All the handles become free.
+     */
+    public void resetSize(){
+        
+        Arrays.fill(_pos, 0, _handleCount, NO_POSITION);
+        _size = 0;
+        _handleCount = 0;
+        _freeCount = 0;
+        
+    } // end of method resetSize
+
+/*---------------------------------Heap operations-------------------------------------------------------------------*/
+    
+    /**
+     * Inserts a new key into the heap, preserving the heap property.
+     *
+     * @param heap the heap to insert the key into
+     * @param key the value to be inserted into the heap
+     * @return the handle of the key
+     */
+    public static int heapInsert(IndexedMaxMinHeap heap, double key){
+        
+        int handle = heap.newHandle();
+        if (heap._size == heap._keys.length) // the array is full - rarely taken
+            heap.growKeys(heap._size + 1);
+        int i = heap._size++;
+        heap._keys[i] = key;
+        heap._handles[i] = handle;
+        heap._pos[handle] = i;
+        bubbleUp(heap, i);
+        return handle;
+        
+    } // end of method heapInsert
+    
+    /**
+     * Changes the key of a handle, preserving the heap property.
+     * The key can become larger or smaller - it moves up or down as needed.
+     *
+     * @param heap the heap
+     * @param handle the handle of the key
+     * @param newKey the new value of the key
+     * @return 1 if the key was changed, 0 if the key of the handle is not in the heap
+     */
+    public static int updateKey(IndexedMaxMinHeap heap, int handle, double newKey){
+        
+        if (!heap.contains(handle))
+            return 0;
+        int i = heap._pos[handle];
+        heap._keys[i] = newKey;
+        // moves the key up if it is needed, then fixes whatever key is now at i (like heapDelete of MaxMinHeap)
+        bubbleUp(heap, i);
+        heapify(heap, i);
+        return 1;
+        
+    } // end of method updateKey
+    
+    /**
+     * Removes the key of a handle from the heap, preserving the heap property. The handle becomes free.
+     *
+     * @param heap the heap
+     * @param handle the handle of the key to remove
+     * @return 1 if the key was removed, 0 if the key of the handle is not in the heap
+     */
+    public static int remove(IndexedMaxMinHeap heap, int handle){
+        
+        if (!heap.contains(handle))
+            return 0;
+        removeAt(heap, heap._pos[handle]);
+        return 1;
+        
+    } // end of method remove
+    
+    /**
+     * Extracts and returns the maximum key of the heap. Its handle becomes free.
+     *
+     * @param heap the heap to extract the maximum key from
+     * @return the maximum key of the heap, or Integer.MAX_VALUE if the heap is empty
+     */
+    public static double heapExtractMax(IndexedMaxMinHeap heap){
+        
+        if (heap._size == 0)
+            return Integer.MAX_VALUE;
+        return removeAt(heap, 0);
+        
+    } // end of method heapExtractMax
+    
+    /**
+     * Extracts and returns the minimum key of the heap. Its handle becomes free.
+     *
+     * @param heap the heap to extract the minimum key from
+     * @return the minimum key of the heap, or Integer.MIN_VALUE if the heap is empty
+     */
+    public static double heapExtractMin(IndexedMaxMinHeap heap){
+        
+        if (heap._size == 0)
+            return Integer.MIN_VALUE;
+        return removeAt(heap, minPosition(heap));
+        
+    } // end of method heapExtractMin
+    
+    /**
+     * Returns the handle of the maximum key without removing it
+     *
+     * @param heap the heap
+     * @return the handle of the maximum key, or -1 if the heap is empty
+     */
+    public static int heapMaximumHandle(IndexedMaxMinHeap heap){
+        
+        return heap._size == 0 ? -1 : heap._handles[0];
+        
+    } // end of method heapMaximumHandle
+    
+    /**
+     * Returns the handle of the minimum key without removing it
+     *
+     * @param heap the heap
+     * @return the handle of the minimum key, or -1 if the heap is empty
+     */
+    public static int heapMinimumHandle(IndexedMaxMinHeap heap){
+        
+        return heap._size == 0 ? -1 : heap._handles[minPosition(heap)];
+        
+    } // end of method heapMinimumHandle
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // returns the position of a handle, throws IllegalArgumentException if its key is not in the heap
+    private int position(int handle){
+        
+        if (!contains(handle))
+            throw new IllegalArgumentException("Handle " + handle + " is not in the heap");
+        return _pos[handle];
+        
+    } // end of method position
+    
+    // returns a free handle, reusing the handles of removed keys first
+    private int newHandle(){
+        
+        if (_freeCount > 0)
+            return _free[--_freeCount];
+        if (_handleCount == _pos.length)
+            _pos = Arrays.copyOf(_pos, newLength(_pos.length, _handleCount + 1));
+        return _handleCount++;
+        
+    } // end of method newHandle
+    
+    // marks a handle free so a later insert can reuse it
+    private void freeHandle(int handle){
+        
+        _pos[handle] = NO_POSITION;
+        if (_freeCount == _free.length)
+            _free = Arrays.copyOf(_free, newLength(_free.length, _freeCount + 1));
+        _free[_freeCount++] = handle;
+        
+    } // end of method freeHandle
+    
+    // grows the key and handle arrays geometrically so they can hold at least minCapacity keys
+    private void growKeys(int minCapacity){
+        
+        int newCapacity = newLength(_keys.length, minCapacity);
+        _keys = Arrays.copyOf(_keys, newCapacity);
+        _handles = Arrays.copyOf(_handles, newCapacity);
+        
+    } // end of method growKeys
+    
+    // returns 1.5 times the old length, but at least minLength
+    private static int newLength(int oldLength, int minLength){
+        
+        if (minLength < 0 || minLength > MAX_ARRAY_LEN) // overflow or too many elements
+            throw new OutOfMemoryError("Required heap capacity is too large: " + minLength);
+        int newLength = oldLength + (oldLength >> 1); // 1.5 times the old length
+        if (newLength - minLength < 0)
+            newLength = Math.max(minLength, ARRAY_LEN);
+        if (newLength - MAX_ARRAY_LEN > 0)
+            newLength = MAX_ARRAY_LEN;
+        return newLength;
+        
+    } // end of method newLength
+    
+    // returns the position of the minimum key of a heap that is not empty
+    private static int minPosition(IndexedMaxMinHeap heap){
+        
+        switch (heap._size){
+            case 1: return 0;
+            case 2: return 1;
+        } // end of switch
+        return heap._keys[2] < heap._keys[1] ? 2 : 1;
+        
+    } // end of method minPosition
+    
+    // removes the key at position i, frees its handle and returns the key
+    private static double removeAt(IndexedMaxMinHeap heap, int i){
+        
+        double key = heap._keys[i];
+        heap.freeHandle(heap._handles[i]);
+        int last = --heap._size;
+        if (i != last){ // the last leaf moves into the hole
+            move(heap, last, i);
+            bubbleUp(heap, i);
+            heapify(heap, i);
+        } // end of if statement
+        return key;
+        
+    } // end of method removeAt
+    
+    // moves the key and the handle at position from to position to, and updates the position of the handle
+    private static void move(IndexedMaxMinHeap heap, int from, int to){
+        
+        int handle = heap._handles[from];
+        heap._keys[to] = heap._keys[from];
+        heap._handles[to] = handle;
+        heap._pos[handle] = to;
+        
+    } // end of method move
+    
+    // puts a key and its handle at position i
+    private static void place(IndexedMaxMinHeap heap, int i, double key, int handle){
+        
+        heap._keys[i] = key;
+        heap._handles[i] = handle;
+        heap._pos[handle] = i;
+        
+    } // end of method place
+    
+    // returns the index of the parent of the element at index i (-1 for the root)
+    private static int parent(int i){
+        
+        return (i-1) >> 1;
+        
+    } // end of method parent
+    
+    // returns the index of the left child of the element at index i
+    private static int left(int i){
+        
+        return 2*i + 1;
+        
+    } // end of method left
+    
+    // returns the level of the element at index i (the root is at level 0)
+    private static int level(int i){
+        
+        return 31 - Integer.numberOfLeadingZeros(i + 1);
+        
+    } // end of method level
+    
+    // checks if the element at index i is on an even level of the heap (a max level)
+    private static boolean isMaxLevel(int i){
+        
+        return (level(i) & 1) == 0;
+        
+    } // end of method isMaxLevel
+    
+    // performs a max heapify or a min heapify at index i, based on its level
+    private static void heapify(IndexedMaxMinHeap heap, int i){
+        
+        if (isMaxLevel(i))
+            maxHeapify(heap, i);
+        else // if the level is odd, perform a min heapify operation
+            minHeapify(heap, i);
+        
+    } // end of method heapify
+    
+    // fixes the subtree rooted at a max level index i, moving the key down through a single hole
+    private static void maxHeapify(IndexedMaxMinHeap heap, int i){
+        
+        double[] keys = heap._keys;
+        int size = heap._size;
+        double key = keys[i]; // the key that moves down, with its handle
+        int handle = heap._handles[i];
+        int lastParent = (size - 2) >> 1; // the last index that has a child
+        
+        while (i <= lastParent){
+            // finds the largest of the children and grandchildren that exist
+            int child = left(i);
+            int largest = child;
+            if (child + 1 < size && keys[child + 1] > keys[largest])
+                largest = child + 1;
+            int grandChild = left(child);
+            for (int j = grandChild; j < size && j < grandChild + 4; j++)
+                if (keys[j] > keys[largest])
+                    largest = j;
+            
+            if (keys[largest] <= key) // the heap property is satisfied
+                break;
+            
+            move(heap, largest, i); // moves the largest key up into the hole
+            i = largest;
+            if (largest <= child + 1) // a child - the subtree below it is fine
+                break;
+            
+            // a grandchild - the key must also fit its new parent, which is on a min level
+            int p = parent(i);
+            if (key < keys[p]){
+                double tempKey = keys[p];
+                int tempHandle = heap._handles[p];
+                place(heap, p, key, handle);
+                key = tempKey;
+                handle = tempHandle;
+            } // end of if statement
+        } // end of while
+        place(heap, i, key, handle);
+        
+    } // end of method maxHeapify
+    
+    // fixes the subtree rooted at a min level index i, like maxHeapify with the comparisons reversed
+    private static void minHeapify(IndexedMaxMinHeap heap, int i){
+        
+        double[] keys = heap._keys;
+        int size = heap._size;
+        double key = keys[i]; // the key that moves down, with its handle
+        int handle = heap._handles[i];
+        int lastParent = (size - 2) >> 1; // the last index that has a child
+        
+        while (i <= lastParent){
+            // finds the smallest of the children and grandchildren that exist
+            int child = left(i);
+            int smallest = child;
+            if (child + 1 < size && keys[child + 1] < keys[smallest])
+                smallest = child + 1;
+            int grandChild = left(child);
+            for (int j = grandChild; j < size && j < grandChild + 4; j++)
+                if (keys[j] < keys[smallest])
+                    smallest = j;
+            
+            if (keys[smallest] >= key) // the heap property is satisfied
+                break;
+            
+            move(heap, smallest, i); // moves the smallest key up into the hole
+            i = smallest;
+            if (smallest <= child + 1) // a child - the subtree below it is fine
+                break;
+            
+            // a grandchild - the key must also fit its new parent, which is on a max level
+            int p = parent(i);
+            if (key > keys[p]){
+                double tempKey = keys[p];
+                int tempHandle = heap._handles[p];
+                place(heap, p, key, handle);
+                key = tempKey;
+                handle = tempHandle;
+            } // end of if statement
+        } // end of while
+        place(heap, i, key, handle);
+        
+    } // end of method minHeapify
+    
+    // moves the key at index i up until the heap property is satisfied
+    private static void bubbleUp(IndexedMaxMinHeap heap, int i){
+        
+        double[] keys = heap._keys;
+        double key = keys[i]; // the key that moves up, with its handle
+        int handle = heap._handles[i];
+        // flag to determine if the node is at an even or odd level
+        boolean isEvenDepth = isMaxLevel(i);
+        int node = i;
+        
+        // checks if the node violates the max-min heap property with its parent
+        if (node > 0){
+            int parent = parent(node);
+            if ( (isEvenDepth && keys[parent] > key) ||
+            (!isEvenDepth && keys[parent] < key) ){
+                    move(heap, parent, node); // moves the parent down into the hole
+                    node = parent;
+                    isEvenDepth = !isEvenDepth; // the parent is on the other kind of level
+            } // end of if statement
+        } // end of if statement
+        
+        // moves the node up through its grandparents while it violates the max-min heap property with them
+        int grandParent = parent(parent(node));
+        while ( grandParent >= 0 &&
+        ( (isEvenDepth && keys[grandParent] < key) ||
+        (!isEvenDepth && keys[grandParent] > key) ) ){
+                move(heap, grandParent, node); // moves the grandparent down into the hole
+                node = grandParent;
+                grandParent = parent(parent(node));
+        } // end of while
+        if (node != i)
+            place(heap, node, key, handle);
+        
+    } // end of method bubbleUp
+
+} // end of class IndexedMaxMinHeap
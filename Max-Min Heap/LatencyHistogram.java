@@ -0,0 +1,195 @@
+/**
+ * Histogram of latencies (or any non-negative long values) with log-linear buckets, in the style of HdrHistogram.
+ *
+ * Every power of two is split into 64 equal buckets, so a value is kept with a relative error of at most 1/64
+ * (about 1.6%) whatever its magnitude, and the values below 64 are kept exactly. Recording a value is a few
+ * bit operations and one array increment, with no allocation. The counts take about 30 KB.
+ *
+ * A histogram is not thread-safe.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.util.Arrays;
+public class LatencyHistogram{
+    
+    private final long[] _counts = new long[BUCKETS];
+    private long _count; // number of recorded values
+    private long _sum; // the sum of the recorded values, for the mean
+    private long _min = Long.MAX_VALUE, _max = Long.MIN_VALUE;
+    final private static int PRECISION_BITS = 6; // every power of two is split into 2^6 buckets
+    final private static int SUB_BUCKETS = 1 << PRECISION_BITS;
+    final private static int BUCKETS = (63 - PRECISION_BITS + 1) * SUB_BUCKETS;
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that creates an empty histogram
+     */
+    public LatencyHistogram(){
+        
+    } // end of constructor LatencyHistogram
+    
+    /**
+     * Constructor that creates a copy of another histogram
+     * @param other the histogram to copy
+     */
+    public LatencyHistogram(LatencyHistogram other){
+        
+        add(other);
+        
+    } // end of constructor LatencyHistogram
+    
+    /**
+     * Records a value. Negative values are recorded as 0.
+     * @param value the value to record, for example a latency in nanoseconds
+     */
+    public void record(long value){
+        
+        if (value < 0)
+            value = 0;
+        _counts[bucket(value)]++;
+        _count++;
+        _sum += value;
+        if (value < _min)
+            _min = value;
+        if (value > _max)
+            _max = value;
+        
+    } // end of method record
+    
+    /**
+     * Adds all the values of another histogram to this one
+     * @param other the histogram to add
+     */
+    public void add(LatencyHistogram other){
+        
+        if (other._count == 0)
+            return;
+        for (int b = 0; b < BUCKETS; b++)
+            _counts[b] += other._counts[b];
+        _count += other._count;
+        _sum += other._sum;
+        _min = Math.min(_min, other._min);
+        _max = Math.max(_max, other._max);
+        
+    } // end of method add
+    
+    /**
+     * Removes all the values
+     */
+    public void reset(){
+        
+        Arrays.fill(_counts, 0);
+        _count = 0;
+        _sum = 0;
+        _min = Long.MAX_VALUE;
+        _max = Long.MIN_VALUE;
+        
+    } // end of method reset
+    
+    /**
+     * Returns the number of recorded values
+     * @return the number of values
+     */
+    public long getCount(){
+        
+        return _count;
+        
+    } // end of method getCount
+    
+    /**
+     * Returns the exact smallest recorded value
+     * @return the minimum, or 0 if the histogram is empty
+     */
+    public long getMinimum(){
+        
+        return _count == 0 ? 0 : _min;
+        
+    } // end of method getMinimum
+    
+    /**
+     * Returns the exact largest recorded value
+     * @return the maximum, or 0 if the histogram is empty
+     */
+    public long getMaximum(){
+        
+        return _count == 0 ? 0 : _max;
+        
+    } // end of method getMaximum
+    
+    /**
+     * Returns the exact mean of the recorded values
+     * @return the mean, or Double.NaN if the histogram is empty
+     */
+    public double getMean(){
+        
+        return _count == 0 ? Double.NaN : (double)_sum / _count;
+        
+    } // end of method getMean
+    
+    /**
+     * Returns the value at a quantile: at least a fraction q of the values are not larger than it.
+     * The value is the upper end of its bucket, so it is at most 1.6% above the exact one,
+     * and never above the maximum.
+     * @param q the quantile, between 0 and 1 (0.99 for p99)
+     * @return the value at the quantile, or 0 if the histogram is empty
+     * @throws IllegalArgumentException if q is not between 0 and 1
+     */
+    public long getQuantile(double q){
+        
+        if (!(q >= 0 && q <= 1))
+            throw new IllegalArgumentException("Illegal quantile: " + q);
+        if (_count == 0)
+            return 0;
+        long rank = Math.max(1, (long)Math.ceil(q * _count)); // the number of values that must be covered
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++){
+            seen += _counts[b];
+            if (seen >= rank)
+                return Math.max(_min, Math.min(_max, highestValue(b)));
+        } // end of for
+        return _max;
+        
+    } // end of method getQuantile
+    
+    /**
+     * Returns a one-line summary: count, mean, p50, p90, p99, p99.9 and max
+     * @return the summary
+     */
+    @Override
+    public String toString(){
+        
+        return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d p99.9=%d max=%d", _count, getMean(),
+                             getQuantile(0.5), getQuantile(0.9), getQuantile(0.99), getQuantile(0.999), getMaximum());
+        
+    } // end of method toString
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    /*
+     * Returns the bucket of a non-negative value: the values below 64 have a bucket each, and the values
+     * from 2^e to 2^(e+1)-1 share 64 buckets, chosen by the 6 bits below their highest set bit.
+     */
+    private static int bucket(long value){
+        
+        if (value < SUB_BUCKETS)
+            return (int)value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - PRECISION_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int)(value >>> shift) - SUB_BUCKETS;
+        
+    } // end of method bucket
+    
+    // returns the largest value that falls in bucket b
+    private static long highestValue(int b){
+        
+        if (b < SUB_BUCKETS)
+            return b;
+        int shift = b / SUB_BUCKETS - 1;
+        long lowest = (long)(b % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+        
+    } // end of method highestValue
+
+} // end of class LatencyHistogram
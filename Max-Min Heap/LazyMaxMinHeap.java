@@ -0,0 +1,354 @@
+/**
+ * Max-min heap with lazy deletion, for workloads that cancel far more keys than they extract and whose keys
+ * repeat a lot, or that cancel keys by value in sorted order.
+ *
+ * Every key of the heap has a slot in a primitive open-addressing hash table (no object per key), with the
+ * number of its live copies and of its deleted copies (its tombstones). Deleting a key does not touch the heap:
+ * one live copy of the key becomes a tombstone, which takes O(1). The heap still holds the deleted copies,
+ * and they are skipped when they reach the root (or the minimum) and would be extracted.
+ * Inserting a key that has a tombstone takes the tombstone back instead of inserting a new copy, since equal
+ * keys cannot be told apart.
+ * When the tombstones reach a fraction of the keys in the heap (half by default), the heap is compacted:
+ * the deleted copies are dropped and the rest is rebuilt with buildHeap, in O(n) for the whole batch of
+ * deletions. So a deletion costs O(1) amortized instead of the O(log n) bubbleUp and heapify of heapDelete,
+ * and a heap of n live keys never holds more than n / (1 - ratio) keys.
+ *
+ * Deleting a key that has no live copy in the heap returns 0 and changes nothing, so a later insert of the key
+ * inserts it. Keeping the counts costs a lookup in the table per insert and extraction, and a slot
+ * (16 bytes, in a table at most half full) per distinct key.
+ *
+ * When not to use it: with distinct random keys, the table holds 32 bytes per key and every insert, deletion
+ * and extraction is a lookup at a random place of it, which misses the cache like the sift of heapDelete does,
+ * and the compactions look up every key of the heap again. In the cancel benchmark (9 deletions per extraction)
+ * it takes 2.4 times as long per operation as heapDelete at a known index on 1,000,000 random keys, and 2.5 times
+ * on sorted ones; a cheaper check for tombstones saves only about 10%, since the lookup of the deletion itself
+ * is the miss. It matches heapDelete on keys with many duplicates, where the table is small and stays in the
+ * cache. When the index of a key is not known, it is 2 times faster than IndexedMaxMinHeap.remove on sorted keys
+ * and 1.7 times faster with duplicates, but 1.5 times slower on random keys. So for distinct random keys use
+ * heapDelete if the index is known, and IndexedMaxMinHeap otherwise.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.util.Arrays;
+public class LazyMaxMinHeap{
+    
+    private final MaxMinHeap _heap; // the live keys and the deleted copies that were not dropped yet
+    private final double _maxDeadRatio; // the fraction of deleted copies in the heap that triggers a compaction
+    /* the copies of the keys: slot s holds the bits of a key at 2s and its counts at 2s+1, next to each other
+       so a lookup misses the cache once. The counts are the number of live copies times LIVE plus the number
+       of deleted copies. Slots with counts 0 are empty. */
+    private long[] _table = new long[2 * TABLE_LEN];
+    private int _shift = 64 - Integer.numberOfTrailingZeros(TABLE_LEN); // turns a hash into a slot
+    private int _entries; // number of keys in the table
+    private int _dead; // number of deleted copies in the heap
+    final private static int ARRAY_LEN = 512; // default array length
+    final private static int TABLE_LEN = 16; // initial length of the table, a power of two
+    final private static double DEFAULT_MAX_DEAD_RATIO = 0.5;
+    final private static long LIVE = 1L << 32; // one live copy in the counts of a key, one deleted copy is 1
+    final private static long DEAD_MASK = LIVE - 1; // the number of deleted copies in the counts of a key
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that creates an empty heap with room for 512 keys, compacted when half of its keys are deleted
+     */
+    public LazyMaxMinHeap(){
+        
+        this(ARRAY_LEN, DEFAULT_MAX_DEAD_RATIO);
+        
+    } // end of constructor LazyMaxMinHeap
+    
+    /**
+     * Constructor that creates an empty heap with the given initial capacity and compaction threshold
+     * @param initialCapacity the initial array length of the heap
+     * @param maxDeadRatio the fraction of deleted keys in the heap that triggers a compaction, between 0 and 1.
+     *                     Higher values compact less often and keep more deleted keys in memory.
+     * @throws IllegalArgumentException if initialCapacity is negative or maxDeadRatio is not between 0 and 1
+     */
+    public LazyMaxMinHeap(int initialCapacity, double maxDeadRatio){
+        
+        if (!(maxDeadRatio > 0 && maxDeadRatio < 1))
+            throw new IllegalArgumentException("Illegal ratio: " + maxDeadRatio);
+        _heap = new MaxMinHeap(initialCapacity);
+        _maxDeadRatio = maxDeadRatio;
+        
+    } // end of constructor LazyMaxMinHeap
+    
+    /**
+     * Inserts a key into the heap, in O(log n), or in O(1) if a deleted copy of the key is still in the heap
+     * @param key the key to insert
+     */
+    public void insert(double key){
+        
+        long bits = bits(key);
+        int i = find(bits);
+        long counts = _table[i + 1];
+        if ((counts & DEAD_MASK) != 0){ // a deleted copy is still in the heap - takes it back
+            _table[i + 1] = counts - 1 + LIVE;
+            _dead--;
+            return;
+        } // end of if statement
+        MaxMinHeap.heapInsert(_heap, key);
+        _table[i + 1] = counts + LIVE;
+        if (counts == 0){ // the first copy of the key
+            _table[i] = bits;
+            _entries++;
+            if (_entries * 4 > _table.length) // more than half of the slots are used
+                growTable();
+        } // end of if statement
+        
+    } // end of method insert
+    
+    /**
+     * Deletes one copy of a key from the heap, in O(1) amortized
+     * @param key the key to delete
+     * @return 1 if the key was deleted, 0 if the heap has no live copy of the key
+     */
+    public int delete(double key){
+        
+        int i = find(bits(key));
+        long counts = _table[i + 1];
+        if (counts < LIVE) // no live copy - also an empty slot
+            return 0;
+        _table[i + 1] = counts - LIVE + 1;
+        _dead++;
+        compactIfNeeded();
+        return 1;
+        
+    } // end of method delete
+    
+    /**
+     * Extracts the maximum key, skipping deleted copies
+     * @return the maximum key, or Integer.MAX_VALUE if the heap is empty
+     */
+    public double extractMax(){
+        
+        if (getSize() == 0){ // drops the deleted copies, if there are any
+            clear();
+            return MaxMinHeap.heapExtractMax(_heap);
+        } // end of if statement
+        if (_dead != 0)
+            dropDeadMaximum();
+        double max = MaxMinHeap.heapExtractMax(_heap);
+        removeLive(max);
+        if (_dead != 0)
+            compactIfNeeded(); // the heap got smaller, so the deleted keys are a larger part of it
+        return max;
+        
+    } // end of method extractMax
+    
+    /**
+     * Extracts the minimum key, skipping deleted copies
+     * @return the minimum key, or Integer.MIN_VALUE if the heap is empty
+     */
+    public double extractMin(){
+        
+        if (getSize() == 0){ // drops the deleted copies, if there are any
+            clear();
+            return MaxMinHeap.heapExtractMin(_heap);
+        } // end of if statement
+        if (_dead != 0)
+            dropDeadMinimum();
+        double min = MaxMinHeap.heapExtractMin(_heap);
+        removeLive(min);
+        if (_dead != 0)
+            compactIfNeeded(); // the heap got smaller, so the deleted keys are a larger part of it
+        return min;
+        
+    } // end of method extractMin
+    
+    /**
+     * Returns the maximum key without removing it
+     * @return the maximum key, or Integer.MAX_VALUE if the heap is empty
+     */
+    public double getMaximum(){
+        
+        if (getSize() == 0) // drops the deleted copies, if there are any
+            clear();
+        else if (_dead != 0)
+            dropDeadMaximum();
+        return MaxMinHeap.heapMaximum(_heap);
+        
+    } // end of method getMaximum
+    
+    /**
+     * Returns the minimum key without removing it
+     * @return the minimum key, or Integer.MIN_VALUE if the heap is empty
+     */
+    public double getMinimum(){
+        
+        if (getSize() == 0) // drops the deleted copies, if there are any
+            clear();
+        else if (_dead != 0)
+            dropDeadMinimum();
+        return MaxMinHeap.heapMinimum(_heap);
+        
+    } // end of method getMinimum
+    
+    /**
+     * Returns the number of keys in the heap, not counting the deleted ones
+     * @return the size of the heap
+     */
+    public int getSize(){
+        
+        return _heap.getSize() - _dead;
+        
+    } // end of method getSize
+    
+    /**
+     * Returns the number of deleted keys that are still held by the heap
+     * @return the number of tombstones
+     */
+    public int getTombstones(){
+        
+        return _dead;
+        
+    } // end of method getTombstones
+    
+    /**
+     * Drops all the deleted keys and rebuilds the heap from the rest, in O(n).
+     * It runs by itself when the deleted keys reach the compaction threshold.
+     */
+    public void compact(){
+        
+        if (_dead == 0)
+            return;
+        int size = _heap.getSize();
+        double[] live = new double[size - _dead];
+        int count = 0;
+        for (int i = 0; i < size; i++){
+            double key = _heap.getKey(i);
+            if (!dropDead(key)) // a live copy - kept
+                live[count++] = key;
+        } // end of for
+        _heap.resetSize();
+        MaxMinHeap.heapInsertAll(_heap, live, 0, count); // builds the heap with buildHeap
+        
+    } // end of method compact
+    
+    /**
+     * Removes all the keys
+     */
+    public void clear(){
+        
+        _heap.resetSize();
+        if (_entries != 0)
+            Arrays.fill(_table, 0);
+        _entries = 0;
+        _dead = 0;
+        
+    } // end of method clear
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // compacts the heap if the deleted keys crossed the threshold
+    private void compactIfNeeded(){
+        
+        if (_dead > _maxDeadRatio * _heap.getSize())
+            compact();
+        
+    } // end of method compactIfNeeded
+    
+    // extracts the maximum while it is a deleted copy
+    private void dropDeadMaximum(){
+        
+        while (_heap.getSize() > 0 && dropDead(MaxMinHeap.heapMaximum(_heap)))
+            MaxMinHeap.heapExtractMax(_heap);
+        
+    } // end of method dropDeadMaximum
+    
+    // extracts the minimum while it is a deleted copy
+    private void dropDeadMinimum(){
+        
+        while (_heap.getSize() > 0 && dropDead(MaxMinHeap.heapMinimum(_heap)))
+            MaxMinHeap.heapExtractMin(_heap);
+        
+    } // end of method dropDeadMinimum
+    
+    // counts off one deleted copy of a key that leaves the heap - returns false if the key has none
+    private boolean dropDead(double key){
+        
+        int i = find(bits(key));
+        if ((_table[i + 1] & DEAD_MASK) == 0)
+            return false;
+        _dead--;
+        if (--_table[i + 1] == 0)
+            removeSlot(i);
+        return true;
+        
+    } // end of method dropDead
+    
+    // counts off one live copy of a key that was extracted
+    private void removeLive(double key){
+        
+        int i = find(bits(key));
+        _table[i + 1] -= LIVE;
+        if (_table[i + 1] == 0)
+            removeSlot(i);
+        
+    } // end of method removeLive
+    
+    // returns the bits of a key, with -0.0 and 0.0 as the same key like the heap compares them
+    private static long bits(double key){
+        
+        return Double.doubleToLongBits(key + 0.0);
+        
+    } // end of method bits
+    
+    // returns the index in the table of the slot of a key (the index of its bits), or of the empty slot where it belongs
+    private int find(long bits){
+        
+        int mask = _table.length - 1;
+        int i = home(bits);
+        while (_table[i + 1] != 0 && _table[i] != bits)
+            i = (i + 2) & mask;
+        return i;
+        
+    } // end of method find
+    
+    // returns the index in the table of the slot where a key belongs
+    private int home(long bits){
+        
+        return (int)((bits * 0x9E3779B97F4A7C15L) >>> _shift) << 1;
+        
+    } // end of method home
+    
+    /*
+     * Empties the slot at index i of the table. The keys after it that could not use their own slot
+     * are moved back, so every key can still be found from its own slot without gaps (linear probing).
+     */
+    private void removeSlot(int i){
+        
+        int mask = _table.length - 1;
+        _entries--;
+        for (int j = (i + 2) & mask; _table[j + 1] != 0; j = (j + 2) & mask){
+            int home = home(_table[j]);
+            // the key of slot j stays if its own slot is cyclically after i and not after j
+            if (i <= j ? (home > i && home <= j) : (home > i || home <= j))
+                continue;
+            _table[i] = _table[j];
+            _table[i + 1] = _table[j + 1];
+            i = j;
+        } // end of for
+        _table[i + 1] = 0;
+        
+    } // end of method removeSlot
+    
+    // doubles the table
+    private void growTable(){
+        
+        long[] old = _table;
+        _table = new long[old.length * 2];
+        _shift--;
+        for (int i = 0; i < old.length; i += 2){
+            if (old[i + 1] != 0){
+                int j = find(old[i]);
+                _table[j] = old[i];
+                _table[j + 1] = old[i + 1];
+            } // end of if statement
+        } // end of for
+        
+    } // end of method growTable
+
+} // end of class LazyMaxMinHeap
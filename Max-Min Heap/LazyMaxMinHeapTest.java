@@ -0,0 +1,125 @@
+/**
+ * Randomized test of LazyMaxMinHeap against a sorted multiset of the same keys.
+ *
+ * The operations delete keys that are in the heap, keys that were deleted already and keys that were never
+ * inserted, and insert all of them again, so a wrong tombstone shows up as a key that is lost or comes back.
+ * After every operation the size is checked, and the extractions and peeks must return the keys of the model.
+ *
+ * java LazyMaxMinHeapTest [seed]
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.util.Random;
+import java.util.TreeMap;
+public class LazyMaxMinHeapTest{
+    
+    final private static int ROUNDS = 50; // number of random heaps
+    final private static int OPERATIONS = 20000; // number of random operations per heap
+    final private static int KEY_RANGE = 100; // keys are drawn from [0, KEY_RANGE), so most deletions hit or miss often
+    
+    /**
+     * Runs the test
+     * @param args an optional random seed
+     */
+    public static void main(String[] args){
+        
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        checkAbsentKeys();
+        System.out.println("absent keys: ok");
+        
+        Random random = new Random(seed);
+        for (int round = 0; round < ROUNDS; round++){
+            double ratio = 0.1 + 0.8 * random.nextDouble();
+            LazyMaxMinHeap heap = new LazyMaxMinHeap(1 + random.nextInt(64), ratio);
+            TreeMap<Double, Integer> model = new TreeMap<Double, Integer>(); // the number of copies of every key
+            int size = 0;
+            for (int op = 0; op < OPERATIONS; op++){
+                double key = random.nextInt(KEY_RANGE);
+                int choice = random.nextInt(100);
+                if (choice < 35){
+                    heap.insert(key);
+                    model.merge(key, 1, Integer::sum);
+                    size++;
+                } // end of if statement
+                else if (choice < 75){ // deletes a key, which may be missing
+                    boolean present = model.containsKey(key);
+                    check(heap.delete(key) == (present ? 1 : 0), "delete " + key + " present " + present);
+                    if (present){
+                        remove(model, key);
+                        size--;
+                    } // end of if statement
+                } // end of else if
+                else if (choice < 85){
+                    double expected = model.isEmpty() ? Integer.MAX_VALUE : model.lastKey();
+                    check(heap.extractMax() == expected, "extractMax");
+                    if (!model.isEmpty()){
+                        remove(model, expected);
+                        size--;
+                    } // end of if statement
+                } // end of else if
+                else if (choice < 95){
+                    double expected = model.isEmpty() ? Integer.MIN_VALUE : model.firstKey();
+                    check(heap.extractMin() == expected, "extractMin");
+                    if (!model.isEmpty()){
+                        remove(model, expected);
+                        size--;
+                    } // end of if statement
+                } // end of else if
+                else if (choice < 97)
+                    check(heap.getMaximum() == (model.isEmpty() ? Integer.MAX_VALUE : model.lastKey()), "getMaximum");
+                else if (choice < 99)
+                    check(heap.getMinimum() == (model.isEmpty() ? Integer.MIN_VALUE : model.firstKey()), "getMinimum");
+                else
+                    heap.compact();
+                check(heap.getSize() == size, "size " + heap.getSize() + " instead of " + size);
+            } // end of for
+            
+            // the heap must give back exactly the keys of the model
+            while (!model.isEmpty()){
+                double expected = model.firstKey();
+                check(heap.extractMin() == expected, "final extractMin");
+                remove(model, expected);
+            } // end of while
+            check(heap.getSize() == 0 && heap.getTombstones() == 0, "the heap is not empty at the end");
+        } // end of for
+        System.out.println("random operations: ok");
+        
+    } // end of method main
+    
+    // deletes keys that are not in the heap, and then inserts them
+    private static void checkAbsentKeys(){
+        
+        LazyMaxMinHeap heap = new LazyMaxMinHeap();
+        heap.insert(1);
+        heap.insert(5);
+        check(heap.delete(3) == 0, "deleting a key between the keys of the heap");
+        check(heap.delete(9) == 0 && heap.delete(Double.NaN) == 0, "deleting a key outside the keys of the heap");
+        check(heap.getSize() == 2 && heap.getTombstones() == 0, "a missing key was deleted");
+        heap.insert(3);
+        check(heap.getSize() == 3, "an insert after a missing delete was dropped");
+        check(heap.delete(5) == 1 && heap.delete(5) == 0, "a key was deleted twice");
+        heap.insert(5);
+        check(heap.extractMax() == 5 && heap.extractMax() == 3 && heap.extractMax() == 1, "the keys differ");
+        check(heap.getSize() == 0, "the heap is not empty");
+        
+    } // end of method checkAbsentKeys
+    
+    // removes one copy of a key from the model
+    private static void remove(TreeMap<Double, Integer> model, double key){
+        
+        if (model.merge(key, -1, Integer::sum) == 0)
+            model.remove(key);
+        
+    } // end of method remove
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+        
+    } // end of method check
+    
+} // end of class LazyMaxMinHeapTest
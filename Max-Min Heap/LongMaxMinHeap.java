@@ -0,0 +1,703 @@
+// Generated by GenerateHeaps from MaxMinHeapVariant.template - edit the template, not this file
+/**
+ * Max-Min heap of primitive long keys.
+ * The long specialization of MaxMinHeap: it runs the same algorithms on a primitive long array,
+ * so inserting and extracting keys never boxes them.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.util.Arrays;
+public class LongMaxMinHeap{
+    
+    private long[] _arr; // internal array that stores the elements of the heap
+    private int _size; // current size of the heap
+    final private static int ARRAY_LEN = 512; // default array length
+    // the largest array length the VM can reliably allocate
+    final private static int MAX_ARRAY_LEN = Integer.MAX_VALUE - 8;
+    final private static int BULK_SAMPLE = 64; // number of keys heapInsertAll bubbles up before it chooses a method
+    // the average number of levels a sampled key may move up before heapInsertAll switches to heapifying
+    final private static int BULK_MAX_AVERAGE_MOVE = 4;
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that initializes the heap with an empty array of size 512 and sets the size to zero
+     */
+    public LongMaxMinHeap(){
+        
+        this(ARRAY_LEN);
+        
+    } // end of constructor LongMaxMinHeap
+    
+    /**
+     * Constructor that initializes the heap with an empty array of the given initial capacity
+     * and sets the size to zero.
+     *
+     * @param initialCapacity the initial array length of the heap
+     * @throws IllegalArgumentException if initialCapacity is negative
+     */
+    public LongMaxMinHeap(int initialCapacity){
+        
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        _arr = new long[initialCapacity];
+        _size = 0;
+        
+    } // end of constructor LongMaxMinHeap
+    
+    /**
+     * Adds a new element to the heap (without restoring the heap property)
+     * @param num the element to add
+     */
+    public void add(long num){
+        
+        if (_size == _arr.length) // the array is full - rarely taken
+            grow(_size + 1);
+        _arr[_size] = num;
+        _size++;
+        
+    } // end of method add
+    
+    /**
+     * Returns the size of the heap
+     * @return the size of the heap
+     */
+    public int getSize(){
+        
+        return _size;
+        
+    } // end of method getSize
+    
+    /**
+     * Returns the array length of the heap(capacity)
+     * @return the array length of the heap
+     */
+    public int getCapacity(){
+        
+        return _arr.length;
+        
+    } // end of method getCapacity
+    
+    /**
+     * Returns the key at index i of the heap array
+     * @param i the index of the key
+     * @return the key at index i
+     * @throws IndexOutOfBoundsException if i is not an index of the heap
+     */
+    public long getKey(int i){
+        
+        if (i < 0 || i >= _size)
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + _size);
+        return _arr[i];
+        
+    } // end of method getKey
+    
+    /**
+     * Makes sure the heap can hold at least minCapacity elements without growing again
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity){
+        
+        if (minCapacity > _arr.length)
+            grow(minCapacity);
+        
+    } // end of method ensureCapacity
+    
+    /**
+     * Shrinks the internal array to the current size of the heap
+     */
+    public void trimToSize(){
+        
+        if (_size < _arr.length)
+            _arr = Arrays.copyOf(_arr, _size);
+        
+    } // end of method trimToSize
+    
+    /**
+     * Resets the size of the heap
+     */
+    public void resetSize(){
+        
+        _size = 0;
+        
+    } // end of method resetSize
+
+/*---------------------------------Heap operations-------------------------------------------------------------------*/
+    
+    /**
+     * Performs either a max heapify or a min heapify operation at index i,
+     * based on the level of the index in the heap.
+     *
+     * @param heap the heap to perform the heapify operation on
+     * @param i the index to start the heapify operation at
+     */
+    public static void heapify(LongMaxMinHeap heap, int i){
+        
+        if (isMaxLevel(i))
+            maxHeapify(heap, i);
+        else // if the level is odd, perform a min heapify operation
+            minHeapify(heap, i);
+        
+    } // end of method heapify
+    
+    /**
+     * Builds a max-min heap from the added elements by a bottom-up heap construction.
+     *
+     * @param heap the heap to build
+     */
+    public static void buildHeap(LongMaxMinHeap heap){
+        
+        for (int i = heap._size/2 - 1; i >= 0; i--)
+            heapify(heap, i);
+        
+    } // end of method buildHeap
+    
+    /**
+     * Extracts and returns the maximum element of the heap.
+     *
+     * @param heap the heap to extract the maximum element from
+     * @return the maximum element of the heap, or Long.MAX_VALUE if the heap is empty
+     */
+    public static long heapExtractMax(LongMaxMinHeap heap){
+        
+        if (heap._size == 0)
+            return Long.MAX_VALUE;
+        
+        swap(heap, 0, heap._size - 1);
+        heap._size--;
+        if (heap._size > 1)
+            heapify(heap, 0);
+        return removeLast(heap);
+        
+    } // end of method heapExtractMax
+    
+    /**
+     * Extracts and returns the minimum element of the heap.
+     *
+     * @param heap the heap to extract the minimum element from
+     * @return the minimum element of the heap, or Long.MIN_VALUE if the heap is empty
+     */
+    public static long heapExtractMin(LongMaxMinHeap heap){
+        
+        switch (heap._size){
+            case 0: return Long.MIN_VALUE;
+            case 1: // the last element is the minimum
+            case 2: heap._size--;
+                    return removeLast(heap);
+        } // end of switch
+        
+        // the minimum value is always at level 1 of the heap
+        int smallest = 1;
+        if (heap._arr[2] < heap._arr[1])
+            smallest = 2;
+        
+        swap(heap, smallest, heap._size - 1);
+        heap._size--;
+        heapify(heap, smallest);
+        return removeLast(heap);
+        
+    } // end of method heapExtractMin
+    
+    /**
+     * Returns the maximum element of the heap without removing it.
+     *
+     * @param heap the heap
+     * @return the maximum element of the heap, or Long.MAX_VALUE if the heap is empty
+     */
+    public static long heapMaximum(LongMaxMinHeap heap){
+        
+        if (heap._size == 0)
+            return Long.MAX_VALUE;
+        return heap._arr[0];
+        
+    } // end of method heapMaximum
+    
+    /**
+     * Returns the minimum element of the heap without removing it.
+     *
+     * @param heap the heap
+     * @return the minimum element of the heap, or Long.MIN_VALUE if the heap is empty
+     */
+    public static long heapMinimum(LongMaxMinHeap heap){
+        
+        switch (heap._size){
+            case 0: return Long.MIN_VALUE;
+            case 1: return heap._arr[0];
+            case 2: return heap._arr[1];
+        } // end of switch
+        return heap._arr[heap._arr[2] < heap._arr[1] ? 2 : 1];
+        
+    } // end of method heapMinimum
+    
+    /**
+     * Replaces the maximum element of the heap with a new key and returns the old maximum,
+     * preserving the heap property. Cheaper than heapExtractMax followed by heapInsert.
+     * If the heap is empty, the key is inserted and Long.MAX_VALUE is returned.
+     *
+     * @param heap the heap
+     * @param key the key that replaces the maximum
+     * @return the old maximum element of the heap, or Long.MAX_VALUE if the heap was empty
+     */
+    public static long heapReplaceMax(LongMaxMinHeap heap, long key){
+        
+        if (heap._size == 0){
+            heapInsert(heap, key);
+            return Long.MAX_VALUE;
+        } // end of if statement
+        
+        long max = heap._arr[0];
+        heap._arr[0] = key;
+        maxHeapify(heap, 0); // moves the key down, also when it is smaller than the minimum
+        return max;
+        
+    } // end of method heapReplaceMax
+    
+    /**
+     * Replaces the minimum element of the heap with a new key and returns the old minimum,
+     * preserving the heap property. Cheaper than heapExtractMin followed by heapInsert.
+     * If the heap is empty, the key is inserted and Long.MIN_VALUE is returned.
+     *
+     * @param heap the heap
+     * @param key the key that replaces the minimum
+     * @return the old minimum element of the heap, or Long.MIN_VALUE if the heap was empty
+     */
+    public static long heapReplaceMin(LongMaxMinHeap heap, long key){
+        
+        long[] arr = heap._arr;
+        switch (heap._size){
+            case 0:
+                heapInsert(heap, key);
+                return Long.MIN_VALUE;
+            case 1: {
+                long min = arr[0];
+                arr[0] = key;
+                return min;
+            }
+        } // end of switch
+        
+        int smallest = heap._size > 2 && arr[2] < arr[1] ? 2 : 1;
+        long min = arr[smallest];
+        // a key larger than the maximum becomes the new root, and the old root moves down instead
+        if (key > arr[0]){
+            arr[smallest] = arr[0];
+            arr[0] = key;
+        } // end of if statement
+        else
+            arr[smallest] = key;
+        minHeapify(heap, smallest);
+        return min;
+        
+    } // end of method heapReplaceMin
+    
+    /**
+     * Inserts a new element into the heap, preserving the heap property.
+     *
+     * @param heap the heap to insert the key into
+     * @param key the value to be inserted into the heap
+     */
+    public static void heapInsert(LongMaxMinHeap heap, long key){
+        
+        heap.add(key);
+        bubbleUp(heap, heap._size-1);
+        
+    } // end of method heapInsert
+    
+    /**
+     * Inserts len keys of the given array, starting at index off, into the heap, preserving the heap property.
+     * Chooses between rebuilding, bubbling up and heapifying the ancestors like MaxMinHeap.heapInsertAll.
+     *
+     * @param heap the heap to insert the keys into
+     * @param keys the array that holds the keys
+     * @param off the index of the first key to insert
+     * @param len the number of keys to insert
+     * @throws IndexOutOfBoundsException if off and len are not a valid range of keys
+     */
+    public static void heapInsertAll(LongMaxMinHeap heap, long[] keys, int off, int len){
+        
+        insertAll(heap, keys, off, len);
+        
+    } // end of method heapInsertAll
+    
+    /**
+     * Inserts all the elements of another heap into this heap, preserving the heap property.
+     * The other heap is not changed.
+     *
+     * @param heap the heap to insert the elements into
+     * @param other the heap whose elements are inserted
+     */
+    public static void meld(LongMaxMinHeap heap, LongMaxMinHeap other){
+        
+        insertAll(heap, other._arr, 0, other._size);
+        
+    } // end of method meld
+    
+    /**
+     * Deletes the element at index i from the heap, preserving the heap property.
+     *
+     * @param heap the heap
+     * @param i the index of the element to be deleted
+     * @return 1 if the element is successfully deleted, 0 otherwise
+     */
+    public static int heapDelete(LongMaxMinHeap heap, int i){
+        
+        if (i < 0 || i >= heap._size)
+            return 0;
+        
+        swap(heap, i, heap._size - 1);
+        heap._size--;
+        if (i == heap._size) // the deleted element was the last one - nothing moved into its slot
+            return 1;
+        
+        // only one of the methods below actually works
+        bubbleUp(heap, i);
+        heapify(heap, i);
+        return 1;
+        
+    } // end of method heapDelete
+    
+    /**
+     * Sorts the elements of the heap in non-decreasing order, in place. Same as drainSorted.
+     *
+     * @param heap the heap to sort
+     * @return the number of elements sorted
+     */
+    public static int heapSort(LongMaxMinHeap heap){
+        
+        return drainSorted(heap);
+        
+    } // end of method heapSort
+    
+    /**
+     * Sorts the elements of the heap in non-decreasing order, in place, with Arrays.sort.
+     * The sorted elements are left in the heap array and deleted from the heap itself.
+     *
+     * @param heap the heap to sort
+     * @return the number of elements sorted
+     */
+    public static int drainSorted(LongMaxMinHeap heap){
+        
+        int len = heap._size;
+        Arrays.sort(heap._arr, 0, len);
+        heap._size = 0;
+        return len;
+        
+    } // end of method drainSorted
+    
+    /**
+     * Returns a new array with the elements of the heap in non-decreasing order.
+     * The heap itself is not changed.
+     *
+     * @param heap the heap
+     * @return the sorted elements of the heap
+     */
+    public static long[] sortedCopy(LongMaxMinHeap heap){
+        
+        return sortedCopy(heap, false);
+        
+    } // end of method sortedCopy
+    
+    /**
+     * Returns a new array with the elements of the heap in non-decreasing or non-increasing order.
+     * The heap itself is not changed.
+     *
+     * @param heap the heap
+     * @param descending true for non-increasing order, false for non-decreasing order
+     * @return the sorted elements of the heap
+     */
+    public static long[] sortedCopy(LongMaxMinHeap heap, boolean descending){
+        
+        long[] sorted = new long[heap._size];
+        toSortedArray(heap, sorted, descending);
+        return sorted;
+        
+    } // end of method sortedCopy
+    
+    /**
+     * Copies the elements of the heap into the given array in non-decreasing order, starting at index 0.
+     * The heap itself is not changed.
+     *
+     * @param heap the heap
+     * @param dest the array to copy the sorted elements into
+     * @return the number of elements copied
+     * @throws IndexOutOfBoundsException if dest is shorter than the size of the heap
+     */
+    public static int toSortedArray(LongMaxMinHeap heap, long[] dest){
+        
+        return toSortedArray(heap, dest, false);
+        
+    } // end of method toSortedArray
+    
+    /**
+     * Copies the elements of the heap into the given array in non-decreasing or non-increasing order,
+     * starting at index 0. The heap itself is not changed.
+     *
+     * @param heap the heap
+     * @param dest the array to copy the sorted elements into
+     * @param descending true for non-increasing order, false for non-decreasing order
+     * @return the number of elements copied
+     * @throws IndexOutOfBoundsException if dest is shorter than the size of the heap
+     */
+    public static int toSortedArray(LongMaxMinHeap heap, long[] dest, boolean descending){
+        
+        int len = heap._size;
+        if (dest.length < len)
+            throw new IndexOutOfBoundsException("Destination length " + dest.length + " is less than heap size " + len);
+        System.arraycopy(heap._arr, 0, dest, 0, len);
+        Arrays.sort(dest, 0, len);
+        if (descending) // reverses the sorted range in place
+            for (int i = 0, j = len - 1; i < j; i++, j--){
+                long temp = dest[i];
+                dest[i] = dest[j];
+                dest[j] = temp;
+            } // end of for
+        return len;
+        
+    } // end of method toSortedArray
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // grows the internal array geometrically so it can hold at least minCapacity elements
+    private void grow(int minCapacity){
+        
+        if (minCapacity < 0 || minCapacity > MAX_ARRAY_LEN) // overflow or too many elements
+            throw new OutOfMemoryError("Required heap capacity is too large: " + minCapacity);
+        int oldCapacity = _arr.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1); // 1.5 times the old capacity
+        if (newCapacity - minCapacity < 0)
+            newCapacity = Math.max(minCapacity, ARRAY_LEN);
+        if (newCapacity - MAX_ARRAY_LEN > 0)
+            newCapacity = MAX_ARRAY_LEN;
+        _arr = Arrays.copyOf(_arr, newCapacity);
+        
+    } // end of method grow
+    
+    // returns the index of the parent of the element at index i (-1 for the root)
+    private static int parent(int i){
+        
+        return (i-1) >> 1;
+        
+    } // end of method parent
+    
+    // returns the index of the left child of the element at index i
+    private static int left(int i){
+        
+        return (i+1)*2-1;
+        
+    } // end of method left
+    
+    // returns the index of the right child of the element at index i
+    private static int right(int i){
+        
+        return (i+1)*2;
+        
+    } // end of method right
+    
+    // swaps the elements at indices i and j in the heap
+    private static void swap(LongMaxMinHeap heap, int i, int j){
+        
+        long temp = heap._arr[i];
+        heap._arr[i] = heap._arr[j];
+        heap._arr[j] = temp;
+        
+    } // end of method swap
+    
+    // returns the element right after the end of the heap
+    private static long removeLast(LongMaxMinHeap heap){
+        
+        long last = heap._arr[heap._size];
+        return last;
+        
+    } // end of method removeLast
+    
+    // fixes the subtree rooted at index i which is on a max level, moving the element down with a single hole
+    private static void maxHeapify(LongMaxMinHeap heap, int i){
+        
+        long[] arr = heap._arr;
+        int size = heap._size;
+        long key = arr[i]; // the element that moves down
+        int lastParent = (size - 2) >> 1; // the last index that has a child
+        int lastGrandParent = (size - 4) >> 2; // the last index that has a grandchild
+        int lastFullGrandParent = (size - 7) >> 2; // the last index that has all four grandchildren
+        
+        while (i <= lastParent){
+            int largest; // the index of the largest child or grandchild
+            if (i <= lastFullGrandParent){ // the common case - all the grandchildren exist
+                int g = left(left(i));
+                int a = arr[g] > arr[g+1] ? g : g+1;
+                int b = arr[g+2] > arr[g+3] ? g+2 : g+3;
+                largest = arr[a] > arr[b] ? a : b;
+            } // end of if statement
+            else{ // near the bottom of the heap - checks whichever children and grandchildren exist
+                largest = left(i);
+                if (largest + 1 < size && arr[largest + 1] > arr[largest])
+                    largest++;
+                if (i <= lastGrandParent)
+                    for (int j = left(left(i)); j < size && j <= right(right(i)); j++)
+                        if (arr[j] > arr[largest])
+                            largest = j;
+            } // end of else
+            
+            if (arr[largest] <= key) // the heap property is satisfied
+                break;
+            
+            arr[i] = arr[largest]; // moves the largest element up into the hole
+            if (largest <= right(i)){ // a child - the subtree below it is fine
+                i = largest;
+                break;
+            } // end of if statement
+            
+            // a grandchild - the element must also fit its new parent, which is on a min level
+            i = largest;
+            int p = parent(i);
+            if (key < arr[p]){
+                long temp = arr[p];
+                arr[p] = key;
+                key = temp;
+            } // end of if statement
+        } // end of while
+        arr[i] = key;
+        
+    } // end of method maxHeapify
+    
+    // fixes the subtree rooted at index i which is on a min level, like maxHeapify with the comparisons reversed
+    private static void minHeapify(LongMaxMinHeap heap, int i){
+        
+        long[] arr = heap._arr;
+        int size = heap._size;
+        long key = arr[i]; // the element that moves down
+        int lastParent = (size - 2) >> 1; // the last index that has a child
+        int lastGrandParent = (size - 4) >> 2; // the last index that has a grandchild
+        int lastFullGrandParent = (size - 7) >> 2; // the last index that has all four grandchildren
+        
+        while (i <= lastParent){
+            int smallest; // the index of the smallest child or grandchild
+            if (i <= lastFullGrandParent){ // the common case - all the grandchildren exist
+                int g = left(left(i));
+                int a = arr[g] < arr[g+1] ? g : g+1;
+                int b = arr[g+2] < arr[g+3] ? g+2 : g+3;
+                smallest = arr[a] < arr[b] ? a : b;
+            } // end of if statement
+            else{ // near the bottom of the heap - checks whichever children and grandchildren exist
+                smallest = left(i);
+                if (smallest + 1 < size && arr[smallest + 1] < arr[smallest])
+                    smallest++;
+                if (i <= lastGrandParent)
+                    for (int j = left(left(i)); j < size && j <= right(right(i)); j++)
+                        if (arr[j] < arr[smallest])
+                            smallest = j;
+            } // end of else
+            
+            if (arr[smallest] >= key) // the heap property is satisfied
+                break;
+            
+            arr[i] = arr[smallest]; // moves the smallest element up into the hole
+            if (smallest <= right(i)){ // a child - the subtree below it is fine
+                i = smallest;
+                break;
+            } // end of if statement
+            
+            // a grandchild - the element must also fit its new parent, which is on a max level
+            i = smallest;
+            int p = parent(i);
+            if (key > arr[p]){
+                long temp = arr[p];
+                arr[p] = key;
+                key = temp;
+            } // end of if statement
+        } // end of while
+        arr[i] = key;
+        
+    } // end of method minHeapify
+    
+    // inserts len keys of keys from index off into the heap - heapInsertAll and meld
+    private static void insertAll(LongMaxMinHeap heap, long[] keys, int off, int len){
+        
+        if (off < 0 || len < 0 || off > keys.length - len)
+            throw new IndexOutOfBoundsException("Range [" + off + ", " + off + " + " + len + ") out of bounds for length " + keys.length);
+        if (len == 0)
+            return;
+        if (len > MAX_ARRAY_LEN - heap._size)
+            throw new OutOfMemoryError("Required heap capacity is too large: " + ((long)heap._size + len));
+        
+        int n = heap._size; // the size of the heap before the insertion
+        heap.ensureCapacity(n + len);
+        System.arraycopy(keys, off, heap._arr, n, len);
+        heap._size = n + len;
+        
+        if (len >= n){ // the batch is as large as the heap - rebuilds all of it
+            buildHeap(heap);
+            return;
+        } // end of if statement
+        
+        // bubbles up a sample of the keys one by one and counts how many levels they moved up
+        int i = n, sampleEnd = n + Math.min(len, BULK_SAMPLE);
+        long moved = 0;
+        for (; i < sampleEnd; i++)
+            moved += level(i) - level(bubbleUp(heap, i));
+        
+        if (moved <= (long)BULK_MAX_AVERAGE_MOVE * (sampleEnd - n)){ // the keys hardly move - continues one by one
+            for (; i < heap._size; i++)
+                bubbleUp(heap, i);
+        } // end of if statement
+        else if (i < heap._size){ // heapifies the ancestors of the other keys, level by level from the bottom up
+            int lo = parent(i), hi = parent(heap._size - 1);
+            while (hi >= 0){
+                for (int j = hi; j >= lo; j--)
+                    heapify(heap, j);
+                hi = Math.min(parent(hi), lo - 1);
+                lo = parent(lo);
+            } // end of while
+        } // end of else
+        
+    } // end of method insertAll
+    
+    // returns the level of the element at index i (the root is at level 0)
+    private static int level(int i){
+        
+        return 31 - Integer.numberOfLeadingZeros(i + 1);
+        
+    } // end of method level
+    
+    // checks if the element at index i is on an even level of the heap (a max level)
+    private static boolean isMaxLevel(int i){
+        
+        return (level(i) & 1) == 0;
+        
+    } // end of method isMaxLevel
+    
+    // moves the element at index i up in the heap until the heap property is satisfied - returns its new index
+    private static int bubbleUp(LongMaxMinHeap heap, int i){
+        
+        long[] arr = heap._arr;
+        long key = arr[i]; // the element that moves up
+        // flag to determine if the node is at an even or odd level
+        boolean isEvenDepth = isMaxLevel(i);
+        int node = i;
+        
+        // checks if the node violates the max-min heap property with its parent
+        if (node > 0){
+            int parent = parent(node);
+            if ( (isEvenDepth && arr[parent] > key) ||
+            (!isEvenDepth && arr[parent] < key) ){
+                    arr[node] = arr[parent]; // moves the parent down into the hole
+                    node = parent;
+                    isEvenDepth = !isEvenDepth; // the parent is on the other kind of level
+            } // end of if statement
+        } // end of if statement
+        
+        // moves the node up through its grandparents while it violates the max-min heap property with them
+        int grandParent = parent(parent(node)); // equals to i/4 in array which starts in index 1
+        while ( grandParent >= 0 &&
+        ( (isEvenDepth && arr[grandParent] < key) ||
+        (!isEvenDepth && arr[grandParent] > key) ) ){
+                arr[node] = arr[grandParent]; // moves the grandparent down into the hole
+                node = grandParent;
+                grandParent = parent(parent(node));
+        } // end of while
+        arr[node] = key;
+        return node;
+        
+    } // end of method bubbleUp
+
+} // end of class LongMaxMinHeap
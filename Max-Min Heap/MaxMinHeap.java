@@ -5,12 +5,28 @@
  * @author Gal Levi
  * @version 09/05/2023
  */
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 public class MaxMinHeap{
     
     private double[] _arr; // internal array that stores the elements of the heap
     private int _size; // current size of the heap
-    final private int ARRAY_LEN = 512; // default array length
+    final private static int ARRAY_LEN = 512; // default array length
+    // the largest array length the VM can reliably allocate
+    final private static int MAX_ARRAY_LEN = Integer.MAX_VALUE - 8;
+    final private static int BULK_SAMPLE = 64; // number of keys heapInsertAll bubbles up before it chooses a method
+    // the average number of levels a sampled key may move up before heapInsertAll switches to heapifying
+    final private static int BULK_MAX_AVERAGE_MOVE = 4;
+    // subtrees of at most this many levels are built by one thread, 2^16 levels hold about 64K elements
+    final private static int PARALLEL_CUTOFF_LEVELS = 16;
+    // collects HeapStats when the JVM runs with -Dmaxminheap.stats=true, a constant the JIT folds away otherwise
+    final private static boolean INSTRUMENTED = Boolean.getBoolean("maxminheap.stats");
+    private final HeapStats _stats; // the statistics of this heap, null when they are not collected
     
 /*-----------------------------------------------Instance methods---------------------------------------------------*/
     
@@ -19,22 +35,79 @@ public class MaxMinHeap{
      */
     public MaxMinHeap(){
         
-        _arr = new double[ARRAY_LEN]; // ARRAY_LEN = 512
+        this(ARRAY_LEN); // ARRAY_LEN = 512
+        
+    } // end of constructor MaxMinHeap
+    
+    /**
+     * Constructor that initializes the heap with an empty array of the given initial capacity
+     * and sets the size to zero.
+     * The array grows automatically when the heap fills up, the capacity is only a hint.
+     * 
+     * @param initialCapacity the initial array length of the heap
+     * @throws IllegalArgumentException if initialCapacity is negative
+     */
+    public MaxMinHeap(int initialCapacity){
+        
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        _arr = new double[initialCapacity];
         _size = 0;
+        _stats = INSTRUMENTED ? new HeapStats() : null;
+        
+    } // end of constructor MaxMinHeap
+    
+    /*
+     * Constructor of a view of another heap, for a task of parallelBuildHeap.
+     * The view works on the same array and size, and counts the work of its sifts in the given statistics,
+     * so the tasks never update the same counters.
+     * 
+     * param heap the heap to view
+     * param stats the statistics of the task
+     */
+    private MaxMinHeap(MaxMinHeap heap, HeapStats stats){
+        
+        _arr = heap._arr;
+        _size = heap._size;
+        _stats = stats;
         
     } // end of constructor MaxMinHeap
     
     /**
-     * Adds a new element to the heap
+     * Adds a new element to the heap.
+     * If the internal array is full, it is grown before the element is added.
      * @param num the element to add
      */
     public void add(double num){
         
+        if (_size == _arr.length) // the array is full - rarely taken
+            grow(_size + 1);
         _arr[_size] = num;
         _size++;
         
     } // end of method add
     
+    /**
+     * Makes sure the heap can hold at least minCapacity elements without growing again
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity){
+        
+        if (minCapacity > _arr.length)
+            grow(minCapacity);
+        
+    } // end of method ensureCapacity
+    
+    /**
+     * Shrinks the internal array to the current size of the heap
+     */
+    public void trimToSize(){
+        
+        if (_size < _arr.length)
+            _arr = Arrays.copyOf(_arr, _size);
+        
+    } // end of method trimToSize
+    
     /**
      * Returns the size of the heap
      * @return the size of the heap
@@ -52,10 +125,55 @@ public class MaxMinHeap{
      */
     public int getCapacity(){
         
-        return ARRAY_LEN;
+        return _arr.length;
         
     } // end of method getCapacity
     
+    /**
+     * Returns the key at index i of the heap array
+     * @param i the index of the key
+     * @return the key at index i
+     * @throws IndexOutOfBoundsException if i is not an index of the heap
+     */
+    public double getKey(int i){
+        
+        if (i < 0 || i >= _size)
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + _size);
+        return _arr[i];
+        
+    } // end of method getKey
+    
+    /**
+     * Returns a snapshot of the operation counters and latency histograms of the heap.
+     * They are collected only when the JVM runs with -Dmaxminheap.stats=true.
+     * @return a copy of the statistics, or null if they are not collected
+     */
+    public HeapStats getStats(){
+        
+        return INSTRUMENTED ? new HeapStats(_stats) : null;
+        
+    } // end of method getStats
+    
+    /**
+     * Clears the operation counters and latency histograms of the heap, if they are collected
+     */
+    public void resetStats(){
+        
+        if (INSTRUMENTED)
+            _stats.reset();
+        
+    } // end of method resetStats
+    
+    /**
+     * Checks if the heaps collect statistics, which is when the JVM runs with -Dmaxminheap.stats=true
+     * @return true if getStats returns the statistics of the heap
+     */
+    public static boolean isInstrumented(){
+        
+        return INSTRUMENTED;
+        
+    } // end of method isInstrumented
+    
     /**
      * Resets the size of the heap
      */
@@ -76,12 +194,31 @@ public class MaxMinHeap{
      * It then enters a loop, checking if the heap is empty, in which case it calls the limitedMenu method,
      * or if it is not empty, in which case it calls the fullMenu method.
      * The loop continues indefinitely until the user exits the program.
+     * 
+     * With a file argument, the heap is loaded from the file with HeapLoader instead, and the menus
+     * start right away. With "-", the keys are loaded from the standard input, and the program exits
+     * after it reports the loaded heap, since the standard input has ended.
+     * With "--batch", the operations of a file (or of the standard input) run in the command mode of HeapBatch,
+     * without the menus.
+     * 
+     * @param args an optional file of keys separated by whitespace or commas, or "-" for the standard input,
+     *             or "--batch" followed by the arguments of HeapBatch
      */
     public static void main(String[] args){
         
         // creates a MaxMinHeap object for the user
         MaxMinHeap userHeap = new MaxMinHeap();
         
+        if (args.length > 0 && args[0].equals("--batch")){ // runs the operations of a script
+            HeapBatch.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        } // end of if statement
+        
+        if (args.length > 0){ // loads the heap from the file
+            if (!loadUserHeap(userHeap, args[0]) || args[0].equals("-"))
+                System.exit(0);
+        } // end of if statement
+        else{
         // checks if the user wants to build the heap - if not, exits the program
         if (!play()){
             System.out.println("You chose to exit the program");
@@ -90,6 +227,7 @@ public class MaxMinHeap{
         
         // calls the buildUserHeap method after user decision
         buildUserHeap(userHeap);
+        } // end of else
         
         // infinite loop until user exits the program
         while (true){
@@ -103,16 +241,16 @@ public class MaxMinHeap{
     
     /**
      * This method performs either a max heapify or a min heapify operation on a max-min heap 
-     * at a given index i based on the level of the index in the heap. It uses the floored base-2 logarithm 
-     * of the index to determine if the level is even or odd, and calls the corresponding heapify operation.
+     * at a given index i based on the level of the index in the heap. It uses the level of the index
+     * to determine if the level is even or odd, and calls the corresponding heapify operation.
      * 
      * param heap - a max-min heap to perform the heapify operation on
      * param i - the index to start the heapify operation at
      */
     public static void heapify(MaxMinHeap heap, int i){
         
-        // determines the level of the index i using the floored base-2 logarithm
-        if (flooredLog2(i+1) % 2 == 0) // i+1 equals to i in array which starts in index 1
+        // determines if the index i is on an even level (a max level)
+        if (isMaxLevel(i))
             maxHeapify(heap, i);
         else // if the level is odd, perform a min heapify operation
             minHeapify(heap, i);
@@ -130,13 +268,67 @@ public class MaxMinHeap{
      */
     public static void buildHeap(MaxMinHeap heap){
         
+        if (!INSTRUMENTED){
+            build(heap);
+            return;
+        } // end of if statement
+        long start = heap._stats.begin();
+        build(heap);
+        heap._stats.end(HeapStats.BUILD, start);
+        
+    } // end of method buildHeap
+    
+    // the body of buildHeap
+    private static void build(MaxMinHeap heap){
+        
         // iterates through the indices of the parent nodes of the leaves, in reverse order
         for (int i = heap._size/2 - 1; i >= 0; i--)
             heapify(heap, i);
                 
         
         
-    } // end of method buildHeap
+    } // end of method build
+    
+    /**
+     * Builds a max-min heap like buildHeap, on all the threads of the common ForkJoinPool.
+     * 
+     * @param heap a MaxMinHeap object to build a heap from
+     */
+    public static void parallelBuildHeap(MaxMinHeap heap){
+        
+        parallelBuildHeap(heap, ForkJoinPool.commonPool());
+        
+    } // end of method parallelBuildHeap
+    
+    /**
+     * Builds a max-min heap like buildHeap, on the threads of the given pool.
+     * The two subtrees of a node are independent, so they are built in parallel and then the node itself
+     * is heapified, bottom-up like buildHeap. Subtrees of up to 16 levels are built by a single thread
+     * with the sequential loop, so the tasks are large enough to be worth forking.
+     * The result is a valid max-min heap, the same one buildHeap builds.
+     * With -Dmaxminheap.stats=true the build is counted as a buildHeap: every task counts its sifts
+     * in its own statistics, and they are added up as the tasks join.
+     * 
+     * @param heap a MaxMinHeap object to build a heap from
+     * @param pool the pool whose threads build the heap
+     */
+    public static void parallelBuildHeap(MaxMinHeap heap, ForkJoinPool pool){
+        
+        if (heap._size < 2)
+            return;
+        if (level(heap._size - 1) <= PARALLEL_CUTOFF_LEVELS) // too small to split
+            buildHeap(heap);
+        else if (!INSTRUMENTED)
+            pool.invoke(new BuildTask(heap, 0));
+        else{
+            long start = heap._stats.begin();
+            BuildTask root = new BuildTask(heap, 0);
+            pool.invoke(root);
+            heap._stats.addRun(root._heap._stats); // the work of all the tasks, added up as they joined
+            heap._stats.end(HeapStats.BUILD, start);
+        } // end of else
+        
+    } // end of method parallelBuildHeap
     
     
     /**
@@ -150,6 +342,18 @@ public class MaxMinHeap{
      */
     public static double heapExtractMax(MaxMinHeap heap){
         
+        if (!INSTRUMENTED)
+            return extractMax(heap);
+        long start = heap._stats.begin();
+        double max = extractMax(heap);
+        heap._stats.end(HeapStats.EXTRACT_MAX, start);
+        return max;
+        
+    } // end of method heapExtractMax
+    
+    // the body of heapExtractMax
+    private static double extractMax(MaxMinHeap heap){
+        
         // if the heap has only one element, returns that element and empties the heap
         if (heap._size == 1)
             return heap._arr[--heap._size];
@@ -167,7 +371,7 @@ public class MaxMinHeap{
         
         // returns the maximum element that was extracted
         return heap._arr[heap._size]; // the heap range is 0 to heap._size-1
-    } // end of method heapExtractMax
+    } // end of method extractMax
     
     
     /**
@@ -181,6 +385,18 @@ public class MaxMinHeap{
      */
     public static double heapExtractMin(MaxMinHeap heap){
         
+        if (!INSTRUMENTED)
+            return extractMin(heap);
+        long start = heap._stats.begin();
+        double min = extractMin(heap);
+        heap._stats.end(HeapStats.EXTRACT_MIN, start);
+        return min;
+        
+    } // end of method heapExtractMin
+    
+    // the body of heapExtractMin
+    private static double extractMin(MaxMinHeap heap){
+        
         switch (heap._size){
             
             case 0: return Integer.MIN_VALUE; // if the heap is empty, returns "negative infinity"
@@ -203,7 +419,104 @@ public class MaxMinHeap{
         heapify(heap, smallest);
         // returns the minimum element that was extracted
         return heap._arr[heap._size];
-    } // end of method heapExtractMin
+    } // end of method extractMin
+    
+    /**
+     * Returns the maximum element of the max-min heap without removing it.
+     * The maximum element is always the root.
+     * 
+     * @param heap a max-min heap
+     * @return the maximum element of the heap, or Integer.MAX_VALUE if the heap is empty
+     */
+    public static double heapMaximum(MaxMinHeap heap){
+        
+        if (heap._size == 0)
+            return Integer.MAX_VALUE;
+        return heap._arr[0];
+        
+    } // end of method heapMaximum
+    
+    /**
+     * Returns the minimum element of the max-min heap without removing it.
+     * The minimum element is the root when it is the only element, otherwise it is one of the root's children.
+     * 
+     * @param heap a max-min heap
+     * @return the minimum element of the heap, or Integer.MIN_VALUE if the heap is empty
+     */
+    public static double heapMinimum(MaxMinHeap heap){
+        
+        switch (heap._size){
+            case 0: return Integer.MIN_VALUE;
+            case 1: return heap._arr[0];
+            case 2: return heap._arr[1];
+        } // end of switch
+        // the same choice heapExtractMin makes between the two children
+        return heap._arr[2] < heap._arr[1] ? heap._arr[2] : heap._arr[1];
+        
+    } // end of method heapMinimum
+    
+    /**
+     * Replaces the maximum element of the heap with a new key and returns the old maximum,
+     * preserving the heap property. Cheaper than heapExtractMax followed by heapInsert,
+     * because the new key moves down from the root once instead of the last leaf moving down and
+     * the new key moving up.
+     * If the heap is empty, the key is inserted and Integer.MAX_VALUE is returned.
+     * 
+     * @param heap a max-min heap
+     * @param key the key that replaces the maximum
+     * @return the old maximum element of the heap, or Integer.MAX_VALUE if the heap was empty
+     */
+    public static double heapReplaceMax(MaxMinHeap heap, double key){
+        
+        if (heap._size == 0){
+            heapInsert(heap, key);
+            return Integer.MAX_VALUE;
+        } // end of if statement
+        
+        double max = heap._arr[0];
+        heap._arr[0] = key;
+        maxHeapify(heap, 0); // moves the key down, also when it is smaller than the minimum
+        return max;
+        
+    } // end of method heapReplaceMax
+    
+    /**
+     * Replaces the minimum element of the heap with a new key and returns the old minimum,
+     * preserving the heap property. Cheaper than heapExtractMin followed by heapInsert.
+     * If the heap is empty, the key is inserted and Integer.MIN_VALUE is returned.
+     * 
+     * @param heap a max-min heap
+     * @param key the key that replaces the minimum
+     * @return the old minimum element of the heap, or Integer.MIN_VALUE if the heap was empty
+     */
+    public static double heapReplaceMin(MaxMinHeap heap, double key){
+        
+        double[] arr = heap._arr;
+        switch (heap._size){
+            case 0:
+                heapInsert(heap, key);
+                return Integer.MIN_VALUE;
+            case 1: {
+                double min = arr[0];
+                arr[0] = key;
+                return min;
+            }
+        } // end of switch
+        
+        // the same choice heapExtractMin makes between the two children
+        int smallest = heap._size > 2 && arr[2] < arr[1] ? 2 : 1;
+        double min = arr[smallest];
+        // a key larger than the maximum becomes the new root, and the old root moves down instead
+        if (key > arr[0]){
+            arr[smallest] = arr[0];
+            arr[0] = key;
+        } // end of if statement
+        else
+            arr[smallest] = key;
+        minHeapify(heap, smallest);
+        return min;
+        
+    } // end of method heapReplaceMin
     
     /**
      * Inserts a new element into the heap, preserving the heap property.
@@ -215,11 +528,91 @@ public class MaxMinHeap{
      */
     public static void heapInsert(MaxMinHeap heap, double key){
         
+        if (!INSTRUMENTED){
+            heap.add(key);
+            bubbleUp(heap, heap._size-1);
+            return;
+        } // end of if statement
+        long start = heap._stats.begin();
         heap.add(key);
         bubbleUp(heap, heap._size-1);
+        heap._stats.end(HeapStats.INSERT, start);
         
     } // end of method heapInsert
     
+    /**
+     * Inserts len keys of the given array, starting at index off, into the heap, preserving the heap property.
+     * The keys are appended to the end of the array with one copy, and then the heap property is restored
+     * in the cheapest of three ways:
+     * - a batch at least as large as the heap rebuilds the whole heap with buildHeap, in O(n + len).
+     * - otherwise the first keys are bubbled up one by one as a sample. Random keys hardly move, and then
+     *   bubbling up the rest one by one is the cheapest way.
+     * - if the sampled keys moved up many levels (sorted keys, like timestamps, climb O(log n) levels each),
+     *   the rest of the keys are fixed by heapifying only their ancestors, bottom-up like buildHeap.
+     *   There are about 2*len of them plus one per level, so it takes O(len + log n) heapify calls
+     *   whatever the order of the keys.
+     * 
+     * @param heap the max-min heap to insert the keys into
+     * @param keys the array that holds the keys
+     * @param off the index of the first key to insert
+     * @param len the number of keys to insert
+     * @throws IndexOutOfBoundsException if off and len are not a valid range of keys
+     */
+    public static void heapInsertAll(MaxMinHeap heap, double[] keys, int off, int len){
+        
+        if (off < 0 || len < 0 || off > keys.length - len)
+            throw new IndexOutOfBoundsException("Range [" + off + ", " + off + " + " + len + ") out of bounds for length " + keys.length);
+        if (len == 0)
+            return;
+        if (len > MAX_ARRAY_LEN - heap._size)
+            throw new OutOfMemoryError("Required heap capacity is too large: " + ((long)heap._size + len));
+        
+        int n = heap._size; // the size of the heap before the insertion
+        heap.ensureCapacity(n + len);
+        System.arraycopy(keys, off, heap._arr, n, len);
+        heap._size = n + len;
+        
+        if (len >= n){ // the batch is as large as the heap - rebuilds all of it, not counted as a buildHeap
+            build(heap);
+            return;
+        } // end of if statement
+        
+        // bubbles up a sample of the keys one by one and counts how many levels they moved up
+        int i = n, sampleEnd = n + Math.min(len, BULK_SAMPLE);
+        long moved = 0;
+        for (; i < sampleEnd; i++)
+            moved += level(i) - level(bubbleUp(heap, i));
+        
+        if (moved <= (long)BULK_MAX_AVERAGE_MOVE * (sampleEnd - n)){ // the keys hardly move - continues one by one
+            for (; i < heap._size; i++)
+                bubbleUp(heap, i);
+        } // end of if statement
+        else if (i < heap._size){ // heapifies the ancestors of the other keys, level by level from the bottom up
+            int lo = parent(i), hi = parent(heap._size - 1); // the parents of the keys that were not bubbled up
+            while (hi >= 0){
+                for (int j = hi; j >= lo; j--)
+                    heapify(heap, j);
+                // the next range holds the parents that were not heapified yet
+                hi = Math.min(parent(hi), lo - 1);
+                lo = parent(lo);
+            } // end of while
+        } // end of else
+        
+    } // end of method heapInsertAll
+    
+    /**
+     * Inserts all the elements of another max-min heap into this heap, preserving the heap property.
+     * The other heap is not changed.
+     * 
+     * @param heap the max-min heap to insert the elements into
+     * @param other the max-min heap whose elements are inserted
+     */
+    public static void meld(MaxMinHeap heap, MaxMinHeap other){
+        
+        heapInsertAll(heap, other._arr, 0, other._size);
+        
+    } // end of method meld
+    
     
     /**
      * Deletes the element at index i from the heap, preserving the heap property.
@@ -230,6 +623,18 @@ public class MaxMinHeap{
      */
     public static int heapDelete(MaxMinHeap heap, int i){
         
+        if (!INSTRUMENTED)
+            return delete(heap, i);
+        long start = heap._stats.begin();
+        int deleted = delete(heap, i);
+        heap._stats.end(HeapStats.DELETE, start);
+        return deleted;
+        
+    } // end of method heapDelete
+    
+    // the body of heapDelete
+    private static int delete(MaxMinHeap heap, int i){
+        
         // if i is out of range, returns 0
         if (i < 0 || i >= heap._size)
             return 0;
@@ -242,43 +647,143 @@ public class MaxMinHeap{
         bubbleUp(heap, i); // bubble up the swapped element to maintain max-min heap property
         heapify(heap, i); // heapify the tree rooted at the swapped element to maintain max-min heap property
         return 1; // indicates successful deletion
-    } // end of method heapDelete
+    } // end of method delete
     
     /**
      * Sorts the elements of a max-min heap in non-decreasing order.
      * The sorted elements are left in the heap array and deleted from the heap itself.
+     * Same as drainSorted.
      * 
      * @param heap the max-min heap to sort
      * @return the number of elements sorted
      */
     public static int heapSort(MaxMinHeap heap){
         
+        return drainSorted(heap);
+        
+    } // end of method heapSort
+    
+    /**
+     * Sorts the elements of a max-min heap in non-decreasing order, in place.
+     * The sorted elements are left in the heap array and deleted from the heap itself.
+     * 
+     * Repeatedly extracting the root of a max-min heap is slower than a plain binary heapsort, because every
+     * extraction also fixes the min levels. The heap order is of no use once the heap is being destroyed,
+     * so the array is sorted directly with Arrays.sort (a dual-pivot quicksort).
+     * 
+     * @param heap the max-min heap to sort
+     * @return the number of elements sorted
+     */
+    public static int drainSorted(MaxMinHeap heap){
+        
         int sortedArrLen = heap._size; // stores the number of elements
-        // if there is only one element, there is nothing to sort
-        if (heap._size == 1)
-                heap._size--;
-                
-        while (heap._size > 0){ // while there are still elements in the heap
-            // swaps the max element with the last element in the "array" and deletes it from heap
-            swap(heap, 0, heap._size - 1);
-            heap._size--;
-            
-            // re-heapify the heap to maintain the max-min heap property
-            heapify(heap, 0);
-        } // end of while
+        Arrays.sort(heap._arr, 0, sortedArrLen);
+        heap._size = 0;
         return sortedArrLen; // returns the number of the sorted elements
         
-    } // end of method heapSort
+    } // end of method drainSorted
+    
+    /**
+     * Returns a new array with the elements of the heap in non-decreasing order.
+     * The heap itself is not changed.
+     * 
+     * @param heap the max-min heap
+     * @return the sorted elements of the heap
+     */
+    public static double[] sortedCopy(MaxMinHeap heap){
+        
+        return sortedCopy(heap, false);
+        
+    } // end of method sortedCopy
+    
+    /**
+     * Returns a new array with the elements of the heap in non-decreasing or non-increasing order.
+     * The heap itself is not changed.
+     * 
+     * @param heap the max-min heap
+     * @param descending true for non-increasing order, false for non-decreasing order
+     * @return the sorted elements of the heap
+     */
+    public static double[] sortedCopy(MaxMinHeap heap, boolean descending){
+        
+        double[] sorted = new double[heap._size];
+        toSortedArray(heap, sorted, descending);
+        return sorted;
+        
+    } // end of method sortedCopy
+    
+    /**
+     * Copies the elements of the heap into the given array in non-decreasing order, starting at index 0.
+     * The heap itself is not changed.
+     * 
+     * @param heap the max-min heap
+     * @param dest the array to copy the sorted elements into
+     * @return the number of elements copied
+     * @throws IndexOutOfBoundsException if dest is shorter than the size of the heap
+     */
+    public static int toSortedArray(MaxMinHeap heap, double[] dest){
+        
+        return toSortedArray(heap, dest, false);
+        
+    } // end of method toSortedArray
+    
+    /**
+     * Copies the elements of the heap into the given array in non-decreasing or non-increasing order,
+     * starting at index 0. The heap itself is not changed.
+     * 
+     * @param heap the max-min heap
+     * @param dest the array to copy the sorted elements into
+     * @param descending true for non-increasing order, false for non-decreasing order
+     * @return the number of elements copied
+     * @throws IndexOutOfBoundsException if dest is shorter than the size of the heap
+     */
+    public static int toSortedArray(MaxMinHeap heap, double[] dest, boolean descending){
+        
+        int len = heap._size;
+        if (dest.length < len)
+            throw new IndexOutOfBoundsException("Destination length " + dest.length + " is less than heap size " + len);
+        System.arraycopy(heap._arr, 0, dest, 0, len); // one bulk copy
+        Arrays.sort(dest, 0, len);
+        if (descending) // reverses the sorted range in place
+            for (int i = 0, j = len - 1; i < j; i++, j--){
+                double temp = dest[i];
+                dest[i] = dest[j];
+                dest[j] = temp;
+            } // end of for
+        return len;
+        
+    } // end of method toSortedArray
     
 /*---------------------------------Helper methods-------------------------------------------------------------------*/  
+    /*
+     * Grows the internal array of the heap so it can hold at least minCapacity elements.
+     * The array grows geometrically (by half of its length) so a sequence of n additions
+     * copies O(n) elements in total.
+     * param minCapacity - the required minimum capacity
+     */
+    private void grow(int minCapacity){
+        
+        if (minCapacity < 0 || minCapacity > MAX_ARRAY_LEN) // overflow or too many elements
+            throw new OutOfMemoryError("Required heap capacity is too large: " + minCapacity);
+        int oldCapacity = _arr.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1); // 1.5 times the old capacity
+        if (newCapacity - minCapacity < 0) // also handles an empty array
+            newCapacity = Math.max(minCapacity, ARRAY_LEN);
+        if (newCapacity - MAX_ARRAY_LEN > 0)
+            newCapacity = MAX_ARRAY_LEN;
+        _arr = Arrays.copyOf(_arr, newCapacity);
+        
+    } // end of method grow
+    
     /*
      * Calculates the index of the parent of the element at index i
      * param i - the index of the element
      * returns the index of the parent of the element
+     * (package-private, so MaxMinHeapTest can check it for every index)
      */
-    private static int parent(int i){
+    static int parent(int i){
         
-        return (i+1)/2-1; // equals to i/2 in array which starts in index 1
+        return (i-1) >> 1; // equals to i/2 in array which starts in index 1, parent(0) is -1
         
     } // end of method parent
     
@@ -316,107 +821,221 @@ public class MaxMinHeap{
         temp = heap._arr[i];
         heap._arr[i] = heap._arr[j];
         heap._arr[j] = temp;
+        if (INSTRUMENTED)
+            heap._stats.swap();
         
     } // end of method swap
     
     /*
      * Helper method for heapify
      * Fixes the even levels of the heap (the max areas)
+     * 
+     * The element at index i moves down with a single "hole": the larger elements are moved up
+     * into the hole and the element itself is written only once, at its final position.
+     * Each step jumps two levels, to the largest of the children and grandchildren of the hole.
+     * When all four grandchildren exist, the largest of them is also the largest of the children,
+     * because every child is on a min level and so it is not larger than its own children.
+     * That takes 3 comparisons instead of scanning all six elements.
+     * 
      * param heap - the heap to heapify
      * param i - the index of the root of the subtree
      */
     private static void maxHeapify(MaxMinHeap heap, int i){
         
-        // finds the left and right child indices of the given index
-        int l = left(i);
-        int r = right(i);
-        
-        // initializes the largest value index as the given index
-        int largest;
-        if (l < heap._size && heap._arr[l] > heap._arr[i])
-            largest = l;
-        else
-            largest = i;
-        
-        /* checks if the left child is larger than the given index
-           if it is, updates the largest value index to the left child index */
-        if (r < heap._size && heap._arr[r] > heap._arr[largest])
-            largest = r;
+        double[] arr = heap._arr;
+        int size = heap._size;
+        double key = arr[i]; // the element that moves down
+        int lastParent = (size - 2) >> 1; // the last index that has a child
+        int lastFullGrandParent = (size - 7) >> 2; // the last index that has all four grandchildren
+        int comparisons = 0, moves = 1, levels = 0; // for HeapStats, removed by the JIT when they are not collected
+        
+        while (i <= lastParent){
+            int largest; // the index of the largest child or grandchild
+            if (i <= lastFullGrandParent){ // the common case - all the grandchildren exist
+                int g = left(left(i));
+                int a = arr[g] > arr[g+1] ? g : g+1;
+                int b = arr[g+2] > arr[g+3] ? g+2 : g+3;
+                largest = arr[a] > arr[b] ? a : b;
+                comparisons += 3;
+            } // end of if statement
+            else // near the bottom of the heap - checks whichever children and grandchildren exist
+                largest = largestNearBottom(heap, i);
+            
+            comparisons++;
+            if (arr[largest] <= key) // the heap property is satisfied
+                break;
+            
+            moves++;
+            arr[i] = arr[largest]; // moves the largest element up into the hole
+            if (largest <= right(i)){ // a child - the subtree below it is fine
+                levels++;
+                i = largest;
+                break;
+            } // end of if statement
+            levels += 2;
+            
+            // a grandchild - the element must also fit its new parent, which is on a min level
+            i = largest;
+            int p = parent(i);
+            comparisons++;
+            if (key < arr[p]){
+                moves++;
+                double temp = arr[p];
+                arr[p] = key;
+                key = temp;
+            } // end of if statement
+        } // end of while
+        arr[i] = key;
+        if (INSTRUMENTED)
+            heap._stats.sift(comparisons, moves, levels);
         
-        // if the largest value index is not the given index, swap the values of the given index and the largest index
-        if (largest != i){
-            swap(heap, i, largest);
-            largest = i; // updates the largest index after swap - necessary for the next loop
+    } // end of method maxHeapify
+    
+    /*
+     * Helper method for maxHeapify, for an index near the bottom of the heap
+     * that does not have all four grandchildren. Kept apart so that the common case stays small enough
+     * for the JIT to inline it.
+     * param heap - the heap
+     * param i - an index that has at least one child
+     * returns the index of the largest child or grandchild of i
+     */
+    private static int largestNearBottom(MaxMinHeap heap, int i){
+        
+        double[] arr = heap._arr;
+        int size = heap._size;
+        int largest = left(i);
+        int comparisons = 0; // for HeapStats
+        if (largest + 1 < size){
+            comparisons++;
+            if (arr[largest + 1] > arr[largest])
+                largest++;
         } // end of if statement
-        
-        /* checks the largest value index for its grandchildren,
-           the loop iterates 4 times for the 4 grandchildren indices */
-        for (int j = left(left(i)); j < heap._size && j <= right(right(i)); j++){
-            // if a grandchild is larger than the largest value index, updates the largest value index
-            if (heap._arr[j] > heap._arr[largest])
+        for (int j = left(left(i)); j < size && j <= right(right(i)); j++){
+            comparisons++;
+            if (arr[j] > arr[largest])
                 largest = j;
         } // end of for
+        if (INSTRUMENTED)
+            heap._stats.sift(comparisons, 0, 0);
+        return largest;
         
-        /* if the largest value index is not the given index after checking grandchildren,
-           swap the values of the given index and the largest index and perform max heapify on the largest index recursively */
-        if (largest != i){
-            swap(heap, i, largest);
-            maxHeapify(heap, largest);
-        } // end of if statement
-        
-    } // end of method maxHeapify
+    } // end of method largestNearBottom
     
     /*
      * Helper method for heapify
      * Fixes the odd levels of the heap (the min areas)
+     * Works like maxHeapify with the comparisons reversed.
      * param heap - the heap to heapify
      * param i - the index of the root of the subtree
      */
     private static void minHeapify(MaxMinHeap heap, int i){
-    
-        int l = left(i);
-        int r = right(i);
-        int smallest;
-        if (l < heap._size && heap._arr[l] < heap._arr[i])
-            smallest = l;
-        else
-            smallest = i;
         
-        if (r < heap._size && heap._arr[r] < heap._arr[smallest])
-            smallest = r;
-        
-        if (smallest != i){
-            swap(heap, i, smallest);
-            smallest = i;
-        } // end of if statement 
+        double[] arr = heap._arr;
+        int size = heap._size;
+        double key = arr[i]; // the element that moves down
+        int lastParent = (size - 2) >> 1; // the last index that has a child
+        int lastFullGrandParent = (size - 7) >> 2; // the last index that has all four grandchildren
+        int comparisons = 0, moves = 1, levels = 0; // for HeapStats, removed by the JIT when they are not collected
+        
+        while (i <= lastParent){
+            int smallest; // the index of the smallest child or grandchild
+            if (i <= lastFullGrandParent){ // the common case - all the grandchildren exist
+                int g = left(left(i));
+                int a = arr[g] < arr[g+1] ? g : g+1;
+                int b = arr[g+2] < arr[g+3] ? g+2 : g+3;
+                smallest = arr[a] < arr[b] ? a : b;
+                comparisons += 3;
+            } // end of if statement
+            else // near the bottom of the heap - checks whichever children and grandchildren exist
+                smallest = smallestNearBottom(heap, i);
+            
+            comparisons++;
+            if (arr[smallest] >= key) // the heap property is satisfied
+                break;
+            
+            moves++;
+            arr[i] = arr[smallest]; // moves the smallest element up into the hole
+            if (smallest <= right(i)){ // a child - the subtree below it is fine
+                levels++;
+                i = smallest;
+                break;
+            } // end of if statement
+            levels += 2;
+            
+            // a grandchild - the element must also fit its new parent, which is on a max level
+            i = smallest;
+            int p = parent(i);
+            comparisons++;
+            if (key > arr[p]){
+                moves++;
+                double temp = arr[p];
+                arr[p] = key;
+                key = temp;
+            } // end of if statement
+        } // end of while
+        arr[i] = key;
+        if (INSTRUMENTED)
+            heap._stats.sift(comparisons, moves, levels);
         
-        // checks the smallest value index for its grandchildren
-        for (int j = left(left(i)); j < heap._size && j <= right(right(i)); j++){
-            if (heap._arr[j] < heap._arr[smallest])
+    } // end of method minHeapify
+    
+    /*
+     * Helper method for minHeapify, for an index near the bottom of the heap
+     * that does not have all four grandchildren. Kept apart so that the common case stays small enough
+     * for the JIT to inline it.
+     * param heap - the heap
+     * param i - an index that has at least one child
+     * returns the index of the smallest child or grandchild of i
+     */
+    private static int smallestNearBottom(MaxMinHeap heap, int i){
+        
+        double[] arr = heap._arr;
+        int size = heap._size;
+        int smallest = left(i);
+        int comparisons = 0; // for HeapStats
+        if (smallest + 1 < size){
+            comparisons++;
+            if (arr[smallest + 1] < arr[smallest])
+                smallest++;
+        } // end of if statement
+        for (int j = left(left(i)); j < size && j <= right(right(i)); j++){
+            comparisons++;
+            if (arr[j] < arr[smallest])
                 smallest = j;
         } // end of for
+        if (INSTRUMENTED)
+            heap._stats.sift(comparisons, 0, 0);
+        return smallest;
         
-        /* if the smallest value index is not the given index after checking grandchildren,
-           swap the values of the given index and the smallest index and perform min heapify on the smallest index recursively */
-        if (smallest != i){
-            swap(heap, i, smallest);
-            minHeapify(heap, smallest);
-        } // end of if statement
-                
-    } // end of method minHeapify
+    } // end of method smallestNearBottom
     
 
     /*
-     * This method returns the floored base-2 logarithm of the given integer.
+     * Returns the level of the element at index i (the root is at level 0).
+     * The level is the floored base-2 logarithm of i+1, computed from the position of its
+     * highest set bit instead of floating-point math. i+1 is treated as an unsigned number,
+     * so the result is also correct for i = Integer.MAX_VALUE.
      * 
-     * param i - the integer to compute the floored base-2 logarithm of
-     * returns the floored base-2 logarithm of the given integer
+     * param i - the index of the element
+     * returns the level of the element in the heap
+     * (package-private, so MaxMinHeapTest can check it for every index)
      */
-    private static double flooredLog2(int i){
+    static int level(int i){
         
-        return Math.floor((Math.log(i)/Math.log(2)));
+        return 31 - Integer.numberOfLeadingZeros(i + 1); // i+1 equals to i in array which starts in index 1
         
-    } // end of method flooredLog2 
+    } // end of method level
+    
+    /*
+     * Checks if the element at index i is on an even level of the heap (a max level)
+     * param i - the index of the element
+     * returns true if the element is on a max level, false if it is on a min level
+     */
+    static boolean isMaxLevel(int i){
+        
+        return (level(i) & 1) == 0;
+        
+    } // end of method isMaxLevel
     
     /*
      * Helper method for heapInsert and heapDelete methods
@@ -426,44 +1045,115 @@ public class MaxMinHeap{
      * If the node has an even depth (i.e., it is a min-level node), then it must be greater than its parent 
      * and less than or equal to its grandparent. If it has an odd depth (i.e., it is a max-level node),
      * then it must be less than its parent and greater than or equal to its grandparent.
-     * If either the parent or the grandparent violate the heap property, then the node is swapped with the 
-     * parent or the grandparent, depending on the depth of the node, and the loop continues with the new index.
-     * If the heap property is already satisfied, the loop ends.
+     * The parent can only be violated before the node starts moving, so it is checked once, and then the
+     * node moves up through its grandparents, which are on the same kind of level, until the heap property is satisfied.
+     * The node moves with a single "hole": the parents and grandparents it passes are moved down into the hole
+     * and the node itself is written only once, at its final position.
+     * The depth parity is computed once and then tracked while moving up: moving to the parent flips it,
+     * moving to the grandparent keeps it.
      * 
      * param heap - the MaxMinHeap instance to which the node belongs
      * param i - the index of the node to be moved up in the heap
+     * returns the index where the node ended up
      */
-    private static void bubbleUp(MaxMinHeap heap, int i){
+    private static int bubbleUp(MaxMinHeap heap, int i){
         
+        double[] arr = heap._arr;
+        double key = arr[i]; // the element that moves up
         // flag to determine if the node is at an even or odd level
-        boolean isEvenDepth;
-        int grandParent, node = i;
-        while (node > 0){ // until the root
-            isEvenDepth = flooredLog2(node+1) % 2 == 0;
-            grandParent = parent(parent(node)); // equals to i*4 in array which starts in index 1
-            
-            // checks if the node violates the max-min heap property with its parent
-            if ( parent(node) >= 0 && 
-            ((isEvenDepth && heap._arr[parent(node)] > heap._arr[node]) || 
-            (!isEvenDepth && heap._arr[parent(node)] < heap._arr[node])) ){
-                    swap(heap, parent(node), node);
-                    node = parent(node);
+        boolean isEvenDepth = isMaxLevel(i);
+        int node = i;
+        int comparisons = 0, moves = 1, levels = 0; // for HeapStats, removed by the JIT when they are not collected
+        
+        // checks if the node violates the max-min heap property with its parent
+        if (node > 0){
+            int parent = parent(node);
+            comparisons++;
+            if ( (isEvenDepth && arr[parent] > key) ||
+            (!isEvenDepth && arr[parent] < key) ){
+                    arr[node] = arr[parent]; // moves the parent down into the hole
+                    node = parent;
+                    isEvenDepth = !isEvenDepth; // the parent is on the other kind of level
+                    moves++;
+                    levels++;
             } // end of if statement
+        } // end of if statement
+        
+        // moves the node up through its grandparents while it violates the max-min heap property with them
+        int grandParent = parent(parent(node)); // equals to i/4 in array which starts in index 1
+        while ( grandParent >= 0 &&
+        ( (isEvenDepth && arr[grandParent] < key) ||
+        (!isEvenDepth && arr[grandParent] > key) ) ){
+                arr[node] = arr[grandParent]; // moves the grandparent down into the hole
+                node = grandParent;
+                grandParent = parent(parent(node));
+                comparisons++;
+                moves++;
+                levels += 2;
+        } // end of while
+        arr[node] = key;
+        if (INSTRUMENTED) // the grandparent that stopped the node was compared too
+            heap._stats.sift(grandParent >= 0 ? comparisons + 1 : comparisons, moves, levels);
+        return node;
+        
+    } // end of method bubbleUp
+    
+    /*
+     * Builds the subtree rooted at one index, for parallelBuildHeap.
+     * Forks the two subtrees below it while they are large, then heapifies the root.
+     */
+    private static class BuildTask extends RecursiveAction{
+        
+        private static final long serialVersionUID = 1L;
+        private final MaxMinHeap _heap; // a view of the heap with the statistics of this task, when they are collected
+        private final int _root;
+        
+        private BuildTask(MaxMinHeap heap, int root){
             
-            // checks if the node violates the max-min heap property with its grandparent
-            else if ( grandParent >= 0 &&
-            ( (isEvenDepth && heap._arr[grandParent] < heap._arr[node]) ||
-            (!isEvenDepth && heap._arr[grandParent] > heap._arr[node]) ) ){
-                    swap(heap, grandParent, node);
-                    node = grandParent;
-            } // end of else if statement
-            else // heap property is satisfied
-                break;
+            _heap = INSTRUMENTED ? new MaxMinHeap(heap, HeapStats.forTask()) : heap;
+            _root = root;
             
-        } // end of while
+        } // end of constructor BuildTask
         
+        @Override
+        protected void compute(){
+            
+            int lastParent = _heap._size/2 - 1;
+            if (_root > lastParent) // a leaf
+                return;
+            if (level(_heap._size - 1) - level(_root) <= PARALLEL_CUTOFF_LEVELS)
+                buildSubtree(_heap, _root);
+            else{
+                BuildTask left = new BuildTask(_heap, left(_root)), right = new BuildTask(_heap, right(_root));
+                invokeAll(left, right);
+                if (INSTRUMENTED){ // the subtasks joined, so their counters can be read
+                    _heap._stats.addRun(left._heap._stats);
+                    _heap._stats.addRun(right._heap._stats);
+                } // end of if statement
+                heapify(_heap, _root);
+            } // end of else
+            
+        } // end of method compute
         
-    } // end of method bubbleUp
+    } // end of class BuildTask
+    
+    /*
+     * Builds the subtree rooted at index root, bottom-up like buildHeap.
+     * The descendants of root at a depth d below it take the consecutive indices
+     * (root+1)*2^d-1 .. (root+1)*2^d+2^d-2, so the subtree is walked level by level from its bottom.
+     */
+    private static void buildSubtree(MaxMinHeap heap, int root){
+        
+        int lastParent = heap._size/2 - 1;
+        int depth = level(lastParent) - level(root); // the depth of the lowest parents below root
+        for (int d = depth; d >= 0; d--){
+            long first = ((long)root + 1 << d) - 1;
+            long last = Math.min(first + (1L << d) - 1, lastParent);
+            for (long i = last; i >= first; i--)
+                heapify(heap, (int)i);
+        } // end of for
+        
+    } // end of method buildSubtree
 
 /*---------------------------------Interaction methods and their helpers--------------------------------------------*/ 
    
@@ -582,29 +1272,22 @@ public class MaxMinHeap{
         Scanner scan = new Scanner(System.in);
         userHeap.resetSize(); // resets the heap size to zero(mainly for re-build)
         System.out.println("Enter keys for Max-Min heap: enter a non-number character to stop");
-        try{
-            while (true){// continue looping until an exception is caught
-                
-                inputNum = scan.nextDouble();
-                userHeap.add(inputNum); // add the input number to the heap
-                
-            } // end of while
-        } // end of try
-        catch(Exception e){ // if an exception is caught, the user has stopped entering numbers
+        while (scan.hasNextDouble()){ // continue looping until a non-number or the end of the input
             
-            if (userHeap.getSize() != 0){ // if any numbers have been entered, prints them
-                if (userHeap.getSize() == userHeap.getCapacity()) // if heap is full
-                    System.out.println("You have entered too much numbers..."); 
-                System.out.println("The received numbers:");
-                printInput(userHeap);
-            } // end of if statement
-            else{ // no number has been received, informs the user that they have not entered any numbers
-                System.out.println("You have not entered numbers...");
-                return;
-                
-            } // end of else
+            inputNum = scan.nextDouble();
+            userHeap.add(inputNum); // add the input number to the heap
+            
+        } // end of while
         
-        } // end of catch
+        if (userHeap.getSize() != 0){ // if any numbers have been entered, prints them
+            System.out.println("The received numbers:");
+            printInput(userHeap);
+        } // end of if statement
+        else{ // no number has been received, informs the user that they have not entered any numbers
+            System.out.println("You have not entered numbers...");
+            return;
+            
+        } // end of else
         
         buildHeap(userHeap); // builds the heap using the inputs
         System.out.println("Your Max-Min heap is: ");
@@ -612,6 +1295,39 @@ public class MaxMinHeap{
         
     } // end of method buildUserHeap
     
+    /*
+     * Loads the keys of the given file ("-" for the standard input) into the heap with HeapLoader,
+     * and reports the number of keys, the time, and the tokens that were not numbers.
+     * The heap is not printed, since it may hold millions of keys.
+     * 
+     * param userHeap - the max-min heap to load
+     * param source - the file name, or "-" for the standard input
+     * returns true if the heap was loaded, false if the input could not be read
+    */
+    private static boolean loadUserHeap(MaxMinHeap userHeap, String source){
+        
+        userHeap.resetSize();
+        long start = System.nanoTime();
+        try (HeapLoader loader = source.equals("-") ? HeapLoader.stdin() : new HeapLoader(Paths.get(source))){
+            long keys = loader.load(userHeap);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Loaded %d keys (%d bytes) in %.3f seconds, %.1f MB/s%n",
+                              keys, loader.getBytesRead(), seconds, loader.getBytesRead() / 1e6 / seconds);
+            if (loader.getInvalidTokens() > 0)
+                System.out.println("Skipped " + loader.getInvalidTokens() + " tokens that are not numbers, the first at byte " +
+                                   loader.getFirstInvalidOffset());
+        } // end of try
+        catch (IOException | InvalidPathException e){
+            System.out.println("Cannot read " + source + " (" + e + ")");
+            return false;
+        } // end of catch
+        
+        if (userHeap.getSize() > 0)
+            System.out.println("Maximum: " + heapMaximum(userHeap) + ", minimum: " + heapMinimum(userHeap));
+        return true;
+        
+    } // end of method loadUserHeap
+    
     
     /*
      * Displays a limited menu of options for the user to interact with the max-min Heap.
@@ -738,11 +1454,7 @@ public class MaxMinHeap{
                         } // end of external if statement
                 break;
                 // case 5: allows the user to insert a new value to the heap.
-                case 5: if (userHeap.getSize() == userHeap.getCapacity()){ // if heap is full
-                            System.out.println("The heap is full, please choose another operation...");
-                            break;
-                        }
-                        System.out.println("Enter the new value:") ;
+                case 5: System.out.println("Enter the new value:") ;
                         try {
                             double key = newKey.nextDouble();
                             heapInsert(userHeap, key);
@@ -0,0 +1,1096 @@
+/**
+ * Randomized tests of the max-min heaps against a sorted list of the same keys.
+ *
+ * MaxMinHeap and the generated IntMaxMinHeap, LongMaxMinHeap, DoubleMaxMinHeap and ObjectMaxMinHeap share one
+ * test: each of them is wrapped in a Variant, and the same random operations run on the heap and on the model.
+ * After every operation the heap property and the multiset of keys are checked. Another check makes sure that
+ * every variant has all the public static operations of MaxMinHeap, so a new operation can not be added to one
+ * heap only, and that the generated heaps are the ones MaxMinHeapVariant.template generates.
+ * OffHeapMaxMinHeap runs the same operations with chunks of 4 keys, and is also checked around the boundary of its
+ * default chunks of 2^27 keys (with 1 GiB of native memory) and after close.
+ * DaryMaxMinHeap runs them too at every arity from 2 to 64, with the heap property checked on its d-ary tree.
+ * BoundedMaxMinHeap gets random streams, and must keep the largest (or smallest) keys offered and reject with
+ * its threshold exactly the keys that would be evicted right away.
+ * IndexedMaxMinHeap is checked against a map of its live handles: updateKey and remove through stale handles
+ * (of removed keys, before an insert reuses them), unknown and negative handles must change nothing.
+ * MedianMaxMinHeap is checked at the quantiles 0, 0.5 and 1 against the ranks of a sorted list of its keys.
+ * The allocation check measures the bytes the current thread allocates in heapInsert, heapExtractMax and
+ * heapExtractMin: none for the primitive heaps, and a boxed Long per key for the object heap.
+ * The index arithmetic of MaxMinHeap (level, isMaxLevel and parent) is checked for every non-negative int
+ * against a loop that walks the levels and the children of the tree one index at a time.
+ * There is no test framework in the project, so the tests run from main and stop at the first failure.
+ *
+ * java MaxMinHeapTest [seed]
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+public class MaxMinHeapTest{
+    
+    final private static int ROUNDS = 10; // number of random heaps per variant
+    final private static int OPERATIONS = 2000; // number of random operations per heap
+    final private static int KEY_RANGE = 200; // keys are drawn from [0, KEY_RANGE), so there are many duplicates
+    final private static int BULK_LEN = 200; // the largest batch of the random operations
+    final private static int MAX_SIZE = 400; // a larger heap only shrinks, so the checks stay fast
+    final private static int ALLOCATION_KEYS = 10000; // keys inserted and extracted by one run of the allocation check
+    final private static int ALLOCATION_RUNS = 200; // runs of the allocation check, the later ones run compiled code
+    final private static int OFF_HEAP_CHUNK_SHIFT = 27; // the chunks of a default OffHeapMaxMinHeap hold 2^27 keys
+    final private static int CHUNK_OPERATIONS = 20000; // random operations around the chunk boundary
+    final private static int CHUNK_WINDOW = 4096; // the last keys, whose heap property is checked near the boundary
+    
+    private static long _sink; // consumes the extracted keys of the allocation check
+    
+    // the operations of one heap class, with long keys
+    private interface Variant{
+        String name();
+        void insert(long key);
+        void insertAll(long[] keys, int off, int len);
+        void meld(long[] keys); // melds a new heap of the given keys into the heap
+        long extractMax();
+        long extractMin();
+        long maximum();
+        long minimum();
+        long replaceMax(long key);
+        long replaceMin(long key);
+        int delete(int i);
+        int size();
+        long key(int i);
+        long[] sortedCopy(boolean descending);
+        long[] drainSorted(); // sorts the heap in place and returns its sorted keys
+        default int arity(){ return 2; } // the number of children of every node
+    } // end of interface Variant
+    
+    /**
+     * Runs all the tests and prints a line per test
+     * @param args an optional random seed
+     * @throws IOException if the template of the generated heaps can not be read
+     */
+    public static void main(String[] args) throws IOException{
+        
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        
+        checkIndexes();
+        System.out.println("levels and parents of all indexes: ok");
+        
+        checkGenerated();
+        checkParity(IntMaxMinHeap.class);
+        checkParity(LongMaxMinHeap.class);
+        checkParity(DoubleMaxMinHeap.class);
+        checkParity(ObjectMaxMinHeap.class);
+        System.out.println("parity: ok");
+        
+        checkVariant(doubleVariant(), seed);
+        checkVariant(intVariant(), seed);
+        checkVariant(longVariant(), seed);
+        checkVariant(doubleHeapVariant(), seed);
+        checkVariant(objectVariant(), seed);
+        checkVariant(offHeapVariant(), seed);
+        for (int arity = 2; arity <= 64; arity *= 2)
+            checkVariant(daryVariant(arity), seed);
+        checkEmpty();
+        System.out.println("empty heaps: ok");
+        checkBounded(seed);
+        System.out.println("BoundedMaxMinHeap: ok");
+        checkIndexed(seed);
+        System.out.println("IndexedMaxMinHeap: ok");
+        checkMedian(0, seed);
+        checkMedian(0.5, seed);
+        checkMedian(1, seed);
+        System.out.println("MedianMaxMinHeap: ok");
+        checkOffHeapClose();
+        System.out.println("OffHeapMaxMinHeap close: ok");
+        checkOffHeapChunks(seed);
+        checkAllocation();
+        
+    } // end of method main
+    
+    // checks level, isMaxLevel and parent of MaxMinHeap for every index from 0 to Integer.MAX_VALUE.
+    // the level grows by one after the last index of every level (2^(level+1) - 2), and the parent
+    // grows by one after its right child (2 * parent + 2), so no shift or logarithm is used
+    private static void checkIndexes(){
+        
+        int level = 0, parent = -1;
+        long lastOfLevel = 0, rightChild = 0; // the last index of the level, and the right child of the parent
+        for (long i = 0; i <= Integer.MAX_VALUE; i++){
+            if (i > lastOfLevel){ // the first index of the next level
+                level++;
+                lastOfLevel = 2 * lastOfLevel + 2;
+            } // end of if statement
+            if (i > rightChild){ // the first child of the next parent
+                parent++;
+                rightChild = 2L * parent + 2;
+            } // end of if statement
+            int index = (int)i;
+            if (MaxMinHeap.level(index) != level || MaxMinHeap.isMaxLevel(index) != (level % 2 == 0)
+                || MaxMinHeap.parent(index) != parent)
+                check(false, "index " + i + ": level " + MaxMinHeap.level(index) + " instead of " + level
+                      + ", parent " + MaxMinHeap.parent(index) + " instead of " + parent);
+        } // end of for
+        check(level == 31 && parent == (Integer.MAX_VALUE - 1) / 2, "the last index");
+        
+    } // end of method checkIndexes
+    
+    // checks that the generated heaps are up to date with their template, when the test runs in their directory
+    private static void checkGenerated() throws IOException{
+        
+        Path dir = Paths.get(".");
+        if (!Files.exists(dir.resolve(GenerateHeaps.TEMPLATE))){
+            System.out.println("generated heaps: not checked, " + GenerateHeaps.TEMPLATE + " is not in the current directory");
+            return;
+        } // end of if statement
+        List<String> stale = GenerateHeaps.staleClasses(dir);
+        check(stale.isEmpty(), stale + " differ from " + GenerateHeaps.TEMPLATE + ", run java GenerateHeaps");
+        System.out.println("generated heaps: ok");
+        
+    } // end of method checkGenerated
+    
+    // checks that a heap class declares every public static operation of MaxMinHeap, except the ones of the double heap only
+    private static void checkParity(Class<?> variant){
+        
+        List<String> doubleOnly = Arrays.asList("main", "parallelBuildHeap", "isInstrumented");
+        TreeSet<String> missing = new TreeSet<String>();
+        for (Method m : MaxMinHeap.class.getDeclaredMethods())
+            if (Modifier.isPublic(m.getModifiers()) && Modifier.isStatic(m.getModifiers()) && !doubleOnly.contains(m.getName()))
+                missing.add(m.getName() + "/" + m.getParameterCount());
+        for (Method m : variant.getDeclaredMethods())
+            if (Modifier.isPublic(m.getModifiers()) && Modifier.isStatic(m.getModifiers()))
+                missing.remove(m.getName() + "/" + m.getParameterCount());
+        check(missing.isEmpty(), variant.getSimpleName() + " lacks " + missing);
+        
+    } // end of method checkParity
+    
+    // runs random operations on heaps of a variant and on the model
+    private static void checkVariant(Variant heap, long seed){
+        
+        Random random = new Random(seed);
+        for (int round = 0; round < ROUNDS; round++){
+            List<Long> model = new ArrayList<Long>();
+            Variant h = fresh(heap);
+            for (int op = 0; op < OPERATIONS; op++){
+                int choice = model.isEmpty() ? random.nextInt(3)
+                             : model.size() > MAX_SIZE ? 3 + random.nextInt(9) : random.nextInt(12);
+                switch (choice){
+                    case 0: { // a single key
+                        long key = random.nextInt(KEY_RANGE);
+                        h.insert(key);
+                        model.add(key);
+                        break;
+                    }
+                    case 1: { // a batch, small or as large as the heap
+                        int len = random.nextInt(4) == 0 ? random.nextInt(model.size() + 2) : random.nextInt(BULK_LEN);
+                        long[] keys = randomKeys(random, len + 3);
+                        h.insertAll(keys, 3, len);
+                        for (int i = 3; i < 3 + len; i++)
+                            model.add(keys[i]);
+                        break;
+                    }
+                    case 2: {
+                        long[] keys = randomKeys(random, random.nextInt(BULK_LEN));
+                        h.meld(keys);
+                        for (long key : keys)
+                            model.add(key);
+                        break;
+                    }
+                    case 3: check(h.extractMax() == removeMax(model), h.name() + " extractMax"); break;
+                    case 4: check(h.extractMin() == removeMin(model), h.name() + " extractMin"); break;
+                    case 5: check(h.maximum() == Collections.max(model), h.name() + " maximum"); break;
+                    case 6: check(h.minimum() == Collections.min(model), h.name() + " minimum"); break;
+                    case 7: {
+                        long key = random.nextInt(KEY_RANGE);
+                        check(h.replaceMax(key) == removeMax(model), h.name() + " replaceMax");
+                        model.add(key);
+                        break;
+                    }
+                    case 8: {
+                        long key = random.nextInt(KEY_RANGE);
+                        check(h.replaceMin(key) == removeMin(model), h.name() + " replaceMin");
+                        model.add(key);
+                        break;
+                    }
+                    case 9: {
+                        int i = random.nextInt(model.size());
+                        model.remove(Long.valueOf(h.key(i)));
+                        check(h.delete(i) == 1, h.name() + " delete");
+                        break;
+                    }
+                    case 10: check(h.delete(model.size()) == 0, h.name() + " delete out of range"); break;
+                    default: {
+                        boolean descending = random.nextBoolean();
+                        long[] expected = sorted(model, descending);
+                        check(Arrays.equals(h.sortedCopy(descending), expected), h.name() + " sortedCopy");
+                    }
+                } // end of switch
+                checkHeap(h, model);
+            } // end of for
+            check(Arrays.equals(h.drainSorted(), sorted(model, false)) && h.size() == 0, h.name() + " drainSorted");
+        } // end of for
+        System.out.println(heap.name() + ": ok");
+        
+    } // end of method checkVariant
+    
+    // checks the max-min heap property and that the heap has exactly the keys of the model.
+    // the level of every index is one more than the level of its parent, so it does not depend on the level
+    // arithmetic of the heaps
+    private static void checkHeap(Variant h, List<Long> model){
+        
+        int size = h.size(), d = h.arity();
+        check(size == model.size(), h.name() + " size " + size + " instead of " + model.size());
+        int[] level = new int[size];
+        for (int i = 1; i < size; i++){
+            level[i] = level[(i - 1) / d] + 1;
+            for (int a = (i - 1) / d; a >= 0; a = a == 0 ? -1 : (a - 1) / d) // every ancestor of i
+                check(level[a] % 2 == 0 ? h.key(a) >= h.key(i) : h.key(a) <= h.key(i), h.name() + " heap property at " + i);
+        } // end of for
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++)
+            keys[i] = h.key(i);
+        Arrays.sort(keys);
+        check(Arrays.equals(keys, sorted(model, false)), h.name() + " keys differ from the model");
+        
+    } // end of method checkHeap
+    
+    // checks the results of the operations on empty heaps
+    private static void checkEmpty(){
+        
+        check(MaxMinHeap.heapMaximum(new MaxMinHeap()) == Integer.MAX_VALUE, "MaxMinHeap maximum");
+        check(MaxMinHeap.heapMinimum(new MaxMinHeap()) == Integer.MIN_VALUE, "MaxMinHeap minimum");
+        check(IntMaxMinHeap.heapMaximum(new IntMaxMinHeap()) == Integer.MAX_VALUE, "IntMaxMinHeap maximum");
+        check(IntMaxMinHeap.heapReplaceMin(new IntMaxMinHeap(), 1) == Integer.MIN_VALUE, "IntMaxMinHeap replaceMin");
+        check(LongMaxMinHeap.heapMinimum(new LongMaxMinHeap()) == Long.MIN_VALUE, "LongMaxMinHeap minimum");
+        check(LongMaxMinHeap.heapReplaceMax(new LongMaxMinHeap(), 1) == Long.MAX_VALUE, "LongMaxMinHeap replaceMax");
+        check(DoubleMaxMinHeap.heapExtractMax(new DoubleMaxMinHeap()) == MaxMinHeap.heapExtractMax(new MaxMinHeap()),
+              "DoubleMaxMinHeap extractMax");
+        check(DoubleMaxMinHeap.heapExtractMin(new DoubleMaxMinHeap()) == MaxMinHeap.heapExtractMin(new MaxMinHeap()),
+              "DoubleMaxMinHeap extractMin");
+        ObjectMaxMinHeap<String> strings = new ObjectMaxMinHeap<String>(Comparator.naturalOrder());
+        check(ObjectMaxMinHeap.heapMaximum(strings) == null && ObjectMaxMinHeap.heapMinimum(strings) == null, "ObjectMaxMinHeap peek");
+        check(ObjectMaxMinHeap.sortedCopy(strings).isEmpty(), "ObjectMaxMinHeap sortedCopy");
+        
+    } // end of method checkEmpty
+    
+    /*
+     * Offers random streams to bounded heaps of both kinds and checks them against the stream.
+     * A full heap must reject a key that is not beyond its threshold (the key it evicts next) with the fast
+     * comparison, including a key equal to it, and must replace the threshold with any other key,
+     * so the kept keys are always the capacity largest (or smallest) keys offered since the last clear.
+     */
+    private static void checkBounded(long seed){
+        
+        Random random = new Random(seed);
+        for (int round = 0; round < 4 * ROUNDS; round++){
+            boolean largest = round % 2 == 0;
+            int capacity = 1 + random.nextInt(round < 4 ? 3 : KEY_RANGE / 2); // tiny heaps too, where the threshold is the root
+            BoundedMaxMinHeap heap = new BoundedMaxMinHeap(capacity, largest);
+            check(heap.getCapacity() == capacity && heap.keepsLargest() == largest, "BoundedMaxMinHeap settings");
+            List<Long> stream = new ArrayList<Long>(); // the keys offered since the last clear
+            for (int op = 0; op < OPERATIONS; op++){
+                if (random.nextInt(OPERATIONS / 2) == 0){ // starts over with the same array
+                    heap.clear();
+                    stream.clear();
+                    check(heap.getSize() == 0 && heap.getMaximum() == Integer.MAX_VALUE, "BoundedMaxMinHeap clear");
+                } // end of if statement
+                
+                long[] kept = sorted(stream, largest);
+                if (kept.length > capacity)
+                    kept = Arrays.copyOf(kept, capacity);
+                long key = random.nextInt(KEY_RANGE);
+                long threshold = kept.length < capacity ? -1 : kept[capacity - 1];
+                boolean expected = kept.length < capacity || (largest ? key > threshold : key < threshold);
+                check(heap.offer(key) == expected, "BoundedMaxMinHeap offer " + key + " with threshold " + threshold);
+                stream.add(key);
+                
+                kept = sorted(stream, largest);
+                if (kept.length > capacity)
+                    kept = Arrays.copyOf(kept, capacity);
+                check(heap.getSize() == kept.length, "BoundedMaxMinHeap size");
+                check(heap.getMaximum() == kept[largest ? 0 : kept.length - 1], "BoundedMaxMinHeap maximum");
+                check(heap.getMinimum() == kept[largest ? kept.length - 1 : 0], "BoundedMaxMinHeap minimum");
+                check(Arrays.equals(toLongs(heap.sortedCopy(largest)), kept), "BoundedMaxMinHeap keys differ from the stream");
+            } // end of for
+        } // end of for
+        
+        try{
+            new BoundedMaxMinHeap(0, true);
+            check(false, "BoundedMaxMinHeap accepted capacity 0");
+        } // end of try
+        catch (IllegalArgumentException e){
+            // expected
+        } // end of catch
+        
+    } // end of method checkBounded
+    
+    /*
+     * Runs random operations on IndexedMaxMinHeap against a model of the live handles and their keys.
+     * updateKey and remove also get stale handles (of removed keys, before a later insert reuses them),
+     * handles that were never given out and negative ones: they must return 0 and leave the heap unchanged,
+     * and getKey must reject them. A reused handle must belong to its new key only.
+     * The handles of removed keys are reused last removed first, so the model knows the handle of every insert.
+     */
+    private static void checkIndexed(long seed){
+        
+        Random random = new Random(seed);
+        for (int round = 0; round < ROUNDS; round++){
+            IndexedMaxMinHeap heap = new IndexedMaxMinHeap(4);
+            TreeMap<Integer, Long> live = new TreeMap<Integer, Long>(); // the key of every handle in the heap
+            List<Integer> free = new ArrayList<Integer>(); // the removed handles, the last one is reused first
+            int handles = 0; // the number of handles given out
+            for (int op = 0; op < OPERATIONS; op++){
+                int choice = live.isEmpty() ? 0 : live.size() > MAX_SIZE ? 1 + random.nextInt(7) : random.nextInt(8);
+                switch (choice){
+                    case 0: { // the handle of a removed key is reused before a new one is given out
+                        long key = random.nextInt(KEY_RANGE);
+                        int expected = free.isEmpty() ? handles++ : free.remove(free.size() - 1);
+                        check(IndexedMaxMinHeap.heapInsert(heap, key) == expected, "IndexedMaxMinHeap insert handle");
+                        live.put(expected, key);
+                        break;
+                    }
+                    case 1: { // a live handle, so the key moves up or down
+                        int handle = randomHandle(live, random);
+                        long key = random.nextInt(KEY_RANGE);
+                        check(IndexedMaxMinHeap.updateKey(heap, handle, key) == 1, "IndexedMaxMinHeap updateKey");
+                        live.put(handle, key);
+                        break;
+                    }
+                    case 2: {
+                        int handle = randomHandle(live, random);
+                        check(IndexedMaxMinHeap.remove(heap, handle) == 1, "IndexedMaxMinHeap remove");
+                        live.remove(handle);
+                        free.add(handle);
+                        break;
+                    }
+                    case 3: case 4: { // the extracted key must be the one of the handle the peek returned
+                        boolean max = choice == 3;
+                        int handle = max ? IndexedMaxMinHeap.heapMaximumHandle(heap) : IndexedMaxMinHeap.heapMinimumHandle(heap);
+                        long expected = max ? Collections.max(live.values()) : Collections.min(live.values());
+                        check(live.containsKey(handle) && live.get(handle) == expected, "IndexedMaxMinHeap peek handle");
+                        double key = max ? IndexedMaxMinHeap.heapExtractMax(heap) : IndexedMaxMinHeap.heapExtractMin(heap);
+                        check(key == expected && !heap.contains(handle), "IndexedMaxMinHeap extract");
+                        live.remove(handle);
+                        free.add(handle);
+                        break;
+                    }
+                    default: { // a stale, unknown or negative handle changes nothing
+                        int handle = !free.isEmpty() && random.nextBoolean() ? free.get(random.nextInt(free.size()))
+                                     : random.nextBoolean() ? handles + random.nextInt(10) : -1 - random.nextInt(10);
+                        check(!heap.contains(handle), "IndexedMaxMinHeap contains a stale handle " + handle);
+                        check(IndexedMaxMinHeap.updateKey(heap, handle, KEY_RANGE) == 0, "IndexedMaxMinHeap updateKey of a stale handle");
+                        check(IndexedMaxMinHeap.remove(heap, handle) == 0, "IndexedMaxMinHeap remove of a stale handle");
+                        try{
+                            heap.getKey(handle);
+                            check(false, "IndexedMaxMinHeap getKey of a stale handle " + handle);
+                        } // end of try
+                        catch (IllegalArgumentException e){
+                            // expected
+                        } // end of catch
+                    }
+                } // end of switch
+                
+                check(heap.getSize() == live.size(), "IndexedMaxMinHeap size");
+                if (op % 10 == 0) // every live handle still has its own key
+                    for (Map.Entry<Integer, Long> entry : live.entrySet())
+                        check(heap.contains(entry.getKey()) && heap.getKey(entry.getKey()) == entry.getValue(),
+                              "IndexedMaxMinHeap key of handle " + entry.getKey());
+            } // end of for
+            
+            long[] expected = sorted(new ArrayList<Long>(live.values()), false);
+            for (int i = 0; i < expected.length; i++)
+                check(IndexedMaxMinHeap.heapExtractMin(heap) == expected[i], "IndexedMaxMinHeap final extractMin");
+            check(heap.getSize() == 0 && IndexedMaxMinHeap.heapMaximumHandle(heap) == -1, "IndexedMaxMinHeap is not empty");
+        } // end of for
+        
+    } // end of method checkIndexed
+    
+    /*
+     * Runs random operations on a MedianMaxMinHeap of quantile q against a list of the same keys.
+     * After every operation the minimum, the maximum and the key of rank floor(q*(n-1)) must be the ones of the list.
+     * Some inserts are runs of increasing or decreasing keys, which cross the split of the two heaps every time.
+     */
+    private static void checkMedian(double q, long seed){
+        
+        Random random = new Random(seed);
+        for (int round = 0; round < ROUNDS; round++){
+            MedianMaxMinHeap heap = new MedianMaxMinHeap(q);
+            check(heap.getQuantileFraction() == q, "MedianMaxMinHeap quantile");
+            List<Long> model = new ArrayList<Long>();
+            for (int op = 0; op < OPERATIONS; op++){
+                int choice = model.isEmpty() ? random.nextInt(2) : model.size() > MAX_SIZE ? 2 + random.nextInt(3) : random.nextInt(5);
+                switch (choice){
+                    case 0: {
+                        long key = random.nextInt(KEY_RANGE);
+                        heap.insert(key);
+                        model.add(key);
+                        break;
+                    }
+                    case 1: { // a run of sorted keys
+                        long key = random.nextInt(KEY_RANGE);
+                        int step = random.nextBoolean() ? 1 : -1;
+                        for (int i = random.nextInt(BULK_LEN / 4); i >= 0; i--, key += step){
+                            heap.insert(key);
+                            model.add(key);
+                        } // end of for
+                        break;
+                    }
+                    case 2: check(heap.extractMax() == removeMax(model), "MedianMaxMinHeap extractMax"); break;
+                    case 3: check(heap.extractMin() == removeMin(model), "MedianMaxMinHeap extractMin"); break;
+                    default: {
+                        long key = sorted(model, false)[(int)Math.floor(q * (model.size() - 1))];
+                        check(heap.extractQuantile() == key, "MedianMaxMinHeap extractQuantile");
+                        model.remove(Long.valueOf(key));
+                    }
+                } // end of switch
+                
+                check(heap.getSize() == model.size(), "MedianMaxMinHeap size");
+                if (model.isEmpty()){
+                    check(Double.isNaN(heap.getQuantile()) && Double.isNaN(heap.extractQuantile()), "MedianMaxMinHeap empty quantile");
+                    check(heap.getMaximum() == Integer.MAX_VALUE && heap.getMinimum() == Integer.MIN_VALUE, "MedianMaxMinHeap empty peeks");
+                } // end of if statement
+                else{
+                    long[] keys = sorted(model, false);
+                    check(heap.getMinimum() == keys[0], "MedianMaxMinHeap minimum");
+                    check(heap.getMaximum() == keys[keys.length - 1], "MedianMaxMinHeap maximum");
+                    check(heap.getQuantile() == keys[(int)Math.floor(q * (keys.length - 1))], "MedianMaxMinHeap quantile " + q);
+                } // end of else
+            } // end of for
+        } // end of for
+        
+        double[] illegal = {-0.01, 1.01, Double.NaN};
+        for (double quantile : illegal)
+            try{
+                new MedianMaxMinHeap(quantile);
+                check(false, "MedianMaxMinHeap accepted quantile " + quantile);
+            } // end of try
+            catch (IllegalArgumentException e){
+                // expected
+            } // end of catch
+        
+    } // end of method checkMedian
+    
+    // returns a random handle of the model
+    private static int randomHandle(TreeMap<Integer, Long> live, Random random){
+        
+        Integer handle = live.ceilingKey(random.nextInt(live.lastKey() + 1));
+        return handle != null ? handle : live.firstKey();
+        
+    } // end of method randomHandle
+    
+    // checks that every operation of a closed OffHeapMaxMinHeap throws IllegalStateException, and that close can be repeated
+    private static void checkOffHeapClose(){
+        
+        OffHeapMaxMinHeap heap = new OffHeapMaxMinHeap(3, 1){}; // two chunks, the last one short
+        for (int key = 0; key < 10; key++)
+            OffHeapMaxMinHeap.heapInsert(heap, key);
+        heap.close();
+        check(heap.isClosed() && heap.getSize() == 0 && heap.getCapacity() == 0, "OffHeapMaxMinHeap close");
+        heap.close();
+        check(heap.isClosed(), "OffHeapMaxMinHeap second close");
+        List<Runnable> operations = Arrays.asList(
+            () -> heap.add(1),
+            () -> heap.getKey(0),
+            () -> heap.ensureCapacity(100),
+            () -> OffHeapMaxMinHeap.heapInsert(heap, 1),
+            () -> OffHeapMaxMinHeap.heapExtractMax(heap),
+            () -> OffHeapMaxMinHeap.heapExtractMin(heap),
+            () -> OffHeapMaxMinHeap.heapMaximum(heap),
+            () -> OffHeapMaxMinHeap.heapMinimum(heap),
+            () -> OffHeapMaxMinHeap.heapDelete(heap, 0),
+            () -> OffHeapMaxMinHeap.heapify(heap, 0),
+            () -> OffHeapMaxMinHeap.buildHeap(heap));
+        for (int op = 0; op < operations.size(); op++){
+            try{
+                operations.get(op).run();
+                check(false, "OffHeapMaxMinHeap operation " + op + " of a closed heap did not throw");
+            } // end of try
+            catch (IllegalStateException e){
+                check(!e.getMessage().startsWith("Test failed"), e.getMessage());
+            } // end of catch
+        } // end of for
+        
+    } // end of method checkOffHeapClose
+    
+    /*
+     * Runs random operations around the first chunk boundary of an OffHeapMaxMinHeap with the default chunks.
+     * The heap starts with 2^27 zeros (equal keys are a valid heap), and the keys inserted, extracted and deleted
+     * around index 2^27 move between the two chunks. The model is the number of copies of every key, and the heap
+     * property is checked for the last CHUNK_WINDOW keys and their ancestors.
+     * The heap needs 1 GiB of native memory, and the check is skipped if it can not get it.
+     */
+    private static void checkOffHeapChunks(long seed){
+        
+        long boundary = 1L << OFF_HEAP_CHUNK_SHIFT;
+        Random random = new Random(seed);
+        // the inserts and the removals are as likely, so the size stays within a few hundred keys of the boundary
+        // and the heap does not grow (growing would allocate half a chunk more)
+        try (OffHeapMaxMinHeap heap = new OffHeapMaxMinHeap(boundary + CHUNK_WINDOW)){
+            for (long i = 0; i < boundary - 8; i++)
+                heap.add(0);
+            TreeMap<Long, Long> model = new TreeMap<Long, Long>(); // the number of copies of every key
+            model.put(0L, boundary - 8);
+            for (int op = 0; op < CHUNK_OPERATIONS; op++){
+                int choice = random.nextInt(20);
+                if (choice < 9){ // keys on both sides of the zeros, so both extractions move them
+                    long key = (1 + random.nextInt(KEY_RANGE)) * (random.nextBoolean() ? 1 : -1);
+                    OffHeapMaxMinHeap.heapInsert(heap, key);
+                    model.merge(key, 1L, Long::sum);
+                } // end of if statement
+                else if (choice < 11)
+                    check((long)OffHeapMaxMinHeap.heapExtractMax(heap) == remove(model, model.lastKey()), "OffHeapMaxMinHeap extractMax");
+                else if (choice < 13)
+                    check((long)OffHeapMaxMinHeap.heapExtractMin(heap) == remove(model, model.firstKey()), "OffHeapMaxMinHeap extractMin");
+                else if (choice < 15)
+                    check((long)OffHeapMaxMinHeap.heapMaximum(heap) == model.lastKey() &&
+                          (long)OffHeapMaxMinHeap.heapMinimum(heap) == model.firstKey(), "OffHeapMaxMinHeap peek");
+                else{ // deletes one of the last keys, so the last leaf fills a hole on the other side of the boundary
+                    long i = heap.getSize() - 1 - random.nextInt(CHUNK_WINDOW);
+                    remove(model, (long)heap.getKey(i));
+                    check(OffHeapMaxMinHeap.heapDelete(heap, i) == 1, "OffHeapMaxMinHeap delete " + i);
+                } // end of else
+                if (op % 100 == 0 || op == CHUNK_OPERATIONS - 1)
+                    checkOffHeapWindow(heap);
+            } // end of for
+            
+            // the keys must come out in order: the positive ones, the negative ones, and then the zeros
+            long zeros = model.remove(0L);
+            while (!model.isEmpty()){
+                long max = model.lastKey();
+                if (max > 0)
+                    check((long)OffHeapMaxMinHeap.heapExtractMax(heap) == remove(model, max), "OffHeapMaxMinHeap final extractMax");
+                else
+                    check((long)OffHeapMaxMinHeap.heapExtractMin(heap) == remove(model, model.firstKey()),
+                          "OffHeapMaxMinHeap final extractMin");
+            } // end of while
+            check(heap.getSize() == zeros && OffHeapMaxMinHeap.heapMaximum(heap) == 0 && OffHeapMaxMinHeap.heapMinimum(heap) == 0,
+                  "OffHeapMaxMinHeap keys after the final extractions");
+        } // end of try
+        catch (OutOfMemoryError e){
+            System.out.println("OffHeapMaxMinHeap chunk boundary: not checked, no memory for a chunk of 2^27 keys");
+            return;
+        } // end of catch
+        System.out.println("OffHeapMaxMinHeap chunk boundary: ok");
+        
+    } // end of method checkOffHeapChunks
+    
+    // checks the max-min heap property of the last CHUNK_WINDOW keys of an off-heap heap against all their ancestors
+    private static void checkOffHeapWindow(OffHeapMaxMinHeap heap){
+        
+        long size = heap.getSize();
+        for (long i = Math.max(1, size - CHUNK_WINDOW); i < size; i++){
+            double key = heap.getKey(i);
+            for (long a = (i - 1) / 2; a >= 0; a = a == 0 ? -1 : (a - 1) / 2){ // every ancestor of i
+                boolean maxLevel = (63 - Long.numberOfLeadingZeros(a + 1)) % 2 == 0;
+                check(maxLevel ? heap.getKey(a) >= key : heap.getKey(a) <= key, "OffHeapMaxMinHeap heap property at " + i);
+            } // end of for
+        } // end of for
+        
+    } // end of method checkOffHeapWindow
+    
+    // returns a new empty heap of the same variant
+    private static Variant fresh(Variant heap){
+        
+        if (heap.name().startsWith("DaryMaxMinHeap"))
+            return daryVariant(heap.arity());
+        switch (heap.name()){
+            case "MaxMinHeap": return doubleVariant();
+            case "IntMaxMinHeap": return intVariant();
+            case "LongMaxMinHeap": return longVariant();
+            case "DoubleMaxMinHeap": return doubleHeapVariant();
+            case "OffHeapMaxMinHeap": return offHeapVariant();
+            default: return objectVariant();
+        } // end of switch
+        
+    } // end of method fresh
+    
+    // wraps a new MaxMinHeap, whose keys are whole numbers
+    private static Variant doubleVariant(){
+        
+        final MaxMinHeap heap = new MaxMinHeap(4); // small, so the array grows during the test
+        return new Variant(){
+            public String name(){ return "MaxMinHeap"; }
+            public void insert(long key){ MaxMinHeap.heapInsert(heap, key); }
+            public void insertAll(long[] keys, int off, int len){ MaxMinHeap.heapInsertAll(heap, toDoubles(keys), off, len); }
+            public void meld(long[] keys){
+                MaxMinHeap other = new MaxMinHeap();
+                for (long key : keys)
+                    MaxMinHeap.heapInsert(other, key);
+                MaxMinHeap.meld(heap, other);
+            }
+            public long extractMax(){ return (long)MaxMinHeap.heapExtractMax(heap); }
+            public long extractMin(){ return (long)MaxMinHeap.heapExtractMin(heap); }
+            public long maximum(){ return (long)MaxMinHeap.heapMaximum(heap); }
+            public long minimum(){ return (long)MaxMinHeap.heapMinimum(heap); }
+            public long replaceMax(long key){ return (long)MaxMinHeap.heapReplaceMax(heap, key); }
+            public long replaceMin(long key){ return (long)MaxMinHeap.heapReplaceMin(heap, key); }
+            public int delete(int i){ return MaxMinHeap.heapDelete(heap, i); }
+            public int size(){ return heap.getSize(); }
+            public long key(int i){ return (long)heap.getKey(i); }
+            public long[] sortedCopy(boolean descending){ return toLongs(MaxMinHeap.sortedCopy(heap, descending)); }
+            public long[] drainSorted(){
+                long[] sorted = toLongs(MaxMinHeap.sortedCopy(heap, false));
+                check(MaxMinHeap.drainSorted(heap) == sorted.length, "MaxMinHeap drainSorted count");
+                return sorted;
+            }
+        };
+        
+    } // end of method doubleVariant
+    
+    // wraps a new IntMaxMinHeap
+    private static Variant intVariant(){
+        
+        final IntMaxMinHeap heap = new IntMaxMinHeap(4);
+        return new Variant(){
+            public String name(){ return "IntMaxMinHeap"; }
+            public void insert(long key){ IntMaxMinHeap.heapInsert(heap, (int)key); }
+            public void insertAll(long[] keys, int off, int len){ IntMaxMinHeap.heapInsertAll(heap, toInts(keys), off, len); }
+            public void meld(long[] keys){
+                IntMaxMinHeap other = new IntMaxMinHeap();
+                for (long key : keys)
+                    IntMaxMinHeap.heapInsert(other, (int)key);
+                IntMaxMinHeap.meld(heap, other);
+            }
+            public long extractMax(){ return IntMaxMinHeap.heapExtractMax(heap); }
+            public long extractMin(){ return IntMaxMinHeap.heapExtractMin(heap); }
+            public long maximum(){ return IntMaxMinHeap.heapMaximum(heap); }
+            public long minimum(){ return IntMaxMinHeap.heapMinimum(heap); }
+            public long replaceMax(long key){ return IntMaxMinHeap.heapReplaceMax(heap, (int)key); }
+            public long replaceMin(long key){ return IntMaxMinHeap.heapReplaceMin(heap, (int)key); }
+            public int delete(int i){ return IntMaxMinHeap.heapDelete(heap, i); }
+            public int size(){ return heap.getSize(); }
+            public long key(int i){ return heap.getKey(i); }
+            public long[] sortedCopy(boolean descending){
+                int[] sorted = new int[heap.getSize() + 1]; // toSortedArray with a longer array
+                check(IntMaxMinHeap.toSortedArray(heap, sorted, descending) == heap.getSize(), "IntMaxMinHeap toSortedArray count");
+                check(Arrays.equals(Arrays.copyOf(sorted, heap.getSize()), IntMaxMinHeap.sortedCopy(heap, descending)), "IntMaxMinHeap toSortedArray");
+                return toLongs(IntMaxMinHeap.sortedCopy(heap, descending));
+            }
+            public long[] drainSorted(){
+                int[] sorted = IntMaxMinHeap.sortedCopy(heap);
+                check(IntMaxMinHeap.heapSort(heap) == sorted.length, "IntMaxMinHeap heapSort count");
+                return toLongs(sorted);
+            }
+        };
+        
+    } // end of method intVariant
+    
+    // wraps a new LongMaxMinHeap, with keys beyond the range of int
+    private static Variant longVariant(){
+        
+        final long offset = 1L << 40;
+        final LongMaxMinHeap heap = new LongMaxMinHeap(4);
+        return new Variant(){
+            public String name(){ return "LongMaxMinHeap"; }
+            public void insert(long key){ LongMaxMinHeap.heapInsert(heap, key + offset); }
+            public void insertAll(long[] keys, int off, int len){
+                long[] shifted = keys.clone();
+                for (int i = 0; i < shifted.length; i++)
+                    shifted[i] += offset;
+                LongMaxMinHeap.heapInsertAll(heap, shifted, off, len);
+            }
+            public void meld(long[] keys){
+                LongMaxMinHeap other = new LongMaxMinHeap();
+                for (long key : keys)
+                    LongMaxMinHeap.heapInsert(other, key + offset);
+                LongMaxMinHeap.meld(heap, other);
+            }
+            public long extractMax(){ return LongMaxMinHeap.heapExtractMax(heap) - offset; }
+            public long extractMin(){ return LongMaxMinHeap.heapExtractMin(heap) - offset; }
+            public long maximum(){ return LongMaxMinHeap.heapMaximum(heap) - offset; }
+            public long minimum(){ return LongMaxMinHeap.heapMinimum(heap) - offset; }
+            public long replaceMax(long key){ return LongMaxMinHeap.heapReplaceMax(heap, key + offset) - offset; }
+            public long replaceMin(long key){ return LongMaxMinHeap.heapReplaceMin(heap, key + offset) - offset; }
+            public int delete(int i){ return LongMaxMinHeap.heapDelete(heap, i); }
+            public int size(){ return heap.getSize(); }
+            public long key(int i){ return heap.getKey(i) - offset; }
+            public long[] sortedCopy(boolean descending){
+                long[] sorted = LongMaxMinHeap.sortedCopy(heap, descending);
+                for (int i = 0; i < sorted.length; i++)
+                    sorted[i] -= offset;
+                return sorted;
+            }
+            public long[] drainSorted(){
+                long[] sorted = sortedCopy(false);
+                check(LongMaxMinHeap.drainSorted(heap) == sorted.length, "LongMaxMinHeap drainSorted count");
+                return sorted;
+            }
+        };
+        
+    } // end of method longVariant
+    
+    // wraps a new DoubleMaxMinHeap, whose keys are whole numbers
+    private static Variant doubleHeapVariant(){
+        
+        final DoubleMaxMinHeap heap = new DoubleMaxMinHeap(4);
+        return new Variant(){
+            public String name(){ return "DoubleMaxMinHeap"; }
+            public void insert(long key){ DoubleMaxMinHeap.heapInsert(heap, key); }
+            public void insertAll(long[] keys, int off, int len){ DoubleMaxMinHeap.heapInsertAll(heap, toDoubles(keys), off, len); }
+            public void meld(long[] keys){
+                DoubleMaxMinHeap other = new DoubleMaxMinHeap();
+                for (long key : keys)
+                    DoubleMaxMinHeap.heapInsert(other, key);
+                DoubleMaxMinHeap.meld(heap, other);
+            }
+            public long extractMax(){ return (long)DoubleMaxMinHeap.heapExtractMax(heap); }
+            public long extractMin(){ return (long)DoubleMaxMinHeap.heapExtractMin(heap); }
+            public long maximum(){ return (long)DoubleMaxMinHeap.heapMaximum(heap); }
+            public long minimum(){ return (long)DoubleMaxMinHeap.heapMinimum(heap); }
+            public long replaceMax(long key){ return (long)DoubleMaxMinHeap.heapReplaceMax(heap, key); }
+            public long replaceMin(long key){ return (long)DoubleMaxMinHeap.heapReplaceMin(heap, key); }
+            public int delete(int i){ return DoubleMaxMinHeap.heapDelete(heap, i); }
+            public int size(){ return heap.getSize(); }
+            public long key(int i){ return (long)heap.getKey(i); }
+            public long[] sortedCopy(boolean descending){ return toLongs(DoubleMaxMinHeap.sortedCopy(heap, descending)); }
+            public long[] drainSorted(){
+                long[] sorted = toLongs(DoubleMaxMinHeap.sortedCopy(heap));
+                check(DoubleMaxMinHeap.heapSort(heap) == sorted.length, "DoubleMaxMinHeap heapSort count");
+                return sorted;
+            }
+        };
+        
+    } // end of method doubleHeapVariant
+    
+    // wraps a new OffHeapMaxMinHeap with chunks of 4 keys, so the keys cross chunk boundaries all the time.
+    // the operations it does not have are made of the ones it has, and drainSorted also closes it
+    private static Variant offHeapVariant(){
+        
+        final OffHeapMaxMinHeap heap = new OffHeapMaxMinHeap(3, 2){}; // the last chunk is short and gets resized
+        return new Variant(){
+            public String name(){ return "OffHeapMaxMinHeap"; }
+            public void insert(long key){ OffHeapMaxMinHeap.heapInsert(heap, key); }
+            public void insertAll(long[] keys, int off, int len){
+                for (int i = off; i < off + len; i++)
+                    heap.add(keys[i]);
+                OffHeapMaxMinHeap.buildHeap(heap);
+            }
+            public void meld(long[] keys){
+                for (long key : keys)
+                    OffHeapMaxMinHeap.heapInsert(heap, key);
+            }
+            public long extractMax(){ return (long)OffHeapMaxMinHeap.heapExtractMax(heap); }
+            public long extractMin(){ return (long)OffHeapMaxMinHeap.heapExtractMin(heap); }
+            public long maximum(){ return (long)OffHeapMaxMinHeap.heapMaximum(heap); }
+            public long minimum(){ return (long)OffHeapMaxMinHeap.heapMinimum(heap); }
+            public long replaceMax(long key){
+                long max = extractMax();
+                insert(key);
+                return max;
+            }
+            public long replaceMin(long key){
+                long min = extractMin();
+                insert(key);
+                return min;
+            }
+            public int delete(int i){ return OffHeapMaxMinHeap.heapDelete(heap, i); }
+            public int size(){ return (int)heap.getSize(); }
+            public long key(int i){ return (long)heap.getKey(i); }
+            public long[] sortedCopy(boolean descending){
+                List<Long> keys = new ArrayList<Long>();
+                for (int i = 0; i < size(); i++)
+                    keys.add(key(i));
+                return sorted(keys, descending);
+            }
+            public long[] drainSorted(){
+                long[] sorted = new long[size()];
+                for (int i = 0; i < sorted.length; i++)
+                    sorted[i] = extractMin();
+                heap.close();
+                return sorted;
+            }
+        };
+        
+    } // end of method offHeapVariant
+    
+    // wraps a new DaryMaxMinHeap of the given arity, with the operations it does not have made of the ones it has
+    private static Variant daryVariant(final int arity){
+        
+        final DaryMaxMinHeap heap = new DaryMaxMinHeap(arity, 4);
+        return new Variant(){
+            public String name(){ return "DaryMaxMinHeap of arity " + arity; }
+            public int arity(){ return heap.getArity(); }
+            public void insert(long key){ DaryMaxMinHeap.heapInsert(heap, key); }
+            public void insertAll(long[] keys, int off, int len){
+                for (int i = off; i < off + len; i++)
+                    heap.add(keys[i]);
+                DaryMaxMinHeap.buildHeap(heap);
+            }
+            public void meld(long[] keys){
+                for (long key : keys)
+                    DaryMaxMinHeap.heapInsert(heap, key);
+            }
+            public long extractMax(){ return (long)DaryMaxMinHeap.heapExtractMax(heap); }
+            public long extractMin(){ return (long)DaryMaxMinHeap.heapExtractMin(heap); }
+            public long maximum(){ return (long)DaryMaxMinHeap.heapMaximum(heap); }
+            public long minimum(){ return (long)DaryMaxMinHeap.heapMinimum(heap); }
+            public long replaceMax(long key){
+                long max = extractMax();
+                insert(key);
+                return max;
+            }
+            public long replaceMin(long key){
+                long min = extractMin();
+                insert(key);
+                return min;
+            }
+            public int delete(int i){ return DaryMaxMinHeap.heapDelete(heap, i); }
+            public int size(){ return heap.getSize(); }
+            public long key(int i){ return (long)heap.getKey(i); }
+            public long[] sortedCopy(boolean descending){
+                List<Long> keys = new ArrayList<Long>();
+                for (int i = 0; i < size(); i++)
+                    keys.add(key(i));
+                return sorted(keys, descending);
+            }
+            public long[] drainSorted(){
+                long[] sorted = new long[size()];
+                for (int i = 0; i < sorted.length; i++)
+                    sorted[i] = extractMin();
+                return sorted;
+            }
+        };
+        
+    } // end of method daryVariant
+    
+    // checks that heapInsert, heapExtractMax and heapExtractMin allocate nothing in the primitive heaps.
+    // every run inserts and extracts the same keys in a heap that is large enough, so the array never grows,
+    // and the smallest count of the runs is kept, since the first runs are interpreted and compiled.
+    // the object heap must allocate a Long per key, which shows that the measurement sees allocations
+    private static void checkAllocation(){
+        
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+            || !((com.sun.management.ThreadMXBean)threads).isThreadAllocatedMemoryEnabled()){
+            System.out.println("allocation: not checked, the VM does not count allocated bytes");
+            return;
+        } // end of if statement
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean)threads;
+        Random random = new Random(1);
+        int[] keys = new int[ALLOCATION_KEYS];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = random.nextInt(); // large keys, which Long.valueOf does not cache
+        
+        String[] names = {"IntMaxMinHeap", "LongMaxMinHeap", "DoubleMaxMinHeap", "ObjectMaxMinHeap"};
+        for (String name : names){
+            long bytes = Long.MAX_VALUE;
+            for (int run = 0; run < ALLOCATION_RUNS; run++)
+                bytes = Math.min(bytes, allocatedBytes(bean, name, keys));
+            if (name.equals("ObjectMaxMinHeap"))
+                check(bytes >= 16L * keys.length, name + " allocated " + bytes + " bytes for " + keys.length + " boxed keys");
+            else
+                check(bytes == 0, name + " allocated " + bytes + " bytes in heapInsert and heapExtractMax/Min");
+            System.out.println("allocation of " + name + ": " + (double)bytes / keys.length + " bytes per key");
+        } // end of for
+        
+    } // end of method checkAllocation
+    
+    // returns the bytes the current thread allocates while it inserts the keys into a new heap of the
+    // named class, and then extracts the maximum and the minimum alternately until the heap is empty
+    private static long allocatedBytes(com.sun.management.ThreadMXBean bean, String name, int[] keys){
+        
+        int n = keys.length;
+        long sum = 0, start;
+        switch (name){
+            case "IntMaxMinHeap": {
+                IntMaxMinHeap heap = new IntMaxMinHeap(n);
+                start = bean.getCurrentThreadAllocatedBytes();
+                for (int key : keys)
+                    IntMaxMinHeap.heapInsert(heap, key);
+                for (int i = 0; i < n; i++)
+                    sum += (i & 1) == 0 ? IntMaxMinHeap.heapExtractMax(heap) : IntMaxMinHeap.heapExtractMin(heap);
+                break;
+            }
+            case "LongMaxMinHeap": {
+                LongMaxMinHeap heap = new LongMaxMinHeap(n);
+                start = bean.getCurrentThreadAllocatedBytes();
+                for (int key : keys)
+                    LongMaxMinHeap.heapInsert(heap, key);
+                for (int i = 0; i < n; i++)
+                    sum += (i & 1) == 0 ? LongMaxMinHeap.heapExtractMax(heap) : LongMaxMinHeap.heapExtractMin(heap);
+                break;
+            }
+            case "DoubleMaxMinHeap": {
+                DoubleMaxMinHeap heap = new DoubleMaxMinHeap(n);
+                start = bean.getCurrentThreadAllocatedBytes();
+                for (int key : keys)
+                    DoubleMaxMinHeap.heapInsert(heap, key);
+                for (int i = 0; i < n; i++)
+                    sum += (long)((i & 1) == 0 ? DoubleMaxMinHeap.heapExtractMax(heap) : DoubleMaxMinHeap.heapExtractMin(heap));
+                break;
+            }
+            default: {
+                ObjectMaxMinHeap<Long> heap = new ObjectMaxMinHeap<Long>(n, Comparator.naturalOrder());
+                start = bean.getCurrentThreadAllocatedBytes();
+                for (int key : keys)
+                    ObjectMaxMinHeap.heapInsert(heap, (long)key);
+                for (int i = 0; i < n; i++)
+                    sum += (i & 1) == 0 ? ObjectMaxMinHeap.heapExtractMax(heap) : ObjectMaxMinHeap.heapExtractMin(heap);
+            }
+        } // end of switch
+        long bytes = bean.getCurrentThreadAllocatedBytes() - start;
+        _sink += sum;
+        return bytes;
+        
+    } // end of method allocatedBytes
+    
+    // wraps a new ObjectMaxMinHeap of boxed keys in reverse order, so its maximum is the smallest Long
+    private static Variant objectVariant(){
+        
+        final ObjectMaxMinHeap<Long> heap = new ObjectMaxMinHeap<Long>(4, Comparator.reverseOrder());
+        return new Variant(){
+            public String name(){ return "ObjectMaxMinHeap"; }
+            public void insert(long key){ ObjectMaxMinHeap.heapInsert(heap, -key); }
+            public void insertAll(long[] keys, int off, int len){
+                Long[] boxed = new Long[keys.length];
+                for (int i = 0; i < keys.length; i++)
+                    boxed[i] = -keys[i];
+                ObjectMaxMinHeap.heapInsertAll(heap, boxed, off, len);
+            }
+            public void meld(long[] keys){
+                ObjectMaxMinHeap<Long> other = new ObjectMaxMinHeap<Long>(Comparator.reverseOrder());
+                for (long key : keys)
+                    ObjectMaxMinHeap.heapInsert(other, -key);
+                ObjectMaxMinHeap.meld(heap, other);
+            }
+            public long extractMax(){ return -ObjectMaxMinHeap.heapExtractMax(heap); }
+            public long extractMin(){ return -ObjectMaxMinHeap.heapExtractMin(heap); }
+            public long maximum(){ return -ObjectMaxMinHeap.heapMaximum(heap); }
+            public long minimum(){ return -ObjectMaxMinHeap.heapMinimum(heap); }
+            public long replaceMax(long key){ return -ObjectMaxMinHeap.heapReplaceMax(heap, -key); }
+            public long replaceMin(long key){ return -ObjectMaxMinHeap.heapReplaceMin(heap, -key); }
+            public int delete(int i){ return ObjectMaxMinHeap.heapDelete(heap, i); }
+            public int size(){ return heap.getSize(); }
+            public long key(int i){ return -heap.getKey(i); }
+            public long[] sortedCopy(boolean descending){ return negate(ObjectMaxMinHeap.sortedCopy(heap, descending)); }
+            public long[] drainSorted(){ return negate(ObjectMaxMinHeap.drainSorted(heap)); }
+        };
+        
+    } // end of method objectVariant
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+        
+    } // end of method check
+    
+    // removes and returns the largest key of the model
+    private static long removeMax(List<Long> model){
+        
+        Long max = Collections.max(model);
+        model.remove(max);
+        return max;
+        
+    } // end of method removeMax
+    
+    // removes and returns the smallest key of the model
+    private static long removeMin(List<Long> model){
+        
+        Long min = Collections.min(model);
+        model.remove(min);
+        return min;
+        
+    } // end of method removeMin
+    
+    // returns the keys of the model in non-decreasing or non-increasing order
+    private static long[] sorted(List<Long> model, boolean descending){
+        
+        long[] keys = new long[model.size()];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = model.get(i);
+        Arrays.sort(keys);
+        if (descending)
+            for (int i = 0, j = keys.length - 1; i < j; i++, j--){
+                long temp = keys[i];
+                keys[i] = keys[j];
+                keys[j] = temp;
+            } // end of for
+        return keys;
+        
+    } // end of method sorted
+    
+    // returns len random keys
+    private static long[] randomKeys(Random random, int len){
+        
+        long[] keys = new long[len];
+        for (int i = 0; i < len; i++)
+            keys[i] = random.nextInt(KEY_RANGE);
+        return keys;
+        
+    } // end of method randomKeys
+    
+    // converts the keys to another primitive type
+    private static double[] toDoubles(long[] keys){
+        
+        double[] converted = new double[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            converted[i] = keys[i];
+        return converted;
+        
+    } // end of method toDoubles
+    
+    // converts the keys to another primitive type
+    private static int[] toInts(long[] keys){
+        
+        int[] converted = new int[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            converted[i] = (int)keys[i];
+        return converted;
+        
+    } // end of method toInts
+    
+    // converts the keys to another primitive type
+    private static long[] toLongs(double[] keys){
+        
+        long[] converted = new long[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            converted[i] = (long)keys[i];
+        return converted;
+        
+    } // end of method toLongs
+    
+    // converts the keys to another primitive type
+    private static long[] toLongs(int[] keys){
+        
+        long[] converted = new long[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            converted[i] = keys[i];
+        return converted;
+        
+    } // end of method toLongs
+    
+    // removes one copy of a key from a model of key counts, and returns the key
+    private static long remove(TreeMap<Long, Long> model, long key){
+        
+        if (model.merge(key, -1L, Long::sum) == 0)
+            model.remove(key);
+        return key;
+        
+    } // end of method remove
+    
+    // returns the negated keys of a list of the object heap
+    private static long[] negate(List<Long> keys){
+        
+        long[] converted = new long[keys.size()];
+        for (int i = 0; i < converted.length; i++)
+            converted[i] = -keys.get(i);
+        return converted;
+        
+    } // end of method negate
+    
+} // end of class MaxMinHeapTest
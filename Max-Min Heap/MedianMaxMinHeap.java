@@ -0,0 +1,188 @@
+
+/**
+ * Double-ended priority queue that also keeps the median (or any fixed quantile) of its keys.
+ *
+ * The keys are split between two max-min heaps: the lower heap holds the keys up to the quantile,
+ * and the upper heap holds the keys above it. Since both are max-min heaps, the quantile is the maximum
+ * of the lower heap, the minimum of all the keys is the minimum of the lower heap, and the maximum of all
+ * the keys is the maximum of the upper heap - so every key is inserted once, into one heap, and
+ * min, max and quantile are all read in O(1).
+ * After every insert or extraction at most one key moves between the heaps, so all of them are O(log n).
+ * An insert that moves a key replaces it in place (heapReplaceMax / heapReplaceMin), so it sifts each heap once.
+ *
+ * The two heaps are kept on purpose instead of one array with a dedicated median layout. A single min-max-median
+ * array has sift rules of its own that fit only the median, while splitting at the rank works for any fixed
+ * quantile and reuses the operations of MaxMinHeap as they are. The cost that a second pair of heaps brings is
+ * not paid: every key is still stored and inserted once, and min, max and the quantile are each one array read.
+ *
+ * The quantile q of n keys is the key of rank floor(q*(n-1)), counting from 0 in non-decreasing order.
+ * For q = 0.5 that is the middle key, or the lower of the two middle keys when n is even.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+public class MedianMaxMinHeap{
+    
+    private final MaxMinHeap _lower = new MaxMinHeap(); // the keys up to the quantile
+    private final MaxMinHeap _upper = new MaxMinHeap(); // the keys above the quantile
+    private final double _quantile;
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that creates an empty heap that keeps the median
+     */
+    public MedianMaxMinHeap(){
+        
+        this(0.5);
+        
+    } // end of constructor MedianMaxMinHeap
+    
+    /**
+     * Constructor that creates an empty heap that keeps the given quantile
+     * @param quantile the quantile to keep, between 0 and 1 (0.5 for the median, 0.99 for the 99th percentile)
+     * @throws IllegalArgumentException if quantile is not between 0 and 1
+     */
+    public MedianMaxMinHeap(double quantile){
+        
+        if (!(quantile >= 0 && quantile <= 1))
+            throw new IllegalArgumentException("Illegal quantile: " + quantile);
+        _quantile = quantile;
+        
+    } // end of constructor MedianMaxMinHeap
+    
+    /**
+     * Inserts a key in O(log n)
+     * @param key the key to insert
+     */
+    public void insert(double key){
+        
+        boolean lowerGrows = _lower.getSize() < target(getSize() + 1);
+        if (_lower.getSize() > 0 && key <= MaxMinHeap.heapMaximum(_lower)){ // the key belongs to the lower heap
+            if (lowerGrows)
+                MaxMinHeap.heapInsert(_lower, key);
+            else // the key takes the place of the maximum, which moves up
+                MaxMinHeap.heapInsert(_upper, MaxMinHeap.heapReplaceMax(_lower, key));
+        } // end of if statement
+        else if (!lowerGrows)
+            MaxMinHeap.heapInsert(_upper, key);
+        else if (_upper.getSize() > 0 && MaxMinHeap.heapMinimum(_upper) < key) // the minimum of the upper heap moves down
+            MaxMinHeap.heapInsert(_lower, MaxMinHeap.heapReplaceMin(_upper, key));
+        else
+            MaxMinHeap.heapInsert(_lower, key);
+        
+    } // end of method insert
+    
+    /**
+     * Extracts the maximum key in O(log n)
+     * @return the maximum key, or Integer.MAX_VALUE if the heap is empty
+     */
+    public double extractMax(){
+        
+        double max = _upper.getSize() > 0 ? MaxMinHeap.heapExtractMax(_upper) : MaxMinHeap.heapExtractMax(_lower);
+        rebalance();
+        return max;
+        
+    } // end of method extractMax
+    
+    /**
+     * Extracts the minimum key in O(log n)
+     * @return the minimum key, or Integer.MIN_VALUE if the heap is empty
+     */
+    public double extractMin(){
+        
+        // the lower heap is empty only when the whole heap is
+        double min = MaxMinHeap.heapExtractMin(_lower);
+        rebalance();
+        return min;
+        
+    } // end of method extractMin
+    
+    /**
+     * Extracts the key at the quantile in O(log n)
+     * @return the key at the quantile, or Double.NaN if the heap is empty
+     */
+    public double extractQuantile(){
+        
+        if (_lower.getSize() == 0)
+            return Double.NaN;
+        double key = MaxMinHeap.heapExtractMax(_lower);
+        rebalance();
+        return key;
+        
+    } // end of method extractQuantile
+    
+    /**
+     * Returns the maximum key in O(1)
+     * @return the maximum key, or Integer.MAX_VALUE if the heap is empty
+     */
+    public double getMaximum(){
+        
+        return _upper.getSize() > 0 ? MaxMinHeap.heapMaximum(_upper) : MaxMinHeap.heapMaximum(_lower);
+        
+    } // end of method getMaximum
+    
+    /**
+     * Returns the minimum key in O(1)
+     * @return the minimum key, or Integer.MIN_VALUE if the heap is empty
+     */
+    public double getMinimum(){
+        
+        return MaxMinHeap.heapMinimum(_lower);
+        
+    } // end of method getMinimum
+    
+    /**
+     * Returns the key at the quantile in O(1) - the median for a heap created with the default constructor
+     * @return the key at the quantile, or Double.NaN if the heap is empty
+     */
+    public double getQuantile(){
+        
+        return _lower.getSize() == 0 ? Double.NaN : MaxMinHeap.heapMaximum(_lower);
+        
+    } // end of method getQuantile
+    
+    /**
+     * Returns the quantile the heap keeps
+     * @return the quantile, between 0 and 1
+     */
+    public double getQuantileFraction(){
+        
+        return _quantile;
+        
+    } // end of method getQuantileFraction
+    
+    /**
+     * Returns the number of keys
+     * @return the size of the heap
+     */
+    public int getSize(){
+        
+        return _lower.getSize() + _upper.getSize();
+        
+    } // end of method getSize
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    /*
+     * Moves keys between the heaps until the lower heap holds exactly the keys of rank 0 to floor(q*(n-1)).
+     * An insert or an extraction changes that rank by at most one, so at most one key moves.
+     */
+    private void rebalance(){
+        
+        int target = target(getSize());
+        while (_lower.getSize() > target)
+            MaxMinHeap.heapInsert(_upper, MaxMinHeap.heapExtractMax(_lower));
+        while (_lower.getSize() < target)
+            MaxMinHeap.heapInsert(_lower, MaxMinHeap.heapExtractMin(_upper));
+        
+    } // end of method rebalance
+    
+    // returns the size of the lower heap when the heap holds n keys
+    private int target(int n){
+        
+        return n == 0 ? 0 : (int)Math.floor(_quantile * (n - 1)) + 1;
+        
+    } // end of method target
+
+} // end of class MedianMaxMinHeap
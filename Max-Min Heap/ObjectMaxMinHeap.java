@@ -0,0 +1,728 @@
+// Generated by GenerateHeaps from MaxMinHeapVariant.template - edit the template, not this file
+/**
+ * Max-Min heap of objects ordered by a Comparator.
+ * Runs the same algorithms as MaxMinHeap, comparing the elements with the comparator
+ * given at construction instead of the primitive comparison operators.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+public class ObjectMaxMinHeap<T>{
+    
+    private Object[] _arr; // internal array that stores the elements of the heap
+    private int _size; // current size of the heap
+    private final Comparator<? super T> _cmp; // the order of the elements
+    final private static int ARRAY_LEN = 512; // default array length
+    // the largest array length the VM can reliably allocate
+    final private static int MAX_ARRAY_LEN = Integer.MAX_VALUE - 8;
+    final private static int BULK_SAMPLE = 64; // number of keys heapInsertAll bubbles up before it chooses a method
+    // the average number of levels a sampled key may move up before heapInsertAll switches to heapifying
+    final private static int BULK_MAX_AVERAGE_MOVE = 4;
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that initializes the heap with an empty array of size 512 and sets the size to zero
+     *
+     * @param cmp the comparator that orders the elements of the heap
+     */
+    public ObjectMaxMinHeap(Comparator<? super T> cmp){
+        
+        this(ARRAY_LEN, cmp);
+        
+    } // end of constructor ObjectMaxMinHeap
+    
+    /**
+     * Constructor that initializes the heap with an empty array of the given initial capacity
+     * and sets the size to zero.
+     *
+     * @param initialCapacity the initial array length of the heap
+     * @param cmp the comparator that orders the elements of the heap
+     * @throws IllegalArgumentException if initialCapacity is negative
+     * @throws NullPointerException if cmp is null
+     */
+    public ObjectMaxMinHeap(int initialCapacity, Comparator<? super T> cmp){
+        
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        if (cmp == null)
+            throw new NullPointerException("The comparator must not be null");
+        _arr = new Object[initialCapacity];
+        _size = 0;
+        _cmp = cmp;
+        
+    } // end of constructor ObjectMaxMinHeap
+    
+    /**
+     * Adds a new element to the heap (without restoring the heap property)
+     * @param num the element to add
+     */
+    public void add(T num){
+        
+        if (_size == _arr.length) // the array is full - rarely taken
+            grow(_size + 1);
+        _arr[_size] = num;
+        _size++;
+        
+    } // end of method add
+    
+    /**
+     * Returns the size of the heap
+     * @return the size of the heap
+     */
+    public int getSize(){
+        
+        return _size;
+        
+    } // end of method getSize
+    
+    /**
+     * Returns the array length of the heap(capacity)
+     * @return the array length of the heap
+     */
+    public int getCapacity(){
+        
+        return _arr.length;
+        
+    } // end of method getCapacity
+    
+    /**
+     * Returns the element at index i of the heap array
+     * @param i the index of the element
+     * @return the element at index i
+     * @throws IndexOutOfBoundsException if i is not an index of the heap
+     */
+    @SuppressWarnings("unchecked")
+    public T getKey(int i){
+        
+        if (i < 0 || i >= _size)
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + _size);
+        return (T)_arr[i];
+        
+    } // end of method getKey
+    
+    /**
+     * Makes sure the heap can hold at least minCapacity elements without growing again
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity){
+        
+        if (minCapacity > _arr.length)
+            grow(minCapacity);
+        
+    } // end of method ensureCapacity
+    
+    /**
+     * Shrinks the internal array to the current size of the heap
+     */
+    public void trimToSize(){
+        
+        if (_size < _arr.length)
+            _arr = Arrays.copyOf(_arr, _size);
+        
+    } // end of method trimToSize
+    
+    /**
+     * Resets the size of the heap and releases the references to its elements
+     */
+    public void resetSize(){
+        
+        Arrays.fill(_arr, 0, _size, null);
+        _size = 0;
+        
+    } // end of method resetSize
+
+/*---------------------------------Heap operations-------------------------------------------------------------------*/
+    
+    /**
+     * Performs either a max heapify or a min heapify operation at index i,
+     * based on the level of the index in the heap.
+     *
+     * @param heap the heap to perform the heapify operation on
+     * @param i the index to start the heapify operation at
+     */
+    public static <T> void heapify(ObjectMaxMinHeap<T> heap, int i){
+        
+        if (isMaxLevel(i))
+            maxHeapify(heap, i);
+        else // if the level is odd, perform a min heapify operation
+            minHeapify(heap, i);
+        
+    } // end of method heapify
+    
+    /**
+     * Builds a max-min heap from the added elements by a bottom-up heap construction.
+     *
+     * @param heap the heap to build
+     */
+    public static <T> void buildHeap(ObjectMaxMinHeap<T> heap){
+        
+        for (int i = heap._size/2 - 1; i >= 0; i--)
+            heapify(heap, i);
+        
+    } // end of method buildHeap
+    
+    /**
+     * Extracts and returns the maximum element of the heap.
+     *
+     * @param heap the heap to extract the maximum element from
+     * @return the maximum element of the heap, or null if the heap is empty
+     */
+    public static <T> T heapExtractMax(ObjectMaxMinHeap<T> heap){
+        
+        if (heap._size == 0)
+            return null;
+        
+        swap(heap, 0, heap._size - 1);
+        heap._size--;
+        if (heap._size > 1)
+            heapify(heap, 0);
+        return removeLast(heap);
+        
+    } // end of method heapExtractMax
+    
+    /**
+     * Extracts and returns the minimum element of the heap.
+     *
+     * @param heap the heap to extract the minimum element from
+     * @return the minimum element of the heap, or null if the heap is empty
+     */
+    public static <T> T heapExtractMin(ObjectMaxMinHeap<T> heap){
+        
+        switch (heap._size){
+            case 0: return null;
+            case 1: // the last element is the minimum
+            case 2: heap._size--;
+                    return removeLast(heap);
+        } // end of switch
+        
+        // the minimum value is always at level 1 of the heap
+        int smallest = 1;
+        if (compare(heap, heap._arr[2], heap._arr[1]) < 0)
+            smallest = 2;
+        
+        swap(heap, smallest, heap._size - 1);
+        heap._size--;
+        heapify(heap, smallest);
+        return removeLast(heap);
+        
+    } // end of method heapExtractMin
+    
+    /**
+     * Returns the maximum element of the heap without removing it.
+     *
+     * @param heap the heap
+     * @return the maximum element of the heap, or null if the heap is empty
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T heapMaximum(ObjectMaxMinHeap<T> heap){
+        
+        if (heap._size == 0)
+            return null;
+        return (T)heap._arr[0];
+        
+    } // end of method heapMaximum
+    
+    /**
+     * Returns the minimum element of the heap without removing it.
+     *
+     * @param heap the heap
+     * @return the minimum element of the heap, or null if the heap is empty
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T heapMinimum(ObjectMaxMinHeap<T> heap){
+        
+        switch (heap._size){
+            case 0: return null;
+            case 1: return (T)heap._arr[0];
+            case 2: return (T)heap._arr[1];
+        } // end of switch
+        return (T)heap._arr[compare(heap, heap._arr[2], heap._arr[1]) < 0 ? 2 : 1];
+        
+    } // end of method heapMinimum
+    
+    /**
+     * Replaces the maximum element of the heap with a new element and returns the old maximum,
+     * preserving the heap property. Cheaper than heapExtractMax followed by heapInsert.
+     * If the heap is empty, the element is inserted and null is returned.
+     *
+     * @param heap the heap
+     * @param key the element that replaces the maximum
+     * @return the old maximum element of the heap, or null if the heap was empty
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T heapReplaceMax(ObjectMaxMinHeap<T> heap, T key){
+        
+        if (heap._size == 0){
+            heapInsert(heap, key);
+            return null;
+        } // end of if statement
+        
+        T max = (T)heap._arr[0];
+        heap._arr[0] = key;
+        maxHeapify(heap, 0); // moves the element down, also when it is smaller than the minimum
+        return max;
+        
+    } // end of method heapReplaceMax
+    
+    /**
+     * Replaces the minimum element of the heap with a new element and returns the old minimum,
+     * preserving the heap property. Cheaper than heapExtractMin followed by heapInsert.
+     * If the heap is empty, the element is inserted and null is returned.
+     *
+     * @param heap the heap
+     * @param key the element that replaces the minimum
+     * @return the old minimum element of the heap, or null if the heap was empty
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T heapReplaceMin(ObjectMaxMinHeap<T> heap, T key){
+        
+        Object[] arr = heap._arr;
+        switch (heap._size){
+            case 0:
+                heapInsert(heap, key);
+                return null;
+            case 1: {
+                T min = (T)arr[0];
+                arr[0] = key;
+                return min;
+            }
+        } // end of switch
+        
+        int smallest = heap._size > 2 && compare(heap, arr[2], arr[1]) < 0 ? 2 : 1;
+        T min = (T)arr[smallest];
+        // an element larger than the maximum becomes the new root, and the old root moves down instead
+        if (compare(heap, key, arr[0]) > 0){
+            arr[smallest] = arr[0];
+            arr[0] = key;
+        } // end of if statement
+        else
+            arr[smallest] = key;
+        minHeapify(heap, smallest);
+        return min;
+        
+    } // end of method heapReplaceMin
+    
+    /**
+     * Inserts a new element into the heap, preserving the heap property.
+     *
+     * @param heap the heap to insert the key into
+     * @param key the value to be inserted into the heap
+     */
+    public static <T> void heapInsert(ObjectMaxMinHeap<T> heap, T key){
+        
+        heap.add(key);
+        bubbleUp(heap, heap._size-1);
+        
+    } // end of method heapInsert
+    
+    /**
+     * Inserts len elements of the given array, starting at index off, into the heap, preserving the heap property.
+     * Chooses between rebuilding, bubbling up and heapifying the ancestors like MaxMinHeap.heapInsertAll.
+     *
+     * @param heap the heap to insert the elements into
+     * @param keys the array that holds the elements
+     * @param off the index of the first element to insert
+     * @param len the number of elements to insert
+     * @throws IndexOutOfBoundsException if off and len are not a valid range of elements
+     */
+    public static <T> void heapInsertAll(ObjectMaxMinHeap<T> heap, T[] keys, int off, int len){
+        
+        insertAll(heap, keys, off, len);
+        
+    } // end of method heapInsertAll
+    
+    /**
+     * Inserts all the elements of another heap into this heap, preserving the heap property.
+     * The other heap is not changed.
+     *
+     * @param heap the heap to insert the elements into
+     * @param other the heap whose elements are inserted
+     */
+    public static <T> void meld(ObjectMaxMinHeap<T> heap, ObjectMaxMinHeap<? extends T> other){
+        
+        insertAll(heap, other._arr, 0, other._size);
+        
+    } // end of method meld
+    
+    /**
+     * Deletes the element at index i from the heap, preserving the heap property.
+     *
+     * @param heap the heap
+     * @param i the index of the element to be deleted
+     * @return 1 if the element is successfully deleted, 0 otherwise
+     */
+    public static <T> int heapDelete(ObjectMaxMinHeap<T> heap, int i){
+        
+        if (i < 0 || i >= heap._size)
+            return 0;
+        
+        swap(heap, i, heap._size - 1);
+        heap._size--;
+        removeLast(heap); // releases the deleted element
+        if (i == heap._size) // the deleted element was the last one - nothing moved into its slot
+            return 1;
+        
+        // only one of the methods below actually works
+        bubbleUp(heap, i);
+        heapify(heap, i);
+        return 1;
+        
+    } // end of method heapDelete
+    
+    /**
+     * Removes all the elements of the heap and returns them in non-decreasing order. Same as drainSorted.
+     *
+     * @param heap the heap to sort
+     * @return the elements of the heap in non-decreasing order
+     */
+    public static <T> List<T> heapSort(ObjectMaxMinHeap<T> heap){
+        
+        return drainSorted(heap);
+        
+    } // end of method heapSort
+    
+    /**
+     * Removes all the elements of the heap and returns them in non-decreasing order, sorted with Arrays.sort.
+     * Unlike the primitive heaps, the sorted elements are not left in the heap array,
+     * so the heap does not keep references to them.
+     *
+     * @param heap the heap to sort
+     * @return the elements of the heap in non-decreasing order
+     */
+    public static <T> List<T> drainSorted(ObjectMaxMinHeap<T> heap){
+        
+        List<T> sorted = sortedCopy(heap, false);
+        heap.resetSize();
+        return sorted;
+        
+    } // end of method drainSorted
+    
+    /**
+     * Returns a new list with the elements of the heap in non-decreasing order.
+     * The heap itself is not changed.
+     *
+     * @param heap the heap
+     * @return the sorted elements of the heap
+     */
+    public static <T> List<T> sortedCopy(ObjectMaxMinHeap<T> heap){
+        
+        return sortedCopy(heap, false);
+        
+    } // end of method sortedCopy
+    
+    /**
+     * Returns a new list with the elements of the heap in non-decreasing or non-increasing order.
+     * The heap itself is not changed.
+     *
+     * @param heap the heap
+     * @param descending true for non-increasing order, false for non-decreasing order
+     * @return the sorted elements of the heap
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> sortedCopy(ObjectMaxMinHeap<T> heap, boolean descending){
+        
+        T[] sorted = (T[])new Object[heap._size]; // only seen through the list, which is typed by T
+        toSortedArray(heap, sorted, descending);
+        return Arrays.asList(sorted);
+        
+    } // end of method sortedCopy
+    
+    /**
+     * Copies the elements of the heap into the given array in non-decreasing order, starting at index 0.
+     * The heap itself is not changed.
+     *
+     * @param heap the heap
+     * @param dest the array to copy the sorted elements into
+     * @return the number of elements copied
+     * @throws IndexOutOfBoundsException if dest is shorter than the size of the heap
+     */
+    public static <T> int toSortedArray(ObjectMaxMinHeap<T> heap, T[] dest){
+        
+        return toSortedArray(heap, dest, false);
+        
+    } // end of method toSortedArray
+    
+    /**
+     * Copies the elements of the heap into the given array in non-decreasing or non-increasing order,
+     * starting at index 0. The heap itself is not changed.
+     *
+     * @param heap the heap
+     * @param dest the array to copy the sorted elements into
+     * @param descending true for non-increasing order, false for non-decreasing order
+     * @return the number of elements copied
+     * @throws IndexOutOfBoundsException if dest is shorter than the size of the heap
+     */
+    public static <T> int toSortedArray(ObjectMaxMinHeap<T> heap, T[] dest, boolean descending){
+        
+        int len = heap._size;
+        if (dest.length < len)
+            throw new IndexOutOfBoundsException("Destination length " + dest.length + " is less than heap size " + len);
+        System.arraycopy(heap._arr, 0, dest, 0, len);
+        Arrays.sort(dest, 0, len, descending ? heap._cmp.reversed() : heap._cmp);
+        return len;
+        
+    } // end of method toSortedArray
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // grows the internal array geometrically so it can hold at least minCapacity elements
+    private void grow(int minCapacity){
+        
+        if (minCapacity < 0 || minCapacity > MAX_ARRAY_LEN) // overflow or too many elements
+            throw new OutOfMemoryError("Required heap capacity is too large: " + minCapacity);
+        int oldCapacity = _arr.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1); // 1.5 times the old capacity
+        if (newCapacity - minCapacity < 0)
+            newCapacity = Math.max(minCapacity, ARRAY_LEN);
+        if (newCapacity - MAX_ARRAY_LEN > 0)
+            newCapacity = MAX_ARRAY_LEN;
+        _arr = Arrays.copyOf(_arr, newCapacity);
+        
+    } // end of method grow
+    
+    // returns the index of the parent of the element at index i (-1 for the root)
+    private static int parent(int i){
+        
+        return (i-1) >> 1;
+        
+    } // end of method parent
+    
+    // returns the index of the left child of the element at index i
+    private static int left(int i){
+        
+        return (i+1)*2-1;
+        
+    } // end of method left
+    
+    // returns the index of the right child of the element at index i
+    private static int right(int i){
+        
+        return (i+1)*2;
+        
+    } // end of method right
+    
+    // swaps the elements at indices i and j in the heap
+    private static <T> void swap(ObjectMaxMinHeap<T> heap, int i, int j){
+        
+        Object temp = heap._arr[i];
+        heap._arr[i] = heap._arr[j];
+        heap._arr[j] = temp;
+        
+    } // end of method swap
+    
+    // compares two elements of the heap with its comparator
+    @SuppressWarnings("unchecked")
+    private static <T> int compare(ObjectMaxMinHeap<T> heap, Object a, Object b){
+        
+        return heap._cmp.compare((T)a, (T)b);
+        
+    } // end of method compare
+    
+    // returns the element right after the end of the heap and clears its slot
+    @SuppressWarnings("unchecked")
+    private static <T> T removeLast(ObjectMaxMinHeap<T> heap){
+        
+        T last = (T)heap._arr[heap._size];
+        heap._arr[heap._size] = null; // lets the garbage collector reclaim the element
+        return last;
+        
+    } // end of method removeLast
+    
+    // fixes the subtree rooted at index i which is on a max level, moving the element down with a single hole
+    @SuppressWarnings("unchecked")
+    private static <T> void maxHeapify(ObjectMaxMinHeap<T> heap, int i){
+        
+        Object[] arr = heap._arr;
+        int size = heap._size;
+        T key = (T)arr[i]; // the element that moves down
+        int lastParent = (size - 2) >> 1; // the last index that has a child
+        int lastGrandParent = (size - 4) >> 2; // the last index that has a grandchild
+        int lastFullGrandParent = (size - 7) >> 2; // the last index that has all four grandchildren
+        
+        while (i <= lastParent){
+            int largest; // the index of the largest child or grandchild
+            if (i <= lastFullGrandParent){ // the common case - all the grandchildren exist
+                int g = left(left(i));
+                int a = compare(heap, arr[g], arr[g+1]) > 0 ? g : g+1;
+                int b = compare(heap, arr[g+2], arr[g+3]) > 0 ? g+2 : g+3;
+                largest = compare(heap, arr[a], arr[b]) > 0 ? a : b;
+            } // end of if statement
+            else{ // near the bottom of the heap - checks whichever children and grandchildren exist
+                largest = left(i);
+                if (largest + 1 < size && compare(heap, arr[largest + 1], arr[largest]) > 0)
+                    largest++;
+                if (i <= lastGrandParent)
+                    for (int j = left(left(i)); j < size && j <= right(right(i)); j++)
+                        if (compare(heap, arr[j], arr[largest]) > 0)
+                            largest = j;
+            } // end of else
+            
+            if (compare(heap, arr[largest], key) <= 0) // the heap property is satisfied
+                break;
+            
+            arr[i] = arr[largest]; // moves the largest element up into the hole
+            if (largest <= right(i)){ // a child - the subtree below it is fine
+                i = largest;
+                break;
+            } // end of if statement
+            
+            // a grandchild - the element must also fit its new parent, which is on a min level
+            i = largest;
+            int p = parent(i);
+            if (compare(heap, key, arr[p]) < 0){
+                T temp = (T)arr[p];
+                arr[p] = key;
+                key = temp;
+            } // end of if statement
+        } // end of while
+        arr[i] = key;
+        
+    } // end of method maxHeapify
+    
+    // fixes the subtree rooted at index i which is on a min level, like maxHeapify with the comparisons reversed
+    @SuppressWarnings("unchecked")
+    private static <T> void minHeapify(ObjectMaxMinHeap<T> heap, int i){
+        
+        Object[] arr = heap._arr;
+        int size = heap._size;
+        T key = (T)arr[i]; // the element that moves down
+        int lastParent = (size - 2) >> 1; // the last index that has a child
+        int lastGrandParent = (size - 4) >> 2; // the last index that has a grandchild
+        int lastFullGrandParent = (size - 7) >> 2; // the last index that has all four grandchildren
+        
+        while (i <= lastParent){
+            int smallest; // the index of the smallest child or grandchild
+            if (i <= lastFullGrandParent){ // the common case - all the grandchildren exist
+                int g = left(left(i));
+                int a = compare(heap, arr[g], arr[g+1]) < 0 ? g : g+1;
+                int b = compare(heap, arr[g+2], arr[g+3]) < 0 ? g+2 : g+3;
+                smallest = compare(heap, arr[a], arr[b]) < 0 ? a : b;
+            } // end of if statement
+            else{ // near the bottom of the heap - checks whichever children and grandchildren exist
+                smallest = left(i);
+                if (smallest + 1 < size && compare(heap, arr[smallest + 1], arr[smallest]) < 0)
+                    smallest++;
+                if (i <= lastGrandParent)
+                    for (int j = left(left(i)); j < size && j <= right(right(i)); j++)
+                        if (compare(heap, arr[j], arr[smallest]) < 0)
+                            smallest = j;
+            } // end of else
+            
+            if (compare(heap, arr[smallest], key) >= 0) // the heap property is satisfied
+                break;
+            
+            arr[i] = arr[smallest]; // moves the smallest element up into the hole
+            if (smallest <= right(i)){ // a child - the subtree below it is fine
+                i = smallest;
+                break;
+            } // end of if statement
+            
+            // a grandchild - the element must also fit its new parent, which is on a max level
+            i = smallest;
+            int p = parent(i);
+            if (compare(heap, key, arr[p]) > 0){
+                T temp = (T)arr[p];
+                arr[p] = key;
+                key = temp;
+            } // end of if statement
+        } // end of while
+        arr[i] = key;
+        
+    } // end of method minHeapify
+    
+    // inserts len elements of keys from index off into the heap - heapInsertAll and meld
+    private static <T> void insertAll(ObjectMaxMinHeap<T> heap, Object[] keys, int off, int len){
+        
+        if (off < 0 || len < 0 || off > keys.length - len)
+            throw new IndexOutOfBoundsException("Range [" + off + ", " + off + " + " + len + ") out of bounds for length " + keys.length);
+        if (len == 0)
+            return;
+        if (len > MAX_ARRAY_LEN - heap._size)
+            throw new OutOfMemoryError("Required heap capacity is too large: " + ((long)heap._size + len));
+        
+        int n = heap._size; // the size of the heap before the insertion
+        heap.ensureCapacity(n + len);
+        System.arraycopy(keys, off, heap._arr, n, len);
+        heap._size = n + len;
+        
+        if (len >= n){ // the batch is as large as the heap - rebuilds all of it
+            buildHeap(heap);
+            return;
+        } // end of if statement
+        
+        // bubbles up a sample of the elements one by one and counts how many levels they moved up
+        int i = n, sampleEnd = n + Math.min(len, BULK_SAMPLE);
+        long moved = 0;
+        for (; i < sampleEnd; i++)
+            moved += level(i) - level(bubbleUp(heap, i));
+        
+        if (moved <= (long)BULK_MAX_AVERAGE_MOVE * (sampleEnd - n)){ // the elements hardly move - continues one by one
+            for (; i < heap._size; i++)
+                bubbleUp(heap, i);
+        } // end of if statement
+        else if (i < heap._size){ // heapifies the ancestors of the other elements, level by level from the bottom up
+            int lo = parent(i), hi = parent(heap._size - 1);
+            while (hi >= 0){
+                for (int j = hi; j >= lo; j--)
+                    heapify(heap, j);
+                hi = Math.min(parent(hi), lo - 1);
+                lo = parent(lo);
+            } // end of while
+        } // end of else
+        
+    } // end of method insertAll
+    
+    // returns the level of the element at index i (the root is at level 0)
+    private static int level(int i){
+        
+        return 31 - Integer.numberOfLeadingZeros(i + 1);
+        
+    } // end of method level
+    
+    // checks if the element at index i is on an even level of the heap (a max level)
+    private static boolean isMaxLevel(int i){
+        
+        return (level(i) & 1) == 0;
+        
+    } // end of method isMaxLevel
+    
+    // moves the element at index i up in the heap until the heap property is satisfied - returns its new index
+    @SuppressWarnings("unchecked")
+    private static <T> int bubbleUp(ObjectMaxMinHeap<T> heap, int i){
+        
+        Object[] arr = heap._arr;
+        T key = (T)arr[i]; // the element that moves up
+        // flag to determine if the node is at an even or odd level
+        boolean isEvenDepth = isMaxLevel(i);
+        int node = i;
+        
+        // checks if the node violates the max-min heap property with its parent
+        if (node > 0){
+            int parent = parent(node);
+            if ( (isEvenDepth && compare(heap, arr[parent], key) > 0) ||
+            (!isEvenDepth && compare(heap, arr[parent], key) < 0) ){
+                    arr[node] = arr[parent]; // moves the parent down into the hole
+                    node = parent;
+                    isEvenDepth = !isEvenDepth; // the parent is on the other kind of level
+            } // end of if statement
+        } // end of if statement
+        
+        // moves the node up through its grandparents while it violates the max-min heap property with them
+        int grandParent = parent(parent(node)); // equals to i/4 in array which starts in index 1
+        while ( grandParent >= 0 &&
+        ( (isEvenDepth && compare(heap, arr[grandParent], key) < 0) ||
+        (!isEvenDepth && compare(heap, arr[grandParent], key) > 0) ) ){
+                arr[node] = arr[grandParent]; // moves the grandparent down into the hole
+                node = grandParent;
+                grandParent = parent(parent(node));
+        } // end of while
+        arr[node] = key;
+        return node;
+        
+    } // end of method bubbleUp
+
+} // end of class ObjectMaxMinHeap
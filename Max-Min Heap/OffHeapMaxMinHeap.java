@@ -0,0 +1,728 @@
+
+/**
+ * Max-Min heap of double keys stored outside of the Java heap.
+ *
+ * The keys are kept in direct ByteBuffers ("chunks") of 2^27 keys (1 GiB) each, so the garbage collector
+ * never scans or copies them and a heap of hundreds of millions of keys does not make GC pauses longer.
+ * Indices are long, and the capacity is only limited by the native memory, not by the 2^31 limit of arrays.
+ * The heap runs the same algorithms as MaxMinHeap, and no operation allocates on the Java heap.
+ *
+ * The native memory must be released explicitly with close (or with try-with-resources).
+ * After close, every operation throws IllegalStateException.
+ * A heap is not thread-safe.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.BitSet;
+public class OffHeapMaxMinHeap implements AutoCloseable{
+    
+    private ByteBuffer[] _chunks; // the memory of the heap, null after close
+    private long _size; // current size of the heap
+    private long _capacity; // number of keys the chunks can hold
+    private final int _chunkShift; // every chunk holds 2^_chunkShift keys, except the last one that can be shorter
+    private final long _chunkMask;
+    private BitSet _dirtyPages; // the pages of keys written since clearDirtyPages, null if they are not tracked
+    private int _pageShift; // every page holds 2^_pageShift keys
+    final private static long DEFAULT_CAPACITY = 512;
+    final private static int DEFAULT_CHUNK_SHIFT = 27; // 2^27 keys = 1 GiB, below the 2 GiB limit of a buffer
+    final private static long MAX_CAPACITY = Long.MAX_VALUE >> 4;
+    final private static int KEY_BYTES = Double.BYTES;
+    final private static Method INVOKE_CLEANER; // frees a direct buffer right away, null if not available
+    final private static Object UNSAFE;
+    
+    static{
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try{
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } // end of try
+        catch (ReflectiveOperationException | RuntimeException e){
+            // the buffers are then freed by the garbage collector once they are unreachable
+            unsafe = null;
+            invokeCleaner = null;
+        } // end of catch
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    } // end of static initializer
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Constructor that creates an empty heap with room for 512 keys
+     */
+    public OffHeapMaxMinHeap(){
+        
+        this(DEFAULT_CAPACITY);
+        
+    } // end of constructor OffHeapMaxMinHeap
+    
+    /**
+     * Constructor that creates an empty heap with room for the given number of keys.
+     * The heap still grows when it fills up.
+     *
+     * @param initialCapacity the number of keys to allocate memory for
+     * @throws IllegalArgumentException if initialCapacity is negative
+     */
+    public OffHeapMaxMinHeap(long initialCapacity){
+        
+        this(initialCapacity, DEFAULT_CHUNK_SHIFT);
+        
+    } // end of constructor OffHeapMaxMinHeap
+    
+    /**
+     * Constructor for subclasses that creates an empty heap with chunks of the given size.
+     * A subclass whose allocateChunk needs its own fields passes an initial capacity of zero,
+     * and allocates the memory with ensureCapacity once it is ready to.
+     *
+     * @param initialCapacity the number of keys to allocate memory for
+     * @param chunkShift every chunk holds 2^chunkShift keys
+     * @throws IllegalArgumentException if initialCapacity is negative or chunkShift is not between 1 and 27
+     */
+    protected OffHeapMaxMinHeap(long initialCapacity, int chunkShift){
+        
+        if (chunkShift < 1 || chunkShift > DEFAULT_CHUNK_SHIFT)
+            throw new IllegalArgumentException("Illegal chunk shift: " + chunkShift);
+        _chunkShift = chunkShift;
+        _chunkMask = (1L << chunkShift) - 1;
+        _chunks = new ByteBuffer[0];
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        ensureCapacity(initialCapacity);
+        
+    } // end of constructor OffHeapMaxMinHeap
+    
+    /**
+     * Adds a new element to the heap (without restoring the heap property)
+     * @param num the element to add
+     */
+    public void add(double num){
+        
+        if (_size == _capacity) // the memory is full - rarely taken
+            grow(_size + 1);
+        set(_size, num);
+        _size++;
+        
+    } // end of method add
+    
+    /**
+     * Returns the size of the heap
+     * @return the size of the heap
+     */
+    public long getSize(){
+        
+        return _size;
+        
+    } // end of method getSize
+    
+    /**
+     * Returns the number of keys the heap can hold without allocating more memory
+     * @return the capacity of the heap
+     */
+    public long getCapacity(){
+        
+        return _capacity;
+        
+    } // end of method getCapacity
+    
+    /**
+     * Makes sure the heap can hold at least minCapacity elements without growing again
+     * @param minCapacity the desired minimum capacity
+     * @throws IllegalStateException if the heap is closed
+     * @throws OutOfMemoryError if minCapacity is too large
+     */
+    public void ensureCapacity(long minCapacity){
+        
+        checkOpen();
+        if (minCapacity <= _capacity)
+            return;
+        if (minCapacity > MAX_CAPACITY || (minCapacity - 1) >>> _chunkShift >= Integer.MAX_VALUE)
+            throw new OutOfMemoryError("Required heap capacity is too large: " + minCapacity);
+        
+        long chunkLen = 1L << _chunkShift;
+        int chunks = (int)((minCapacity + chunkLen - 1) >>> _chunkShift);
+        ByteBuffer[] newChunks = Arrays.copyOf(_chunks, chunks);
+        for (int c = 0; c < chunks; c++){
+            int len = (int)Math.min(chunkLen, minCapacity - ((long)c << _chunkShift)); // keys in chunk c
+            if (c >= _chunks.length)
+                newChunks[c] = order(allocateChunk(c, len));
+            else if (_chunks[c].capacity() < len * KEY_BYTES) // only the last old chunk can be short
+                newChunks[c] = order(resizeChunk(c, _chunks[c], len));
+        } // end of for
+        _chunks = newChunks;
+        _capacity = minCapacity;
+        growDirtyPages();
+        
+    } // end of method ensureCapacity
+    
+    /**
+     * Resets the size of the heap
+     */
+    public void resetSize(){
+        
+        _size = 0;
+        
+    } // end of method resetSize
+    
+    /**
+     * Returns the key at index i of the heap array
+     * @param i the index of the key
+     * @return the key at index i
+     * @throws IndexOutOfBoundsException if i is not an index of the heap
+     */
+    public double getKey(long i){
+        
+        checkOpen();
+        if (i < 0 || i >= _size)
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + _size);
+        return get(i);
+        
+    } // end of method getKey
+    
+    /**
+     * Checks if the memory of the heap was released
+     * @return true if close was called, otherwise false
+     */
+    public boolean isClosed(){
+        
+        return _chunks == null;
+        
+    } // end of method isClosed
+    
+    /**
+     * Releases the memory of the heap. Calling close again does nothing.
+     */
+    @Override
+    public void close(){
+        
+        if (_chunks == null)
+            return;
+        for (ByteBuffer chunk : _chunks)
+            freeChunk(chunk);
+        _chunks = null;
+        _size = 0;
+        _capacity = 0;
+        
+    } // end of method close
+
+/*---------------------------------Heap operations-------------------------------------------------------------------*/
+    
+    /**
+     * Performs either a max heapify or a min heapify operation at index i,
+     * based on the level of the index in the heap.
+     *
+     * @param heap the heap to perform the heapify operation on
+     * @param i the index to start the heapify operation at
+     */
+    public static void heapify(OffHeapMaxMinHeap heap, long i){
+        
+        heap.checkOpen();
+        if (isMaxLevel(i))
+            maxHeapify(heap, i);
+        else // if the level is odd, perform a min heapify operation
+            minHeapify(heap, i);
+        
+    } // end of method heapify
+    
+    /**
+     * Builds a max-min heap from the added elements by a bottom-up heap construction.
+     *
+     * @param heap the heap to build
+     */
+    public static void buildHeap(OffHeapMaxMinHeap heap){
+        
+        heap.checkOpen();
+        for (long i = heap._size/2 - 1; i >= 0; i--)
+            if (isMaxLevel(i))
+                maxHeapify(heap, i);
+            else
+                minHeapify(heap, i);
+        
+    } // end of method buildHeap
+    
+    /**
+     * Extracts and returns the maximum element of the heap.
+     *
+     * @param heap the heap to extract the maximum element from
+     * @return the maximum element of the heap, or Integer.MAX_VALUE if the heap is empty
+     */
+    public static double heapExtractMax(OffHeapMaxMinHeap heap){
+        
+        heap.checkOpen();
+        if (heap._size == 1)
+            return heap.get(--heap._size);
+        else if (heap._size == 0)
+            return Integer.MAX_VALUE;
+        
+        double max = heap.get(0);
+        heap._size--;
+        heap.set(0, heap.get(heap._size)); // the last leaf moves into the root
+        maxHeapify(heap, 0);
+        return max;
+        
+    } // end of method heapExtractMax
+    
+    /**
+     * Extracts and returns the minimum element of the heap.
+     *
+     * @param heap the heap to extract the minimum element from
+     * @return the minimum element of the heap, or Integer.MIN_VALUE if the heap is empty
+     */
+    public static double heapExtractMin(OffHeapMaxMinHeap heap){
+        
+        heap.checkOpen();
+        if (heap._size == 0)
+            return Integer.MIN_VALUE;
+        if (heap._size <= 2) // the last element is the minimum
+            return heap.get(--heap._size);
+        
+        // the minimum value is always at level 1 of the heap
+        long smallest = heap.get(2) < heap.get(1) ? 2 : 1;
+        double min = heap.get(smallest);
+        heap._size--;
+        heap.set(smallest, heap.get(heap._size)); // the last leaf moves into the hole
+        minHeapify(heap, smallest);
+        return min;
+        
+    } // end of method heapExtractMin
+    
+    /**
+     * Returns the maximum element of the heap without removing it.
+     *
+     * @param heap a max-min heap
+     * @return the maximum element of the heap, or Integer.MAX_VALUE if the heap is empty
+     */
+    public static double heapMaximum(OffHeapMaxMinHeap heap){
+        
+        heap.checkOpen();
+        if (heap._size == 0)
+            return Integer.MAX_VALUE;
+        return heap.get(0);
+        
+    } // end of method heapMaximum
+    
+    /**
+     * Returns the minimum element of the heap without removing it.
+     *
+     * @param heap a max-min heap
+     * @return the minimum element of the heap, or Integer.MIN_VALUE if the heap is empty
+     */
+    public static double heapMinimum(OffHeapMaxMinHeap heap){
+        
+        heap.checkOpen();
+        if (heap._size == 0)
+            return Integer.MIN_VALUE;
+        if (heap._size <= 2)
+            return heap.get(heap._size - 1);
+        return Math.min(heap.get(1), heap.get(2));
+        
+    } // end of method heapMinimum
+    
+    /**
+     * Inserts a new element into the heap, preserving the heap property.
+     *
+     * @param heap the heap to insert the key into
+     * @param key the value to be inserted into the heap
+     */
+    public static void heapInsert(OffHeapMaxMinHeap heap, double key){
+        
+        heap.checkOpen();
+        heap.add(key);
+        bubbleUp(heap, heap._size-1);
+        
+    } // end of method heapInsert
+    
+    /**
+     * Deletes the element at index i from the heap, preserving the heap property.
+     *
+     * @param heap the heap
+     * @param i the index of the element to be deleted
+     * @return 1 if the element is successfully deleted, 0 otherwise
+     */
+    public static int heapDelete(OffHeapMaxMinHeap heap, long i){
+        
+        heap.checkOpen();
+        if (i < 0 || i >= heap._size)
+            return 0;
+        
+        heap._size--;
+        if (i == heap._size) // the last leaf - nothing moves
+            return 1;
+        heap.set(i, heap.get(heap._size)); // the last leaf moves into the hole
+        
+        // only one of the methods below actually works
+        bubbleUp(heap, i);
+        heapify(heap, i);
+        return 1;
+        
+    } // end of method heapDelete
+
+/*---------------------------------Memory hooks---------------------------------------------------------------------*/
+    
+    /**
+     * Allocates the memory of chunk c. Subclasses can keep the keys somewhere else, such as in a mapped file.
+     * @param c the index of the chunk
+     * @param keys the number of keys the chunk must hold
+     * @return a buffer of at least keys * 8 bytes
+     */
+    protected ByteBuffer allocateChunk(int c, int keys){
+        
+        return ByteBuffer.allocateDirect(keys * KEY_BYTES);
+        
+    } // end of method allocateChunk
+    
+    /**
+     * Replaces chunk c with a larger one that keeps its keys.
+     * By default allocates a new chunk, copies the keys and frees the old chunk.
+     * @param c the index of the chunk
+     * @param old the current memory of the chunk
+     * @param keys the number of keys the chunk must hold
+     * @return a buffer of at least keys * 8 bytes that starts with the keys of old
+     */
+    protected ByteBuffer resizeChunk(int c, ByteBuffer old, int keys){
+        
+        ByteBuffer chunk = allocateChunk(c, keys);
+        chunk.put(0, old, 0, old.capacity());
+        freeChunk(old);
+        return chunk;
+        
+    } // end of method resizeChunk
+    
+    /**
+     * Frees the memory of a chunk right away if the JVM allows it,
+     * otherwise the garbage collector frees it once the buffer is unreachable.
+     * @param chunk the buffer to free, it must not be used afterwards
+     */
+    protected void freeChunk(ByteBuffer chunk){
+        
+        if (INVOKE_CLEANER == null || !chunk.isDirect())
+            return;
+        try{
+            INVOKE_CLEANER.invoke(UNSAFE, chunk);
+        } // end of try
+        catch (ReflectiveOperationException | RuntimeException e){
+            // leaves it to the garbage collector
+        } // end of catch
+        
+    } // end of method freeChunk
+    
+    /**
+     * Returns the chunks of the heap, for subclasses that save or flush them
+     * @return the chunks, the last one can be shorter than the others
+     */
+    protected ByteBuffer[] getChunks(){
+        
+        checkOpen();
+        return _chunks;
+        
+    } // end of method getChunks
+    
+    /**
+     * Replaces the memory of chunk c with another buffer that already holds its keys,
+     * for subclasses that keep more than one copy of the keys
+     * @param c the index of the chunk
+     * @param chunk the new memory of the chunk, at least as long as the current one
+     */
+    protected void setChunk(int c, ByteBuffer chunk){
+        
+        checkOpen();
+        if (chunk.capacity() < _chunks[c].capacity())
+            throw new IllegalArgumentException("Chunk " + c + " is too short: " + chunk.capacity() + " bytes");
+        _chunks[c] = order(chunk);
+        
+    } // end of method setChunk
+    
+    /**
+     * Starts tracking the pages of keys that are written, for subclasses that save only the changed keys.
+     * Every write then sets the bit of its page, and the bit set is allocated with the memory,
+     * so the operations still allocate nothing.
+     * @param pageShift every page holds 2^pageShift keys
+     * @throws IllegalArgumentException if pageShift is negative or larger than the chunk shift,
+     *                                  so a page would not fit in a chunk
+     */
+    protected void trackDirtyPages(int pageShift){
+        
+        if (pageShift < 0 || pageShift > _chunkShift)
+            throw new IllegalArgumentException("Illegal page shift: " + pageShift);
+        _pageShift = pageShift;
+        _dirtyPages = new BitSet();
+        growDirtyPages();
+        
+    } // end of method trackDirtyPages
+    
+    /**
+     * Returns the pages of keys written since the tracking started or since clearDirtyPages
+     * @return the bit set of the dirty pages (page p holds the keys from p * 2^pageShift on),
+     *         or null if trackDirtyPages was not called
+     */
+    protected BitSet getDirtyPages(){
+        
+        return _dirtyPages;
+        
+    } // end of method getDirtyPages
+    
+    /**
+     * Marks all the pages clean, for subclasses that saved the dirty ones
+     */
+    protected void clearDirtyPages(){
+        
+        if (_dirtyPages != null)
+            _dirtyPages.clear();
+        
+    } // end of method clearDirtyPages
+    
+    /**
+     * Sets the size of the heap, for subclasses that load the keys from somewhere else
+     * @param size the number of keys that are already in the chunks
+     * @throws IllegalArgumentException if size is negative or larger than the capacity
+     */
+    protected void setSize(long size){
+        
+        if (size < 0 || size > _capacity)
+            throw new IllegalArgumentException("Illegal size: " + size);
+        _size = size;
+        
+    } // end of method setSize
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // grows the memory geometrically so it can hold at least minCapacity elements
+    private void grow(long minCapacity){
+        
+        long newCapacity = _capacity + (_capacity >> 1); // 1.5 times the old capacity
+        if (newCapacity < minCapacity)
+            newCapacity = Math.max(minCapacity, DEFAULT_CAPACITY);
+        ensureCapacity(Math.min(newCapacity, Math.max(minCapacity, MAX_CAPACITY)));
+        
+    } // end of method grow
+    
+    // makes the bit set of the dirty pages hold a bit for every page of the capacity, so a write does not grow it
+    private void growDirtyPages(){
+        
+        if (_dirtyPages == null)
+            return;
+        long pages = (_capacity + (1L << _pageShift) - 1) >>> _pageShift;
+        if (pages > _dirtyPages.size()){
+            BitSet grown = new BitSet((int)Math.min(Integer.MAX_VALUE, pages));
+            grown.or(_dirtyPages);
+            _dirtyPages = grown;
+        } // end of if statement
+        
+    } // end of method growDirtyPages
+    
+    // throws IllegalStateException if the memory of the heap was released
+    private void checkOpen(){
+        
+        if (_chunks == null)
+            throw new IllegalStateException("The heap is closed");
+        
+    } // end of method checkOpen
+    
+    // sets the byte order of a new chunk, the native order needs no byte swapping
+    private static ByteBuffer order(ByteBuffer chunk){
+        
+        return chunk.order(ByteOrder.nativeOrder());
+        
+    } // end of method order
+    
+    // returns the key at index i
+    private double get(long i){
+        
+        return _chunks[(int)(i >>> _chunkShift)].getDouble((int)(i & _chunkMask) * KEY_BYTES);
+        
+    } // end of method get
+    
+    // sets the key at index i
+    private void set(long i, double key){
+        
+        _chunks[(int)(i >>> _chunkShift)].putDouble((int)(i & _chunkMask) * KEY_BYTES, key);
+        if (_dirtyPages != null)
+            _dirtyPages.set((int)(i >>> _pageShift));
+        
+    } // end of method set
+    
+    // returns the index of the parent of the element at index i (-1 for the root)
+    private static long parent(long i){
+        
+        return (i-1) >> 1;
+        
+    } // end of method parent
+    
+    // returns the index of the left child of the element at index i
+    private static long left(long i){
+        
+        return 2*i + 1;
+        
+    } // end of method left
+    
+    // returns the level of the element at index i (the root is at level 0)
+    private static int level(long i){
+        
+        return 63 - Long.numberOfLeadingZeros(i + 1);
+        
+    } // end of method level
+    
+    // checks if the element at index i is on an even level of the heap (a max level)
+    private static boolean isMaxLevel(long i){
+        
+        return (level(i) & 1) == 0;
+        
+    } // end of method isMaxLevel
+    
+    // fixes the subtree rooted at a max level index i, moving the element down through a single hole
+    private static void maxHeapify(OffHeapMaxMinHeap heap, long i){
+        
+        long size = heap._size;
+        double key = heap.get(i); // the element that moves down
+        long lastParent = (size - 2) >> 1; // the last index that has a child
+        long lastFullGrandParent = (size - 7) >> 2; // the last index that has all four grandchildren
+        
+        while (i <= lastParent){
+            long child = left(i);
+            long grandChild = left(child);
+            long largest; // the index of the largest child or grandchild
+            double largestKey;
+            if (i <= lastFullGrandParent){ // the common case - all the grandchildren exist, 3 comparisons
+                double g0 = heap.get(grandChild), g1 = heap.get(grandChild + 1);
+                double g2 = heap.get(grandChild + 2), g3 = heap.get(grandChild + 3);
+                long a = g0 > g1 ? grandChild : grandChild + 1;
+                long b = g2 > g3 ? grandChild + 2 : grandChild + 3;
+                double aKey = g0 > g1 ? g0 : g1, bKey = g2 > g3 ? g2 : g3;
+                largest = aKey > bKey ? a : b;
+                largestKey = aKey > bKey ? aKey : bKey;
+            } // end of if statement
+            else{ // near the bottom of the heap - checks whichever children and grandchildren exist
+                largest = child;
+                largestKey = heap.get(child);
+                if (child + 1 < size && heap.get(child + 1) > largestKey)
+                    largestKey = heap.get(++largest);
+                for (long j = grandChild; j < size && j < grandChild + 4; j++){
+                    double k = heap.get(j);
+                    if (k > largestKey){
+                        largest = j;
+                        largestKey = k;
+                    } // end of if statement
+                } // end of for
+            } // end of else
+            
+            if (largestKey <= key) // the heap property is satisfied
+                break;
+            
+            heap.set(i, largestKey); // moves the largest element up into the hole
+            i = largest;
+            if (largest <= child + 1) // a child - the subtree below it is fine
+                break;
+            
+            // a grandchild - the element must also fit its new parent, which is on a min level
+            long p = parent(i);
+            double parentKey = heap.get(p);
+            if (key < parentKey){
+                heap.set(p, key);
+                key = parentKey;
+            } // end of if statement
+        } // end of while
+        heap.set(i, key);
+        
+    } // end of method maxHeapify
+    
+    // fixes the subtree rooted at a min level index i, like maxHeapify with the comparisons reversed
+    private static void minHeapify(OffHeapMaxMinHeap heap, long i){
+        
+        long size = heap._size;
+        double key = heap.get(i); // the element that moves down
+        long lastParent = (size - 2) >> 1; // the last index that has a child
+        long lastFullGrandParent = (size - 7) >> 2; // the last index that has all four grandchildren
+        
+        while (i <= lastParent){
+            long child = left(i);
+            long grandChild = left(child);
+            long smallest; // the index of the smallest child or grandchild
+            double smallestKey;
+            if (i <= lastFullGrandParent){ // the common case - all the grandchildren exist, 3 comparisons
+                double g0 = heap.get(grandChild), g1 = heap.get(grandChild + 1);
+                double g2 = heap.get(grandChild + 2), g3 = heap.get(grandChild + 3);
+                long a = g0 < g1 ? grandChild : grandChild + 1;
+                long b = g2 < g3 ? grandChild + 2 : grandChild + 3;
+                double aKey = g0 < g1 ? g0 : g1, bKey = g2 < g3 ? g2 : g3;
+                smallest = aKey < bKey ? a : b;
+                smallestKey = aKey < bKey ? aKey : bKey;
+            } // end of if statement
+            else{ // near the bottom of the heap - checks whichever children and grandchildren exist
+                smallest = child;
+                smallestKey = heap.get(child);
+                if (child + 1 < size && heap.get(child + 1) < smallestKey)
+                    smallestKey = heap.get(++smallest);
+                for (long j = grandChild; j < size && j < grandChild + 4; j++){
+                    double k = heap.get(j);
+                    if (k < smallestKey){
+                        smallest = j;
+                        smallestKey = k;
+                    } // end of if statement
+                } // end of for
+            } // end of else
+            
+            if (smallestKey >= key) // the heap property is satisfied
+                break;
+            
+            heap.set(i, smallestKey); // moves the smallest element up into the hole
+            i = smallest;
+            if (smallest <= child + 1) // a child - the subtree below it is fine
+                break;
+            
+            // a grandchild - the element must also fit its new parent, which is on a max level
+            long p = parent(i);
+            double parentKey = heap.get(p);
+            if (key > parentKey){
+                heap.set(p, key);
+                key = parentKey;
+            } // end of if statement
+        } // end of while
+        heap.set(i, key);
+        
+    } // end of method minHeapify
+    
+    // moves the element at index i up in the heap until the heap property is satisfied
+    private static void bubbleUp(OffHeapMaxMinHeap heap, long i){
+        
+        double key = heap.get(i); // the element that moves up
+        // flag to determine if the node is at an even or odd level
+        boolean isEvenDepth = isMaxLevel(i);
+        long node = i;
+        
+        // checks if the node violates the max-min heap property with its parent
+        if (node > 0){
+            long parent = parent(node);
+            double parentKey = heap.get(parent);
+            if ( (isEvenDepth && parentKey > key) ||
+            (!isEvenDepth && parentKey < key) ){
+                    heap.set(node, parentKey); // moves the parent down into the hole
+                    node = parent;
+                    isEvenDepth = !isEvenDepth; // the parent is on the other kind of level
+            } // end of if statement
+        } // end of if statement
+        
+        // moves the node up through its grandparents while it violates the max-min heap property with them
+        long grandParent = parent(parent(node));
+        while (grandParent >= 0){
+            double grandParentKey = heap.get(grandParent);
+            if ( (isEvenDepth && grandParentKey >= key) ||
+            (!isEvenDepth && grandParentKey <= key) )
+                break;
+            heap.set(node, grandParentKey); // moves the grandparent down into the hole
+            node = grandParent;
+            grandParent = parent(parent(node));
+        } // end of while
+        heap.set(node, key);
+        
+    } // end of method bubbleUp
+
+} // end of class OffHeapMaxMinHeap
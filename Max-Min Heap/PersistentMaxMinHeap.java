@@ -0,0 +1,417 @@
+
+/**
+ * Max-Min heap of double keys stored in a memory-mapped file, so it survives restarts.
+ *
+ * The file starts with two header slots of one page each, followed by two regions of keys:
+ * - a header holds the magic, format version, chunk shift, capacity, size, epoch, sequence number,
+ *   the region of the committed keys, a clean flag and a CRC32 of the header.
+ * - the live region holds the keys the heap operations work on. It is mapped chunk by chunk with the hooks
+ *   of OffHeapMaxMinHeap, so the operations work directly on the file pages.
+ * - the other region holds the keys of the last commit, and is not written until the next commit is durable.
+ * The chunks of the two regions alternate in the file (2^20 keys each), so both can grow.
+ *
+ * Updates are made crash-consistent with a shadow region and two headers:
+ * - commit forces the live keys to the disk, and then writes and forces a header that names the live region
+ *   as the committed one, with the next epoch. The header goes to the slot of the older header,
+ *   so a torn header write leaves the previous header, and the keys it names, intact.
+ * - the region of the previous commit then becomes the live region: it gets the committed keys
+ *   and the heap switches to it.
+ * - the heap tracks the pages it wrote since the last commit in a bit set (see OffHeapMaxMinHeap.trackDirtyPages),
+ *   and both regions hold the same keys on every other page, so commit only forces and copies the dirty pages:
+ *   its cost grows with the keys changed since the last commit, not with the size of the heap.
+ * - opening a file reads the header with a valid CRC and the highest sequence number. A file that was not
+ *   closed (the process crashed) is reopened with exactly the keys of its last commit: they are copied
+ *   from the committed region over the live one in O(n). A closed file is reopened in O(1), since both
+ *   regions hold the same keys.
+ * The keys are stored in the native byte order, and a file from a machine with another order is rejected.
+ * An existing file that is not a heap file is rejected without being changed.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+public class PersistentMaxMinHeap extends OffHeapMaxMinHeap{
+    
+    private final FileChannel _channel;
+    private final MappedByteBuffer _headers; // both header slots
+    private final int _chunkShift;
+    private long _epoch; // number of commits so far
+    private long _sequence; // number of headers written so far - the header of sequence q is in slot q % 2
+    private int _live; // the region of the keys the heap works on, 0 or 1
+    private ByteBuffer[] _shadow = new ByteBuffer[0]; // the chunks of the other region, mapped when needed
+    private final boolean _recovered; // true if the file was not closed and the keys of the last commit were restored
+    final private static long MAGIC = 0x4D584D4E48454150L; // "MXMNHEAP"
+    final private static int VERSION = 2;
+    final private static int SLOT_BYTES = 4096; // one page per header, so a torn write spoils one header at most
+    final private static int HEADER_BYTES = 2 * SLOT_BYTES; // so the keys start page aligned
+    final private static int PAGE_BYTES = 4096; // the keys are compared and copied a page at a time
+    final private static int PAGE_SHIFT = 9; // 2^9 keys per page
+    final private static int CHUNK_SHIFT = 20; // 2^20 keys = 8 MiB, the gap a small heap leaves between its regions
+    final private static long DEFAULT_CAPACITY = 512;
+    // offsets of the header fields
+    final private static int MAGIC_OFF = 0, VERSION_OFF = 8, SHIFT_OFF = 12, CAPACITY_OFF = 16, SIZE_OFF = 24,
+                             EPOCH_OFF = 32, SEQUENCE_OFF = 40, REGION_OFF = 48, CLEAN_OFF = 52, CRC_OFF = 56;
+
+/*-----------------------------------------------Instance methods---------------------------------------------------*/
+    
+    /**
+     * Opens the heap stored in the given file, or creates an empty heap with room for 512 keys
+     * if the file does not exist
+     * @param file the heap file
+     * @throws IOException if the file cannot be opened or is not a valid heap file
+     */
+    public PersistentMaxMinHeap(Path file) throws IOException{
+        
+        this(file, DEFAULT_CAPACITY);
+        
+    } // end of constructor PersistentMaxMinHeap
+    
+    /**
+     * Opens the heap stored in the given file, or creates an empty heap with room for initialCapacity keys
+     * if the file does not exist. The heap still grows when it fills up.
+     * Opening a file that was closed is O(1). Opening a file that was not closed restores the keys
+     * of its last commit in O(n).
+     *
+     * @param file the heap file
+     * @param initialCapacity the number of keys to make room for in a new file
+     * @throws IOException if the file cannot be opened or is not a valid heap file
+     * @throws IllegalArgumentException if initialCapacity is negative
+     */
+    public PersistentMaxMinHeap(Path file, long initialCapacity) throws IOException{
+        
+        super(0, CHUNK_SHIFT); // the memory is mapped below, once the file is open
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        _chunkShift = CHUNK_SHIFT;
+        trackDirtyPages(PAGE_SHIFT);
+        boolean exists = Files.exists(file) && Files.size(file) > 0;
+        // mapping the headers would extend a short file, so it is rejected before anything is written
+        if (exists && Files.size(file) < HEADER_BYTES)
+            throw new IOException(file + " is not a heap file");
+        _channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                    StandardOpenOption.WRITE);
+        try{
+            _headers = _channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            _headers.order(ByteOrder.nativeOrder());
+            if (exists){
+                ByteBuffer header = slot(newestSlot(file));
+                long size = header.getLong(SIZE_OFF);
+                _epoch = header.getLong(EPOCH_OFF);
+                _sequence = header.getLong(SEQUENCE_OFF);
+                _recovered = header.getInt(CLEAN_OFF) == 0;
+                _live = 1 - header.getInt(REGION_OFF); // works on the other region, never on the committed one
+                ensureCapacity(Math.max(header.getLong(CAPACITY_OFF), size));
+                setSize(size);
+                if (_recovered){ // the live keys may hold changes made after the last commit - restores the commit
+                    mapShadow();
+                    ByteBuffer[] chunks = getChunks();
+                    for (int c = 0; c < chunks.length; c++)
+                        copyKeys(_shadow[c], chunks[c], keysInChunk(c));
+                } // end of if statement
+            } // end of if statement
+            else{
+                _recovered = false;
+                _live = 0;
+                ensureCapacity(initialCapacity);
+            } // end of else
+            // from now on the live keys change - a crash before close makes the next open restore the commit
+            writeHeader(1 - _live, false);
+        } // end of try
+        catch (IOException | RuntimeException e){
+            _channel.close();
+            throw e;
+        } // end of catch
+        
+    } // end of constructor PersistentMaxMinHeap
+    
+    /**
+     * Makes all the changes so far durable: forces the live keys to the disk, then writes and forces
+     * a header that makes them the committed keys, with the next epoch.
+     * Then the region of the previous commit gets the same keys and becomes the live region,
+     * so the committed keys are not changed until the next commit.
+     * If the process crashes later, the heap is reopened with exactly the keys of this commit.
+     * Only the pages written since the last commit are forced and copied, the other pages of the
+     * two regions already hold the same keys.
+     *
+     * @throws IOException if the file cannot be written
+     * @throws IllegalStateException if the heap is closed
+     */
+    public void commit() throws IOException{
+        
+        ByteBuffer[] chunks = getChunks();
+        List<int[]> runs = dirtyRuns();
+        // one force per chunk, from its first dirty page to its last: the disk only gets the dirty pages of
+        // the span, and a force of every run would pay a system call (and a disk flush) per run
+        for (int r = 0; r < runs.size(); r++){
+            int c = runs.get(r)[0], first = runs.get(r)[1];
+            while (r + 1 < runs.size() && runs.get(r + 1)[0] == c) // the last run of the chunk
+                r++;
+            ((MappedByteBuffer)chunks[c]).force(first, runs.get(r)[1] + runs.get(r)[2] - first);
+        } // end of for
+        _epoch++;
+        writeHeader(_live, false);
+        
+        // the heap switches to the other region, chunk by chunk, once it holds the committed keys
+        mapShadow();
+        for (int[] run : runs)
+            _shadow[run[0]].put(run[1], chunks[run[0]], run[1], run[2]);
+        for (int c = 0; c < chunks.length; c++){
+            ByteBuffer committed = chunks[c];
+            setChunk(c, _shadow[c]);
+            _shadow[c] = committed;
+        } // end of for
+        _live = 1 - _live;
+        clearDirtyPages();
+        
+    } // end of method commit
+    
+    /**
+     * Returns the number of commits made to the file since it was created
+     * @return the epoch of the last commit
+     */
+    public long getEpoch(){
+        
+        return _epoch;
+        
+    } // end of method getEpoch
+    
+    /**
+     * Checks if the file was not closed the last time it was used, so the changes made after its last commit
+     * were discarded when it was opened
+     * @return true if the heap was recovered, false if it was opened in O(1)
+     */
+    public boolean wasRecovered(){
+        
+        return _recovered;
+        
+    } // end of method wasRecovered
+    
+    /**
+     * Commits the changes, marks the file clean so the next open is O(1), and unmaps and closes the file.
+     * Calling close again does nothing.
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    @Override
+    public void close(){
+        
+        if (isClosed())
+            return;
+        try{
+            try{
+                commit();
+                writeHeader(1 - _live, true); // both regions hold the committed keys
+            } // end of try
+            finally{
+                super.close(); // unmaps the live keys
+                for (ByteBuffer chunk : _shadow)
+                    if (chunk != null)
+                        freeChunk(chunk);
+                _headers.force();
+                freeChunk(_headers);
+                _channel.close();
+            } // end of finally
+        } // end of try
+        catch (IOException e){
+            throw new UncheckedIOException(e);
+        } // end of catch
+        
+    } // end of method close
+
+/*---------------------------------Memory hooks---------------------------------------------------------------------*/
+    
+    /**
+     * Maps the part of the file that holds chunk c of the live region
+     * @param c the index of the chunk
+     * @param keys the number of keys the chunk must hold
+     * @return the mapped chunk
+     * @throws UncheckedIOException if the file cannot be mapped
+     */
+    @Override
+    protected ByteBuffer allocateChunk(int c, int keys){
+        
+        return map(_live, c, keys);
+        
+    } // end of method allocateChunk
+    
+    /**
+     * Maps a larger part of the file for chunk c. The keys are already in the file, so nothing is copied.
+     * @param c the index of the chunk
+     * @param old the current mapping of the chunk
+     * @param keys the number of keys the chunk must hold
+     * @return the new mapping of the chunk
+     */
+    @Override
+    protected ByteBuffer resizeChunk(int c, ByteBuffer old, int keys){
+        
+        ByteBuffer chunk = allocateChunk(c, keys);
+        freeChunk(old);
+        return chunk;
+        
+    } // end of method resizeChunk
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // returns the header slot s (0 or 1)
+    private ByteBuffer slot(int s){
+        
+        return _headers.slice(s * SLOT_BYTES, SLOT_BYTES).order(ByteOrder.nativeOrder());
+        
+    } // end of method slot
+    
+    // returns the slot of the newest valid header, after checking that this class can read the file it describes
+    private int newestSlot(Path file) throws IOException{
+        
+        int newest = -1;
+        String problem = file + " is not a heap file, or was written with another byte order";
+        for (int s = 0; s < 2; s++){
+            ByteBuffer header = slot(s);
+            if (header.getLong(MAGIC_OFF) != MAGIC)
+                continue;
+            if (header.getInt(VERSION_OFF) != VERSION)
+                problem = file + " has unsupported version " + header.getInt(VERSION_OFF);
+            else if (header.getInt(CRC_OFF) != headerCrc(header)) // a torn write - the other header is used
+                problem = file + " has corrupted headers";
+            else if (newest < 0 || header.getLong(SEQUENCE_OFF) > slot(newest).getLong(SEQUENCE_OFF))
+                newest = s;
+        } // end of for
+        if (newest < 0)
+            throw new IOException(problem);
+        
+        ByteBuffer header = slot(newest);
+        if (header.getInt(SHIFT_OFF) != _chunkShift)
+            throw new IOException(file + " has unsupported chunk shift " + header.getInt(SHIFT_OFF));
+        int region = header.getInt(REGION_OFF);
+        long capacity = header.getLong(CAPACITY_OFF), size = header.getLong(SIZE_OFF);
+        if (region != 0 && region != 1)
+            throw new IOException(file + " has an invalid region " + region);
+        if (size < 0 || capacity < 0 || size > capacity)
+            throw new IOException(file + " has an invalid size " + size);
+        long last = size - 1; // the committed keys must all be in the file
+        if (size > 0 && position(region, (int)(last >>> _chunkShift))
+                        + ((last & ((1L << _chunkShift) - 1)) + 1) * Double.BYTES > _channel.size())
+            throw new IOException(file + " has an invalid size " + size);
+        return newest;
+        
+    } // end of method newestSlot
+    
+    // writes the current state to the slot of the older header with its CRC, and forces it to the disk
+    private void writeHeader(int committedRegion, boolean clean){
+        
+        _sequence++;
+        int s = (int)(_sequence & 1);
+        ByteBuffer header = slot(s);
+        header.putLong(MAGIC_OFF, MAGIC);
+        header.putInt(VERSION_OFF, VERSION);
+        header.putInt(SHIFT_OFF, _chunkShift);
+        header.putLong(CAPACITY_OFF, getCapacity());
+        header.putLong(SIZE_OFF, getSize());
+        header.putLong(EPOCH_OFF, _epoch);
+        header.putLong(SEQUENCE_OFF, _sequence);
+        header.putInt(REGION_OFF, committedRegion);
+        header.putInt(CLEAN_OFF, clean ? 1 : 0);
+        header.putInt(CRC_OFF, headerCrc(header));
+        _headers.force(s * SLOT_BYTES, SLOT_BYTES);
+        
+    } // end of method writeHeader
+    
+    // returns the CRC32 of the header fields before the CRC itself
+    private static int headerCrc(ByteBuffer header){
+        
+        CRC32 crc = new CRC32();
+        crc.update(header.slice(0, CRC_OFF));
+        return (int)crc.getValue();
+        
+    } // end of method headerCrc
+    
+    // returns the position in the file of chunk c of a region - the chunks of the two regions alternate
+    private long position(int region, int c){
+        
+        return HEADER_BYTES + ((2L * c + region) << _chunkShift) * Double.BYTES;
+        
+    } // end of method position
+    
+    // maps the part of the file that holds chunk c of a region
+    private ByteBuffer map(int region, int c, int keys){
+        
+        try{
+            return _channel.map(FileChannel.MapMode.READ_WRITE, position(region, c), (long)keys * Double.BYTES)
+                           .order(ByteOrder.nativeOrder());
+        } // end of try
+        catch (IOException e){
+            throw new UncheckedIOException(e);
+        } // end of catch
+        
+    } // end of method map
+    
+    // maps the chunks of the region that is not live, as long as the live chunks
+    private void mapShadow(){
+        
+        ByteBuffer[] chunks = getChunks();
+        if (_shadow.length < chunks.length)
+            _shadow = Arrays.copyOf(_shadow, chunks.length);
+        for (int c = 0; c < chunks.length; c++)
+            if (_shadow[c] == null || _shadow[c].capacity() < chunks[c].capacity()){
+                if (_shadow[c] != null)
+                    freeChunk(_shadow[c]);
+                _shadow[c] = map(1 - _live, c, chunks[c].capacity() / Double.BYTES);
+            } // end of if statement
+        
+    } // end of method mapShadow
+    
+    // returns the number of keys of the heap in chunk c
+    private int keysInChunk(int c){
+        
+        return (int)Math.max(0, Math.min(1L << _chunkShift, getSize() - ((long)c << _chunkShift)));
+        
+    } // end of method keysInChunk
+    
+    /*
+     * Returns the runs of dirty pages that hold keys of the heap, as {chunk, first byte, number of bytes}.
+     * A run ends at the end of its chunk or of the keys, so it can be forced and copied with one call.
+     */
+    private List<int[]> dirtyRuns(){
+        
+        List<int[]> runs = new ArrayList<int[]>();
+        BitSet dirty = getDirtyPages();
+        long size = getSize();
+        int pagesPerChunk = 1 << (_chunkShift - PAGE_SHIFT);
+        long pages = (size + (1L << PAGE_SHIFT) - 1) >>> PAGE_SHIFT; // the pages that hold keys
+        int p = dirty.nextSetBit(0);
+        while (p >= 0 && p < pages){
+            int c = p / pagesPerChunk;
+            int end = (int)Math.min(Math.min(dirty.nextClearBit(p), pages), (long)(c + 1) * pagesPerChunk);
+            int first = (p - c * pagesPerChunk) * PAGE_BYTES;
+            int last = Math.min((end - c * pagesPerChunk) * PAGE_BYTES, keysInChunk(c) * Double.BYTES);
+            runs.add(new int[]{c, first, last - first});
+            p = dirty.nextSetBit(end);
+        } // end of while
+        return runs;
+        
+    } // end of method dirtyRuns
+    
+    // copies the first keys of a chunk to another, writing only the pages that differ so the others stay clean
+    private static void copyKeys(ByteBuffer from, ByteBuffer to, int keys){
+        
+        int bytes = keys * Double.BYTES;
+        for (int off = 0; off < bytes; off += PAGE_BYTES){
+            int len = Math.min(PAGE_BYTES, bytes - off);
+            if (from.slice(off, len).mismatch(to.slice(off, len)) >= 0)
+                to.put(off, from, off, len);
+        } // end of for
+        
+    } // end of method copyKeys
+
+} // end of class PersistentMaxMinHeap
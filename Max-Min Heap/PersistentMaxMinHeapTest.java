@@ -0,0 +1,232 @@
+/**
+ * Crash-injection test of PersistentMaxMinHeap.
+ *
+ * Every session runs random inserts, extractions and commits on a heap file in a child JVM, which then
+ * either closes the heap or crashes: it halts without closing it, so the live keys hold changes that were
+ * never committed. Sometimes the test also writes a torn header to the free header slot, as if the process
+ * had crashed while it wrote the header of the next commit. The test replays the same operations on counts
+ * of the keys, and checks that the reopened heap holds exactly the keys of the last commit, with the same
+ * epoch and a valid heap order. The files are created in a temporary directory and deleted at the end.
+ *
+ * java PersistentMaxMinHeapTest [seed]
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+public class PersistentMaxMinHeapTest{
+    
+    final private static int ROUNDS = 6; // number of heap files
+    final private static int SESSIONS = 4; // number of child JVMs per file
+    final private static int MAX_OPERATIONS = 3000; // the most operations of a session
+    final private static int KEYS = 1000; // keys are drawn from [0, KEYS)
+    final private static int BULK = 1_200_000; // keys inserted by one session, more than a chunk of 2^20 keys
+    final private static int CRASHED = 3; // the exit code of a child that crashed on purpose
+    // the header layout of PersistentMaxMinHeap
+    final private static int SLOT_BYTES = 4096, EPOCH_OFF = 32, SEQUENCE_OFF = 40, REGION_OFF = 48;
+    
+    /**
+     * Runs the test, or a session of it in a child JVM
+     * @param args an optional random seed, or "session" followed by the file, seed, bulk and crash flags of a session
+     * @throws Exception if a child JVM can not be started
+     */
+    public static void main(String[] args) throws Exception{
+        
+        if (args.length > 0 && args[0].equals("session")){ // a child JVM
+            runSession(Paths.get(args[1]), Long.parseLong(args[2]), Boolean.parseBoolean(args[3]), Boolean.parseBoolean(args[4]));
+            return;
+        } // end of if statement
+        
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        Random random = new Random(seed);
+        Path dir = Files.createTempDirectory("maxminheap");
+        try{
+            for (int round = 0; round < ROUNDS; round++){
+                Path file = dir.resolve("heap" + round);
+                int[] committed = new int[KEYS]; // the counts of the keys of the last commit
+                long epoch = 0;
+                for (int session = 0; session < SESSIONS; session++){
+                    long sessionSeed = random.nextLong();
+                    boolean bulk = round == 0 && session == 1;
+                    boolean crash = random.nextInt(4) != 0;
+                    int exit = runChild(file, sessionSeed, bulk, crash);
+                    check(exit == (crash ? CRASHED : 0), "session exited with " + exit);
+                    
+                    // replays the session on the counts of the keys
+                    int[] counts = committed.clone();
+                    int[] last = committed.clone();
+                    long commits = replay(sessionSeed, bulk, counts, last, null);
+                    if (crash)
+                        committed = last;
+                    else{ // close commits the rest
+                        committed = counts;
+                        commits++;
+                    } // end of else
+                    epoch += commits;
+                    
+                    if (crash && random.nextBoolean())
+                        tearFreeHeader(file);
+                    PersistentMaxMinHeap heap = new PersistentMaxMinHeap(file);
+                    check(heap.wasRecovered() == crash, "wasRecovered " + heap.wasRecovered() + " after crash " + crash);
+                    check(heap.getEpoch() == epoch, "epoch " + heap.getEpoch() + " instead of " + epoch);
+                    checkHeap(heap, committed);
+                    if (random.nextBoolean()){ // otherwise the heap is left open, and the next session recovers again
+                        heap.close();
+                        epoch++;
+                    } // end of if statement
+                } // end of for
+                System.out.println("file " + round + ": ok");
+            } // end of for
+        } // end of try
+        finally{
+            try (Stream<Path> files = Files.list(dir)){
+                files.forEach(f -> f.toFile().delete());
+            } // end of try
+            Files.delete(dir);
+        } // end of finally
+        
+    } // end of method main
+    
+    // runs a session in a child JVM and returns its exit code
+    private static int runChild(Path file, long seed, boolean bulk, boolean crash) throws IOException, InterruptedException{
+        
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "PersistentMaxMinHeapTest",
+                                           "session", file.toString(), Long.toString(seed), Boolean.toString(bulk),
+                                           Boolean.toString(crash)).inheritIO().start();
+        return child.waitFor();
+        
+    } // end of method runChild
+    
+    // runs the operations of a session on the heap file, then closes the heap or halts without closing it
+    private static void runSession(Path file, long seed, boolean bulk, boolean crash) throws IOException{
+        
+        PersistentMaxMinHeap heap = new PersistentMaxMinHeap(file);
+        int[] counts = new int[KEYS];
+        for (long i = 0; i < heap.getSize(); i++)
+            counts[(int)heap.getKey(i)]++;
+        replay(seed, bulk, counts, new int[KEYS], heap);
+        if (crash){
+            System.out.flush();
+            Runtime.getRuntime().halt(CRASHED); // the mapped pages stay as they are, like after a crash
+        } // end of if statement
+        heap.close();
+        
+    } // end of method runSession
+    
+    // runs the operations of a session on the counts of the keys, and on the heap if it is not null.
+    // copies the counts into last at every commit, and returns the number of commits
+    private static long replay(long seed, boolean bulk, int[] counts, int[] last, PersistentMaxMinHeap heap) throws IOException{
+        
+        Random random = new Random(seed);
+        long size = 0, commits = 0;
+        for (int count : counts)
+            size += count;
+        int operations = random.nextInt(MAX_OPERATIONS) + (bulk ? BULK : 0);
+        for (int op = 0; op < operations; op++){
+            int choice = op < operations - MAX_OPERATIONS ? 1 : random.nextInt(20); // the bulk starts with inserts only
+            if (choice == 0){
+                if (heap != null)
+                    heap.commit();
+                System.arraycopy(counts, 0, last, 0, KEYS);
+                commits++;
+            } // end of if statement
+            else if (choice < 12 || size == 0){
+                int key = random.nextInt(KEYS);
+                if (heap != null)
+                    PersistentMaxMinHeap.heapInsert(heap, key);
+                counts[key]++;
+                size++;
+            } // end of else if
+            else{
+                int key = choice < 16 ? maxKey(counts) : minKey(counts);
+                if (heap != null){
+                    double extracted = choice < 16 ? PersistentMaxMinHeap.heapExtractMax(heap) : PersistentMaxMinHeap.heapExtractMin(heap);
+                    check(extracted == key, "extracted " + extracted + " instead of " + key);
+                } // end of if statement
+                counts[key]--;
+                size--;
+            } // end of else
+        } // end of for
+        return commits;
+        
+    } // end of method replay
+    
+    // writes the header of a commit that never finished to the free slot: the next sequence, but a stale CRC
+    private static void tearFreeHeader(Path file) throws IOException{
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+            ByteBuffer headers = ByteBuffer.allocate(2 * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            channel.read(headers, 0);
+            int newest = headers.getLong(SEQUENCE_OFF) > headers.getLong(SLOT_BYTES + SEQUENCE_OFF) ? 0 : 1;
+            int free = 1 - newest;
+            ByteBuffer header = ByteBuffer.allocate(SLOT_BYTES).order(ByteOrder.nativeOrder());
+            header.put(0, headers, newest * SLOT_BYTES, SLOT_BYTES);
+            header.putLong(EPOCH_OFF, header.getLong(EPOCH_OFF) + 1);
+            header.putLong(SEQUENCE_OFF, header.getLong(SEQUENCE_OFF) + 1);
+            header.putInt(REGION_OFF, 1 - header.getInt(REGION_OFF)); // names the live keys, which were not committed
+            channel.write(header, (long)free * SLOT_BYTES);
+        } // end of try
+        
+    } // end of method tearFreeHeader
+    
+    // checks the max-min heap order and that the heap holds exactly the keys of the counts
+    private static void checkHeap(PersistentMaxMinHeap heap, int[] expected){
+        
+        int[] counts = new int[KEYS];
+        long size = heap.getSize();
+        for (long i = 0; i < size; i++){
+            double key = heap.getKey(i);
+            counts[(int)key]++;
+            boolean maxLevel = ((63 - Long.numberOfLeadingZeros(i + 1)) & 1) == 0;
+            long parent = (i - 1) >> 1, grandParent = (parent - 1) >> 1;
+            // the parent is on the other kind of level, and the grandparent on the same kind
+            if (i > 0)
+                check(maxLevel ? key >= heap.getKey(parent) : key <= heap.getKey(parent), "heap order at " + i);
+            if (grandParent >= 0)
+                check(maxLevel ? key <= heap.getKey(grandParent) : key >= heap.getKey(grandParent), "heap order at " + i);
+        } // end of for
+        check(Arrays.equals(counts, expected), "the keys differ from the last commit");
+        
+    } // end of method checkHeap
+    
+    // returns the largest key of the counts
+    private static int maxKey(int[] counts){
+        
+        int key = KEYS - 1;
+        while (counts[key] == 0)
+            key--;
+        return key;
+        
+    } // end of method maxKey
+    
+    // returns the smallest key of the counts
+    private static int minKey(int[] counts){
+        
+        int key = 0;
+        while (counts[key] == 0)
+            key++;
+        return key;
+        
+    } // end of method minKey
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+        
+    } // end of method check
+    
+} // end of class PersistentMaxMinHeapTest
@@ -0,0 +1,248 @@
+/**
+ * Tests of QuantileSketch against the exact ranks of the same keys.
+ *
+ * Random, sorted, reversed and heavily duplicated streams are added to sketches of a few sizes, and the rank of
+ * every returned quantile (and every getRank) must be within the analytic bound of the class doc:
+ * eps = 4*sqrt(ln(200))/k of n, the error of one query with 99% confidence. Sketches split a stream and are
+ * merged back, also into themselves, and must keep the same bound, the exact minimum and maximum and a memory
+ * of about 3k keys. Below k keys nothing is compacted and the quantiles must be exact.
+ * The sketches are seeded, so a failure can be repeated with the seed the test printed.
+ *
+ * java QuantileSketchTest [seed]
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.util.Arrays;
+import java.util.Random;
+public class QuantileSketchTest{
+    
+    final private static int N = 200000; // number of keys of every stream
+    final private static int[] KS = {50, 200}; // the sketch sizes
+    final private static int PARTS = 8; // number of sketches a stream is split into before they are merged
+    final private static double[] QUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999};
+    final private static String[] STREAMS = {"random", "sorted", "reversed", "duplicates"};
+    final private static long MERGE_SECONDS = 10; // a merge into the same sketch must end by then
+    
+    /**
+     * Runs the tests
+     * @param args an optional random seed
+     * @throws InterruptedException if the test is interrupted while it waits for a merge
+     */
+    public static void main(String[] args) throws InterruptedException{
+        
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        checkEmpty();
+        System.out.println("empty sketch: ok");
+        checkExact(seed);
+        System.out.println("exact below k keys: ok");
+        
+        Random random = new Random(seed);
+        for (int k : KS)
+            for (String stream : STREAMS){
+                double[] keys = stream(stream, random);
+                checkStream(keys, k, random.nextLong(), stream);
+                checkMerge(keys, k, random.nextLong(), stream);
+                checkSelfMerge(keys, k, random.nextLong(), stream);
+                System.out.println(stream + " keys with k = " + k + ": ok");
+            } // end of for
+        
+    } // end of method main
+    
+    // checks the results of an empty sketch, of NaN keys and of illegal arguments
+    private static void checkEmpty(){
+        
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(Double.NaN);
+        sketch.merge(new QuantileSketch());
+        check(sketch.getSize() == 0 && sketch.getRetained() == 0 && sketch.getK() == 200, "empty size");
+        check(Double.isNaN(sketch.getQuantile(0.5)) && Double.isNaN(sketch.getRank(1)), "empty quantile and rank");
+        check(sketch.getMinimum() == Integer.MIN_VALUE && sketch.getMaximum() == Integer.MAX_VALUE, "empty minimum and maximum");
+        
+        double[] illegal = {-0.01, 1.01, Double.NaN};
+        for (double q : illegal)
+            try{
+                sketch.getQuantile(q);
+                check(false, "getQuantile accepted " + q);
+            } // end of try
+            catch (IllegalArgumentException e){
+                // expected
+            } // end of catch
+        try{
+            new QuantileSketch(7);
+            check(false, "accepted k = 7");
+        } // end of try
+        catch (IllegalArgumentException e){
+            // expected
+        } // end of catch
+        
+    } // end of method checkEmpty
+    
+    // checks that a sketch of fewer keys than k, which never compacts, returns the exact quantiles and ranks
+    private static void checkExact(long seed){
+        
+        Random random = new Random(seed);
+        for (int round = 0; round < 100; round++){
+            int k = 8 + random.nextInt(200);
+            QuantileSketch sketch = new QuantileSketch(k, random.nextLong());
+            double[] keys = new double[1 + random.nextInt(k - 1)];
+            for (int i = 0; i < keys.length; i++){
+                keys[i] = random.nextInt(50);
+                sketch.add(keys[i]);
+            } // end of for
+            Arrays.sort(keys);
+            check(sketch.getRetained() == keys.length, "retained " + sketch.getRetained() + " of " + keys.length + " keys");
+            for (double q : QUANTILES){
+                double expected = keys[(int)Math.max(0, Math.ceil(q * keys.length) - 1)];
+                check(sketch.getQuantile(q) == expected, "exact quantile " + q);
+            } // end of for
+            for (double key : keys)
+                check(sketch.getRank(key) == (double)countAtMost(keys, key) / keys.length, "exact rank of " + key);
+            check(sketch.getQuantile(0) == keys[0] && sketch.getQuantile(1) == keys[keys.length - 1], "quantiles 0 and 1");
+        } // end of for
+        
+    } // end of method checkExact
+    
+    // adds the keys to a sketch and checks it
+    private static void checkStream(double[] keys, int k, long seed, String name){
+        
+        QuantileSketch sketch = new QuantileSketch(k, seed);
+        for (double key : keys)
+            sketch.add(key);
+        checkSketch(sketch, sorted(keys), 1, name + " k = " + k);
+        
+        QuantileSketch again = new QuantileSketch(k, seed); // the same seed gives the same sketch
+        for (double key : keys)
+            again.add(key);
+        for (double q : QUANTILES)
+            check(again.getQuantile(q) == sketch.getQuantile(q), name + " seeded sketches differ at " + q);
+        
+    } // end of method checkStream
+    
+    // splits the keys between sketches, merges them into the first one and checks it, and that the others did not change
+    private static void checkMerge(double[] keys, int k, long seed, String name){
+        
+        QuantileSketch[] parts = new QuantileSketch[PARTS];
+        for (int p = 0; p < PARTS; p++)
+            parts[p] = new QuantileSketch(k, seed + p);
+        for (int i = 0; i < keys.length; i++) // contiguous parts, so a sorted stream gives parts of different ranges
+            parts[(int)((long)i * PARTS / keys.length)].add(keys[i]);
+        double[] before = new double[PARTS];
+        for (int p = 1; p < PARTS; p++){
+            before[p] = parts[p].getQuantile(0.5);
+            parts[0].merge(parts[p]);
+            check(parts[p].getQuantile(0.5) == before[p], name + " merge changed the merged sketch");
+        } // end of for
+        checkSketch(parts[0], sorted(keys), 1, name + " merged, k = " + k);
+        
+    } // end of method checkMerge
+    
+    // merges a sketch into itself, in a thread so a merge that never ends fails the test, and checks it
+    private static void checkSelfMerge(double[] keys, int k, long seed, String name) throws InterruptedException{
+        
+        final QuantileSketch sketch = new QuantileSketch(k, seed);
+        for (double key : keys)
+            sketch.add(key);
+        Thread merge = new Thread(() -> sketch.merge(sketch));
+        merge.setDaemon(true);
+        merge.start();
+        merge.join(MERGE_SECONDS * 1000);
+        check(!merge.isAlive(), name + " merge into the same sketch did not end in " + MERGE_SECONDS + " seconds");
+        checkSketch(sketch, sorted(keys), 2, name + " merged into itself, k = " + k);
+        
+    } // end of method checkSelfMerge
+    
+    /*
+     * Checks a sketch of every key of sorted counted copies times: its size, minimum, maximum and memory,
+     * and that the rank of every quantile and every getRank is within the error bound of the exact one.
+     */
+    private static void checkSketch(QuantileSketch sketch, double[] sorted, int copies, String name){
+        
+        int k = sketch.getK();
+        long n = (long)sorted.length * copies;
+        double eps = 4 * Math.sqrt(Math.log(200)) / k; // 2*exp(-(eps*k)^2/16) = 1%
+        check(sketch.getSize() == n, name + " size " + sketch.getSize());
+        check(sketch.getMinimum() == sorted[0] && sketch.getMaximum() == sorted[sorted.length - 1], name + " minimum and maximum");
+        int levels = 2 + 64 - Long.numberOfLeadingZeros(n / k); // the top level weighs at most 2n/k
+        check(sketch.getRetained() <= 3 * k + 9 * levels, name + " retains " + sketch.getRetained() + " keys");
+        
+        for (double q : QUANTILES){
+            double key = sketch.getQuantile(q);
+            long below = (long)countBelow(sorted, key) * copies, atMost = (long)countAtMost(sorted, key) * copies;
+            check(atMost > below, name + " quantile " + q + " returned " + key + ", which was not added");
+            long rank = (long)Math.ceil(q * n); // the key of this rank has below < rank <= atMost
+            long error = rank <= below ? below + 1 - rank : rank > atMost ? rank - atMost : 0;
+            check(error <= eps * n, name + " quantile " + q + " is " + (double)error / n + " of n from its rank, bound " + eps);
+            double rankError = Math.abs(sketch.getRank(key) - (double)atMost / n);
+            check(rankError <= eps, name + " rank of " + key + " is " + rankError + " from the exact rank, bound " + eps);
+        } // end of for
+        
+    } // end of method checkSketch
+    
+    // returns the keys of a stream of the given kind
+    private static double[] stream(String name, Random random){
+        
+        double[] keys = new double[N];
+        for (int i = 0; i < N; i++)
+            keys[i] = name.equals("duplicates") ? random.nextInt(10) : random.nextDouble();
+        if (name.equals("sorted") || name.equals("reversed"))
+            Arrays.sort(keys);
+        if (name.equals("reversed"))
+            for (int i = 0, j = N - 1; i < j; i++, j--){
+                double temp = keys[i];
+                keys[i] = keys[j];
+                keys[j] = temp;
+            } // end of for
+        return keys;
+        
+    } // end of method stream
+    
+    // returns a sorted copy of the keys
+    private static double[] sorted(double[] keys){
+        
+        double[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        return sorted;
+        
+    } // end of method sorted
+    
+    // returns the number of keys of a sorted array that are smaller than key
+    private static int countBelow(double[] sorted, double key){
+        
+        int lo = 0, hi = sorted.length;
+        while (lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key)
+                lo = mid + 1;
+            else
+                hi = mid;
+        } // end of while
+        return lo;
+        
+    } // end of method countBelow
+    
+    // returns the number of keys of a sorted array that are not larger than key
+    private static int countAtMost(double[] sorted, double key){
+        
+        int lo = 0, hi = sorted.length;
+        while (lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= key)
+                lo = mid + 1;
+            else
+                hi = mid;
+        } // end of while
+        return lo;
+        
+    } // end of method countAtMost
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+        
+    } // end of method check
+    
+} // end of class QuantileSketchTest
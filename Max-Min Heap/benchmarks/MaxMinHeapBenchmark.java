@@ -0,0 +1,907 @@
+
+/**
+ * Benchmark runner for the Max-Min heap operations.
+ * Every benchmark runs over a grid of heap sizes and input distributions, with warmup
+ * iterations before the measured ones, and the results are written as CSV so runs can be
+ * compared to catch regressions.
+ * Every row is measured in fresh JVMs (forks, 2 by default, 0 measures in the runner's JVM), which get the
+ * JVM options of the runner, e.g. java -Xmx8g -cp classes MaxMinHeapBenchmark sizes=100000000.
+ * The warmup runs a benchmark at least warmup times and for at least warmupTime milliseconds, and every
+ * measured iteration repeats it for at least iterationTime milliseconds. The results of every run go into a
+ * volatile sink, so the JIT can not drop the measured work.
+ * The benchmark is kept out of the heap sources, in benchmarks/:
+ * javac -d classes *.java benchmarks/*.java
+ *
+ * Usage (all arguments are optional):
+ * java -cp classes MaxMinHeapBenchmark sizes=1000,100000 dists=random,sorted benchmarks=build,insert
+ *                  threads=1,4,16 warmup=3 warmupTime=1000 iterations=5 iterationTime=100 forks=2 out=results.csv
+ * The threads option only applies to the multi-threaded benchmarks, the others always run on one thread.
+ * The arity option (default 4) sets the number of children of the d-ary heap benchmarks.
+ *
+ * @author Gal Levi
+ * @version 09/05/2023
+ */
+import java.io.BufferedReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+public class MaxMinHeapBenchmark{
+    
+    // the available benchmarks
+    private static final String[] ALL_BENCHMARKS = {"build", "insert", "extractMax", "extractMin", "delete",
+                                                    "sort", "intInsert", "intExtract", "longInsert", "longExtract",
+                                                    "doubleInsert", "doubleExtract", "objectInsert", "objectExtract",
+                                                    "concurrent", "locked", "insertAll", "insertEach",
+                                                    "drainSorted", "sortedCopy", "sortedCopyDescending", "arraysSort",
+                                                    "boundedLargest", "boundedSmallest",
+                                                    "offHeapBuild", "offHeapInsert", "offHeapExtractMax", "offHeapExtractMin",
+                                                    "persistentReopen", "csvRebuild", "heapLoader", "scannerLoad",
+                                                    "indexedInsert", "indexedUpdate",
+                                                    "cancelEager", "cancelIndexed", "cancelLazy",
+                                                    "parallelBuild", "daryBuild", "daryInsert", "daryExtractMax",
+                                                    "daryExtractMin", "median", "medianTwoHeaps", "sketch"};
+    // the benchmarks that run on several threads
+    private static final String[] PARALLEL_BENCHMARKS = {"concurrent", "locked", "parallelBuild"};
+    private static final String[] ALL_DISTS = {"random", "sorted", "reverse", "duplicates"};
+    private static final String DEFAULT_SIZES = "1000,100000,10000000"; // 100M can be requested with sizes=
+    private static final String DEFAULT_THREADS = "1,2,4,8,16";
+    private static final int DUPLICATE_KEYS = 16; // number of distinct keys in the "duplicates" distribution
+    private static final int BATCH_FRACTION = 20; // the bulk insert benchmarks insert the last 1/20 of the keys
+    private static final int BOUNDED_CAPACITY = 1000; // the number of keys the bounded benchmarks keep
+    private static final int CANCELS_PER_EXTRACT = 9; // the cancel benchmarks delete 9 keys for every extraction
+    private static final long SEED = 42;
+    
+    private static volatile double _sink; // consumes results so the JIT cannot drop the measured work
+    private static int _arity = 4; // the arity of the d-ary heap benchmarks
+    private static int _warmup = 3, _iterations = 5, _forks = 2; // runs of the warmup, measured iterations, JVMs per row
+    private static long _warmupMillis = 1000, _iterationMillis = 100; // the least time of the warmup and of an iteration
+    private static final String ITERATION = "iteration"; // the prefix of the iterations a forked JVM prints
+
+/*---------------------------------Main method----------------------------------------------------------------------*/
+    
+    /**
+     * Runs the requested benchmarks and writes one CSV row per benchmark, distribution and size.
+     * Columns: benchmark, distribution, size, threads, iterations, ns_per_op, ops_per_sec, bytes_per_op,
+     * forks, ns_per_op_stddev
+     * Every row is measured in its own JVMs (see forks), and iterations counts the measured iterations of all of them.
+     * The allocated bytes are only measured for single-threaded benchmarks.
+     *
+     * @param args key=value options: sizes, dists, benchmarks, threads, arity, warmup, warmupTime, iterations,
+     *             iterationTime, forks, out
+     */
+    public static void main(String[] args) throws IOException, InterruptedException{
+        
+        String[] benchmarks = ALL_BENCHMARKS;
+        String[] dists = ALL_DISTS;
+        String sizes = DEFAULT_SIZES;
+        String threads = DEFAULT_THREADS;
+        String out = "maxminheap-benchmark.csv";
+        String fork = null;
+        
+        for (String arg : args){
+            int eq = arg.indexOf('=');
+            if (eq < 0){
+                System.out.println("Ignoring argument without '=': " + arg);
+                continue;
+            }
+            String key = arg.substring(0, eq), value = arg.substring(eq + 1);
+            switch (key){
+                case "benchmarks": benchmarks = value.split(","); break;
+                case "dists": dists = value.split(","); break;
+                case "sizes": sizes = value; break;
+                case "threads": threads = value; break;
+                case "arity": _arity = Integer.parseInt(value); break;
+                case "warmup": _warmup = Integer.parseInt(value); break;
+                case "warmupTime": _warmupMillis = Long.parseLong(value); break;
+                case "iterations": _iterations = Integer.parseInt(value); break;
+                case "iterationTime": _iterationMillis = Long.parseLong(value); break;
+                case "forks": _forks = Integer.parseInt(value); break;
+                case "fork": fork = value; break; // only given to the forked JVMs
+                case "out": out = value; break;
+                default: System.out.println("Ignoring unknown option: " + key);
+            } // end of switch
+        } // end of for
+        
+        if (fork != null){ // a forked JVM: measures one row and prints its iterations for the parent
+            String[] row = fork.split(",");
+            for (long[] iteration : iterations(row[0], row[1], Integer.parseInt(row[2]), Integer.parseInt(row[3])))
+                System.out.println(ITERATION + " " + iteration[0] + " " + iteration[1] + " " + iteration[2]);
+            return;
+        } // end of if
+        
+        try (PrintWriter csv = new PrintWriter(new FileWriter(out))){
+            csv.println("benchmark,distribution,size,threads,iterations,ns_per_op,ops_per_sec,bytes_per_op," +
+                        "forks,ns_per_op_stddev");
+            for (String benchmark : benchmarks){
+                String[] threadCounts = isParallel(benchmark) ? threads.split(",") : new String[]{"1"};
+                for (String dist : dists)
+                    for (String size : sizes.split(","))
+                        for (String threadCount : threadCounts){
+                            String row = measure(benchmark, dist, Integer.parseInt(size.trim()),
+                                                 Integer.parseInt(threadCount.trim()), args);
+                            csv.println(row);
+                            csv.flush(); // keeps the finished rows if the run is stopped
+                            System.out.println(row);
+                        } // end of for
+            } // end of for
+        } // end of try
+        System.out.println("Results were written to " + out);
+        
+    } // end of method main
+
+/*---------------------------------Measurement----------------------------------------------------------------------*/
+    
+    /*
+     * Measures one benchmark in _forks fresh JVMs (in this one if _forks is 0) and formats the results as a CSV row.
+     * A fresh JVM per row keeps the JIT profile, the garbage and the heap size left by one benchmark from
+     * skewing the next, and a row whose JVM runs out of memory is written as NaN instead of ending the run.
+     */
+    private static String measure(String benchmark, String dist, int size, int threads, String[] args)
+        throws IOException, InterruptedException{
+        
+        String row = benchmark + "," + dist + "," + size + "," + threads;
+        List<long[]> iterations = new ArrayList<long[]>();
+        if (_forks == 0)
+            iterations.addAll(iterations(benchmark, dist, size, threads));
+        for (int f = 0; f < _forks; f++)
+            iterations.addAll(fork(row, args));
+        return row + "," + summary(iterations);
+        
+    } // end of method measure
+    
+    /*
+     * Runs the warmup and the measured iterations of one benchmark in this JVM.
+     * The warmup lasts at least _warmup runs and _warmupMillis, so the JIT has compiled the measured code, and
+     * every measured iteration repeats the benchmark for at least _iterationMillis, so a short benchmark is
+     * measured over many runs instead of over one timer reading.
+     * Every run gets a fresh copy of the input, so destructive benchmarks measure the same work.
+     * Returns the nanoseconds, allocated bytes (-1 if unknown) and operations of every measured iteration.
+     */
+    private static List<long[]> iterations(String benchmark, String dist, int size, int threads) throws IOException{
+        
+        double[] keys = generate(dist, size);
+        long warmupEnd = System.nanoTime() + _warmupMillis * 1000000L;
+        for (int i = 0; i < _warmup || System.nanoTime() < warmupEnd; i++)
+            run(benchmark, keys, threads);
+        
+        List<long[]> iterations = new ArrayList<long[]>();
+        for (int i = 0; i < _iterations; i++){
+            long[] iteration = new long[3]; // nanoseconds, bytes, operations
+            long end = System.nanoTime() + _iterationMillis * 1000000L;
+            do{
+                Result result = run(benchmark, keys, threads);
+                iteration[0] += result._nanos;
+                iteration[1] = iteration[1] < 0 || result._bytes < 0 ? -1 : iteration[1] + result._bytes;
+                iteration[2] += result._ops;
+            } while (System.nanoTime() < end);
+            iterations.add(iteration);
+        } // end of for
+        return iterations;
+        
+    } // end of method iterations
+    
+    /*
+     * Runs the iterations of one row in a fresh JVM, with the options and class path of this one,
+     * and returns them (none if the JVM failed, e.g. ran out of memory).
+     */
+    private static List<long[]> fork(String row, String[] args) throws IOException, InterruptedException{
+        
+        List<String> command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MaxMinHeapBenchmark.class.getName());
+        command.addAll(Arrays.asList(args));
+        command.add("fork=" + row);
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        List<long[]> iterations = new ArrayList<long[]>();
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))){
+            for (String line = output.readLine(); line != null; line = output.readLine()){
+                if (!line.startsWith(ITERATION + " ")){ // a message of the forked JVM
+                    System.out.println(line);
+                    continue;
+                }
+                String[] fields = line.split(" ");
+                iterations.add(new long[]{Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3])});
+            } // end of for
+        } // end of try
+        if (process.waitFor() != 0){
+            System.out.println("The JVM of " + row + " failed with exit status " + process.exitValue());
+            iterations.clear();
+        } // end of if
+        return iterations;
+        
+    } // end of method fork
+    
+    /*
+     * Formats measured iterations as the iterations, ns_per_op, ops_per_sec, bytes_per_op, forks and
+     * ns_per_op_stddev columns. The standard deviation is of the ns/op of the single iterations, over all the forks.
+     */
+    private static String summary(List<long[]> iterations){
+        
+        long totalNanos = 0, totalBytes = 0, totalOps = 0;
+        double meanNsPerOp = 0;
+        for (long[] iteration : iterations){
+            totalNanos += iteration[0];
+            totalBytes = totalBytes < 0 || iteration[1] < 0 ? -1 : totalBytes + iteration[1];
+            totalOps += iteration[2];
+            meanNsPerOp += (double)iteration[0] / iteration[2] / iterations.size();
+        } // end of for
+        double squares = 0;
+        for (long[] iteration : iterations){
+            double deviation = (double)iteration[0] / iteration[2] - meanNsPerOp;
+            squares += deviation * deviation;
+        } // end of for
+        
+        double nsPerOp = totalOps == 0 ? Double.NaN : (double)totalNanos / totalOps;
+        double bytesPerOp = totalBytes < 0 || totalOps == 0 ? Double.NaN : (double)totalBytes / totalOps;
+        double stddev = iterations.size() < 2 ? Double.NaN : Math.sqrt(squares / (iterations.size() - 1));
+        return iterations.size() + "," + String.format("%.3f,%.0f,%.3f", nsPerOp, 1e9 / nsPerOp, bytesPerOp) +
+               "," + _forks + "," + String.format("%.3f", stddev);
+        
+    } // end of method summary
+    
+    /*
+     * Runs one iteration of a benchmark over the given keys.
+     * Only the operation being benchmarked is inside the measured region, the preparation is not.
+     */
+    private static Result run(String benchmark, double[] keys, int threads) throws IOException{
+        
+        int n = keys.length;
+        Result result = new Result(n);
+        switch (benchmark){
+            case "build": {
+                MaxMinHeap heap = filledHeap(keys);
+                result.start();
+                MaxMinHeap.buildHeap(heap);
+                result.stop();
+                _sink += heap.getSize();
+                break;
+            }
+            case "insert": {
+                MaxMinHeap heap = new MaxMinHeap(n);
+                result.start();
+                for (int i = 0; i < n; i++)
+                    MaxMinHeap.heapInsert(heap, keys[i]);
+                result.stop();
+                _sink += heap.getSize();
+                break;
+            }
+            case "extractMax":
+            case "extractMin": {
+                boolean max = benchmark.equals("extractMax");
+                MaxMinHeap heap = filledHeap(keys);
+                MaxMinHeap.buildHeap(heap);
+                double sum = 0;
+                result.start();
+                for (int i = 0; i < n; i++)
+                    sum += max ? MaxMinHeap.heapExtractMax(heap) : MaxMinHeap.heapExtractMin(heap);
+                result.stop();
+                _sink += sum;
+                break;
+            }
+            case "delete": { // deletes from the middle of the array until the heap is empty
+                MaxMinHeap heap = filledHeap(keys);
+                MaxMinHeap.buildHeap(heap);
+                result.start();
+                while (heap.getSize() > 0)
+                    MaxMinHeap.heapDelete(heap, heap.getSize() / 2);
+                result.stop();
+                break;
+            }
+            case "cancelEager": { // a job queue that cancels 9 jobs for every one it runs, with heapDelete
+                MaxMinHeap heap = filledHeap(keys);
+                MaxMinHeap.buildHeap(heap);
+                double sum = 0;
+                result.start();
+                for (int i = 0; heap.getSize() > 0; i++){
+                    if (i % (CANCELS_PER_EXTRACT + 1) == 0)
+                        sum += MaxMinHeap.heapExtractMax(heap);
+                    else // the index of a cancelled job comes for free here, a real queue would have to find it
+                        MaxMinHeap.heapDelete(heap, (int)(((i * 0x9E3779B9L) & 0xFFFFFFFFL) * heap.getSize() >>> 32));
+                } // end of for
+                result.stop();
+                _sink += sum;
+                break;
+            }
+            case "cancelIndexed": { // the same job queue, cancelling jobs by their handles in input order
+                IndexedMaxMinHeap heap = new IndexedMaxMinHeap(n);
+                for (int i = 0; i < n; i++)
+                    IndexedMaxMinHeap.heapInsert(heap, keys[i]); // the handles are 0 to n-1, in input order
+                double sum = 0;
+                int next = 0; // the next handle to cancel
+                result.start();
+                for (int i = 0; heap.getSize() > 0; i++){
+                    while (next < n && !heap.contains(next)) // already extracted
+                        next++;
+                    if (i % (CANCELS_PER_EXTRACT + 1) == 0 || next == n)
+                        sum += IndexedMaxMinHeap.heapExtractMax(heap);
+                    else
+                        IndexedMaxMinHeap.remove(heap, next++);
+                } // end of for
+                result.stop();
+                _sink += sum;
+                break;
+            }
+            case "cancelLazy": { // the same job queue with lazy deletion, cancelling the keys in input order
+                LazyMaxMinHeap heap = new LazyMaxMinHeap(n, 0.5);
+                for (int i = 0; i < n; i++)
+                    heap.insert(keys[i]);
+                double sum = 0, lastMax = Double.POSITIVE_INFINITY;
+                int next = 0; // the next key to cancel, the keys from lastMax up were already extracted
+                result.start();
+                for (int i = 0; heap.getSize() > 0; i++){
+                    while (next < n && keys[next] >= lastMax)
+                        next++;
+                    if (i % (CANCELS_PER_EXTRACT + 1) == 0 || next == n)
+                        sum += lastMax = heap.extractMax();
+                    else
+                        heap.delete(keys[next++]);
+                } // end of for
+                result.stop();
+                _sink += sum;
+                break;
+            }
+            case "sort":
+            case "drainSorted": {
+                MaxMinHeap heap = filledHeap(keys);
+                MaxMinHeap.buildHeap(heap);
+                result.start();
+                int sorted = MaxMinHeap.drainSorted(heap);
+                result.stop();
+                _sink += sorted;
+                break;
+            }
+            case "sortedCopy":
+            case "sortedCopyDescending": {
+                MaxMinHeap heap = filledHeap(keys);
+                MaxMinHeap.buildHeap(heap);
+                double[] dest = new double[n];
+                boolean descending = benchmark.equals("sortedCopyDescending");
+                result.start();
+                MaxMinHeap.toSortedArray(heap, dest, descending);
+                result.stop();
+                _sink += dest[n / 2];
+                break;
+            }
+            case "arraysSort": { // the reference - sorts a plain copy of the keys
+                double[] copy = keys.clone();
+                result.start();
+                Arrays.sort(copy);
+                result.stop();
+                _sink += copy[n / 2];
+                break;
+            }
+            case "boundedLargest":
+            case "boundedSmallest": { // streams all the keys through a top-K (or bottom-K) heap
+                BoundedMaxMinHeap heap = new BoundedMaxMinHeap(BOUNDED_CAPACITY, benchmark.equals("boundedLargest"));
+                int kept = 0;
+                result.start();
+                for (int i = 0; i < n; i++)
+                    if (heap.offer(keys[i]))
+                        kept++;
+                result.stop();
+                _sink += kept;
+                break;
+            }
+            case "offHeapBuild": {
+                try (OffHeapMaxMinHeap heap = new OffHeapMaxMinHeap(n)){
+                    for (int i = 0; i < n; i++)
+                        heap.add(keys[i]);
+                    result.start();
+                    OffHeapMaxMinHeap.buildHeap(heap);
+                    result.stop();
+                    _sink += heap.getSize();
+                } // end of try
+                break;
+            }
+            case "offHeapInsert": {
+                try (OffHeapMaxMinHeap heap = new OffHeapMaxMinHeap(n)){
+                    result.start();
+                    for (int i = 0; i < n; i++)
+                        OffHeapMaxMinHeap.heapInsert(heap, keys[i]);
+                    result.stop();
+                    _sink += heap.getSize();
+                } // end of try
+                break;
+            }
+            case "offHeapExtractMax":
+            case "offHeapExtractMin": {
+                boolean max = benchmark.equals("offHeapExtractMax");
+                try (OffHeapMaxMinHeap heap = new OffHeapMaxMinHeap(n)){
+                    for (int i = 0; i < n; i++)
+                        heap.add(keys[i]);
+                    OffHeapMaxMinHeap.buildHeap(heap);
+                    double sum = 0;
+                    result.start();
+                    for (int i = 0; i < n; i++)
+                        sum += max ? OffHeapMaxMinHeap.heapExtractMax(heap) : OffHeapMaxMinHeap.heapExtractMin(heap);
+                    result.stop();
+                    _sink += sum;
+                } // end of try
+                break;
+            }
+            case "persistentReopen": { // the start of a restart: the heap is already in its file
+                Path file = Files.createTempFile("maxminheap", ".heap");
+                try{
+                    Files.delete(file); // a new heap file is created by the heap itself
+                    try (PersistentMaxMinHeap heap = new PersistentMaxMinHeap(file, n)){
+                        for (int i = 0; i < n; i++)
+                            heap.add(keys[i]);
+                        PersistentMaxMinHeap.buildHeap(heap);
+                    } // end of try
+                    result.start();
+                    PersistentMaxMinHeap heap = new PersistentMaxMinHeap(file);
+                    double max = PersistentMaxMinHeap.heapMaximum(heap);
+                    result.stop();
+                    heap.close();
+                    _sink += max;
+                } // end of try
+                finally{
+                    Files.deleteIfExists(file);
+                } // end of finally
+                break;
+            }
+            case "csvRebuild": { // the start of a restart without a heap file: reads the keys and builds the heap
+                Path file = keyFile(keys);
+                try{
+                    result.start();
+                    MaxMinHeap heap = new MaxMinHeap(n);
+                    try (BufferedReader reader = Files.newBufferedReader(file)){
+                        String line;
+                        while ((line = reader.readLine()) != null)
+                            heap.add(Double.parseDouble(line));
+                    } // end of try
+                    MaxMinHeap.buildHeap(heap);
+                    result.stop();
+                    _sink += MaxMinHeap.heapMaximum(heap);
+                } // end of try
+                finally{
+                    Files.deleteIfExists(file);
+                } // end of finally
+                break;
+            }
+            case "heapLoader": { // the same file as csvRebuild, through the channel and parser of HeapLoader
+                Path file = keyFile(keys);
+                try{
+                    result.start();
+                    MaxMinHeap heap = new MaxMinHeap(n);
+                    try (HeapLoader loader = new HeapLoader(file)){
+                        loader.load(heap);
+                    } // end of try
+                    result.stop();
+                    _sink += MaxMinHeap.heapMaximum(heap);
+                } // end of try
+                finally{
+                    Files.deleteIfExists(file);
+                } // end of finally
+                break;
+            }
+            case "scannerLoad": { // the same file through Scanner.nextDouble, like buildUserHeap
+                Path file = keyFile(keys);
+                try{
+                    result.start();
+                    MaxMinHeap heap = new MaxMinHeap(n);
+                    try (Scanner scan = new Scanner(file)){
+                        while (scan.hasNextDouble())
+                            heap.add(scan.nextDouble());
+                    } // end of try
+                    MaxMinHeap.buildHeap(heap);
+                    result.stop();
+                    _sink += MaxMinHeap.heapMaximum(heap);
+                } // end of try
+                finally{
+                    Files.deleteIfExists(file);
+                } // end of finally
+                break;
+            }
+            case "indexedInsert": {
+                IndexedMaxMinHeap heap = new IndexedMaxMinHeap(n);
+                result.start();
+                for (int i = 0; i < n; i++)
+                    IndexedMaxMinHeap.heapInsert(heap, keys[i]);
+                result.stop();
+                _sink += heap.getSize();
+                break;
+            }
+            case "indexedUpdate": { // re-prioritises every key through its handle, to the key of another handle
+                IndexedMaxMinHeap heap = new IndexedMaxMinHeap(n);
+                int[] handles = new int[n];
+                for (int i = 0; i < n; i++)
+                    handles[i] = IndexedMaxMinHeap.heapInsert(heap, keys[i]);
+                result.start();
+                for (int i = 0; i < n; i++)
+                    IndexedMaxMinHeap.updateKey(heap, handles[i], keys[n - 1 - i]);
+                result.stop();
+                _sink += heap.getSize();
+                break;
+            }
+            case "intInsert":
+            case "intExtract": {
+                IntMaxMinHeap heap = new IntMaxMinHeap(n);
+                boolean insert = benchmark.equals("intInsert");
+                if (insert)
+                    result.start();
+                for (int i = 0; i < n; i++)
+                    IntMaxMinHeap.heapInsert(heap, (int)keys[i]);
+                if (insert)
+                    result.stop();
+                else{ // extracts maximum and minimum alternately
+                    long sum = 0;
+                    result.start();
+                    for (int i = 0; i < n; i++)
+                        sum += (i & 1) == 0 ? IntMaxMinHeap.heapExtractMax(heap) : IntMaxMinHeap.heapExtractMin(heap);
+                    result.stop();
+                    _sink += sum;
+                } // end of else
+                _sink += heap.getSize();
+                break;
+            }
+            case "longInsert":
+            case "longExtract": {
+                LongMaxMinHeap heap = new LongMaxMinHeap(n);
+                boolean insert = benchmark.equals("longInsert");
+                if (insert)
+                    result.start();
+                for (int i = 0; i < n; i++)
+                    LongMaxMinHeap.heapInsert(heap, (long)keys[i]);
+                if (insert)
+                    result.stop();
+                else{ // extracts maximum and minimum alternately
+                    long sum = 0;
+                    result.start();
+                    for (int i = 0; i < n; i++)
+                        sum += (i & 1) == 0 ? LongMaxMinHeap.heapExtractMax(heap) : LongMaxMinHeap.heapExtractMin(heap);
+                    result.stop();
+                    _sink += sum;
+                } // end of else
+                _sink += heap.getSize();
+                break;
+            }
+            case "doubleInsert":
+            case "doubleExtract": {
+                DoubleMaxMinHeap heap = new DoubleMaxMinHeap(n);
+                boolean insert = benchmark.equals("doubleInsert");
+                if (insert)
+                    result.start();
+                for (int i = 0; i < n; i++)
+                    DoubleMaxMinHeap.heapInsert(heap, keys[i]);
+                if (insert)
+                    result.stop();
+                else{ // extracts maximum and minimum alternately
+                    double sum = 0;
+                    result.start();
+                    for (int i = 0; i < n; i++)
+                        sum += (i & 1) == 0 ? DoubleMaxMinHeap.heapExtractMax(heap) : DoubleMaxMinHeap.heapExtractMin(heap);
+                    result.stop();
+                    _sink += sum;
+                } // end of else
+                _sink += heap.getSize();
+                break;
+            }
+            case "objectInsert":
+            case "objectExtract": { // the boxed baseline of the primitive heaps
+                ObjectMaxMinHeap<Double> heap = new ObjectMaxMinHeap<Double>(n, Comparator.naturalOrder());
+                boolean insert = benchmark.equals("objectInsert");
+                if (insert)
+                    result.start();
+                for (int i = 0; i < n; i++)
+                    ObjectMaxMinHeap.heapInsert(heap, keys[i]);
+                if (insert)
+                    result.stop();
+                else{ // extracts maximum and minimum alternately
+                    double sum = 0;
+                    result.start();
+                    for (int i = 0; i < n; i++)
+                        sum += (i & 1) == 0 ? ObjectMaxMinHeap.heapExtractMax(heap) : ObjectMaxMinHeap.heapExtractMin(heap);
+                    result.stop();
+                    _sink += sum;
+                } // end of else
+                _sink += heap.getSize();
+                break;
+            }
+            case "insertAll":
+            case "insertEach": { // inserts the last keys as one batch into a heap of the other keys
+                int batch = Math.max(1, n / BATCH_FRACTION), base = n - batch;
+                MaxMinHeap heap = new MaxMinHeap(n);
+                for (int i = 0; i < base; i++)
+                    heap.add(keys[i]);
+                MaxMinHeap.buildHeap(heap);
+                result = new Result(batch);
+                result.start();
+                if (benchmark.equals("insertAll"))
+                    MaxMinHeap.heapInsertAll(heap, keys, base, batch);
+                else
+                    for (int i = base; i < n; i++)
+                        MaxMinHeap.heapInsert(heap, keys[i]);
+                result.stop();
+                _sink += heap.getSize();
+                break;
+            }
+            case "daryBuild": {
+                DaryMaxMinHeap heap = new DaryMaxMinHeap(_arity, n);
+                for (int i = 0; i < n; i++)
+                    heap.add(keys[i]);
+                result.start();
+                DaryMaxMinHeap.buildHeap(heap);
+                result.stop();
+                _sink += heap.getSize();
+                break;
+            }
+            case "daryInsert": {
+                DaryMaxMinHeap heap = new DaryMaxMinHeap(_arity, n);
+                result.start();
+                for (int i = 0; i < n; i++)
+                    DaryMaxMinHeap.heapInsert(heap, keys[i]);
+                result.stop();
+                _sink += heap.getSize();
+                break;
+            }
+            case "daryExtractMax":
+            case "daryExtractMin": {
+                boolean max = benchmark.equals("daryExtractMax");
+                DaryMaxMinHeap heap = new DaryMaxMinHeap(_arity, n);
+                for (int i = 0; i < n; i++)
+                    heap.add(keys[i]);
+                DaryMaxMinHeap.buildHeap(heap);
+                double sum = 0;
+                result.start();
+                for (int i = 0; i < n; i++)
+                    sum += max ? DaryMaxMinHeap.heapExtractMax(heap) : DaryMaxMinHeap.heapExtractMin(heap);
+                result.stop();
+                _sink += sum;
+                break;
+            }
+            case "median": { // inserts every key and reads the minimum, maximum and median after each one
+                MedianMaxMinHeap heap = new MedianMaxMinHeap();
+                double sum = 0;
+                result.start();
+                for (int i = 0; i < n; i++){
+                    heap.insert(keys[i]);
+                    sum += heap.getMinimum() + heap.getMaximum() + heap.getQuantile();
+                } // end of for
+                result.stop();
+                _sink += sum;
+                break;
+            }
+            case "medianTwoHeaps": { // the baseline - one heap for the minimum and maximum, and a pair for the median
+                MaxMinHeap minMax = new MaxMinHeap(), lower = new MaxMinHeap(), upper = new MaxMinHeap();
+                double sum = 0;
+                result.start();
+                for (int i = 0; i < n; i++){
+                    double key = keys[i];
+                    MaxMinHeap.heapInsert(minMax, key);
+                    if (lower.getSize() == 0 || key <= MaxMinHeap.heapMaximum(lower))
+                        MaxMinHeap.heapInsert(lower, key);
+                    else
+                        MaxMinHeap.heapInsert(upper, key);
+                    // keeps the lower heap equal to the upper heap or larger by one
+                    if (lower.getSize() > upper.getSize() + 1)
+                        MaxMinHeap.heapInsert(upper, MaxMinHeap.heapExtractMax(lower));
+                    else if (upper.getSize() > lower.getSize())
+                        MaxMinHeap.heapInsert(lower, MaxMinHeap.heapExtractMin(upper));
+                    sum += MaxMinHeap.heapMinimum(minMax) + MaxMinHeap.heapMaximum(minMax) + MaxMinHeap.heapMaximum(lower);
+                } // end of for
+                result.stop();
+                _sink += sum;
+                break;
+            }
+            case "sketch": { // adds every key to a quantile sketch and reads p50, p90 and p99 at the end
+                QuantileSketch sketch = new QuantileSketch();
+                result.start();
+                for (int i = 0; i < n; i++)
+                    sketch.add(keys[i]);
+                _sink += sketch.getQuantile(0.5) + sketch.getQuantile(0.9) + sketch.getQuantile(0.99);
+                result.stop();
+                break;
+            }
+            case "parallelBuild": {
+                MaxMinHeap heap = filledHeap(keys);
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try{
+                    result.start();
+                    MaxMinHeap.parallelBuildHeap(heap, pool);
+                    result.stop();
+                } // end of try
+                finally{
+                    pool.shutdown();
+                } // end of finally
+                result._bytes = -1; // the allocations of the pool threads are not measured
+                _sink += heap.getSize();
+                break;
+            }
+            case "concurrent": {
+                ConcurrentMaxMinHeap queue = new ConcurrentMaxMinHeap();
+                runThreads(threads, keys, result, (key, i) -> {
+                    queue.offer(key);
+                    if ((i & 3) == 1) // every other operation extracts, alternating maximum and minimum
+                        queue.pollMax();
+                    else if ((i & 3) == 3)
+                        queue.pollMin();
+                });
+                _sink += queue.size();
+                break;
+            }
+            case "locked": { // the baseline - one heap behind one lock
+                MaxMinHeap heap = new MaxMinHeap();
+                ReentrantLock lock = new ReentrantLock();
+                runThreads(threads, keys, result, (key, i) -> {
+                    lock.lock();
+                    try{
+                        MaxMinHeap.heapInsert(heap, key);
+                        if ((i & 3) == 1)
+                            MaxMinHeap.heapExtractMax(heap);
+                        else if ((i & 3) == 3)
+                            MaxMinHeap.heapExtractMin(heap);
+                    } // end of try
+                    finally{
+                        lock.unlock();
+                    } // end of finally
+                });
+                _sink += heap.getSize();
+                break;
+            }
+            default: throw new IllegalArgumentException("Unknown benchmark: " + benchmark);
+        } // end of switch
+        return result;
+        
+    } // end of method run
+    
+    /*
+     * Splits the keys between the given number of threads and runs the operation on each of its keys.
+     * All the threads start together and the measured region ends when the last one finishes.
+     */
+    private static void runThreads(int threads, double[] keys, Result result, Operation op){
+        
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++){
+            int from = (int)((long)keys.length * t / threads), to = (int)((long)keys.length * (t + 1) / threads);
+            workers[t] = new Thread(() -> {
+                try{
+                    start.await();
+                } // end of try
+                catch (InterruptedException e){
+                    return;
+                } // end of catch
+                for (int i = from; i < to; i++)
+                    op.apply(keys[i], i);
+            });
+            workers[t].start();
+        } // end of for
+        
+        result.start();
+        start.countDown();
+        for (Thread worker : workers){
+            try{
+                worker.join();
+            } // end of try
+            catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            } // end of catch
+        } // end of for
+        result.stop();
+        result._bytes = -1; // the allocations of the worker threads are not measured
+        
+    } // end of method runThreads
+    
+    // checks if the benchmark runs on several threads
+    private static boolean isParallel(String benchmark){
+        
+        for (String b : PARALLEL_BENCHMARKS)
+            if (b.equals(benchmark))
+                return true;
+        return false;
+        
+    } // end of method isParallel
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    // one operation of a multi-threaded benchmark, applied to a key and its index in the input
+    private interface Operation{
+        
+        void apply(double key, int i);
+        
+    } // end of interface Operation
+    
+    // returns a heap that contains the given keys in their original order (not a heap yet)
+    private static MaxMinHeap filledHeap(double[] keys){
+        
+        MaxMinHeap heap = new MaxMinHeap(keys.length);
+        for (double key : keys)
+            heap.add(key);
+        return heap;
+        
+    } // end of method filledHeap
+    
+    // writes the keys to a temporary text file, one key per line
+    private static Path keyFile(double[] keys) throws IOException{
+        
+        Path file = Files.createTempFile("maxminheap", ".csv");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))){
+            for (double key : keys)
+                writer.println(key);
+        } // end of try
+        return file;
+        
+    } // end of method keyFile
+    
+    /*
+     * Generates the input keys of the given distribution.
+     * The keys are whole numbers so the int and long heaps get the same input.
+     */
+    private static double[] generate(String dist, int size){
+        
+        Random rand = new Random(SEED);
+        double[] keys = new double[size];
+        for (int i = 0; i < size; i++){
+            switch (dist){
+                case "random": keys[i] = rand.nextInt(); break;
+                case "sorted": keys[i] = i; break;
+                case "reverse": keys[i] = size - i; break;
+                case "duplicates": keys[i] = rand.nextInt(DUPLICATE_KEYS); break;
+                default: throw new IllegalArgumentException("Unknown distribution: " + dist);
+            } // end of switch
+        } // end of for
+        return keys;
+        
+    } // end of method generate
+    
+    /*
+     * Time and allocation of one measured region.
+     * The allocated bytes come from the HotSpot thread MXBean and are -1 when it is not available.
+     */
+    private static class Result{
+        
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        private long _ops, _nanos, _bytes, _startNanos, _startBytes;
+        
+        private Result(long ops){
+            
+            _ops = ops;
+            
+        } // end of constructor Result
+        
+        private void start(){
+            
+            _startBytes = allocatedBytes();
+            _startNanos = System.nanoTime();
+            
+        } // end of method start
+        
+        private void stop(){
+            
+            _nanos = System.nanoTime() - _startNanos;
+            long bytes = allocatedBytes();
+            _bytes = bytes < 0 ? -1 : bytes - _startBytes;
+            
+        } // end of method stop
+        
+        // returns the number of bytes the current thread has allocated so far, or -1 if unknown
+        private static long allocatedBytes(){
+            
+            if (THREADS instanceof com.sun.management.ThreadMXBean)
+                return ((com.sun.management.ThreadMXBean)THREADS).getCurrentThreadAllocatedBytes();
+            return -1;
+            
+        } // end of method allocatedBytes
+        
+    } // end of class Result
+
+} // end of class MaxMinHeapBenchmark
@@ -68,7 +68,7 @@ public class Car{
      * @return car brand
      */
     public String getBrand(){
-        return new String(_brand);
+        return _brand; // a String cannot be changed, so it needs no copy
     } // end of method getBrand
     
     /**
@@ -103,7 +103,7 @@ public class Car{
      * @param brand The brand value to be set
      */
     public void setBrand(String brand){
-        _brand = new String(brand);
+        _brand = brand;
     } // end of method setBrand
     
     /**
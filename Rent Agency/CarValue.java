@@ -0,0 +1,133 @@
+/**
+ * This class represents an immutable car
+ *
+ * A CarValue never changes after it is created, so it is shared instead of copied and its getters
+ * return its fields as they are. The brand is interned, so all the cars of a brand share one String.
+ * Like Car.equals, equals compares the type, brand and gear of the cars and not their ids.
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+public final class CarValue{
+    
+    // Attributes
+    private final int _id;
+    private final char _type;
+    private final String _brand;
+    private final boolean _isManual;
+    
+    /**
+     * Creates a new CarValue object.
+     * id should be a 7 digits number, otherwise set it to 9999999
+     * type should be 'A','B','C' or 'D', otherwise set it to 'A'
+     * @param id The id of the car (7 digits number)
+     * @param type The type of the car ('A','B','C' or 'D')
+     * @param brand The car's brand
+     * @param isManual flag indicating if the car is manual or not
+     */
+    public CarValue(int id, char type, String brand, boolean isManual){
+        this(new Car(id, type, brand, isManual)); // Car checks the id and the type
+    } // end of Constructor CarValue
+    
+    /**
+     * Creates a CarValue with the same fields as a Car
+     * @param car The car to copy
+     */
+    public CarValue(Car car){
+        _id = car.getId();
+        _type = car.getType();
+        _brand = car.getBrand().intern();
+        _isManual = car.isManual();
+    } // end of Constructor CarValue
+    
+    /**
+     * Returns the car id
+     * @return car id
+     */
+    public int getId(){
+        return _id;
+    } // end of method getId
+    
+    /**
+     * Returns the car type
+     * @return car type
+     */
+    public char getType(){
+        return _type;
+    } // end of method getType
+    
+    /**
+     * Returns the car brand
+     * @return car brand
+     */
+    public String getBrand(){
+        return _brand;
+    } // end of method getBrand
+    
+    /**
+     * Gets the isManual flag
+     * @return The isManual flag
+     */
+    public boolean isManual(){
+        return _isManual;
+    } // end of method isManual
+    
+    /**
+     * Returns a mutable copy of this car
+     * @return A Car with the same fields
+     */
+    public Car toCar(){
+        return new Car(_id, _type, _brand, _isManual);
+    } // end of method toCar
+    
+    /**
+     * Checks if this car is better than the other car, like Car.better
+     * @param other The car to compare this car to
+     * @return True if this car is better than the other car, otherwise false
+     */
+    public boolean better(CarValue other){
+        if (_type != other._type) // the higher type is better
+            return _type > other._type;
+        return !_isManual && other._isManual; // true if current gear is auto and other gear is manual
+    } // end of method better
+    
+    /**
+     * Checks if this car is worse than the other car
+     * @param other The car to compare this car to
+     * @return True if this car is worse than the other car, otherwise false
+     */
+    public boolean worse(CarValue other){
+        return other.better(this);
+    } // end of method worse
+    
+    /**
+     * Checks if two cars are the same.
+     * Cars are considered the same if they have the same type, brand and gear, like in Car.equals.
+     * @param obj The object to compare this car to
+     * @return True if obj is a CarValue that is the same as this car, otherwise false
+     */
+    public boolean equals(Object obj){
+        if (!(obj instanceof CarValue))
+            return false;
+        CarValue other = (CarValue)obj;
+        return _type == other._type && _isManual == other._isManual && _brand.equals(other._brand);
+    } // end of method equals
+    
+    /**
+     * Returns a hash code of the car, consistent with equals (the id is not part of it)
+     * @return The hash code
+     */
+    public int hashCode(){
+        return (_brand.hashCode() * 31 + _type) * 2 + (_isManual ? 1 : 0);
+    } // end of method hashCode
+    
+    /**
+     * Returns a String object that represents this car
+     * @return String that represents this car in the format of Car.toString:
+     * id:1234567 type:B brand:Toyota gear:manual (or auto)
+     */
+    public String toString(){
+        return "id:" + _id + " type:" + _type + " brand:" + _brand + " gear:" + (_isManual ? "manual" : "auto");
+    } // end of method toString
+    
+} // end of class CarValue
@@ -11,6 +11,7 @@ public class Date{
     private int _day;
     private int _month;
     private int _year;
+    private int _dayNumber; // the day number of the date, kept up to date so comparisons do not recompute it
     private static final int START = 1; // months and days start with 1
     private static final int END_DAY31 = 31; // max days in months 1,3,5,7,8,10,12
     private static final int END_DAY30 = 30; // max days in months 4,6,9,11
@@ -43,6 +44,7 @@ public class Date{
             _month = DEFAULT_MONTH; // _month = 1
             _year = DEFAULT_YEAR; // _year = 2000
         } // end of else statement
+        _dayNumber = calculateDate(_day, _month, _year);
     } // end of Constructor Date
     
     /**
@@ -54,6 +56,7 @@ public class Date{
         _day = other._day;
         _month = other._month;
         _year = other._year;
+        _dayNumber = other._dayNumber;
     } // end of copy Constructor Date
     
     /**
@@ -80,13 +83,26 @@ public class Date{
         return _year;
     } // end of method getYear
     
+    /**
+     * Gets the day number of the date, counted from the beginning of the Christian counting of years
+     * (as calculateDate computes it, not from 01/01/1970).
+     * The number grows by one every day, so the difference between the numbers of two dates
+     * is the number of days between them, and comparing the numbers compares the dates.
+     * @return The day number
+     */
+    public int getDayNumber(){
+        return _dayNumber;
+    } // end of method getDayNumber
+    
     /**
      * Sets the day (only if date remains valid)
      * @param dayToSet The day value to be set
      */
     public void setDay(int dayToSet){
-        if (isDateValid(dayToSet, _month, _year)) // checks if param dayToSet is valid
+        if (isDateValid(dayToSet, _month, _year)){ // checks if param dayToSet is valid
             _day = dayToSet;
+            _dayNumber = calculateDate(_day, _month, _year);
+        } // end of if statement
     } // end of method setDay
     
     /**
@@ -94,8 +110,10 @@ public class Date{
      * @param monthToSet The month value to be set
      */
     public void setMonth(int monthToSet){
-        if (isDateValid(_day, monthToSet, _year)) // checks if param monthToSet is valid
+        if (isDateValid(_day, monthToSet, _year)){ // checks if param monthToSet is valid
             _month = monthToSet;
+            _dayNumber = calculateDate(_day, _month, _year);
+        } // end of if statement
     } // end of method setMonth
     
     /**
@@ -103,8 +121,10 @@ public class Date{
      * @param yearToSet The year value to be set
      */
     public void setYear(int yearToSet){
-        if (isDateValid(_day, _month, yearToSet)) // checks if param yearToSet is valid
+        if (isDateValid(_day, _month, yearToSet)){ // checks if param yearToSet is valid
             _year = yearToSet;
+            _dayNumber = calculateDate(_day, _month, _year);
+        } // end of if statement
     } // end of method setYear
     
     /**
@@ -123,12 +143,8 @@ public class Date{
      * @return True if this date is before other date, otherwise false
      */
     public boolean before(Date other){
-        // calculates how many days passed until the current date and assign it into currentDays
-        int currentDays = calculateDate(_day, _month, _year);
-        // calculates how many days passed until the other date and assign it into otherDays
-        int otherDays = calculateDate(other._day, other._month, other._year);
-        // if currentDays value is lesser than otherDays value so current date before other date
-        return currentDays < otherDays;
+        // the date with the lesser day number is before the other date
+        return _dayNumber < other._dayNumber;
     } // end of method before
     
     /**
@@ -146,9 +162,7 @@ public class Date{
      * @return Number of days between the dates (non negative value)
      */
     public int difference(Date other){
-        int currentDays = calculateDate(_day, _month, _year);
-        int otherDays = calculateDate(other._day, other._month, other._year);
-        return Math.abs(currentDays - otherDays); // returns absolute value of the difference between the dates
+        return Math.abs(_dayNumber - other._dayNumber); // returns absolute value of the difference between the dates
     } // end of method difference
     
     /**
@@ -0,0 +1,149 @@
+/**
+ * This class represents an immutable date
+ *
+ * A DateValue never changes after it is created, so it can be shared instead of copied:
+ * a rent keeps its dates as DateValue objects and needs no defensive copies of them.
+ * Its day number is computed once, so comparing two dates is a single int comparison.
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+public final class DateValue implements Comparable<DateValue>{
+    
+    // Attributes
+    private final int _day;
+    private final int _month;
+    private final int _year;
+    private final int _dayNumber; // the day number of the date, as Date.getDayNumber computes it
+    
+    /**
+     * If the given date is valid - creates a new DateValue object, otherwise creates the date 1/1/2000
+     * @param day The day in the month (1-31)
+     * @param month The month in the year (1-12)
+     * @param year The year (4 digits)
+     */
+    public DateValue(int day, int month, int year){
+        this(new Date(day, month, year)); // Date checks the date
+    } // end of Constructor DateValue
+    
+    /**
+     * Creates a DateValue with the same day, month and year as a Date
+     * @param date The date to copy
+     */
+    public DateValue(Date date){
+        _day = date.getDay();
+        _month = date.getMonth();
+        _year = date.getYear();
+        _dayNumber = date.getDayNumber();
+    } // end of Constructor DateValue
+    
+    /**
+     * Gets the day
+     * @return The day
+     */
+    public int getDay(){
+        return _day;
+    } // end of method getDay
+    
+    /**
+     * Gets the month
+     * @return The month
+     */
+    public int getMonth(){
+        return _month;
+    } // end of method getMonth
+    
+    /**
+     * Gets the year
+     * @return The year
+     */
+    public int getYear(){
+        return _year;
+    } // end of method getYear
+    
+    /**
+     * Gets the day number of the date, the same number Date.getDayNumber returns
+     * @return The day number
+     */
+    public int getDayNumber(){
+        return _dayNumber;
+    } // end of method getDayNumber
+    
+    /**
+     * Checks if this date is before other date
+     * @param other The date to compare this date to
+     * @return True if this date is before other date, otherwise false
+     */
+    public boolean before(DateValue other){
+        return _dayNumber < other._dayNumber;
+    } // end of method before
+    
+    /**
+     * Checks if this date is after other date
+     * @param other The date to compare this date to
+     * @return True if this date is after other date, otherwise false
+     */
+    public boolean after(DateValue other){
+        return _dayNumber > other._dayNumber;
+    } // end of method after
+    
+    /**
+     * Calculates the difference in days between two dates
+     * @param other The date to calculate the difference between
+     * @return Number of days between the dates (non negative value)
+     */
+    public int difference(DateValue other){
+        return Math.abs(_dayNumber - other._dayNumber);
+    } // end of method difference
+    
+    /**
+     * Compares the dates in chronological order
+     * @param other The date to compare this date to
+     * @return A negative number if this date is before other date, 0 if they are the same, otherwise a positive number
+     */
+    public int compareTo(DateValue other){
+        return Integer.compare(_dayNumber, other._dayNumber);
+    } // end of method compareTo
+    
+    /**
+     * Calculates the date of tomorrow
+     * @return A date which represent the tomorrow day of this date
+     */
+    public DateValue tomorrow(){
+        return new DateValue(toDate().tomorrow());
+    } // end of method tomorrow
+    
+    /**
+     * Returns a mutable copy of this date
+     * @return A Date with the same day, month and year
+     */
+    public Date toDate(){
+        return new Date(_day, _month, _year);
+    } // end of method toDate
+    
+    /**
+     * Checks if 2 dates are the same
+     * @param obj The object to compare this date to
+     * @return True if obj is a DateValue of the same day, otherwise false
+     */
+    public boolean equals(Object obj){
+        return obj instanceof DateValue && _dayNumber == ((DateValue)obj)._dayNumber;
+    } // end of method equals
+    
+    /**
+     * Returns a hash code of the date, consistent with equals
+     * @return The hash code
+     */
+    public int hashCode(){
+        return _dayNumber;
+    } // end of method hashCode
+    
+    /**
+     * Returns a String that represents this date
+     * @return String that represents this date in the format of Date.toString, for example: 02/03/1998
+     */
+    public String toString(){
+        return toDate().toString();
+    } // end of method toString
+    
+} // end of class DateValue
@@ -0,0 +1,132 @@
+/**
+ * Tests of the day numbers of Date and of DateValue
+ *
+ * Every day from 01/01/1000 to 31/12/9999 is reached with tomorrow: its day number must be one more than the day
+ * before it and equal the formula of the day number, and a DateValue of it must have the same day, text and
+ * day number, and order, compare and hash like its day number. Random setters of Date must keep the day number
+ * up to date, and invalid dates must become 01/01/2000 in both classes.
+ * The random dates can be repeated with the seed the test printed.
+ *
+ * java DateValueTest [seed]
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+import java.util.Arrays;
+import java.util.Random;
+public class DateValueTest{
+    
+    // Attributes and finals
+    private static final int FIRST_YEAR = 1000; // the first year of a valid date
+    private static final int LAST_YEAR = 9999; // the last year of a valid date
+    private static final int SETS = 1000000; // number of random setter calls
+    private static final int SORTED = 100000; // number of random dates to sort
+    
+    /**
+     * Runs the tests
+     * @param args an optional random seed
+     */
+    public static void main(String[] args){
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        Random random = new Random(seed);
+        checkAllDays();
+        System.out.println("every day from 01/01/" + FIRST_YEAR + " to 31/12/" + LAST_YEAR + ": ok");
+        checkSetters(random);
+        System.out.println("setters: ok");
+        checkInvalid();
+        System.out.println("invalid dates: ok");
+        checkSort(random);
+        System.out.println("sort: ok");
+    } // end of method main
+    
+    // walks from the first to the last valid day with tomorrow and checks every date and its DateValue
+    private static void checkAllDays(){
+        Date date = new Date(1, 1, FIRST_YEAR);
+        DateValue value = new DateValue(date);
+        check(date.getDayNumber() == dayNumber(1, 1, FIRST_YEAR), "day number of " + date);
+        int days = 1;
+        while (!(date.getDay() == 31 && date.getMonth() == 12 && date.getYear() == LAST_YEAR)){
+            Date next = date.tomorrow();
+            DateValue nextValue = value.tomorrow();
+            check(next.getDayNumber() == date.getDayNumber() + 1, "day number of " + next + " after " + date);
+            check(next.getDayNumber() == dayNumber(next.getDay(), next.getMonth(), next.getYear()), "day number of " + next);
+            check(nextValue.getDay() == next.getDay() && nextValue.getMonth() == next.getMonth() &&
+            nextValue.getYear() == next.getYear(), "DateValue tomorrow of " + value);
+            check(nextValue.toString().equals(next.toString()) && nextValue.getDayNumber() == next.getDayNumber(), "DateValue of " + next);
+            check(nextValue.equals(new DateValue(next)) && nextValue.hashCode() == new DateValue(next).hashCode(), "equals of " + next);
+            check(next.equals(nextValue.toDate()), "toDate of " + nextValue);
+            check(value.before(nextValue) && nextValue.after(value) && !value.equals(nextValue), "order of " + nextValue);
+            check(value.compareTo(nextValue) < 0 && nextValue.compareTo(value) > 0 && value.compareTo(value) == 0, "compareTo of " + nextValue);
+            check(value.difference(nextValue) == 1 && date.difference(next) == 1, "difference of " + next);
+            date = next;
+            value = nextValue;
+            days++;
+        } // end of while
+        check(days == dayNumber(31, 12, LAST_YEAR) - dayNumber(1, 1, FIRST_YEAR) + 1, "number of days " + days);
+    } // end of method checkAllDays
+    
+    // changes random dates with the setters and checks that their day numbers follow
+    private static void checkSetters(Random random){
+        for (int i = 0; i < SETS; i++){
+            Date date = randomDate(random);
+            int value = random.nextInt(40) - 2; // sometimes invalid, so the setter must not change the date
+            String before = date.toString();
+            switch (random.nextInt(3)){
+                case 0: date.setDay(value); break;
+                case 1: date.setMonth(value); break;
+                default: date.setYear(FIRST_YEAR + value * 250); // years below and above the valid ones too
+            } // end of switch
+            check(date.getDayNumber() == dayNumber(date.getDay(), date.getMonth(), date.getYear()),
+            "day number of " + date + " set from " + before);
+            check(date.getDayNumber() == new Date(date).getDayNumber(), "copy of " + date);
+        } // end of for
+    } // end of method checkSetters
+    
+    // checks that invalid dates become 01/01/2000 in Date and in DateValue
+    private static void checkInvalid(){
+        int[][] invalid = {{29, 2, 2023}, {29, 2, 1900}, {31, 4, 2022}, {0, 1, 2022}, {32, 1, 2022},
+            {1, 0, 2022}, {1, 13, 2022}, {1, 1, FIRST_YEAR - 1}, {1, 1, LAST_YEAR + 1}};
+        DateValue defaultDate = new DateValue(1, 1, 2000);
+        for (int[] d : invalid){
+            check(new Date(d[0], d[1], d[2]).equals(defaultDate.toDate()), "Date " + Arrays.toString(d));
+            check(new DateValue(d[0], d[1], d[2]).equals(defaultDate), "DateValue " + Arrays.toString(d));
+        } // end of for
+        check(new DateValue(29, 2, 2000).getDay() == 29 && new DateValue(29, 2, 2024).getDay() == 29, "leap years");
+    } // end of method checkInvalid
+    
+    // checks that sorting DateValue objects orders them like their day numbers
+    private static void checkSort(Random random){
+        DateValue[] dates = new DateValue[SORTED];
+        int[] dayNumbers = new int[SORTED];
+        for (int i = 0; i < SORTED; i++){
+            dates[i] = new DateValue(randomDate(random));
+            dayNumbers[i] = dates[i].getDayNumber();
+        } // end of for
+        Arrays.sort(dates);
+        Arrays.sort(dayNumbers);
+        for (int i = 0; i < SORTED; i++)
+            check(dates[i].getDayNumber() == dayNumbers[i], "sorted date " + i);
+    } // end of method checkSort
+    
+    // returns a random valid date
+    private static Date randomDate(Random random){
+        return new Date(1 + random.nextInt(28), 1 + random.nextInt(12), FIRST_YEAR + random.nextInt(LAST_YEAR - FIRST_YEAR + 1));
+    } // end of method randomDate
+    
+    // returns the day number of a date, with the formula of Date.getDayNumber
+    private static int dayNumber(int day, int month, int year){
+        if (month < 3){
+            year--;
+            month += 12;
+        } // end of if statement
+        return 365 * year + year / 4 - year / 100 + year / 400 + (month + 1) * 306 / 10 + day - 62;
+    } // end of method dayNumber
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+    } // end of method check
+    
+} // end of class DateValueTest
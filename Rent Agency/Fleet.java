@@ -0,0 +1,256 @@
+/**
+ * This class represents the fleet of an agency: its cars and the days each car is rented
+ *
+ * Every car gets an index when it is added. The cars are indexed by type, gearbox and brand in bit sets
+ * of car indexes, so the cars that match a search are found with a few word operations per 64 cars.
+ * Every car has an occupancy calendar: a bit set of the days it is rented, counted from the first day
+ * of the fleet, so checking that a car is free between two dates is one nextSetBit.
+ * Every day also has a bit set of the cars rented on it, so a search does not look at the cars one by one:
+ * the cars rented on the days of the search are removed from the matching cars 64 at a time, which takes
+ * a few microseconds for tens of thousands of cars.
+ * Every car also keeps the day ranges of its reservations, so a rent is cancelled only if it reserved its days.
+ * The calendars end MAX_DAYS days (about ten years) after the first day, so the bit sets of the days never
+ * grow past it: a car can not be rented or reserved on a later day, and searches over later days find no car.
+ * A car is busy on every day from the pick up date to the return date, including both, since rents
+ * that share a day overlap (like in Rent.overlap).
+ *
+ * The methods are synchronized, so checking that a car is free and reserving it happen at once:
+ * two clients can not get the same car for the same day.
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+public class Fleet{
+    
+    // Attributes and finals
+    private final int _firstDay; // the day number of the first day of the calendars
+    private ArrayList<CarValue> _cars = new ArrayList<CarValue>(); // the cars by index
+    private ArrayList<BitSet> _calendars = new ArrayList<BitSet>(); // the rented days of every car
+    private ArrayList<BitSet> _rentedCars = new ArrayList<BitSet>(); // the rented cars of every calendar day
+    private ArrayList<HashSet<Long>> _reserved = new ArrayList<HashSet<Long>>(); // the reserved day ranges of every car
+    private HashMap<Integer, Integer> _indexes = new HashMap<Integer, Integer>(); // the index of every car id
+    private BitSet[] _byType = new BitSet[TYPES]; // the cars of every type
+    private BitSet _manual = new BitSet(); // the manual cars
+    private HashMap<String, BitSet> _byBrand = new HashMap<String, BitSet>(); // the cars of every brand
+    /** Search value that matches every type, gearbox or brand */
+    public static final char ANY_TYPE = '*';
+    public static final int ANY_GEAR = 0, MANUAL = 1, AUTO = 2;
+    public static final String ANY_BRAND = null;
+    private static final int TYPES = 4; // types 'A' to 'D'
+    private static final int MAX_DAYS = 3660; // the number of calendar days, from the fleet's first day on
+    
+    /**
+     * Creates a new empty fleet, whose cars can be rented from the given day on, for MAX_DAYS days
+     * @param firstDay The first day the cars can be rented
+     */
+    public Fleet(Date firstDay){
+        _firstDay = firstDay.getDayNumber();
+        for (int t = 0; t < TYPES; t++)
+            _byType[t] = new BitSet();
+    } // end of Constructor Fleet
+    
+    /**
+     * Adds a car to the fleet. Every car of the fleet must have its own id.
+     * @param car The car to add
+     * @return True if the car was added, false if the fleet already has a car with its id
+     */
+    public synchronized boolean add(Car car){
+        if (_indexes.containsKey(car.getId()))
+            return false;
+        int index = _cars.size();
+        CarValue value = new CarValue(car);
+        _cars.add(value);
+        _calendars.add(new BitSet());
+        _reserved.add(new HashSet<Long>());
+        _indexes.put(value.getId(), index);
+        _byType[value.getType() - 'A'].set(index);
+        if (value.isManual())
+            _manual.set(index);
+        BitSet brand = _byBrand.get(value.getBrand());
+        if (brand == null){ // the first car of its brand
+            brand = new BitSet();
+            _byBrand.put(value.getBrand(), brand);
+        } // end of if statement
+        brand.set(index);
+        return true;
+    } // end of method add
+    
+    /**
+     * Gets the number of cars in the fleet
+     * @return The number of cars
+     */
+    public synchronized int getSize(){
+        return _cars.size();
+    } // end of method getSize
+    
+    /**
+     * Finds the cars that match a search and are free on every day from one date to another
+     * @param type The car type ('A','B','C' or 'D'), or ANY_TYPE
+     * @param gear MANUAL, AUTO or ANY_GEAR
+     * @param brand The car brand, or ANY_BRAND
+     * @param from The first day the car is needed
+     * @param to The last day the car is needed
+     * @return The free cars, in the order they were added (empty if there are none)
+     */
+    public synchronized CarValue[] available(char type, int gear, String brand, Date from, Date to){
+        BitSet free = free(type, gear, brand, day(from), day(to));
+        CarValue[] found = new CarValue[free.cardinality()];
+        int count = 0;
+        for (int i = free.nextSetBit(0); i >= 0; i = free.nextSetBit(i + 1))
+            found[count++] = _cars.get(i);
+        return found;
+    } // end of method available
+    
+    /**
+     * Counts the cars that match a search and are free on every day from one date to another
+     * @param type The car type ('A','B','C' or 'D'), or ANY_TYPE
+     * @param gear MANUAL, AUTO or ANY_GEAR
+     * @param brand The car brand, or ANY_BRAND
+     * @param from The first day the car is needed
+     * @param to The last day the car is needed
+     * @return The number of free cars
+     */
+    public synchronized int countAvailable(char type, int gear, String brand, Date from, Date to){
+        return free(type, gear, brand, day(from), day(to)).cardinality();
+    } // end of method countAvailable
+    
+    /**
+     * Checks if a car of the fleet is free on every day from one date to another
+     * @param id The id of the car
+     * @param from The first day the car is needed
+     * @param to The last day the car is needed
+     * @return True if the car is free, false if it is rented on one of the days, is not in the fleet
+     * or the days are outside the calendar
+     */
+    public synchronized boolean isAvailable(int id, Date from, Date to){
+        Integer index = _indexes.get(id);
+        return index != null && isFree(index, day(from), day(to));
+    } // end of method isAvailable
+    
+    /**
+     * Rents a free car that matches a search, and reserves its days
+     * The return date must be at least one day after the pickup date,
+     * otherwise the rent is set to end one day after the pick up date, like in Rent.
+     * @param name The client's name
+     * @param type The car type ('A','B','C' or 'D'), or ANY_TYPE
+     * @param gear MANUAL, AUTO or ANY_GEAR
+     * @param brand The car brand, or ANY_BRAND
+     * @param pick The pickup date
+     * @param ret The return date
+     * @return The rent of the first matching car that was free, or null if no such car is free
+     * or the days are outside the calendar
+     */
+    public synchronized Rent rent(String name, char type, int gear, String brand, Date pick, Date ret){
+        int first = day(pick), last = day(ret);
+        if (first >= 0 && last <= first) // the rent ends the day after the pick up, like in Rent
+            last = first + 1;
+        int i = free(type, gear, brand, first, last).nextSetBit(0); // the first free car
+        if (i < 0)
+            return null;
+        mark(i, first, last, true);
+        _reserved.get(i).add(range(first, last));
+        return new Rent(name, _cars.get(i).toCar(), pick, ret);
+    } // end of method rent
+    
+    /**
+     * Reserves the car of a rent for the days of the rent, if the car is free on all of them
+     * @param rent The rent, whose car is found in the fleet by its id
+     * @return True if the car was reserved, false if it is rented on one of the days, is not in the fleet
+     * or the days are outside the calendar
+     */
+    public synchronized boolean reserve(Rent rent){
+        Integer index = _indexes.get(rent.getCar().getId());
+        int first = day(rent.getPickDay()), last = day(rent.getReturnDay());
+        if (index == null || !isFree(index, first, last))
+            return false;
+        mark(index, first, last, true);
+        _reserved.get(index).add(range(first, last));
+        return true;
+    } // end of method reserve
+    
+    /**
+     * Frees the days of a rent that was reserved, so its car can be rented on them again
+     * Only the days of a reservation are freed: the car must have been reserved for exactly the days of the rent,
+     * by rent or reserve, and not cancelled since.
+     * @param rent The reserved rent
+     * @return True if the days were freed, false if the car is not reserved for the days of the rent
+     */
+    public synchronized boolean cancel(Rent rent){
+        Integer index = _indexes.get(rent.getCar().getId());
+        int first = day(rent.getPickDay()), last = day(rent.getReturnDay());
+        if (index == null || !_reserved.get(index).remove(range(first, last))) // not a reservation of the car
+            return false;
+        mark(index, first, last, false);
+        return true;
+    } // end of method cancel
+    
+    // returns the cars that match a search, in a new bit set
+    private BitSet matches(char type, int gear, String brand){
+        BitSet matches = new BitSet();
+        if (type == ANY_TYPE)
+            matches.set(0, _cars.size());
+        else if (type >= 'A' && type < 'A' + TYPES)
+            matches.or(_byType[type - 'A']);
+        if (gear == MANUAL)
+            matches.and(_manual);
+        else if (gear == AUTO)
+            matches.andNot(_manual);
+        if (brand != ANY_BRAND){
+            BitSet cars = _byBrand.get(brand);
+            if (cars == null) // no car of the brand
+                matches.clear();
+            else
+                matches.and(cars);
+        } // end of if statement
+        return matches;
+    } // end of method matches
+    
+    // returns the cars that match a search and are free on every calendar day from first to last, in a new bit set
+    private BitSet free(char type, int gear, String brand, int first, int last){
+        BitSet free = matches(type, gear, brand);
+        if (first < 0 || last < first || last >= MAX_DAYS){ // days outside the calendar
+            free.clear();
+            return free;
+        } // end of if statement
+        for (int d = first; d <= last && d < _rentedCars.size(); d++)
+            free.andNot(_rentedCars.get(d));
+        return free;
+    } // end of method free
+    
+    // marks car i as rented (or as free) on every calendar day from first to last
+    private void mark(int i, int first, int last, boolean rented){
+        _calendars.get(i).set(first, last + 1, rented);
+        while (_rentedCars.size() <= last)
+            _rentedCars.add(new BitSet());
+        for (int d = first; d <= last; d++)
+            _rentedCars.get(d).set(i, rented);
+    } // end of method mark
+    
+    // checks if car i is free on every calendar day from first to last (-1 for days before the fleet's first day)
+    private boolean isFree(int i, int first, int last){
+        if (first < 0 || last < first || last >= MAX_DAYS) // days outside the calendar
+            return false;
+        int next = _calendars.get(i).nextSetBit(first); // the first rented day from first on
+        return next < 0 || next > last;
+    } // end of method isFree
+    
+    // returns the key of the calendar days from first to last in the reservations of a car
+    private static long range(int first, int last){
+        return (long)first << 32 | (last & 0xFFFFFFFFL);
+    } // end of method range
+    
+    // returns the calendar day of a date, or -1 if it is before the fleet's first day
+    private int day(Date date){
+        return day(date.getDayNumber());
+    } // end of method day
+    
+    // returns the calendar day of a day number, or -1 if it is before the fleet's first day
+    private int day(int dayNumber){
+        return dayNumber < _firstDay ? -1 : dayNumber - _firstDay;
+    } // end of method day
+    
+} // end of class Fleet
@@ -0,0 +1,212 @@
+/**
+ * Tests of Fleet against a list of the reserved days of every car
+ *
+ * Random rents, searches, reservations and cancellations, of days before the fleet's first day, inside its calendar
+ * and around the end of the calendar, are run on a fleet and on a model that keeps the reserved day ranges of every
+ * car. rent must take the first matching car that is free, available, countAvailable and isAvailable must find
+ * the free cars, reserve must reserve only free cars and cancel must free only the days of a reservation, once.
+ * Threads that rent the same cars at once must get every car once.
+ * The operations are random, so a failure can be repeated with the seed the test printed.
+ *
+ * java FleetTest [seed]
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+public class FleetTest{
+    
+    // Attributes and finals
+    private static final int CARS = 300; // number of cars of the fleet
+    private static final int FIRST_ID = 1000000; // the id of the first car
+    private static final int OPERATIONS = 200000; // number of random operations
+    private static final int MAX_DAYS = 3660; // the calendar days of a fleet, as in Fleet
+    private static final int BEFORE = 400; // the days before the fleet's first day that rents may start on
+    private static final int THREADS = 8; // number of threads that rent at once
+    private static final char[] TYPES = {'A', 'B', 'C', 'D'};
+    private static final String[] BRANDS = {"Kia", "Mazda", "Fiat"};
+    private static final Date FIRST_DAY = new Date(1, 1, 2020);
+    private static final Date[] DATES = dates(); // DATES[d] is d - BEFORE days after the first day
+    
+    /**
+     * Runs the tests
+     * @param args an optional random seed
+     * @throws InterruptedException if the test is interrupted while it waits for its threads
+     */
+    public static void main(String[] args) throws InterruptedException{
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        Random random = new Random(seed);
+        check(DATES[BEFORE].equals(FIRST_DAY), "the dates start on " + DATES[0]);
+        checkOperations(random);
+        System.out.println("rent, reserve, cancel and searches: ok");
+        checkCalendarEnd();
+        System.out.println("end of the calendar: ok");
+        checkThreads(random);
+        System.out.println("rents of " + THREADS + " threads: ok");
+    } // end of method main
+    
+    // runs random operations on a fleet and on the model, and checks that they agree
+    private static void checkOperations(Random random){
+        Fleet fleet = new Fleet(FIRST_DAY);
+        Car[] cars = new Car[CARS];
+        List<List<int[]>> reserved = new ArrayList<List<int[]>>(); // the reserved day ranges of every car
+        for (int i = 0; i < CARS; i++){
+            cars[i] = new Car(FIRST_ID + i, TYPES[random.nextInt(TYPES.length)], BRANDS[random.nextInt(BRANDS.length)], random.nextBoolean());
+            check(fleet.add(cars[i]), "add " + cars[i]);
+            reserved.add(new ArrayList<int[]>());
+        } // end of for
+        check(!fleet.add(new Car(FIRST_ID, 'B', "Fiat", true)), "added a car with the id of another car");
+        check(fleet.getSize() == CARS, "size " + fleet.getSize());
+        for (int op = 0; op < OPERATIONS; op++){
+            int pick = randomDay(random), to = pick + random.nextInt(6); // calendar days
+            int ret = Math.max(to, pick + 1); // a rent ends at least a day after its pick up
+            Date pickDate = DATES[pick + BEFORE], toDate = DATES[to + BEFORE];
+            char type = random.nextInt(5) == 0 ? Fleet.ANY_TYPE : TYPES[random.nextInt(TYPES.length)];
+            int gear = random.nextInt(3);
+            String brand = random.nextInt(3) == 0 ? Fleet.ANY_BRAND : BRANDS[random.nextInt(BRANDS.length)];
+            int car = random.nextInt(CARS);
+            switch (random.nextInt(4)){
+                case 0: // rent the first matching free car
+                    List<Integer> free = free(cars, reserved, type, gear, brand, pick, ret);
+                    Rent rent = fleet.rent("client", type, gear, brand, pickDate, toDate);
+                    check((rent == null) == free.isEmpty(), "rent from day " + pick + " to " + ret);
+                    if (rent != null){
+                        check(rent.getCar().getId() == FIRST_ID + free.get(0), "rented " + rent.getCar() + " instead of car " + free.get(0));
+                        check(rent.getPickDay() == pickDate.getDayNumber() && rent.getReturnDay() == pickDate.getDayNumber() + ret - pick,
+                        "dates of " + rent);
+                        reserved.get(free.get(0)).add(new int[]{pick, ret});
+                    } // end of if statement
+                    break;
+                case 1: // search the free cars
+                    free = free(cars, reserved, type, gear, brand, pick, to);
+                    CarValue[] available = fleet.available(type, gear, brand, pickDate, toDate);
+                    check(fleet.countAvailable(type, gear, brand, pickDate, toDate) == free.size(), "countAvailable from day " + pick + " to " + to);
+                    check(available.length == free.size(), "available from day " + pick + " to " + to);
+                    for (int i = 0; i < available.length; i++)
+                        check(available[i].getId() == FIRST_ID + free.get(i), "available car " + available[i]);
+                    break;
+                case 2: // reserve a car, and sometimes cancel it right away
+                    rent = new Rent("client", cars[car], pickDate, toDate);
+                    boolean isFree = isFree(reserved.get(car), pick, ret);
+                    check(fleet.isAvailable(FIRST_ID + car, pickDate, rent.getReturnDate()) == isFree, "isAvailable of car " + car);
+                    check(fleet.reserve(rent) == isFree, "reserve of " + rent);
+                    if (isFree && random.nextInt(4) == 0)
+                        check(fleet.cancel(rent) && !fleet.cancel(rent), "cancel of " + rent + " right after it was reserved");
+                    else if (isFree)
+                        reserved.get(car).add(new int[]{pick, ret});
+                    break;
+                default: // cancel a rent, which was reserved only if a range of the model has its days
+                    rent = new Rent("other client", cars[car], pickDate, toDate);
+                    int found = -1;
+                    for (int r = 0; r < reserved.get(car).size(); r++)
+                        if (reserved.get(car).get(r)[0] == pick && reserved.get(car).get(r)[1] == ret)
+                            found = r;
+                    check(fleet.cancel(rent) == (found >= 0), "cancel of " + rent);
+                    if (found >= 0)
+                        reserved.get(car).remove(found);
+            } // end of switch
+        } // end of for
+        check(!fleet.isAvailable(FIRST_ID + CARS, FIRST_DAY, FIRST_DAY.tomorrow()), "isAvailable of a car that is not in the fleet");
+    } // end of method checkOperations
+    
+    // checks that cars are rented up to the last day of the calendar and not after it
+    private static void checkCalendarEnd(){
+        Fleet fleet = new Fleet(FIRST_DAY);
+        Car car = new Car(FIRST_ID, 'A', "Kia", false);
+        fleet.add(car);
+        Date last = DATES[BEFORE + MAX_DAYS - 1], beforeLast = DATES[BEFORE + MAX_DAYS - 2], after = DATES[BEFORE + MAX_DAYS];
+        check(fleet.countAvailable(Fleet.ANY_TYPE, Fleet.ANY_GEAR, Fleet.ANY_BRAND, last, last) == 1, "search of the last day");
+        check(fleet.available(Fleet.ANY_TYPE, Fleet.ANY_GEAR, Fleet.ANY_BRAND, last, after).length == 0, "search after the last day");
+        check(!fleet.isAvailable(FIRST_ID, after, after), "isAvailable after the last day");
+        check(fleet.rent("client", 'A', Fleet.ANY_GEAR, "Kia", last, last) == null, "rent that ends after the last day");
+        check(!fleet.reserve(new Rent("client", car, after, DATES[DATES.length - 1])), "reserve after the last day");
+        Rent rent = fleet.rent("client", 'A', Fleet.ANY_GEAR, "Kia", beforeLast, last);
+        check(rent != null && !fleet.isAvailable(FIRST_ID, last, last), "rent of the last days");
+        check(fleet.cancel(rent) && fleet.isAvailable(FIRST_ID, beforeLast, last), "cancel of the last days");
+        Date farAway = new Date(1, 1, 9999);
+        check(fleet.rent("client", Fleet.ANY_TYPE, Fleet.ANY_GEAR, Fleet.ANY_BRAND, farAway, farAway) == null, "rent in 9999");
+        check(!fleet.reserve(new Rent("client", car, farAway, farAway)) && !fleet.cancel(new Rent("client", car, farAway, farAway)),
+        "reserve and cancel in 9999");
+    } // end of method checkCalendarEnd
+    
+    // checks that threads renting the same days at once get every car exactly once
+    private static void checkThreads(Random random) throws InterruptedException{
+        final Fleet fleet = new Fleet(FIRST_DAY);
+        for (int i = 0; i < CARS; i++)
+            fleet.add(new Car(FIRST_ID + i, TYPES[random.nextInt(TYPES.length)], BRANDS[random.nextInt(BRANDS.length)], random.nextBoolean()));
+        final Date pick = DATES[BEFORE + random.nextInt(MAX_DAYS - 10)];
+        final Date ret = pick.tomorrow().tomorrow();
+        final AtomicInteger[] rents = new AtomicInteger[CARS]; // the number of rents of every car
+        for (int i = 0; i < CARS; i++)
+            rents[i] = new AtomicInteger();
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++){
+            threads[t] = new Thread(() -> {
+                Rent rent;
+                while ((rent = fleet.rent("client", Fleet.ANY_TYPE, Fleet.ANY_GEAR, Fleet.ANY_BRAND, pick, ret)) != null)
+                    rents[rent.getCar().getId() - FIRST_ID].incrementAndGet();
+            });
+            threads[t].start();
+        } // end of for
+        for (Thread thread : threads)
+            thread.join();
+        for (int i = 0; i < CARS; i++)
+            check(rents[i].get() == 1, "car " + i + " was rented " + rents[i].get() + " times");
+    } // end of method checkThreads
+    
+    // returns the matching cars of the model that are free on every day from first to last, in index order
+    private static List<Integer> free(Car[] cars, List<List<int[]>> reserved, char type, int gear, String brand, int first, int last){
+        List<Integer> free = new ArrayList<Integer>();
+        for (int i = 0; i < cars.length; i++){
+            Car car = cars[i];
+            boolean matches = (type == Fleet.ANY_TYPE || car.getType() == type) &&
+            (gear == Fleet.ANY_GEAR || car.isManual() == (gear == Fleet.MANUAL)) &&
+            (brand == Fleet.ANY_BRAND || car.getBrand().equals(brand));
+            if (matches && isFree(reserved.get(i), first, last))
+                free.add(i);
+        } // end of for
+        return free;
+    } // end of method free
+    
+    // checks in the model if a car is free on every day from first to last, all of them in the calendar
+    private static boolean isFree(List<int[]> reserved, int first, int last){
+        if (first < 0 || last >= MAX_DAYS)
+            return false;
+        for (int[] range : reserved)
+            if (range[0] <= last && first <= range[1]) // shares a day with the range
+                return false;
+        return true;
+    } // end of method isFree
+    
+    // returns a random calendar day: mostly in the first two years, sometimes before the first day or near the last one
+    private static int randomDay(Random random){
+        int kind = random.nextInt(10);
+        if (kind == 0)
+            return -1 - random.nextInt(BEFORE);
+        if (kind == 1)
+            return MAX_DAYS - 8 + random.nextInt(10);
+        return random.nextInt(730);
+    } // end of method randomDay
+    
+    // returns the dates from BEFORE days before the first day to 10 days after the calendar
+    private static Date[] dates(){
+        Date[] dates = new Date[BEFORE + MAX_DAYS + 10];
+        Date date = new Date(27, 11, 2018); // BEFORE days before FIRST_DAY
+        for (int d = 0; d < dates.length; d++){
+            dates[d] = date;
+            date = date.tomorrow();
+        } // end of for
+        return dates;
+    } // end of method dates
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+    } // end of method check
+    
+} // end of class FleetTest
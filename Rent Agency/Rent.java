@@ -10,8 +10,8 @@ public class Rent{
     // Attributes and finals
     private String _name; // client name
     private Car _car; // the rented car
-    private Date _pickDate; // car pickup date
-    private Date _returnDate; // car return date
+    private DateValue _pickDate; // car pickup date, shared by copies of the rent since it never changes
+    private DateValue _returnDate; // car return date
     private static final int PRICE_A = 100;
     private static final int PRICE_B = 150;
     private static final int PRICE_C = 180;
@@ -30,10 +30,18 @@ public class Rent{
     public Rent(String name, Car car, Date pick, Date ret){
         setName(name);
         setCar(car);
-        _pickDate = new Date(pick);
-        _returnDate = new Date(ret);
+        _pickDate = new DateValue(pick);
+        _returnDate = new DateValue(ret);
         if (!_returnDate.after(_pickDate)) // _returnDate equal or before _pickDate
-            setReturnDate(_pickDate.tomorrow()); // _returnDate is now _pickDate tomorrow day date
+            _returnDate = _pickDate.tomorrow(); // _returnDate is now _pickDate tomorrow day date
+    } // end of Constructor Rent
+    
+    // creates a rent of dates that are already checked, without copying them
+    private Rent(String name, Car car, DateValue pick, DateValue ret){
+        setName(name);
+        setCar(car);
+        _pickDate = pick;
+        _returnDate = ret;
     } // end of Constructor Rent
     
     /**
@@ -44,8 +52,8 @@ public class Rent{
     public Rent(Rent other){
         _name = other.getName();
         _car = other.getCar();
-        _pickDate = other.getPickDate();
-        _returnDate = other.getReturnDate();
+        _pickDate = other._pickDate;
+        _returnDate = other._returnDate;
     } // end of copy Constructor Rent
     
     /**
@@ -53,7 +61,7 @@ public class Rent{
      * @return The client name
      */
     public String getName(){
-        return new String(_name);
+        return _name; // a String cannot be changed, so it needs no copy
     } // end of method getName
     
     /**
@@ -69,7 +77,7 @@ public class Rent{
      * @return The pick up date
      */
     public Date getPickDate(){
-        return new Date(_pickDate);
+        return _pickDate.toDate();
     } // end of method getPickDate
     
     /**
@@ -77,15 +85,31 @@ public class Rent{
      * @return The return date
      */
     public Date getReturnDate(){
-        return new Date(_returnDate);
+        return _returnDate.toDate();
     } // end of method getReturnDate
     
+    /**
+     * Gets the day number of the pick up date, without copying the date
+     * @return The day number of the pick up date, as Date.getDayNumber returns it
+     */
+    public int getPickDay(){
+        return _pickDate.getDayNumber();
+    } // end of method getPickDay
+    
+    /**
+     * Gets the day number of the return date, without copying the date
+     * @return The day number of the return date, as Date.getDayNumber returns it
+     */
+    public int getReturnDay(){
+        return _returnDate.getDayNumber();
+    } // end of method getReturnDay
+    
     /**
      * Sets the client name
      * @param name The client name to set
      */
     public void setName(String name){
-        _name = new String(name);
+        _name = name;
     } // end of method setName
     
     /**
@@ -103,8 +127,8 @@ public class Rent{
      * @param pickDate The pick up date to set
      */
     public void setPickDate(Date pickDate){
-        if(pickDate.before(_returnDate))
-            _pickDate = new Date(pickDate);
+        if(pickDate.getDayNumber() < _returnDate.getDayNumber())
+            _pickDate = new DateValue(pickDate);
     } // end of method setPickDate
     
     /**
@@ -114,8 +138,8 @@ public class Rent{
      * @param returnDate The return date to set
      */
     public void setReturnDate(Date returnDate){
-        if(returnDate.after(_pickDate))
-            _returnDate = new Date(returnDate);
+        if(returnDate.getDayNumber() > _pickDate.getDayNumber())
+            _returnDate = new DateValue(returnDate);
     } // end of method setReturnDate
     
     /**
@@ -143,7 +167,17 @@ public class Rent{
      * @return The rent total price
      */
     public int getPrice(){
-        int rentDays = howManyDays();
+        return getPrice(_car.getType(), howManyDays());
+    } // end of method getPrice
+    
+    /**
+     * Returns the total price of renting a car of the given type for the given number of days,
+     * the price getPrice returns for such a rent
+     * @param type The car type ('A','B','C' or 'D')
+     * @param rentDays The number of rent days
+     * @return The rent total price, 0 if the type is not valid
+     */
+    public static int getPrice(char type, int rentDays){
         int numOfWeeks, notWeekDays, weekDays;
         numOfWeeks = rentDays / 7;
         weekDays = numOfWeeks * 7;
@@ -152,7 +186,7 @@ public class Rent{
          * finds this car type and calculates its weighted price
          * with week discount.
          */
-        switch (_car.getType()){
+        switch (type){
             case 'A': return (int)(weekDays * PRICE_A * WEEK_DISCOUNT +
             notWeekDays * PRICE_A); // weekDays * 100 * 0.9 + notWeekDays * 100
             case 'B': return (int)(weekDays * PRICE_B * WEEK_DISCOUNT +
@@ -161,7 +195,7 @@ public class Rent{
             notWeekDays * PRICE_C); // weekDays * 180 * 0.9 + notWeekDays * 180
             case 'D': return (int)(weekDays * PRICE_D * WEEK_DISCOUNT +
             notWeekDays * PRICE_D); // weekDays * 240 * 0.9 + notWeekDays * 240
-            default: return 0; // never happens - car's type will always be A/B/C/D
+            default: return 0; // never happens for a rent - car's type will always be A/B/C/D
         } // end of switch statement
     } // end of method getPrice
     
@@ -192,8 +226,8 @@ public class Rent{
      * @return the unified rent or null
      */
     public Rent overlap(Rent other){
-        Date otherPick = other.getPickDate(); // other pick date
-        Date otherReturn = other.getReturnDate(); // other return date
+        DateValue otherPick = other._pickDate; // other pick date
+        DateValue otherReturn = other._returnDate; // other return date
         if (_car.equals(other._car) && _name.equals(other._name)){
             if (pickIsBetween(otherPick, otherReturn) &&
             returnIsBetween(otherPick, otherReturn)) // this dates are between other dates
@@ -224,13 +258,13 @@ public class Rent{
     
 
     // checks if this pickDate is between the params dates
-    private boolean pickIsBetween(Date date1, Date date2){
+    private boolean pickIsBetween(DateValue date1, DateValue date2){
         // _pickDate equal or after date1 and equal or before date2
         return !_pickDate.before(date1) && !_pickDate.after(date2);
     } // end of method pickIsBetween
     
     // checks if this returnDate is between the params dates
-    private boolean returnIsBetween(Date date1, Date date2){
+    private boolean returnIsBetween(DateValue date1, DateValue date2){
         // _returnDate equal or after date1 and equal or before date2
         return !_returnDate.before(date1) && !_returnDate.after(date2);
     } // end of method returnIsBetween
@@ -0,0 +1,193 @@
+/**
+ * This class represents a columnar store of rents, for reports over millions of rents
+ *
+ * Instead of a Rent object per rent, the store keeps a primitive array per field ("struct of arrays"):
+ * the day numbers of the pick up and return dates, the car type, the car and the client. The cars and
+ * the client names are kept once each, in tables, and the rents refer to them by number.
+ * A report (total revenue, revenue by type, average duration) is a single loop over the arrays,
+ * which reads them in order and does not follow a pointer per rent.
+ *
+ * The prices are the prices of Rent.getPrice. They are taken from a table of the price of every type
+ * and number of days up to PRICE_DAYS, which is filled by Rent.getPrice itself, so they are exactly the same;
+ * longer rents call Rent.getPrice.
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+public class RentColumns{
+    
+    // Attributes and finals
+    private int[] _pick = new int[ARRAY_LEN]; // the day number of the pick up date of every rent
+    private int[] _return = new int[ARRAY_LEN]; // the day number of the return date of every rent
+    private byte[] _type = new byte[ARRAY_LEN]; // the car type of every rent, 0 for 'A' to 3 for 'D'
+    private int[] _car = new int[ARRAY_LEN]; // the car of every rent, its number in _cars
+    private int[] _client = new int[ARRAY_LEN]; // the client of every rent, its number in _clients
+    private int _size; // number of rents
+    private ArrayList<CarValue> _cars = new ArrayList<CarValue>(); // the cars by number
+    private HashMap<String, Integer> _carNumbers = new HashMap<String, Integer>(); // by toString, which has all the fields
+    private ArrayList<String> _clients = new ArrayList<String>(); // the client names by number
+    private HashMap<String, Integer> _clientNumbers = new HashMap<String, Integer>();
+    private static final int ARRAY_LEN = 1024; // initial length of the arrays
+    private static final int TYPES = 4; // types 'A' to 'D'
+    private static final double DAYS_IN_YEAR = 365.2425; // the average length of a year
+    private static final int LAST_YEAR = 9999; // the last year of a valid date
+    private static final int PRICE_DAYS = 512; // rents shorter than this take their price from PRICES
+    private static final int[] PRICES = new int[TYPES * PRICE_DAYS]; // the price of type t for d days at t * PRICE_DAYS + d
+    static{
+        for (int t = 0; t < TYPES; t++)
+            for (int d = 0; d < PRICE_DAYS; d++)
+                PRICES[t * PRICE_DAYS + d] = Rent.getPrice((char)('A' + t), d);
+    } // end of static initializer
+    
+    /**
+     * Creates a new empty store
+     */
+    public RentColumns(){
+    } // end of Constructor RentColumns
+    
+    /**
+     * Creates a store of the given rents
+     * @param rents The rents to store
+     */
+    public RentColumns(Rent[] rents){
+        addAll(rents);
+    } // end of Constructor RentColumns
+    
+    /**
+     * Adds a rent to the store
+     * @param rent The rent to add
+     */
+    public void add(Rent rent){
+        if (_size == _pick.length) // the arrays are full
+            grow(2 * _size);
+        CarValue car = new CarValue(rent.getCar());
+        _pick[_size] = rent.getPickDay();
+        _return[_size] = rent.getReturnDay();
+        _type[_size] = (byte)(car.getType() - 'A');
+        _car[_size] = number(car.toString(), car, _cars, _carNumbers);
+        _client[_size] = number(rent.getName(), rent.getName(), _clients, _clientNumbers);
+        _size++;
+    } // end of method add
+    
+    /**
+     * Adds rents to the store
+     * @param rents The rents to add
+     */
+    public void addAll(Rent[] rents){
+        if (_size + rents.length > _pick.length)
+            grow(Math.max(_size + rents.length, 2 * _size));
+        for (Rent rent : rents)
+            add(rent);
+    } // end of method addAll
+    
+    /**
+     * Gets the number of rents in the store
+     * @return The number of rents
+     */
+    public int getSize(){
+        return _size;
+    } // end of method getSize
+    
+    /**
+     * Returns a rent of the store
+     * @param i The number of the rent, in the order the rents were added (from 0)
+     * @return A Rent with the client, car and dates of the rent
+     * @throws IndexOutOfBoundsException if there is no such rent
+     */
+    public Rent get(int i){
+        if (i < 0 || i >= _size)
+            throw new IndexOutOfBoundsException("Illegal rent number: " + i);
+        return new Rent(_clients.get(_client[i]), _cars.get(_car[i]).toCar(), date(_pick[i]), date(_return[i]));
+    } // end of method get
+    
+    /**
+     * Returns all the rents of the store
+     * @return Rent objects of the rents, in the order they were added
+     */
+    public Rent[] toRents(){
+        Rent[] rents = new Rent[_size];
+        for (int i = 0; i < _size; i++)
+            rents[i] = get(i);
+        return rents;
+    } // end of method toRents
+    
+    /**
+     * Returns the total price of all the rents
+     * @return The sum of Rent.getPrice of the rents
+     */
+    public long totalRevenue(){
+        long total = 0;
+        for (int i = 0; i < _size; i++)
+            total += price(i);
+        return total;
+    } // end of method totalRevenue
+    
+    /**
+     * Returns the total price of the rents of every car type
+     * @return The revenue of type 'A' at index 0, of 'B' at 1, of 'C' at 2 and of 'D' at 3
+     */
+    public long[] revenueByType(){
+        long[] revenue = new long[TYPES];
+        for (int i = 0; i < _size; i++)
+            revenue[_type[i]] += price(i);
+        return revenue;
+    } // end of method revenueByType
+    
+    /**
+     * Returns the average number of rent days
+     * @return The average of Rent.howManyDays of the rents, or 0 if the store is empty
+     */
+    public double averageDuration(){
+        if (_size == 0)
+            return 0;
+        long days = 0;
+        for (int i = 0; i < _size; i++)
+            days += _return[i] - _pick[i];
+        return (double)days / _size;
+    } // end of method averageDuration
+    
+    // returns the price of rent i
+    private int price(int i){
+        int days = _return[i] - _pick[i];
+        if (days < PRICE_DAYS) // almost every rent
+            return PRICES[_type[i] * PRICE_DAYS + days];
+        return Rent.getPrice((char)('A' + _type[i]), days);
+    } // end of method price
+    
+    // returns the number of a value in its table, found by its key, adding it to the table if it is not there yet
+    private static <T> int number(String key, T value, ArrayList<T> table, HashMap<String, Integer> numbers){
+        Integer number = numbers.get(key);
+        if (number == null){ // a new value
+            number = table.size();
+            table.add(value);
+            numbers.put(key, number);
+        } // end of if statement
+        return number;
+    } // end of method number
+    
+    // returns the date of a day number
+    private static Date date(int dayNumber){
+        int year = Math.min(LAST_YEAR, (int)(dayNumber / DAYS_IN_YEAR)); // the year or a year next to it (31/12/9999 gives 10000)
+        while (year < LAST_YEAR && new Date(1, 1, year + 1).getDayNumber() <= dayNumber)
+            year++;
+        while (new Date(1, 1, year).getDayNumber() > dayNumber)
+            year--;
+        int month = 1;
+        while (month < 12 && new Date(1, month + 1, year).getDayNumber() <= dayNumber)
+            month++;
+        return new Date(1 + dayNumber - new Date(1, month, year).getDayNumber(), month, year);
+    } // end of method date
+    
+    // grows the arrays to the given length
+    private void grow(int length){
+        _pick = Arrays.copyOf(_pick, length);
+        _return = Arrays.copyOf(_return, length);
+        _type = Arrays.copyOf(_type, length);
+        _car = Arrays.copyOf(_car, length);
+        _client = Arrays.copyOf(_client, length);
+    } // end of method grow
+    
+} // end of class RentColumns
@@ -0,0 +1,132 @@
+/**
+ * Tests of RentColumns against the Rent objects it stores
+ *
+ * A rent of every day from 01/01/1000 to 31/12/9999 is stored and read back, so the dates of every valid day number
+ * must survive the round trip. Random rents of short, long and reversed dates, many clients and cars are stored with
+ * add and addAll, and must be read back equal, with the same car ids, and give the same total revenue, revenue by
+ * type and average duration as their Rent objects.
+ * The rents are random, so a failure can be repeated with the seed the test printed.
+ *
+ * java RentColumnsTest [seed]
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+import java.util.Arrays;
+import java.util.Random;
+public class RentColumnsTest{
+    
+    // Attributes and finals
+    private static final int FIRST_YEAR = 1000; // the first year of a valid date
+    private static final int LAST_YEAR = 9999; // the last year of a valid date
+    private static final int BATCH = 100000; // number of rents stored at once in the round trip of every day
+    private static final int RENTS = 300000; // number of random rents
+    private static final char[] TYPES = {'A', 'B', 'C', 'D'};
+    private static final String[] BRANDS = {"Kia", "Mazda"};
+    
+    /**
+     * Runs the tests
+     * @param args an optional random seed
+     */
+    public static void main(String[] args){
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        Random random = new Random(seed);
+        checkEmpty();
+        System.out.println("empty store: ok");
+        checkEveryDay();
+        System.out.println("round trip of every day from 01/01/" + FIRST_YEAR + " to 31/12/" + LAST_YEAR + ": ok");
+        checkRandom(random);
+        System.out.println("random rents and reports: ok");
+    } // end of method main
+    
+    // checks the results of a store without rents
+    private static void checkEmpty(){
+        RentColumns columns = new RentColumns();
+        check(columns.getSize() == 0 && columns.toRents().length == 0, "empty size");
+        check(columns.totalRevenue() == 0 && Arrays.equals(columns.revenueByType(), new long[TYPES.length]), "empty revenue");
+        check(columns.averageDuration() == 0, "empty average duration");
+        for (int i : new int[]{-1, 0})
+            try{
+                columns.get(i);
+                check(false, "get accepted " + i);
+            } // end of try
+            catch (IndexOutOfBoundsException e){
+                // expected
+            } // end of catch
+    } // end of method checkEmpty
+    
+    // stores a rent that starts on every valid day and ends the next day, and checks that the rents are read back
+    private static void checkEveryDay(){
+        Car car = new Car(1000000, 'A', "Kia", false);
+        Date date = new Date(1, 1, FIRST_YEAR);
+        Rent[] rents = new Rent[BATCH];
+        int count = 0, days = 0;
+        boolean last = false;
+        while (!last){
+            last = date.getDay() == 31 && date.getMonth() == 12 && date.getYear() == LAST_YEAR;
+            Date next = date.tomorrow();
+            rents[count++] = new Rent("client", car, date, next);
+            if (count == BATCH || last){
+                checkRoundTrip(Arrays.copyOf(rents, count));
+                days += count;
+                count = 0;
+            } // end of if statement
+            date = next;
+        } // end of while
+        check(days == new Date(31, 12, LAST_YEAR).getDayNumber() - new Date(1, 1, FIRST_YEAR).getDayNumber() + 1, "number of days " + days);
+    } // end of method checkEveryDay
+    
+    // stores random rents and checks them and the reports
+    private static void checkRandom(Random random){
+        Rent[] rents = new Rent[RENTS];
+        for (int i = 0; i < RENTS; i++){
+            Date pick = randomDate(random);
+            Date ret = random.nextInt(10) == 0 ? randomDate(random) : pick; // a long rent, or a return date before the pick up
+            for (int d = random.nextInt(40); d > 0; d--)
+                ret = ret.tomorrow();
+            Car car = new Car(1000000 + random.nextInt(50), TYPES[random.nextInt(TYPES.length)], BRANDS[random.nextInt(BRANDS.length)], random.nextBoolean());
+            rents[i] = new Rent("client" + random.nextInt(500), car, pick, ret);
+        } // end of for
+        RentColumns columns = checkRoundTrip(rents);
+        long total = 0, days = 0;
+        long[] byType = new long[TYPES.length];
+        for (Rent rent : rents){
+            total += rent.getPrice();
+            byType[rent.getCar().getType() - 'A'] += rent.getPrice();
+            days += rent.howManyDays();
+        } // end of for
+        check(columns.totalRevenue() == total, "total revenue " + columns.totalRevenue() + " instead of " + total);
+        check(Arrays.equals(columns.revenueByType(), byType), "revenue by type " + Arrays.toString(columns.revenueByType()));
+        check(columns.averageDuration() == (double)days / RENTS, "average duration " + columns.averageDuration());
+        check(new RentColumns(rents).totalRevenue() == total, "total revenue of a store created from an array");
+    } // end of method checkRandom
+    
+    // stores the first half of the rents with add and the rest with addAll, checks that they are read back and returns the store
+    private static RentColumns checkRoundTrip(Rent[] rents){
+        RentColumns columns = new RentColumns();
+        for (int i = 0; i < rents.length / 2; i++)
+            columns.add(rents[i]);
+        columns.addAll(Arrays.copyOfRange(rents, rents.length / 2, rents.length));
+        check(columns.getSize() == rents.length, "size " + columns.getSize() + " of " + rents.length + " rents");
+        Rent[] back = columns.toRents();
+        for (int i = 0; i < rents.length; i++){
+            check(back[i].equals(rents[i]) && back[i].toString().equals(rents[i].toString()), "rent " + back[i] + " instead of " + rents[i]);
+            check(back[i].getCar().getId() == rents[i].getCar().getId(), "car of " + back[i]);
+        } // end of for
+        check(columns.get(rents.length - 1).equals(rents[rents.length - 1]), "get of the last rent");
+        return columns;
+    } // end of method checkRoundTrip
+    
+    // returns a random valid date
+    private static Date randomDate(Random random){
+        return new Date(1 + random.nextInt(28), 1 + random.nextInt(12), FIRST_YEAR + random.nextInt(LAST_YEAR - FIRST_YEAR + 1));
+    } // end of method randomDate
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+    } // end of method check
+    
+} // end of class RentColumnsTest
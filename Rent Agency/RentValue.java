@@ -0,0 +1,155 @@
+/**
+ * This class represents an immutable rent
+ *
+ * A RentValue never changes after it is created: its car is a CarValue and its dates are DateValue objects,
+ * so its getters return them without copies, and getPrice, howManyDays and overlap allocate nothing
+ * (overlap only allocates the unified rent, when the rents overlap and neither one covers the other).
+ * The client name is interned, so all the rents of a client share one String.
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+public final class RentValue{
+    
+    // Attributes
+    private final String _name; // client name
+    private final CarValue _car; // the rented car
+    private final DateValue _pickDate; // car pickup date
+    private final DateValue _returnDate; // car return date
+    
+    /**
+     * Creates a new RentValue object
+     * The return date must be at least one day after the pickup date,
+     * otherwise the method sets it to one day after the pick up date.
+     * @param name The client's name
+     * @param car The rented car
+     * @param pick The pickup date
+     * @param ret The return date
+     */
+    public RentValue(String name, CarValue car, DateValue pick, DateValue ret){
+        _name = name.intern();
+        _car = car;
+        _pickDate = pick;
+        if (!ret.after(pick)) // ret equal or before pick
+            _returnDate = pick.tomorrow(); // _returnDate is now pick tomorrow day date
+        else
+            _returnDate = ret;
+    } // end of Constructor RentValue
+    
+    /**
+     * Creates a RentValue with the same client, car and dates as a Rent
+     * @param rent The rent to copy
+     */
+    public RentValue(Rent rent){
+        this(rent.getName(), new CarValue(rent.getCar()),
+        new DateValue(rent.getPickDate()), new DateValue(rent.getReturnDate()));
+    } // end of Constructor RentValue
+    
+    /**
+     * Gets the client name
+     * @return The client name
+     */
+    public String getName(){
+        return _name;
+    } // end of method getName
+    
+    /**
+     * Gets the car
+     * @return The car
+     */
+    public CarValue getCar(){
+        return _car;
+    } // end of method getCar
+    
+    /**
+     * Gets the pick up date
+     * @return The pick up date
+     */
+    public DateValue getPickDate(){
+        return _pickDate;
+    } // end of method getPickDate
+    
+    /**
+     * Gets the return date
+     * @return The return date
+     */
+    public DateValue getReturnDate(){
+        return _returnDate;
+    } // end of method getReturnDate
+    
+    /**
+     * Returns a mutable copy of this rent
+     * @return A Rent with the same client, car and dates
+     */
+    public Rent toRent(){
+        return new Rent(_name, _car.toCar(), _pickDate.toDate(), _returnDate.toDate());
+    } // end of method toRent
+    
+    /**
+     * Returns the number of rent days
+     * @return The number of rent days
+     */
+    public int howManyDays(){
+        return _pickDate.difference(_returnDate);
+    } // end of method howManyDays
+    
+    /**
+     * Returns the rent total price, the same price as Rent.getPrice
+     * @return The rent total price
+     */
+    public int getPrice(){
+        return Rent.getPrice(_car.getType(), howManyDays());
+    } // end of method getPrice
+    
+    /**
+     * Checks if there is a double listing of a rent for the same person
+     * and car with an overlap in the rental days, like Rent.overlap.
+     * If there is - returns a rent with the unified dates, otherwise - returns null.
+     * @param other The other rent
+     * @return the unified rent or null
+     */
+    public RentValue overlap(RentValue other){
+        if (!_car.equals(other._car) || !_name.equals(other._name))
+            return null;
+        int pick = _pickDate.getDayNumber(), ret = _returnDate.getDayNumber();
+        int otherPick = other._pickDate.getDayNumber(), otherRet = other._returnDate.getDayNumber();
+        if (ret < otherPick || otherRet < pick) // no shared day
+            return null;
+        if (pick <= otherPick && ret >= otherRet) // other dates are between this dates
+            return this;
+        return new RentValue(_name, _car, pick < otherPick ? _pickDate : other._pickDate,
+        ret > otherRet ? _returnDate : other._returnDate);
+    } // end of method overlap
+    
+    /**
+     * Checks if 2 rents are the same
+     * @param obj The object to compare this rent to
+     * @return True if obj is a RentValue of the same client, car and dates, otherwise false
+     */
+    public boolean equals(Object obj){
+        if (!(obj instanceof RentValue))
+            return false;
+        RentValue other = (RentValue)obj;
+        return _name.equals(other._name) && _car.equals(other._car)
+        && _pickDate.equals(other._pickDate) && _returnDate.equals(other._returnDate);
+    } // end of method equals
+    
+    /**
+     * Returns a hash code of the rent, consistent with equals
+     * @return The hash code
+     */
+    public int hashCode(){
+        return ((_name.hashCode() * 31 + _car.hashCode()) * 31 + _pickDate.hashCode()) * 31 + _returnDate.hashCode();
+    } // end of method hashCode
+    
+    /**
+     * Returns a String that represents this rent
+     * @return String that represents this rent in the format of Rent.toString:
+     * Name:Rama From:30/10/2022 To:12/11/2022 Type:B Days:13 Price:1845
+     */
+    public String toString(){
+        return "Name:" + _name + " From:" + _pickDate + " To:" + _returnDate
+        + " Type:" + _car.getType() + " Days:" + howManyDays() + " Price:" + getPrice();
+    } // end of method toString
+    
+} // end of class RentValue
@@ -0,0 +1,115 @@
+/**
+ * Tests of CarValue and RentValue against Car and Rent
+ *
+ * Random pairs of cars and rents of a few clients, brands and dates are converted to CarValue and RentValue objects,
+ * which must give the same texts, prices, days, comparisons and overlaps as Car and Rent, convert back to equal
+ * objects, hash like they compare and share their interned brands and client names.
+ * The pairs are random, so a failure can be repeated with the seed the test printed.
+ *
+ * java RentValueTest [seed]
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+import java.util.Random;
+public class RentValueTest{
+    
+    // Attributes and finals
+    private static final int PAIRS = 1000000; // number of random pairs of rents
+    private static final char[] TYPES = {'A', 'B', 'C', 'D'};
+    private static final String[] BRANDS = {"Kia", "Mazda"};
+    
+    /**
+     * Runs the tests
+     * @param args an optional random seed
+     */
+    public static void main(String[] args){
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        Random random = new Random(seed);
+        checkDefaults();
+        System.out.println("invalid cars and dates: ok");
+        for (int i = 0; i < PAIRS; i++){
+            Car car = randomCar(random);
+            Car otherCar = random.nextInt(3) == 0 ? new Car(car) : randomCar(random); // the same car a third of the times
+            checkCars(car, otherCar);
+            String name = "client" + random.nextInt(2);
+            Rent rent = randomRent(name, car, random);
+            Rent other = randomRent(random.nextBoolean() ? name : "client" + random.nextInt(2), otherCar, random);
+            checkRent(rent);
+            checkPair(rent, other);
+        } // end of for
+        System.out.println("CarValue and RentValue: ok");
+    } // end of method main
+    
+    // checks that invalid ids, types and dates get the same defaults as in Car and Rent
+    private static void checkDefaults(){
+        CarValue car = new CarValue(123, 'E', "Kia", true);
+        check(car.getId() == 9999999 && car.getType() == 'A', "defaults of " + car);
+        check(car.toString().equals(new Car(123, 'E', "Kia", true).toString()), "text of " + car);
+        DateValue pick = new DateValue(10, 1, 2022);
+        RentValue rent = new RentValue("client", car, pick, new DateValue(5, 1, 2022));
+        check(rent.getReturnDate().equals(pick.tomorrow()) && rent.howManyDays() == 1, "return before pick up in " + rent);
+        rent = new RentValue("client", car, pick, pick);
+        check(rent.getReturnDate().equals(pick.tomorrow()), "return on the pick up day in " + rent);
+        check(rent.toString().equals(new Rent("client", car.toCar(), pick.toDate(), pick.toDate()).toString()), "text of " + rent);
+    } // end of method checkDefaults
+    
+    // checks that CarValue compares, hashes and prints like Car
+    private static void checkCars(Car car, Car other){
+        CarValue value = new CarValue(car), otherValue = new CarValue(other);
+        check(value.toString().equals(car.toString()) && value.getId() == car.getId(), "text of " + car);
+        check(value.toCar().equals(car) && value.toCar().getId() == car.getId(), "toCar of " + car);
+        check(value.better(otherValue) == car.better(other) && value.worse(otherValue) == car.worse(other), "better of " + car + " " + other);
+        check(value.equals(otherValue) == car.equals(other), "equals of " + car + " " + other);
+        check(!value.equals(otherValue) || value.hashCode() == otherValue.hashCode(), "hashCode of " + car + " " + other);
+        check(value.getBrand() == car.getBrand().intern(), "brand of " + car + " is not interned");
+    } // end of method checkCars
+    
+    // checks that a RentValue has the same fields, text, days and price as its rent
+    private static void checkRent(Rent rent){
+        RentValue value = new RentValue(rent);
+        check(value.toString().equals(rent.toString()), "text of " + rent);
+        check(value.getPrice() == rent.getPrice() && value.howManyDays() == rent.howManyDays(), "price and days of " + rent);
+        check(value.getPickDate().getDayNumber() == rent.getPickDay() && value.getReturnDate().getDayNumber() == rent.getReturnDay(),
+        "dates of " + rent);
+        check(value.toRent().equals(rent), "toRent of " + rent);
+        check(value.getName() == rent.getName().intern(), "name of " + rent + " is not interned");
+    } // end of method checkRent
+    
+    // checks that two RentValue objects overlap and compare like their rents
+    private static void checkPair(Rent rent, Rent other){
+        RentValue value = new RentValue(rent), otherValue = new RentValue(other);
+        Rent unified = rent.overlap(other);
+        RentValue unifiedValue = value.overlap(otherValue);
+        check((unified == null) == (unifiedValue == null), "overlap of " + rent + " and " + other);
+        if (unified != null){
+            check(unifiedValue.toString().equals(unified.toString()) && unifiedValue.toRent().equals(unified), "unified " + unifiedValue);
+            check(unifiedValue.getCar().getId() == unified.getCar().getId(), "car of unified " + unifiedValue);
+            if (rent.getPickDay() <= other.getPickDay() && rent.getReturnDay() >= other.getReturnDay())
+                check(unifiedValue == value, "overlap of " + rent + " and " + other + " copied the rent that covers the other");
+        } // end of if statement
+        check(value.equals(otherValue) == rent.equals(other), "equals of " + rent + " " + other);
+        check(!value.equals(otherValue) || value.hashCode() == otherValue.hashCode(), "hashCode of " + rent + " " + other);
+    } // end of method checkPair
+    
+    // returns a random car of a few ids, types and brands, with a brand that is not interned
+    private static Car randomCar(Random random){
+        return new Car(1000000 + random.nextInt(3), TYPES[random.nextInt(TYPES.length)],
+        new String(BRANDS[random.nextInt(BRANDS.length)]), random.nextBoolean());
+    } // end of method randomCar
+    
+    // returns a random rent of January and February 2020, sometimes with a return date before the pick up date
+    private static Rent randomRent(String name, Car car, Random random){
+        Date pick = new Date(1 + random.nextInt(28), 1 + random.nextInt(2), 2020);
+        Date ret = new Date(1 + random.nextInt(28), 1 + random.nextInt(2), 2020);
+        return new Rent(new String(name), car, pick, ret);
+    } // end of method randomRent
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+    } // end of method check
+    
+} // end of class RentValueTest
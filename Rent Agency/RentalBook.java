@@ -0,0 +1,244 @@
+/**
+ * This class represents a book of rents, indexed for finding double bookings
+ *
+ * Two rents overlap the same way Rent.overlap decides it: they have the same client name and
+ * the same car (by Car.equals), and their dates share at least one day.
+ * The rents are grouped by client name and car in a hash table. Every group keeps its rents
+ * in an interval tree: a treap ordered by pick up day, where every node also holds the latest
+ * return day in its subtree, so subtrees that end before a booking starts are skipped.
+ * - add takes O(log n) expected time
+ * - findOverlaps takes O(log n + k) for k overlapping rents (O(k log n) at worst, when the
+ *   overlapping rents are spread through a group of long and short rents)
+ * - allOverlaps finds every double booking with a sweep over each group in pick up order,
+ *   in O(n log n + k) instead of comparing all the pairs
+ * - mergeOverlaps unifies every chain of overlapping rents into one rent, like overlap does
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+public class RentalBook{
+    
+    // Attributes and finals
+    private HashMap<Key, Node> _groups = new HashMap<Key, Node>(); // the tree of every client and car
+    private int _size; // number of rents in the book
+    private Random _rand = new Random(); // the priorities of the treap
+    
+    /**
+     * Creates a new empty rental book
+     */
+    public RentalBook(){
+    } // end of Constructor RentalBook
+    
+    /**
+     * Adds a copy of a rent to the book
+     * @param rent The rent to add
+     */
+    public void add(Rent rent){
+        Rent copy = new Rent(rent);
+        Key key = new Key(copy);
+        Node node = new Node(copy, _rand.nextInt());
+        _groups.put(key, insert(_groups.get(key), node));
+        _size++;
+    } // end of method add
+    
+    /**
+     * Gets the number of rents in the book
+     * @return The number of rents
+     */
+    public int getSize(){
+        return _size;
+    } // end of method getSize
+    
+    /**
+     * Finds the rents of the book that overlap the given rent (the same client and car, with a shared day)
+     * @param rent The rent to check, usually a new booking
+     * @return Copies of the overlapping rents, in pick up order (empty if there are none)
+     */
+    public Rent[] findOverlaps(Rent rent){
+        List<Rent> found = new ArrayList<Rent>();
+        Node root = _groups.get(new Key(rent));
+        if (root != null)
+            collect(root, rent.getPickDay(), rent.getReturnDay(), found);
+        return copies(found);
+    } // end of method findOverlaps
+    
+    /**
+     * Finds every pair of overlapping rents in the book
+     * @return The pairs of overlapping rents (copies), each pair in pick up order
+     */
+    public List<Rent[]> allOverlaps(){
+        List<Rent[]> pairs = new ArrayList<Rent[]>();
+        List<Node> sorted = new ArrayList<Node>();
+        // the rents that are still active at the current pick up day, the earliest return first
+        PriorityQueue<Node> active = new PriorityQueue<Node>((a, b) -> Integer.compare(a._ret, b._ret));
+        for (Node root : _groups.values()){
+            sorted.clear();
+            inOrder(root, sorted);
+            active.clear();
+            for (Node node : sorted){
+                while (!active.isEmpty() && active.peek()._ret < node._pick) // ended before this rent starts
+                    active.poll();
+                for (Node other : active) // every active rent shares this rent's pick up day
+                    pairs.add(new Rent[]{new Rent(other._rent), new Rent(node._rent)});
+                active.add(node);
+            } // end of for
+        } // end of for
+        return pairs;
+    } // end of method allOverlaps
+    
+    /**
+     * Unifies the overlapping rents of the book: every chain of overlapping rents of the same client
+     * and car becomes one rent from the first pick up date to the last return date, like overlap does.
+     * The book itself is not changed.
+     * @return The unified rents and the rents that overlap no other rent
+     */
+    public Rent[] mergeOverlaps(){
+        List<Rent> merged = new ArrayList<Rent>();
+        List<Node> sorted = new ArrayList<Node>();
+        for (Node root : _groups.values()){
+            sorted.clear();
+            inOrder(root, sorted);
+            Node first = sorted.get(0), last = first; // the chain: its first rent and the rent it ends with
+            for (int i = 1; i <= sorted.size(); i++){
+                Node node = i < sorted.size() ? sorted.get(i) : null;
+                if (node != null && node._pick <= last._ret){ // overlaps the chain
+                    if (node._ret > last._ret)
+                        last = node;
+                    continue;
+                } // end of if statement
+                if (first == last) // the first rent covers the whole chain
+                    merged.add(new Rent(first._rent));
+                else
+                    merged.add(new Rent(first._rent.getName(), first._rent.getCar(),
+                    first._rent.getPickDate(), last._rent.getReturnDate()));
+                first = last = node;
+            } // end of for
+        } // end of for
+        return merged.toArray(new Rent[merged.size()]);
+    } // end of method mergeOverlaps
+    
+    // inserts a node into a treap and returns the new root
+    private static Node insert(Node root, Node node){
+        if (root == null)
+            return node;
+        if (node._pick < root._pick){
+            root._left = insert(root._left, node);
+            if (root._left._priority > root._priority)
+                root = rotateRight(root);
+        } // end of if statement
+        else{ // equal pick up days go to the right
+            root._right = insert(root._right, node);
+            if (root._right._priority > root._priority)
+                root = rotateLeft(root);
+        } // end of else statement
+        root.update();
+        return root;
+    } // end of method insert
+    
+    // rotates the left child of root up and returns it
+    private static Node rotateRight(Node root){
+        Node left = root._left;
+        root._left = left._right;
+        left._right = root;
+        root.update();
+        return left;
+    } // end of method rotateRight
+    
+    // rotates the right child of root up and returns it
+    private static Node rotateLeft(Node root){
+        Node right = root._right;
+        root._right = right._left;
+        right._left = root;
+        root.update();
+        return right;
+    } // end of method rotateLeft
+    
+    // adds the rents of the subtree that share a day with [pick, ret], in pick up order
+    private static void collect(Node node, int pick, int ret, List<Rent> found){
+        if (node == null || node._maxRet < pick) // the whole subtree ends before pick
+            return;
+        collect(node._left, pick, ret, found);
+        if (node._pick > ret) // this rent and the right subtree start after ret
+            return;
+        if (node._ret >= pick)
+            found.add(node._rent);
+        collect(node._right, pick, ret, found);
+    } // end of method collect
+    
+    // adds the nodes of the subtree in pick up order
+    private static void inOrder(Node node, List<Node> sorted){
+        while (node != null){
+            inOrder(node._left, sorted);
+            sorted.add(node);
+            node = node._right;
+        } // end of while
+    } // end of method inOrder
+    
+    // returns copies of the rents of a list
+    private static Rent[] copies(List<Rent> rents){
+        Rent[] copies = new Rent[rents.size()];
+        for (int i = 0; i < copies.length; i++)
+            copies[i] = new Rent(rents.get(i));
+        return copies;
+    } // end of method copies
+    
+    // the group of a rent: its client name and the fields Car.equals compares
+    private static class Key{
+        private final String _name;
+        private final char _type;
+        private final String _brand;
+        private final boolean _isManual;
+        
+        private Key(Rent rent){
+            Car car = rent.getCar();
+            _name = rent.getName();
+            _type = car.getType();
+            _brand = car.getBrand();
+            _isManual = car.isManual();
+        } // end of Constructor Key
+        
+        public boolean equals(Object obj){
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key)obj;
+            return _type == other._type && _isManual == other._isManual &&
+            _name.equals(other._name) && _brand.equals(other._brand);
+        } // end of method equals
+        
+        public int hashCode(){
+            return ((_name.hashCode() * 31 + _brand.hashCode()) * 31 + _type) * 2 + (_isManual ? 1 : 0);
+        } // end of method hashCode
+    } // end of class Key
+    
+    // a rent in the interval tree of its group
+    private static class Node{
+        private final Rent _rent;
+        private final int _pick, _ret; // the day numbers of the pick up and return dates
+        private final int _priority;
+        private int _maxRet; // the latest return day in the subtree
+        private Node _left, _right;
+        
+        private Node(Rent rent, int priority){
+            _rent = rent;
+            _pick = rent.getPickDay();
+            _ret = rent.getReturnDay();
+            _priority = priority;
+            _maxRet = _ret;
+        } // end of Constructor Node
+        
+        // recomputes the latest return day of the subtree from the children
+        private void update(){
+            _maxRet = _ret;
+            if (_left != null && _left._maxRet > _maxRet)
+                _maxRet = _left._maxRet;
+            if (_right != null && _right._maxRet > _maxRet)
+                _maxRet = _right._maxRet;
+        } // end of method update
+    } // end of class Node
+    
+} // end of class RentalBook
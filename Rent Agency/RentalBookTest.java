@@ -0,0 +1,150 @@
+/**
+ * Tests of RentalBook against comparing all the pairs of rents with Rent.overlap
+ *
+ * Random books of a few clients and cars, of short and of long rents, are checked:
+ * allOverlaps must return exactly the pairs that overlap, findOverlaps the rents that overlap a new booking,
+ * and mergeOverlaps the rents left after unifying overlapping pairs with overlap until none overlap.
+ * The books are random, so a failure can be repeated with the seed the test printed.
+ *
+ * java RentalBookTest [seed]
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+public class RentalBookTest{
+    
+    // Attributes and finals
+    private static final int BOOKS = 200; // number of random books
+    private static final int MAX_RENTS = 300; // the most rents of a book
+    private static final int QUERIES = 20; // number of findOverlaps queries of every book
+    
+    /**
+     * Runs the tests
+     * @param args an optional random seed
+     */
+    public static void main(String[] args){
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        System.out.println("seed " + seed);
+        Random random = new Random(seed);
+        checkEmpty();
+        System.out.println("empty book: ok");
+        for (int b = 0; b < BOOKS; b++){
+            String[] clients = new String[1 + random.nextInt(3)];
+            for (int i = 0; i < clients.length; i++)
+                clients[i] = "client" + i;
+            Car[] cars = new Car[1 + random.nextInt(3)];
+            for (int i = 0; i < cars.length; i++)
+                cars[i] = new Car(1000000 + i, (char)('A' + i % 4), i % 2 == 0 ? "Kia" : "Mazda", false);
+            int longest = b % 2 == 0 ? 5 : 40; // short rents overlap a few others, long rents many
+            Rent[] rents = new Rent[random.nextInt(MAX_RENTS)];
+            RentalBook book = new RentalBook();
+            for (int i = 0; i < rents.length; i++){
+                rents[i] = randomRent(clients, cars, longest, random);
+                book.add(rents[i]);
+            } // end of for
+            check(book.getSize() == rents.length, "size " + book.getSize() + " of " + rents.length + " rents");
+            checkAll(book, rents);
+            for (int q = 0; q < QUERIES; q++)
+                checkFind(book, rents, randomRent(clients, cars, 10, random));
+            checkMerge(book, rents);
+        } // end of for
+        System.out.println("allOverlaps, findOverlaps and mergeOverlaps: ok");
+    } // end of method main
+    
+    // checks the results of a book without rents
+    private static void checkEmpty(){
+        RentalBook book = new RentalBook();
+        Rent rent = new Rent("client", new Car(1000000, 'A', "Kia", false), new Date(1, 1, 2022), new Date(5, 1, 2022));
+        check(book.getSize() == 0, "empty size");
+        check(book.findOverlaps(rent).length == 0, "empty findOverlaps");
+        check(book.allOverlaps().isEmpty(), "empty allOverlaps");
+        check(book.mergeOverlaps().length == 0, "empty mergeOverlaps");
+    } // end of method checkEmpty
+    
+    // checks that allOverlaps returns every overlapping pair of the rents once
+    private static void checkAll(RentalBook book, Rent[] rents){
+        List<String> expected = new ArrayList<String>(), found = new ArrayList<String>();
+        for (int i = 0; i < rents.length; i++)
+            for (int j = i + 1; j < rents.length; j++)
+                if (rents[i].overlap(rents[j]) != null)
+                    expected.add(pair(rents[i], rents[j]));
+        for (Rent[] pair : book.allOverlaps()){
+            check(pair[0].getPickDay() <= pair[1].getPickDay(), "pair not in pick up order: " + pair[0] + " " + pair[1]);
+            found.add(pair(pair[0], pair[1]));
+        } // end of for
+        checkSame(expected, found, "allOverlaps");
+    } // end of method checkAll
+    
+    // checks that findOverlaps returns the rents that overlap a booking, in pick up order
+    private static void checkFind(RentalBook book, Rent[] rents, Rent booking){
+        List<String> expected = new ArrayList<String>(), found = new ArrayList<String>();
+        for (Rent rent : rents)
+            if (booking.overlap(rent) != null)
+                expected.add(rent.toString());
+        Rent[] overlaps = book.findOverlaps(booking);
+        for (int i = 0; i < overlaps.length; i++){
+            check(i == 0 || overlaps[i - 1].getPickDay() <= overlaps[i].getPickDay(), "findOverlaps not in pick up order");
+            found.add(overlaps[i].toString());
+        } // end of for
+        checkSame(expected, found, "findOverlaps of " + booking);
+    } // end of method checkFind
+    
+    // checks mergeOverlaps against unifying overlapping rents with overlap until none overlap
+    private static void checkMerge(RentalBook book, Rent[] rents){
+        List<Rent> merged = new ArrayList<Rent>();
+        for (Rent rent : rents)
+            merged.add(rent);
+        boolean changed = true;
+        while (changed){
+            changed = false;
+            for (int i = 0; i < merged.size() && !changed; i++)
+                for (int j = i + 1; j < merged.size() && !changed; j++){
+                    Rent unified = merged.get(i).overlap(merged.get(j));
+                    if (unified != null){
+                        merged.set(i, unified);
+                        merged.remove(j);
+                        changed = true;
+                    } // end of if statement
+                } // end of for
+        } // end of while
+        List<String> expected = new ArrayList<String>(), found = new ArrayList<String>();
+        for (Rent rent : merged)
+            expected.add(rent.toString());
+        for (Rent rent : book.mergeOverlaps())
+            found.add(rent.toString());
+        checkSame(expected, found, "mergeOverlaps");
+    } // end of method checkMerge
+    
+    // returns a random rent of 2022 of one of the clients and cars, of 1 to longest days
+    private static Rent randomRent(String[] clients, Car[] cars, int longest, Random random){
+        Date pick = new Date(1 + random.nextInt(28), 1 + random.nextInt(3), 2022);
+        Date ret = pick;
+        for (int days = 1 + random.nextInt(longest); days > 0; days--)
+            ret = ret.tomorrow();
+        return new Rent(clients[random.nextInt(clients.length)], cars[random.nextInt(cars.length)], pick, ret);
+    } // end of method randomRent
+    
+    // returns a text of a pair of rents that does not depend on their order
+    private static String pair(Rent first, Rent second){
+        String a = first.toString(), b = second.toString();
+        return a.compareTo(b) < 0 ? a + " | " + b : b + " | " + a;
+    } // end of method pair
+    
+    // checks that two lists have the same texts, in any order
+    private static void checkSame(List<String> expected, List<String> found, String name){
+        Collections.sort(expected);
+        Collections.sort(found);
+        check(expected.equals(found), name + " found " + found.size() + " instead of " + expected.size());
+    } // end of method checkSame
+    
+    // throws an exception with the message if the condition is false
+    private static void check(boolean condition, String message){
+        if (!condition)
+            throw new IllegalStateException("Test failed: " + message);
+    } // end of method check
+    
+} // end of class RentalBookTest
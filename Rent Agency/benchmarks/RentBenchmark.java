@@ -0,0 +1,542 @@
+
+/**
+ * Benchmark runner for the rental classes.
+ * Every benchmark runs over a grid of rental-book sizes, with warmup iterations before the
+ * measured ones, and the results are written as CSV so runs can be compared to catch regressions.
+ * Every row is measured in fresh JVMs (forks, 2 by default, 0 measures in the runner's JVM) with the JVM options
+ * of the runner. The warmup runs a benchmark at least warmup times and for at least warmupTime milliseconds,
+ * and every measured iteration repeats it for at least iterationTime milliseconds. The results go into a
+ * volatile sink, so the JIT can not drop the measured work.
+ * The benchmark is kept out of the rental sources, in benchmarks/:
+ * javac -d classes *.java benchmarks/*.java
+ *
+ * Usage (all arguments are optional):
+ * java -cp classes RentBenchmark sizes=1000,100000 benchmarks=getPrice,overlap warmup=3 warmupTime=1000
+ *                  iterations=5 iterationTime=100 forks=2 out=results.csv
+ *
+ * The date benchmarks (dateSort...) sort an array of that many random dates instead of using a rental book.
+ * 10 million dates need about 1 GB of heap (java -Xmx2g -cp classes RentBenchmark sizes=10000000 benchmarks=dateSort).
+ * The fleet benchmarks (fleet...) use a fleet of that many cars, each rented about a third of the days.
+ *
+ * @author Gal Levi
+ * @version 20/11/2022
+ */
+import java.io.BufferedReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+public class RentBenchmark{
+    
+    // the available benchmarks
+    private static final String[] ALL_BENCHMARKS = {"getPrice", "howManyDays", "overlap", "overlapAllPairs",
+                                                    "valueGetPrice", "valueHowManyDays", "valueOverlap",
+                                                    "columnsTotalRevenue", "columnsRevenueByType", "columnsAverageDuration",
+                                                    "bookAdd", "bookFindOverlaps", "bookAllOverlaps",
+                                                    "dateSortRecomputed", "dateSort", "dateValueSort", "dayNumberSort",
+                                                    "fleetAvailable", "fleetCountAvailable", "fleetRent"};
+    private static final String DEFAULT_SIZES = "1000,10000,100000";
+    private static final int MAX_ALL_PAIRS = 20000; // all-pairs overlap is quadratic, larger books are skipped
+    private static final int CLIENTS = 1000; // number of distinct client names in a generated book
+    private static final int CARS = 200; // number of distinct cars in a generated book
+    private static final int FIRST_YEAR = 2020, YEARS = 5; // the generated pick up dates are in 2020-2024
+    private static final int MAX_RENT_DAYS = 30;
+    private static final int RENTS_PER_CAR = 40; // rents of every car of a generated fleet
+    private static final int FLEET_QUERIES = 1000; // searches per iteration of a fleet benchmark
+    private static final long SEED = 42;
+    
+    private static volatile long _sink; // consumes results so the JIT cannot drop the measured work
+    private static int _warmup = 3, _iterations = 5, _forks = 2; // runs of the warmup, measured iterations, JVMs per row
+    private static long _warmupMillis = 1000, _iterationMillis = 100; // the least time of the warmup and of an iteration
+    private static final String ITERATION = "iteration"; // the prefix of the iterations a forked JVM prints
+
+/*---------------------------------Main method----------------------------------------------------------------------*/
+    
+    /**
+     * Runs the requested benchmarks and writes one CSV row per benchmark and book size.
+     * Columns: benchmark, size, iterations, ns_per_op, ops_per_sec, bytes_per_op, forks, ns_per_op_stddev
+     * Every row is measured in its own JVMs (see forks), and iterations counts the measured iterations of all of them.
+     *
+     * @param args key=value options: sizes, benchmarks, warmup, warmupTime, iterations, iterationTime, forks, out
+     */
+    public static void main(String[] args) throws IOException, InterruptedException{
+        
+        String[] benchmarks = ALL_BENCHMARKS;
+        String sizes = DEFAULT_SIZES;
+        String out = "rent-benchmark.csv";
+        String fork = null;
+        
+        for (String arg : args){
+            int eq = arg.indexOf('=');
+            if (eq < 0){
+                System.out.println("Ignoring argument without '=': " + arg);
+                continue;
+            }
+            String key = arg.substring(0, eq), value = arg.substring(eq + 1);
+            switch (key){
+                case "benchmarks": benchmarks = value.split(","); break;
+                case "sizes": sizes = value; break;
+                case "warmup": _warmup = Integer.parseInt(value); break;
+                case "warmupTime": _warmupMillis = Long.parseLong(value); break;
+                case "iterations": _iterations = Integer.parseInt(value); break;
+                case "iterationTime": _iterationMillis = Long.parseLong(value); break;
+                case "forks": _forks = Integer.parseInt(value); break;
+                case "fork": fork = value; break; // only given to the forked JVMs
+                case "out": out = value; break;
+                default: System.out.println("Ignoring unknown option: " + key);
+            } // end of switch
+        } // end of for
+        
+        if (fork != null){ // a forked JVM: measures one row and prints its iterations for the parent
+            String[] row = fork.split(",");
+            for (long[] iteration : iterations(row[0], Integer.parseInt(row[1])))
+                System.out.println(ITERATION + " " + iteration[0] + " " + iteration[1] + " " + iteration[2]);
+            return;
+        } // end of if
+        
+        try (PrintWriter csv = new PrintWriter(new FileWriter(out))){
+            csv.println("benchmark,size,iterations,ns_per_op,ops_per_sec,bytes_per_op,forks,ns_per_op_stddev");
+            for (String benchmark : benchmarks)
+                for (String size : sizes.split(",")){
+                    int n = Integer.parseInt(size.trim());
+                    if (benchmark.equals("overlapAllPairs") && n > MAX_ALL_PAIRS)
+                        continue;
+                    String row = measure(benchmark, n, args);
+                    csv.println(row);
+                    csv.flush();
+                    System.out.println(row);
+                } // end of for
+        } // end of try
+        System.out.println("Results were written to " + out);
+        
+    } // end of method main
+
+/*---------------------------------Measurement----------------------------------------------------------------------*/
+    
+    // measures one benchmark in _forks fresh JVMs (in this one if _forks is 0) and formats the results as a CSV row;
+    // a fresh JVM per row keeps the JIT profile and the garbage of one benchmark from skewing the next
+    private static String measure(String benchmark, int size, String[] args) throws IOException, InterruptedException{
+        
+        String row = benchmark + "," + size;
+        List<long[]> iterations = new ArrayList<long[]>();
+        if (_forks == 0)
+            iterations.addAll(iterations(benchmark, size));
+        for (int f = 0; f < _forks; f++)
+            iterations.addAll(fork(row, args));
+        return row + "," + summary(iterations);
+        
+    } // end of method measure
+    
+    // runs the warmup (at least _warmup runs and _warmupMillis) and the measured iterations (each repeats the
+    // benchmark for at least _iterationMillis) of one benchmark in this JVM, and returns the nanoseconds,
+    // allocated bytes (-1 if unknown) and operations of every measured iteration
+    private static List<long[]> iterations(String benchmark, int size){
+        
+        // a date benchmark only needs the dates, and 10 million rents would not fit in the heap next to them
+        boolean dates = benchmark.startsWith("date") || benchmark.startsWith("dayNumber");
+        boolean fleets = benchmark.startsWith("fleet"); // a fleet benchmark only needs the fleet
+        Rent[] book = dates || fleets ? null : generate(size);
+        Date[] days = dates ? generateDates(size) : null;
+        Fleet fleet = fleets ? generateFleet(size) : null;
+        long warmupEnd = System.nanoTime() + _warmupMillis * 1000000L;
+        for (int i = 0; i < _warmup || System.nanoTime() < warmupEnd; i++)
+            run(benchmark, book, days, fleet);
+        
+        List<long[]> iterations = new ArrayList<long[]>();
+        for (int i = 0; i < _iterations; i++){
+            long[] iteration = new long[3]; // nanoseconds, bytes, operations
+            long end = System.nanoTime() + _iterationMillis * 1000000L;
+            do{
+                Result result = run(benchmark, book, days, fleet);
+                iteration[0] += result._nanos;
+                iteration[1] = iteration[1] < 0 || result._bytes < 0 ? -1 : iteration[1] + result._bytes;
+                iteration[2] += result._ops;
+            } while (System.nanoTime() < end);
+            iterations.add(iteration);
+        } // end of for
+        return iterations;
+        
+    } // end of method iterations
+    
+    // runs the iterations of one row in a fresh JVM, with the options and class path of this one,
+    // and returns them (none if the JVM failed, e.g. ran out of memory)
+    private static List<long[]> fork(String row, String[] args) throws IOException, InterruptedException{
+        
+        List<String> command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(RentBenchmark.class.getName());
+        command.addAll(Arrays.asList(args));
+        command.add("fork=" + row);
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        List<long[]> iterations = new ArrayList<long[]>();
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))){
+            for (String line = output.readLine(); line != null; line = output.readLine()){
+                if (!line.startsWith(ITERATION + " ")){ // a message of the forked JVM
+                    System.out.println(line);
+                    continue;
+                }
+                String[] fields = line.split(" ");
+                iterations.add(new long[]{Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3])});
+            } // end of for
+        } // end of try
+        if (process.waitFor() != 0){
+            System.out.println("The JVM of " + row + " failed with exit status " + process.exitValue());
+            iterations.clear();
+        } // end of if
+        return iterations;
+        
+    } // end of method fork
+    
+    // formats measured iterations as the iterations, ns_per_op, ops_per_sec, bytes_per_op, forks and
+    // ns_per_op_stddev columns; the standard deviation is of the ns/op of the single iterations, over all the forks
+    private static String summary(List<long[]> iterations){
+        
+        long totalNanos = 0, totalBytes = 0, totalOps = 0;
+        double meanNsPerOp = 0;
+        for (long[] iteration : iterations){
+            totalNanos += iteration[0];
+            totalBytes = totalBytes < 0 || iteration[1] < 0 ? -1 : totalBytes + iteration[1];
+            totalOps += iteration[2];
+            meanNsPerOp += (double)iteration[0] / iteration[2] / iterations.size();
+        } // end of for
+        double squares = 0;
+        for (long[] iteration : iterations){
+            double deviation = (double)iteration[0] / iteration[2] - meanNsPerOp;
+            squares += deviation * deviation;
+        } // end of for
+        
+        double nsPerOp = totalOps == 0 ? Double.NaN : (double)totalNanos / totalOps;
+        double bytesPerOp = totalBytes < 0 || totalOps == 0 ? Double.NaN : (double)totalBytes / totalOps;
+        double stddev = iterations.size() < 2 ? Double.NaN : Math.sqrt(squares / (iterations.size() - 1));
+        return iterations.size() + "," + String.format("%.3f,%.0f,%.3f", nsPerOp, 1e9 / nsPerOp, bytesPerOp) +
+               "," + _forks + "," + String.format("%.3f", stddev);
+        
+    } // end of method summary
+    
+    // runs one iteration of a benchmark over the given book, or over the dates or the fleet it needs
+    private static Result run(String benchmark, Rent[] book, Date[] days, Fleet fleet){
+        
+        int n = book != null ? book.length : days != null ? days.length : FLEET_QUERIES;
+        Result result;
+        long sum = 0;
+        switch (benchmark){
+            case "getPrice":
+                result = new Result(n);
+                result.start();
+                for (int i = 0; i < n; i++)
+                    sum += book[i].getPrice();
+                result.stop();
+                break;
+            case "howManyDays":
+                result = new Result(n);
+                result.start();
+                for (int i = 0; i < n; i++)
+                    sum += book[i].howManyDays();
+                result.stop();
+                break;
+            case "overlap": // every rent against its neighbour
+                result = new Result(n - 1);
+                result.start();
+                for (int i = 1; i < n; i++)
+                    if (book[i].overlap(book[i-1]) != null)
+                        sum++;
+                result.stop();
+                break;
+            case "overlapAllPairs": // finds every double booking by checking all the pairs
+                result = new Result((long)n * (n - 1) / 2);
+                result.start();
+                for (int i = 0; i < n; i++)
+                    for (int j = i + 1; j < n; j++)
+                        if (book[i].overlap(book[j]) != null)
+                            sum++;
+                result.stop();
+                break;
+            case "valueGetPrice": // the same benchmarks over immutable copies of the rents
+                RentValue[] priced = values(book);
+                result = new Result(n);
+                result.start();
+                for (int i = 0; i < n; i++)
+                    sum += priced[i].getPrice();
+                result.stop();
+                break;
+            case "valueHowManyDays":
+                RentValue[] counted = values(book);
+                result = new Result(n);
+                result.start();
+                for (int i = 0; i < n; i++)
+                    sum += counted[i].howManyDays();
+                result.stop();
+                break;
+            case "valueOverlap":
+                RentValue[] checked = values(book);
+                result = new Result(n - 1);
+                result.start();
+                for (int i = 1; i < n; i++)
+                    if (checked[i].overlap(checked[i-1]) != null)
+                        sum++;
+                result.stop();
+                break;
+            case "columnsTotalRevenue": // the reports of a columnar copy of the book, per rent
+                RentColumns revenue = new RentColumns(book);
+                result = new Result(n);
+                result.start();
+                sum = revenue.totalRevenue();
+                result.stop();
+                break;
+            case "columnsRevenueByType":
+                RentColumns byType = new RentColumns(book);
+                result = new Result(n);
+                result.start();
+                for (long typeRevenue : byType.revenueByType())
+                    sum += typeRevenue;
+                result.stop();
+                break;
+            case "columnsAverageDuration":
+                RentColumns durations = new RentColumns(book);
+                result = new Result(n);
+                result.start();
+                sum = (long)durations.averageDuration();
+                result.stop();
+                break;
+            case "bookAdd": // indexes the book
+                result = new Result(n);
+                result.start();
+                RentalBook added = new RentalBook();
+                for (int i = 0; i < n; i++)
+                    added.add(book[i]);
+                result.stop();
+                sum = added.getSize();
+                break;
+            case "bookFindOverlaps": // checks every rent of the book as a new booking
+                RentalBook indexed = index(book);
+                result = new Result(n);
+                result.start();
+                for (int i = 0; i < n; i++)
+                    sum += indexed.findOverlaps(book[i]).length;
+                result.stop();
+                break;
+            case "bookAllOverlaps": // finds every double booking with the index, per rent of the book
+                RentalBook all = index(book);
+                result = new Result(n);
+                result.start();
+                sum = all.allOverlaps().size();
+                result.stop();
+                break;
+            case "dateSortRecomputed": // sorts dates by day numbers computed on every comparison, like before() used to
+                Date[] recomputed = days.clone();
+                result = new Result(n);
+                result.start();
+                Arrays.sort(recomputed, (a, b) -> Integer.compare(dayNumber(a), dayNumber(b)));
+                result.stop();
+                sum = recomputed[n / 2].getDay();
+                break;
+            case "dateSort": // sorts dates with before(), which compares the day numbers they keep
+                Date[] sorted = days.clone();
+                result = new Result(n);
+                result.start();
+                Arrays.sort(sorted, (a, b) -> a.before(b) ? -1 : b.before(a) ? 1 : 0);
+                result.stop();
+                sum = sorted[n / 2].getDay();
+                break;
+            case "dateValueSort": // sorts immutable dates in their natural order
+                DateValue[] values = new DateValue[n];
+                for (int i = 0; i < n; i++)
+                    values[i] = new DateValue(days[i]);
+                result = new Result(n);
+                result.start();
+                Arrays.sort(values);
+                result.stop();
+                sum = values[n / 2].getDay();
+                break;
+            case "dayNumberSort": // sorts the bare day numbers, the lower bound of sorting dates
+                int[] dayNumbers = new int[n];
+                for (int i = 0; i < n; i++)
+                    dayNumbers[i] = days[i].getDayNumber();
+                result = new Result(n);
+                result.start();
+                Arrays.sort(dayNumbers);
+                result.stop();
+                sum = dayNumbers[n / 2];
+                break;
+            case "fleetAvailable": // searches for free cars of a type, and sometimes a gearbox, for 1-14 days
+            case "fleetCountAvailable":
+            case "fleetRent": // rents the first free car of such a search
+                Random rand = new Random(SEED + _sink);
+                char[] types = new char[n];
+                int[] gears = new int[n];
+                Date[] from = new Date[n], to = new Date[n];
+                for (int i = 0; i < n; i++){
+                    types[i] = (char)('A' + rand.nextInt(4));
+                    gears[i] = rand.nextBoolean() ? Fleet.ANY_GEAR : Fleet.MANUAL + rand.nextInt(2);
+                    from[i] = new Date(1 + rand.nextInt(28), 1 + rand.nextInt(12), FIRST_YEAR + rand.nextInt(YEARS));
+                    to[i] = from[i];
+                    for (int d = rand.nextInt(14); d > 0; d--)
+                        to[i] = to[i].tomorrow();
+                } // end of for
+                result = new Result(n);
+                result.start();
+                if (benchmark.equals("fleetAvailable"))
+                    for (int i = 0; i < n; i++)
+                        sum += fleet.available(types[i], gears[i], Fleet.ANY_BRAND, from[i], to[i]).length;
+                else if (benchmark.equals("fleetCountAvailable"))
+                    for (int i = 0; i < n; i++)
+                        sum += fleet.countAvailable(types[i], gears[i], Fleet.ANY_BRAND, from[i], to[i]);
+                else
+                    for (int i = 0; i < n; i++)
+                        if (fleet.rent("client" + i, types[i], gears[i], Fleet.ANY_BRAND, from[i], to[i]) != null)
+                            sum++;
+                result.stop();
+                break;
+            default: throw new IllegalArgumentException("Unknown benchmark: " + benchmark);
+        } // end of switch
+        _sink += sum;
+        return result;
+        
+    } // end of method run
+
+/*---------------------------------Helper methods-------------------------------------------------------------------*/
+    
+    /*
+     * Generates a rental book of the given size.
+     * Clients and cars are drawn from small pools so some rents of the same client and car overlap.
+     */
+    private static Rent[] generate(int size){
+        
+        Random rand = new Random(SEED);
+        char[] types = {'A', 'B', 'C', 'D'};
+        String[] brands = {"Toyota", "Mazda", "Kia", "Honda", "Skoda"};
+        Car[] cars = new Car[CARS];
+        for (int i = 0; i < CARS; i++)
+            cars[i] = new Car(1000000 + i, types[i % types.length], brands[i % brands.length], i % 3 == 0);
+        
+        Rent[] book = new Rent[size];
+        for (int i = 0; i < size; i++){
+            Date pick = new Date(1 + rand.nextInt(28), 1 + rand.nextInt(12), FIRST_YEAR + rand.nextInt(YEARS));
+            Date ret = pick;
+            int days = 1 + rand.nextInt(MAX_RENT_DAYS);
+            for (int d = 0; d < days; d++)
+                ret = ret.tomorrow();
+            book[i] = new Rent("client" + rand.nextInt(CLIENTS), cars[rand.nextInt(CARS)], pick, ret);
+        } // end of for
+        return book;
+        
+    } // end of method generate
+    
+    // generates random valid dates in the years 1000-9999
+    private static Date[] generateDates(int size){
+        
+        Random rand = new Random(SEED);
+        Date[] days = new Date[size];
+        for (int i = 0; i < size; i++)
+            days[i] = new Date(1 + rand.nextInt(28), 1 + rand.nextInt(12), 1000 + rand.nextInt(9000));
+        return days;
+        
+    } // end of method generateDates
+    
+    // computes the day number of a date from its fields, the way Date did on every comparison
+    private static int dayNumber(Date date){
+        
+        int day = date.getDay(), month = date.getMonth(), year = date.getYear();
+        if (month < 3){
+            year--;
+            month += 12;
+        } // end of if statement
+        return 365 * year + year / 4 - year / 100 + year / 400 + ((month + 1) * 306) / 10 + (day - 62);
+        
+    } // end of method dayNumber
+    
+    // generates a fleet of the given number of cars, each with RENTS_PER_CAR random rents
+    private static Fleet generateFleet(int size){
+        
+        Random rand = new Random(SEED);
+        char[] types = {'A', 'B', 'C', 'D'};
+        String[] brands = {"Toyota", "Mazda", "Kia", "Honda", "Skoda"};
+        Fleet fleet = new Fleet(new Date(1, 1, FIRST_YEAR));
+        for (int i = 0; i < size; i++){
+            Car car = new Car(1000000 + i, types[rand.nextInt(types.length)], brands[rand.nextInt(brands.length)],
+                              rand.nextBoolean());
+            fleet.add(car);
+            for (int r = 0; r < RENTS_PER_CAR; r++){ // the rents that overlap earlier ones are not reserved
+                Date pick = new Date(1 + rand.nextInt(28), 1 + rand.nextInt(12), FIRST_YEAR + rand.nextInt(YEARS));
+                Date ret = pick;
+                for (int d = 1 + rand.nextInt(MAX_RENT_DAYS); d > 0; d--)
+                    ret = ret.tomorrow();
+                fleet.reserve(new Rent("client" + rand.nextInt(CLIENTS), car, pick, ret));
+            } // end of for
+        } // end of for
+        return fleet;
+        
+    } // end of method generateFleet
+    
+    // returns immutable copies of the rents of the given book
+    private static RentValue[] values(Rent[] book){
+        
+        RentValue[] values = new RentValue[book.length];
+        for (int i = 0; i < book.length; i++)
+            values[i] = new RentValue(book[i]);
+        return values;
+        
+    } // end of method values
+    
+    // returns a rental book with all the rents of the given book
+    private static RentalBook index(Rent[] book){
+        
+        RentalBook indexed = new RentalBook();
+        for (Rent rent : book)
+            indexed.add(rent);
+        return indexed;
+        
+    } // end of method index
+    
+    /*
+     * Time and allocation of one measured region.
+     * The allocated bytes come from the HotSpot thread MXBean and are -1 when it is not available.
+     */
+    private static class Result{
+        
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        private long _ops, _nanos, _bytes, _startNanos, _startBytes;
+        
+        private Result(long ops){
+            
+            _ops = ops;
+            
+        } // end of constructor Result
+        
+        private void start(){
+            
+            _startBytes = allocatedBytes();
+            _startNanos = System.nanoTime();
+            
+        } // end of method start
+        
+        private void stop(){
+            
+            _nanos = System.nanoTime() - _startNanos;
+            long bytes = allocatedBytes();
+            _bytes = bytes < 0 ? -1 : bytes - _startBytes;
+            
+        } // end of method stop
+        
+        // returns the number of bytes the current thread has allocated so far, or -1 if unknown
+        private static long allocatedBytes(){
+            
+            if (THREADS instanceof com.sun.management.ThreadMXBean)
+                return ((com.sun.management.ThreadMXBean)THREADS).getCurrentThreadAllocatedBytes();
+            return -1;
+            
+        } // end of method allocatedBytes
+        
+    } // end of class Result
+
+} // end of class RentBenchmark